@@ -0,0 +1,38 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Turns a method without parameters into a lazily created, invalidation-cached binding.
+ * For a method named {@code computeTotal()} (or {@code total()}) a {@code totalProperty()}
+ * method returning the binding and a {@code getTotal()} getter are generated.
+ * <p>
+ * Dependencies are resolved at compile time from the {@code @FXObservable} fields of the
+ * owning type read by the method, either directly or through their getters and property
+ * methods, and from other {@code @FXComputed} methods it calls. The method is only invoked
+ * when the value is read after one of its dependencies was invalidated. {@code boolean},
+ * {@code int}, {@code long}, {@code float} and {@code double} values are never boxed;
+ * {@code byte}, {@code short} and {@code char} values are widened to {@code int}.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.METHOD)
+public @interface FXComputed {
+}
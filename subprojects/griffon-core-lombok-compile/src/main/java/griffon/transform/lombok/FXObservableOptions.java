@@ -0,0 +1,191 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fine tunes the code generated for {@code @FXObservable}. May be placed on a type or
+ * on a field; each setting found on a field takes precedence over the same setting found
+ * on its type, settings the field leaves out are taken from its type.
+ * <p>
+ * Collection fields also get {@code setAllX} and {@code addAllX} ({@code putAllX} for
+ * maps) bulk mutators that notify the listeners of a materialized property once. A list
+ * property is updated in place, a set or map property receives a new collection, as
+ * JavaFX sets and maps have no batch change; bind content to the property rather than
+ * to the collection it holds.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target({ElementType.TYPE, ElementType.FIELD})
+public @interface FXObservableOptions {
+    /**
+     * How values and properties are stored. {@code DEFAULT} honors the strategy
+     * configured on {@code @FXObservable}.
+     */
+    Storage storage() default Storage.DEFAULT;
+
+    /**
+     * Publishes lazily created properties safely when accessors are called from several
+     * threads. Initialized properties are read without locking. Only supported with the
+     * {@code PLAIN} and {@code SHADOW_FIELD} strategies.
+     */
+    boolean threadSafe() default false;
+
+    /**
+     * Setters called outside the JavaFX application thread only record the latest value
+     * and queue the instance once. A single {@code AnimationTimer} per class drains that
+     * queue on the next pulse, applying the recorded values of every queued instance, so
+     * listeners fire at most once per pulse per field; the timer stops once the queue is
+     * empty. Setters called on the JavaFX application thread apply their value right away
+     * and discard the value recorded for that field. Requires {@code @FXObservable} on the
+     * type and supports up to 64 fields.
+     */
+    boolean coalesce() default false;
+
+    /**
+     * Generates a {@code public static final Callback} per field, named after the field
+     * as a constant with a {@code _CELL_VALUE_FACTORY} suffix, that can be used as a
+     * {@code TableColumn} cell value factory without reflection.
+     */
+    boolean cellValueFactories() default false;
+
+    /**
+     * Generates a {@code public static final Comparator} per primitive, wrapper and
+     * {@code String} field, named after the field as a constant with a {@code _COMPARATOR}
+     * suffix. Values are compared without boxing and, unless the field uses the
+     * {@code PLAIN} strategy and has an initializer, without materializing properties.
+     */
+    boolean comparators() default false;
+
+    /**
+     * Backs {@code int[]} and {@code float[]} fields with a lazily initialized
+     * {@code ObservableIntegerArray} or {@code ObservableFloatArray}, returned by the
+     * property method, and generates element and range setters that update the array
+     * in place. The array getter materializes the observable array and returns a copy
+     * of its content on every call; hot paths should read elements through the
+     * generated indexed getter, or through the array returned by the property method.
+     * Not supported together with {@code threadSafe} or {@code coalesce}.
+     */
+    boolean observableArrays() default false;
+
+    /**
+     * Stores values in {@code ReadOnlyXWrapper} properties. The property method returns
+     * the read-only view of the wrapper, and setters and bulk mutators are generated as
+     * private methods for use by the owning class. Not supported with
+     * {@code FIELD_BACKED} storage.
+     */
+    boolean readOnly() default false;
+
+    /**
+     * Generates a {@code compact()} method that collapses materialized properties without
+     * listeners or bindings back to plain values, so that idle properties can be reclaimed;
+     * it returns the number of collapsed properties. Requires {@code @FXObservable} on the
+     * type and {@code SHADOW_FIELD} or {@code TYPED_SHADOW_FIELD} storage. Collection
+     * fields are never collapsed.
+     */
+    boolean compactable() default false;
+
+    /**
+     * Records which fields changed since the last {@code clearDirty()} in a per-instance
+     * bitset, allocated on the first change. Setters, bulk mutators and changes made
+     * through materialized properties mark a field as dirty. Generates
+     * {@code hasDirtyFields()}, {@code dirtyFields()}, {@code dirtyValues()} and
+     * {@code clearDirty()}. Requires {@code @FXObservable} on the type.
+     */
+    boolean dirtyTracking() default false;
+
+    /**
+     * Generates {@code writeState(DataOutput)} and {@code readState(DataInput)} methods
+     * that write primitive, wrapper and {@code String} values directly, in field
+     * declaration order, reading them through getters. Properties are not materialized,
+     * except with the {@code PLAIN} strategy where every accessor uses the property.
+     * Wrappers and strings are preceded by a null flag; strings are written as the
+     * {@code int} length of their UTF-8 encoding followed by those bytes. Restored values
+     * notify listeners of materialized properties, but fields are not marked dirty,
+     * journaled or published and {@code onChange} is not called. Coalesced fields restored
+     * outside the JavaFX application thread are recorded like setter values and applied,
+     * with the same guarantees, on the next pulse. Fields of other types are skipped.
+     * Requires {@code @FXObservable} on the type.
+     */
+    boolean binaryState() default false;
+
+    /**
+     * Publishes changes to a per-class stream without materializing properties. Setters,
+     * bulk mutators and materialized properties store the latest value of a field and
+     * queue the instance once; further changes coalesce until the consumer calls
+     * {@code drainChanges()}, so publishing never blocks. Consumers take instances with
+     * the static {@code pollChanged()} and may register a non-blocking wakeup with
+     * {@code setChangeSignal(Runnable)}. Instances allocate their value slots on the first
+     * change and hold each value only until it is drained. The stream references queued
+     * instances weakly, so instances nobody polls can still be collected; without a
+     * consumer the stream keeps one cleared reference per such instance until polled.
+     * Requires {@code @FXObservable} on a top-level or static, non-generic type with at
+     * most 64 such fields.
+     */
+    boolean changeStream() default false;
+
+    /**
+     * Records setter changes in a per-instance, fixed-capacity undo journal and generates
+     * {@code undo()}, {@code redo()}, {@code canUndo()}, {@code canRedo()} and
+     * {@code clearUndo()}. Primitive values are stored as raw bits in {@code long} arrays,
+     * other values by reference; collection and array fields are not journaled. The
+     * journal is allocated on the first change and, once full, overwrites the oldest
+     * entries. It is not thread-safe. Requires {@code @FXObservable} on the type.
+     */
+    boolean undoJournal() default false;
+
+    /**
+     * Number of entries kept by the undo journal; read from the type-level options only.
+     */
+    int undoCapacity() default 100;
+
+    /**
+     * Name of a method of the owning class that setters call with the old and the new
+     * value whenever they change the value, without materializing the property or
+     * registering a listener. Changes made through the property itself, including
+     * bindings, are not reported, nor are observable array fields. The method may be
+     * overloaded to suit several fields.
+     */
+    String onChange() default "";
+
+    enum Storage {
+        DEFAULT,
+        /**
+         * Keeps the value in a field of the declared type and the property, once
+         * requested, in a separate field. Primitive getters and setters neither box
+         * nor allocate until the property is materialized.
+         */
+        TYPED_SHADOW_FIELD,
+        /**
+         * Keeps the value in a field of the declared type and materializes the property
+         * as a generated {@code XProperty} subclass that reads and writes that field, so
+         * the property holds no copy of the value, bean or name and getters read the field
+         * directly unless the property is bound. Like {@code TYPED_SHADOW_FIELD}, every
+         * instance has a slot for the property next to the field. Collection fields use a
+         * generated {@code XPropertyBase} subclass that shares the collection with the field.
+         */
+        FIELD_BACKED,
+        /**
+         * Keeps values in fields of their declared types and all properties of the type,
+         * once requested, in a single lazily allocated array indexed by field order.
+         * Requires {@code @FXObservable} on the type.
+         */
+        PROPERTY_TABLE
+    }
+}
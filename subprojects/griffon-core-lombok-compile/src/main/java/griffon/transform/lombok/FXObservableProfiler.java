@@ -0,0 +1,178 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Registry of the counters generated for {@code @FXObservable} fields when the
+ * {@code griffon.fxObservable.profile} key of {@code lombok.config} is set to {@code true}.
+ * Counters are registered when the owning class is initialized and are exposed through
+ * the platform MBean server as {@value #OBJECT_NAME}. Classes compiled without the key
+ * never reference this class, so it is only required at runtime by profiling builds.
+ */
+public final class FXObservableProfiler implements FXObservableProfilerMXBean {
+    public static final String OBJECT_NAME = "griffon.lombok:type=FXObservableProfiler";
+
+    private static final FXObservableProfiler INSTANCE = new FXObservableProfiler();
+    private static final ConcurrentMap<String, Counters> COUNTERS = new ConcurrentHashMap<>();
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (Exception e) {
+            // counters remain available through the static accessors
+        }
+    }
+
+    private FXObservableProfiler() {
+    }
+
+    /**
+     * Returns the counters of the given field, registering them on first use.
+     */
+    public static Counters counters(Class<?> owner, String field) {
+        String key = owner.getName() + "." + field;
+        Counters counters = COUNTERS.get(key);
+        if (counters == null) {
+            Counters created = new Counters();
+            counters = COUNTERS.putIfAbsent(key, created);
+            if (counters == null) counters = created;
+        }
+        return counters;
+    }
+
+    public static FXObservableProfiler getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public Map<String, Long> getSetCalls() {
+        return snapshot(Counters.SET_CALLS);
+    }
+
+    @Override
+    public Map<String, Long> getMaterializations() {
+        return snapshot(Counters.MATERIALIZATIONS);
+    }
+
+    @Override
+    public Map<String, Long> getChanges() {
+        return snapshot(Counters.CHANGES);
+    }
+
+    @Override
+    public void reset() {
+        for (Counters counters : COUNTERS.values()) {
+            counters.reset();
+        }
+    }
+
+    private static Map<String, Long> snapshot(int counter) {
+        Map<String, Long> snapshot = new TreeMap<>();
+        for (Map.Entry<String, Counters> entry : COUNTERS.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().sum(counter));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Striped counters of a single field. Threads increment the stripe selected by their id,
+     * each stripe on its own cache line, so that concurrent setters do not contend on a
+     * single counter; reads add up all stripes.
+     */
+    public static final class Counters {
+        private static final int SET_CALLS = 0;
+        private static final int MATERIALIZATIONS = 1;
+        private static final int CHANGES = 2;
+        private static final int COUNTERS = 3;
+        // longs per cell, keeping cells of different stripes 64 bytes apart
+        private static final int PADDING = 8;
+        private static final int STRIPES = stripes();
+
+        private final AtomicLongArray cells = new AtomicLongArray(STRIPES * COUNTERS * PADDING);
+
+        private static int stripes() {
+            int processors = Math.min(Runtime.getRuntime().availableProcessors(), 64);
+            int stripes = 1;
+            while (stripes < processors) stripes <<= 1;
+            return stripes;
+        }
+
+        private static int stripe() {
+            long id = Thread.currentThread().getId();
+            int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+        }
+
+        private void increment(int counter) {
+            cells.incrementAndGet((stripe() * COUNTERS + counter) * PADDING);
+        }
+
+        private long sum(int counter) {
+            long sum = 0;
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                sum += cells.get((stripe * COUNTERS + counter) * PADDING);
+            }
+            return sum;
+        }
+
+        /**
+         * Counts a call to a generated setter.
+         */
+        public void set() {
+            increment(SET_CALLS);
+        }
+
+        /**
+         * Counts the creation of a property.
+         */
+        public void materialized() {
+            increment(MATERIALIZATIONS);
+        }
+
+        /**
+         * Counts an invalidation of a property, which notifies its listeners.
+         */
+        public void changed() {
+            increment(CHANGES);
+        }
+
+        public long getSetCalls() {
+            return sum(SET_CALLS);
+        }
+
+        public long getMaterializations() {
+            return sum(MATERIALIZATIONS);
+        }
+
+        public long getChanges() {
+            return sum(CHANGES);
+        }
+
+        private void reset() {
+            for (int i = 0; i < cells.length(); i++) {
+                cells.set(i, 0L);
+            }
+        }
+    }
+}
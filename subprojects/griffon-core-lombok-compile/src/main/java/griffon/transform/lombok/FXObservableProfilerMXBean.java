@@ -0,0 +1,32 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link FXObservableProfiler}. Counters are keyed by the fully
+ * qualified name of the owning class followed by the field name.
+ */
+public interface FXObservableProfilerMXBean {
+    Map<String, Long> getSetCalls();
+
+    Map<String, Long> getMaterializations();
+
+    Map<String, Long> getChanges();
+
+    void reset();
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package lombok.javac.handlers;
+
+import com.sun.tools.javac.code.Flags;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.JCTree.*;
+import com.sun.tools.javac.tree.TreeScanner;
+import com.sun.tools.javac.util.List;
+import com.sun.tools.javac.util.ListBuffer;
+import com.sun.tools.javac.util.Name;
+import griffon.transform.FXObservable;
+import griffon.transform.lombok.FXComputed;
+import lombok.core.AST.Kind;
+import lombok.core.AnnotationValues;
+import lombok.core.HandlerPriority;
+import lombok.javac.JavacAnnotationHandler;
+import lombok.javac.JavacNode;
+import lombok.javac.JavacTreeMaker;
+import org.kordamp.jipsy.ServiceProviderFor;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static lombok.javac.Javac.*;
+import static lombok.javac.handlers.JavacHandlerUtil.*;
+
+@ServiceProviderFor(JavacAnnotationHandler.class)
+@HandlerPriority(-1024) // runs before @FXObservable rewrites the fields its dependencies are resolved from
+public class HandleFXComputed extends JavacAnnotationHandler<FXComputed> {
+    private static final String COMPUTE_PREFIX = "compute";
+    private static final String BINDING_SUFFIX = "Binding";
+
+    private static final java.util.Map<String, String> BINDING_TYPE_MAP;
+    private static final java.util.Map<String, String> VALUE_TYPE_MAP;
+
+    static {
+        Map<String, String> m = new HashMap<>();
+        m.put("boolean", "javafx.beans.binding.BooleanBinding");
+        m.put("byte", "javafx.beans.binding.IntegerBinding");
+        m.put("short", "javafx.beans.binding.IntegerBinding");
+        m.put("char", "javafx.beans.binding.IntegerBinding");
+        m.put("int", "javafx.beans.binding.IntegerBinding");
+        m.put("long", "javafx.beans.binding.LongBinding");
+        m.put("float", "javafx.beans.binding.FloatBinding");
+        m.put("double", "javafx.beans.binding.DoubleBinding");
+        m.put("java.lang.String", "javafx.beans.binding.StringBinding");
+        BINDING_TYPE_MAP = Collections.unmodifiableMap(m);
+
+        m = new HashMap<>();
+        m.put("javafx.beans.binding.BooleanBinding", "boolean");
+        m.put("javafx.beans.binding.IntegerBinding", "int");
+        m.put("javafx.beans.binding.LongBinding", "long");
+        m.put("javafx.beans.binding.FloatBinding", "float");
+        m.put("javafx.beans.binding.DoubleBinding", "double");
+        m.put("javafx.beans.binding.StringBinding", "java.lang.String");
+        VALUE_TYPE_MAP = Collections.unmodifiableMap(m);
+    }
+
+    @Override
+    public void handle(AnnotationValues<FXComputed> annotation, JCAnnotation source, JavacNode annotationNode) {
+        deleteAnnotationIfNeccessary(annotationNode, FXComputed.class);
+        JavacNode methodNode = annotationNode.up();
+        if (methodNode == null || methodNode.getKind() != Kind.METHOD) {
+            annotationNode.addError("@FXComputed is only supported on methods.");
+            return;
+        }
+        JCMethodDecl method = (JCMethodDecl) methodNode.get();
+        JavacNode typeNode = methodNode.up();
+        JCClassDecl typeDecl = (JCClassDecl) typeNode.get();
+        if ((typeDecl.mods.flags & (Flags.INTERFACE | Flags.ANNOTATION)) != 0) {
+            annotationNode.addError("@FXComputed is only supported on methods of a class or an enum.");
+            return;
+        }
+        if ((method.mods.flags & Flags.STATIC) != 0 || !method.params.isEmpty() || method.body == null
+            || method.restype == null || "void".equals(method.restype.toString())) {
+            annotationNode.addError("@FXComputed is only supported on non-static methods without parameters that return a value.");
+            return;
+        }
+
+        String propertyName = propertyName(method.name.toString());
+        String bindingType = BINDING_TYPE_MAP.get(typeString(method.restype));
+        String valueType = bindingType != null ? VALUE_TYPE_MAP.get(bindingType) : null;
+        String getterName = ("boolean".equals(valueType) ? "is" : "get") + capitalize(propertyName);
+        Name bindingFieldName = typeNode.toName("$" + propertyName + BINDING_SUFFIX);
+        if (fieldExists(bindingFieldName.toString(), typeNode) != MemberExistsResult.NOT_EXISTS
+            || methodExists(propertyName + "Property", typeNode, false, 0) != MemberExistsResult.NOT_EXISTS) {
+            annotationNode.addError("Cannot generate a binding for " + method.name + "(): " + propertyName + "Property() already exists.");
+            return;
+        }
+
+        Set<String> dependencies = findDependencies(typeNode, method, propertyName);
+        if (dependencies.isEmpty()) {
+            annotationNode.addWarning("@FXComputed found no observable dependencies in " + method.name + "(), its value will never be recomputed.");
+        }
+
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        JCExpression bindingFieldAccess = treeMaker.Select(treeMaker.Ident(typeNode.toName("this")), bindingFieldName);
+
+        // private XBinding $totalBinding;
+        JCVariableDecl bindingField = treeMaker.VarDef(
+                treeMaker.Modifiers(Flags.PRIVATE),
+                bindingFieldName,
+                bindingType(typeNode, bindingType, method.restype),
+                null
+        );
+        injectField(typeNode, recursiveSetGeneratedBy(bindingField, methodNode.get(), methodNode.getContext()));
+
+        // public XBinding totalProperty() {
+        //     if (this.$totalBinding == null) {
+        //         this.$totalBinding = new XBinding() {
+        //             { bind(Owner.this.priceProperty(), Owner.this.quantityProperty()); }
+        //             protected x computeValue() { return Owner.this.computeTotal(); }
+        //         };
+        //     }
+        //     return this.$totalBinding;
+        // }
+        JCExpression outerThis = treeMaker.Select(treeMaker.Ident(typeNode.toName(typeNode.getName())), typeNode.toName("this"));
+        ListBuffer<JCExpression> observables = new ListBuffer<>();
+        for (String dependency : dependencies) {
+            observables.add(treeMaker.Apply(
+                    List.<JCExpression>nil(),
+                    treeMaker.Select(treeMaker.Select(treeMaker.Ident(typeNode.toName(typeNode.getName())), typeNode.toName("this")), typeNode.toName(dependency + "Property")),
+                    List.<JCExpression>nil()
+            ));
+        }
+        ListBuffer<JCTree> members = new ListBuffer<>();
+        if (observables.nonEmpty()) {
+            members.add(treeMaker.Block(0, List.<JCStatement>of(treeMaker.Exec(
+                    treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(typeNode.toName("bind")), observables.toList())
+            ))));
+        }
+        members.add(treeMaker.MethodDef(
+                treeMaker.Modifiers(Flags.PROTECTED),
+                typeNode.toName("computeValue"),
+                valueType != null ? valueType(typeNode, valueType) : cloneType(treeMaker, method.restype, source, typeNode.getContext()),
+                List.<JCTypeParameter>nil(),
+                List.<JCVariableDecl>nil(),
+                List.<JCExpression>nil(),
+                treeMaker.Block(0, List.<JCStatement>of(treeMaker.Return(
+                        treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Select(outerThis, method.name), List.<JCExpression>nil())
+                ))),
+                null
+        ));
+        JCExpression newBinding = treeMaker.NewClass(
+                null,
+                List.<JCExpression>nil(),
+                bindingType(typeNode, bindingType, method.restype),
+                List.<JCExpression>nil(),
+                treeMaker.AnonymousClassDef(treeMaker.Modifiers(0), members.toList())
+        );
+        JCStatement initialize = treeMaker.If(
+                treeMaker.Binary(CTC_EQUAL, bindingFieldAccess, treeMaker.Literal(CTC_BOT, null)),
+                treeMaker.Block(0, List.<JCStatement>of(treeMaker.Exec(treeMaker.Assign(
+                        treeMaker.Select(treeMaker.Ident(typeNode.toName("this")), bindingFieldName), newBinding)))),
+                null
+        );
+        JCMethodDecl propertyMethod = recursiveSetGeneratedBy(
+                treeMaker.MethodDef(
+                        treeMaker.Modifiers(Flags.PUBLIC),
+                        typeNode.toName(propertyName + "Property"),
+                        bindingType(typeNode, bindingType, method.restype),
+                        List.<JCTypeParameter>nil(),
+                        List.<JCVariableDecl>nil(),
+                        List.<JCExpression>nil(),
+                        treeMaker.Block(0, List.of(initialize, treeMaker.Return(
+                                treeMaker.Select(treeMaker.Ident(typeNode.toName("this")), bindingFieldName)))),
+                        null
+                ),
+                methodNode.get(), methodNode.getContext());
+        copyJavadoc(methodNode, propertyMethod, CopyJavadoc.VERBATIM);
+        injectMethod(typeNode, propertyMethod);
+
+        // public x getTotal() { return totalProperty().get(); }
+        if (methodExists(getterName, typeNode, false, 0) != MemberExistsResult.NOT_EXISTS) return;
+        JCExpression propertyMethodCall = treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(typeNode.toName(propertyName + "Property")), List.<JCExpression>nil());
+        JCMethodDecl getter = recursiveSetGeneratedBy(
+                treeMaker.MethodDef(
+                        treeMaker.Modifiers(Flags.PUBLIC),
+                        typeNode.toName(getterName),
+                        valueType != null ? valueType(typeNode, valueType) : cloneType(treeMaker, method.restype, source, typeNode.getContext()),
+                        List.<JCTypeParameter>nil(),
+                        List.<JCVariableDecl>nil(),
+                        List.<JCExpression>nil(),
+                        treeMaker.Block(0, List.<JCStatement>of(treeMaker.Return(treeMaker.Apply(
+                                List.<JCExpression>nil(), treeMaker.Select(propertyMethodCall, typeNode.toName("get")), List.<JCExpression>nil())))),
+                        null
+                ),
+                methodNode.get(), methodNode.getContext());
+        copyJavadoc(methodNode, getter, CopyJavadoc.VERBATIM);
+        injectMethod(typeNode, getter);
+    }
+
+    private static String propertyName(String methodName) {
+        if (methodName.startsWith(COMPUTE_PREFIX) && methodName.length() > COMPUTE_PREFIX.length()
+            && Character.isUpperCase(methodName.charAt(COMPUTE_PREFIX.length()))) {
+            String name = methodName.substring(COMPUTE_PREFIX.length());
+            return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+        }
+        return methodName;
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static String typeString(JCExpression type) {
+        return type.type != null ? type.type.toString() : type.toString();
+    }
+
+    private static JCExpression bindingType(JavacNode typeNode, String bindingType, JCExpression valueType) {
+        if (bindingType != null) return chainDotsString(typeNode, bindingType);
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        return treeMaker.TypeApply(
+                chainDotsString(typeNode, "javafx.beans.binding.ObjectBinding"),
+                List.of(cloneType(treeMaker, valueType, typeNode.get(), typeNode.getContext()))
+        );
+    }
+
+    private static JCExpression valueType(JavacNode typeNode, String valueType) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        if ("boolean".equals(valueType)) return treeMaker.TypeIdent(CTC_BOOLEAN);
+        if ("int".equals(valueType)) return treeMaker.TypeIdent(CTC_INT);
+        if ("long".equals(valueType)) return treeMaker.TypeIdent(CTC_LONG);
+        if ("float".equals(valueType)) return treeMaker.TypeIdent(CTC_FLOAT);
+        if ("double".equals(valueType)) return treeMaker.TypeIdent(CTC_DOUBLE);
+        return chainDotsString(typeNode, valueType);
+    }
+
+    private static Set<String> findDependencies(JavacNode typeNode, final JCMethodDecl method, final String propertyName) {
+        // maps field names, accessor names and computed method names to the property they observe
+        final Map<String, String> fieldReads = new HashMap<>();
+        final Map<String, String> accessorCalls = new HashMap<>();
+        boolean observableType = hasAnnotation(FXObservable.class, typeNode);
+        for (JavacNode child : typeNode.down()) {
+            if (child.getKind() == Kind.FIELD && isObservableField(child, observableType)) {
+                String name = child.getName();
+                fieldReads.put(name, name);
+                accessorCalls.put(toGetterName(child), name);
+                accessorCalls.put("get" + capitalize(name), name);
+                accessorCalls.put(name + "Property", name);
+            } else if (child.getKind() == Kind.METHOD && child.get() != method && isComputedMethod(child, typeNode)) {
+                String name = propertyName(child.getName());
+                accessorCalls.put(child.getName(), name);
+                accessorCalls.put("get" + capitalize(name), name);
+                accessorCalls.put("is" + capitalize(name), name);
+                accessorCalls.put(name + "Property", name);
+            }
+        }
+
+        final Set<String> dependencies = new LinkedHashSet<>();
+        method.body.accept(new TreeScanner() {
+            @Override
+            public void visitApply(JCMethodInvocation tree) {
+                if (tree.args.isEmpty()) {
+                    String name = ownMemberName(tree.meth);
+                    if (name != null && accessorCalls.containsKey(name)) dependencies.add(accessorCalls.get(name));
+                }
+                super.visitApply(tree);
+            }
+
+            @Override
+            public void visitIdent(JCIdent tree) {
+                if (fieldReads.containsKey(tree.name.toString())) dependencies.add(fieldReads.get(tree.name.toString()));
+            }
+
+            @Override
+            public void visitSelect(JCFieldAccess tree) {
+                if (isThis(tree.selected) && fieldReads.containsKey(tree.name.toString())) {
+                    dependencies.add(fieldReads.get(tree.name.toString()));
+                }
+                super.visitSelect(tree);
+            }
+
+            @Override
+            public void visitClassDef(JCClassDecl tree) {
+                // members of local and anonymous classes do not belong to the owning type
+            }
+        });
+        dependencies.remove(propertyName);
+        return dependencies;
+    }
+
+    private static String ownMemberName(JCExpression expression) {
+        if (expression instanceof JCIdent) return ((JCIdent) expression).name.toString();
+        if (expression instanceof JCFieldAccess && isThis(((JCFieldAccess) expression).selected)) {
+            return ((JCFieldAccess) expression).name.toString();
+        }
+        return null;
+    }
+
+    private static boolean isThis(JCExpression expression) {
+        return expression instanceof JCIdent && "this".equals(((JCIdent) expression).name.toString());
+    }
+
+    private static boolean isObservableField(JavacNode fieldNode, boolean observableType) {
+        JCVariableDecl field = (JCVariableDecl) fieldNode.get();
+        if (field.name.toString().startsWith("$")) return false;
+        if ((field.mods.flags & (Flags.STATIC | Flags.FINAL)) != 0) return false;
+        if ((field.mods.flags & Flags.PRIVATE) == 0) return false;
+        return observableType || hasAnnotation(FXObservable.class, fieldNode);
+    }
+
+    private static boolean isComputedMethod(JavacNode methodNode, JavacNode typeNode) {
+        if (hasAnnotation(FXComputed.class, methodNode)) return true;
+        // handled already, its annotation has been removed
+        String bindingField = "$" + propertyName(methodNode.getName()) + BINDING_SUFFIX;
+        return fieldExists(bindingField, typeNode) != MemberExistsResult.NOT_EXISTS;
+    }
+}
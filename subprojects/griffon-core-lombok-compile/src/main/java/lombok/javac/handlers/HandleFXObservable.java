@@ -15,6 +15,7 @@
  */
 package lombok.javac.handlers;
 
+import com.sun.tools.javac.code.BoundKind;
 import com.sun.tools.javac.code.Flags;
 import com.sun.tools.javac.code.Type;
 import com.sun.tools.javac.tree.JCTree;
@@ -23,27 +24,98 @@ import com.sun.tools.javac.util.List;
 import com.sun.tools.javac.util.ListBuffer;
 import com.sun.tools.javac.util.Name;
 import griffon.transform.FXObservable;
+import griffon.transform.lombok.FXObservableOptions;
 import javafx.collections.ObservableList;
 import javafx.collections.ObservableMap;
 import javafx.collections.ObservableSet;
 import lombok.core.AST.Kind;
 import lombok.core.AnnotationValues;
+import lombok.core.configuration.ConfigurationKey;
 import lombok.javac.Javac;
 import lombok.javac.JavacAnnotationHandler;
 import lombok.javac.JavacNode;
 import lombok.javac.JavacTreeMaker;
+import lombok.javac.JavacTreeMaker.TreeTag;
 import org.kordamp.jipsy.ServiceProviderFor;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
 import static lombok.javac.Javac.*;
+import static lombok.javac.JavacTreeMaker.TreeTag.treeTag;
 import static lombok.javac.handlers.JavacHandlerUtil.*;
 
 @ServiceProviderFor(JavacAnnotationHandler.class)
 public class HandleFXObservable extends JavacAnnotationHandler<FXObservable> {
+    public static final ConfigurationKey<Boolean> FX_OBSERVABLE_PROFILE = new ConfigurationKey<Boolean>("griffon.fxObservable.profile",
+            "Count setter calls, property creations and invalidations of @FXObservable fields in FXObservableProfiler (default: false).") {
+    };
+
+    private static final TreeTag CTC_AND = treeTag("AND");
+    private static final TreeTag CTC_OR = treeTag("OR");
+    private static final TreeTag CTC_BITAND = treeTag("BITAND");
+    private static final TreeTag CTC_BITOR = treeTag("BITOR");
+    private static final TreeTag CTC_SHIFT_LEFT = treeTag("SL");
+    private static final TreeTag CTC_BITOR_ASSIGN = treeTag("BITOR_ASG");
+    private static final TreeTag CTC_MOD = treeTag("MOD");
+    private static final String PROPERTY_TABLE_NAME = "$properties";
+    private static final String CURRENT_VAR_NAME = "$current";
+    private static final String BYTES_VAR_NAME = "$bytes";
+    private static final String RESTORED_VAR_NAME = "$restored";
+    private static final String RESTORING_STATE_NAME = "$restoringState";
+    private static final String PROPERTY_VAR_NAME = "$property";
+    private static final String FIELD_BACKED_HELPER_NAME = "$helper";
+    private static final String FIELD_BACKED_OBSERVABLE_NAME = "$observable";
+    private static final String FIELD_BACKED_LISTENER_NAME = "$listener";
+    private static final String FIELD_BACKED_VALID_NAME = "$valid";
+    private static final String PENDING_MASK_NAME = "$pendingMask";
+    private static final String PENDING_MASK_UPDATER_NAME = "$pendingMaskUpdater";
+    private static final String RESTORED_MASK_NAME = "$restoredMask";
+    private static final String RESTORED_MASK_UPDATER_NAME = "$restoredMaskUpdater";
+    private static final String MARK_RESTORED_NAME = "$markRestored";
+    private static final String UNMARK_RESTORED_NAME = "$unmarkRestored";
+    private static final String SCHEDULE_PENDING_NAME = "$schedulePending";
+    private static final String CANCEL_PENDING_NAME = "$cancelPending";
+    private static final String FLUSH_PENDING_NAME = "$flushPending";
+    private static final String PENDING_INSTANCES_NAME = "$pendingInstances";
+    private static final String PENDING_FLUSH_SCHEDULED_NAME = "$pendingFlushScheduled";
+    private static final String PENDING_FLUSHER_NAME = "$pendingFlusher";
+    private static final String START_PENDING_FLUSHER_NAME = "$startPendingFlusher";
+    private static final String FLUSH_PENDING_INSTANCES_NAME = "$flushPendingInstances";
+    private static final String COMPACT_METHOD_NAME = "compact";
+    private static final String COMPACTED_VAR_NAME = "$compacted";
+    private static final String OBSERVERS_NAME = "$observers";
+    private static final String IS_IDLE_NAME = "$isIdle";
+    private static final String DIRTY_NAME = "$dirty";
+    private static final String MARK_DIRTY_NAME = "$markDirty";
+    private static final String CHANGE_MASK_NAME = "$changeMask";
+    private static final String CHANGE_MASK_UPDATER_NAME = "$changeMaskUpdater";
+    private static final String CHANGE_VALUES_NAME = "$changeValues";
+    private static final String CHANGE_VALUES_UPDATER_NAME = "$changeValuesUpdater";
+    private static final String CHANGE_NULL_NAME = "$changeNull";
+    private static final String CHANGED_NAME = "$changed";
+    private static final String CHANGE_SIGNAL_NAME = "$changeSignal";
+    private static final String PUBLISH_CHANGE_NAME = "$publishChange";
+    private static final String UNDO_ORDINALS_NAME = "$undoOrdinals";
+    private static final String UNDO_OLD_BITS_NAME = "$undoOldBits";
+    private static final String UNDO_NEW_BITS_NAME = "$undoNewBits";
+    private static final String UNDO_OLD_VALUES_NAME = "$undoOldValues";
+    private static final String UNDO_NEW_VALUES_NAME = "$undoNewValues";
+    private static final String UNDO_HEAD_NAME = "$undoHead";
+    private static final String UNDO_SIZE_NAME = "$undoSize";
+    private static final String REDO_SIZE_NAME = "$redoSize";
+    private static final String UNDO_REPLAYING_NAME = "$undoReplaying";
+    private static final String UNDO_SLOT_NAME = "$undoSlot";
+    private static final String RECORD_UNDO_NAME = "$recordUndo";
+    private static final String REPLAY_UNDO_NAME = "$replayUndo";
+    private static final int DEFAULT_UNDO_CAPACITY = 100;
+    private static final String PROFILER_NAME = "griffon.transform.lombok.FXObservableProfiler";
 
     private static final java.util.Map<String, String> PROPERTY_TYPE_MAP;
 
@@ -69,6 +141,81 @@ public class HandleFXObservable extends JavacAnnotationHandler<FXObservable> {
         PROPERTY_TYPE_MAP = Collections.unmodifiableMap(m);
     }
 
+    private static final java.util.Map<String, String> COMPARE_TYPE_MAP;
+    private static final java.util.Map<String, String> COMPARE_METHOD_MAP;
+
+    static {
+        Map<String, String> m = new HashMap<>();
+        m.put("boolean", "boolean");
+        m.put("java.lang.Boolean", "boolean");
+        m.put("byte", "int");
+        m.put("java.lang.Byte", "int");
+        m.put("short", "int");
+        m.put("java.lang.Short", "int");
+        m.put("int", "int");
+        m.put("java.lang.Integer", "int");
+        m.put("char", "int");
+        m.put("java.lang.Character", "int");
+        m.put("long", "long");
+        m.put("java.lang.Long", "long");
+        m.put("float", "float");
+        m.put("java.lang.Float", "float");
+        m.put("double", "double");
+        m.put("java.lang.Double", "double");
+        m.put("java.lang.String", "java.lang.String");
+        COMPARE_TYPE_MAP = Collections.unmodifiableMap(m);
+
+        m = new HashMap<>();
+        m.put("boolean", "java.lang.Boolean.compare");
+        m.put("int", "java.lang.Integer.compare");
+        m.put("long", "java.lang.Long.compare");
+        m.put("float", "java.lang.Float.compare");
+        m.put("double", "java.lang.Double.compare");
+        COMPARE_METHOD_MAP = Collections.unmodifiableMap(m);
+    }
+
+    private static final java.util.Map<String, String> STATE_TYPE_MAP;
+
+    static {
+        // field type -> DataOutput/DataInput method suffix
+        Map<String, String> m = new HashMap<>();
+        m.put("boolean", "Boolean");
+        m.put("java.lang.Boolean", "Boolean");
+        m.put("byte", "Byte");
+        m.put("java.lang.Byte", "Byte");
+        m.put("short", "Short");
+        m.put("java.lang.Short", "Short");
+        m.put("char", "Char");
+        m.put("java.lang.Character", "Char");
+        m.put("int", "Int");
+        m.put("java.lang.Integer", "Int");
+        m.put("long", "Long");
+        m.put("java.lang.Long", "Long");
+        m.put("float", "Float");
+        m.put("java.lang.Float", "Float");
+        m.put("double", "Double");
+        m.put("java.lang.Double", "Double");
+        m.put("java.lang.String", "String");
+        STATE_TYPE_MAP = Collections.unmodifiableMap(m);
+    }
+
+    private static final java.util.Map<String, String> OBSERVABLE_ARRAY_TYPE_MAP;
+
+    static {
+        Map<String, String> m = new HashMap<>();
+        m.put("int[]", "javafx.collections.ObservableIntegerArray");
+        m.put("float[]", "javafx.collections.ObservableFloatArray");
+        OBSERVABLE_ARRAY_TYPE_MAP = Collections.unmodifiableMap(m);
+    }
+
+    private enum Storage {
+        PLAIN,
+        SHADOW_FIELD,
+        TYPED_SHADOW_FIELD,
+        FIELD_BACKED,
+        PROPERTY_TABLE
+    }
+
     @Override
     public void handle(AnnotationValues<FXObservable> annotation, JCAnnotation source, JavacNode annotationNode) {
         FXObservable.Strategy strategy = annotation.getInstance().value();
@@ -89,13 +236,47 @@ public class HandleFXObservable extends JavacAnnotationHandler<FXObservable> {
                     addUsageError(annotationNode);
                     return;
                 }
-                new FXObservableFieldHandler(strategy, node, annotationNode).handle();
+                FXObservableFieldHandler handler = new FXObservableFieldHandler(strategy, node, annotationNode);
+                if (handler.storage == Storage.PROPERTY_TABLE && handler.observableArrayType == null) {
+                    annotationNode.addError("@FXObservableOptions(storage = PROPERTY_TABLE) requires @FXObservable on the type.");
+                    return;
+                }
+                if (handler.coalesce && handler.observableArrayType == null) {
+                    annotationNode.addError("@FXObservableOptions(coalesce = true) requires @FXObservable on the type.");
+                    return;
+                }
+                if (handler.compactable) {
+                    annotationNode.addError("@FXObservableOptions(compactable = true) requires @FXObservable on the type.");
+                    return;
+                }
+                if (handler.dirtyTracking) {
+                    annotationNode.addError("@FXObservableOptions(dirtyTracking = true) requires @FXObservable on the type.");
+                    return;
+                }
+                if (handler.binaryState) {
+                    annotationNode.addError("@FXObservableOptions(binaryState = true) requires @FXObservable on the type.");
+                    return;
+                }
+                if (handler.changeStream) {
+                    annotationNode.addError("@FXObservableOptions(changeStream = true) requires @FXObservable on the type.");
+                    return;
+                }
+                if (handler.undoJournal) {
+                    annotationNode.addError("@FXObservableOptions(undoJournal = true) requires @FXObservable on the type.");
+                    return;
+                }
+                if (handler.profilingRequested && !handler.profile) addProfilingWarning(annotationNode);
+                handler.handle();
                 break;
             default:
                 addUsageError(annotationNode);
         }
     }
 
+    private void addProfilingWarning(JavacNode annotationNode) {
+        annotationNode.addWarning("griffon.fxObservable.profile is not supported on inner classes; no counters were generated.");
+    }
+
     private void addUsageError(JavacNode annotationNode) {
         annotationNode.addError("@FXObservable is only supported on a class, an enum, or a non-final, private field.");
     }
@@ -123,19 +304,1335 @@ public class HandleFXObservable extends JavacAnnotationHandler<FXObservable> {
         return true;
     }
 
+    private static AnnotationValues<FXObservableOptions> findOptions(JavacNode node) {
+        for (JavacNode child : node.down()) {
+            if (child.getKind() == Kind.ANNOTATION && annotationTypeMatches(FXObservableOptions.class, child)) {
+                return createAnnotation(FXObservableOptions.class, child);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Options of a field, merged attribute by attribute: attributes set on the field take
+     * precedence, the ones it leaves out are read from the options of its type.
+     */
+    private static FXObservableOptions mergeOptions(JavacNode fieldNode, JavacNode typeNode) {
+        final AnnotationValues<FXObservableOptions> fieldOptions = findOptions(fieldNode);
+        AnnotationValues<FXObservableOptions> typeOptions = findOptions(typeNode);
+        if (fieldOptions == null) return typeOptions != null ? typeOptions.getInstance() : null;
+        if (typeOptions == null) return fieldOptions.getInstance();
+        final FXObservableOptions field = fieldOptions.getInstance();
+        final FXObservableOptions type = typeOptions.getInstance();
+        return (FXObservableOptions) Proxy.newProxyInstance(FXObservableOptions.class.getClassLoader(), new Class<?>[]{FXObservableOptions.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                boolean attribute = method.getDeclaringClass() == FXObservableOptions.class;
+                try {
+                    return method.invoke(!attribute || fieldOptions.isExplicit(method.getName()) ? field : type, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        });
+    }
+
+    private static boolean isStaticContext(JavacNode typeNode) {
+        JCClassDecl typeDecl = (JCClassDecl) typeNode.get();
+        if ((typeDecl.mods.flags & (Flags.STATIC | Flags.INTERFACE | Flags.ENUM)) != 0) return true;
+        return typeNode.up().getKind() == Kind.COMPILATION_UNIT;
+    }
+
+    private static String toConstantName(String name) {
+        StringBuilder constant = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (i > 0 && Character.isUpperCase(c) && !Character.isUpperCase(name.charAt(i - 1))) constant.append('_');
+            constant.append(Character.toUpperCase(c));
+        }
+        return constant.toString();
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static Storage resolveStorage(FXObservable.Strategy strategy, FXObservableOptions options) {
+        FXObservableOptions.Storage storage = options != null ? options.storage() : FXObservableOptions.Storage.DEFAULT;
+
+        if (storage == FXObservableOptions.Storage.TYPED_SHADOW_FIELD) return Storage.TYPED_SHADOW_FIELD;
+        if (storage == FXObservableOptions.Storage.FIELD_BACKED) return Storage.FIELD_BACKED;
+        if (storage == FXObservableOptions.Storage.PROPERTY_TABLE) return Storage.PROPERTY_TABLE;
+        if (strategy == FXObservable.Strategy.PLAIN) return Storage.PLAIN;
+        return Storage.SHADOW_FIELD;
+    }
+
     private void createForType(FXObservable.Strategy strategy, JavacNode typeNode, JavacNode annotationNode) {
+        java.util.List<FXObservableFieldHandler> handlers = new java.util.ArrayList<>();
+        java.util.List<FXObservableFieldHandler> coalesced = new java.util.ArrayList<>();
+        java.util.List<FXObservableFieldHandler> compactable = new java.util.ArrayList<>();
+        java.util.List<FXObservableFieldHandler> tracked = new java.util.ArrayList<>();
+        java.util.List<FXObservableFieldHandler> stateful = new java.util.ArrayList<>();
+        java.util.List<FXObservableFieldHandler> published = new java.util.ArrayList<>();
+        java.util.List<FXObservableFieldHandler> journaled = new java.util.ArrayList<>();
+        boolean binaryState = false;
+        int tableSize = 0;
         for (JavacNode field : typeNode.down()) {
-            if (fieldQualifiesForGeneration(field) && !hasAnnotation(FXObservable.class, field))
-                new FXObservableFieldHandler(strategy, field, annotationNode).handle();
+            if (fieldQualifiesForGeneration(field) && !hasAnnotation(FXObservable.class, field)) {
+                FXObservableFieldHandler handler = new FXObservableFieldHandler(strategy, field, annotationNode);
+                if (handler.storage == Storage.PROPERTY_TABLE && handler.observableArrayType == null) handler.tableOrdinal = tableSize++;
+                if (handler.coalesce && handler.observableArrayType == null) {
+                    handler.pendingBit = 1L << coalesced.size();
+                    handler.stagesRestores = handler.binaryState && handler.stateType() != null;
+                    coalesced.add(handler);
+                }
+                if (handler.compactable) compactable.add(handler);
+                if (handler.dirtyTracking) {
+                    handler.dirtyIndex = tracked.size();
+                    tracked.add(handler);
+                }
+                if (handler.binaryState) {
+                    binaryState = true;
+                    if (handler.stateType() != null) stateful.add(handler);
+                }
+                if (handler.changeStream) {
+                    handler.changeOrdinal = published.size();
+                    published.add(handler);
+                }
+                if (handler.undoJournal) {
+                    handler.undoOrdinal = journaled.size();
+                    journaled.add(handler);
+                }
+                handlers.add(handler);
+            }
+        }
+
+        if (coalesced.size() > 64) {
+            annotationNode.addError("@FXObservableOptions(coalesce = true) supports at most 64 fields per type.");
+            return;
+        }
+        if (!coalesced.isEmpty() && !isStaticContext(typeNode)) {
+            annotationNode.addError("@FXObservableOptions(coalesce = true) is not supported on inner classes.");
+            return;
+        }
+        if (!coalesced.isEmpty()) injectPulseCoalescing(typeNode, coalesced);
+
+        if (!compactable.isEmpty()) {
+            if (!isStaticContext(typeNode)) {
+                annotationNode.addError("@FXObservableOptions(compactable = true) is not supported on inner classes.");
+                return;
+            }
+            if (methodExists(COMPACT_METHOD_NAME, typeNode, false, 0) != MemberExistsResult.NOT_EXISTS) {
+                annotationNode.addError("Cannot use compactable: a method named " + COMPACT_METHOD_NAME + "() already exists.");
+                return;
+            }
+            for (FXObservableFieldHandler handler : compactable) {
+                if (!handler.supportsCompaction()) return;
+            }
+            injectCompaction(typeNode, compactable);
+        }
+
+        if (!tracked.isEmpty()) {
+            if (fieldExists(DIRTY_NAME, typeNode) != MemberExistsResult.NOT_EXISTS) {
+                annotationNode.addError("Cannot use dirtyTracking: a field named " + DIRTY_NAME + " already exists.");
+                return;
+            }
+            injectDirtyTracking(typeNode, tracked);
+        }
+
+        if (binaryState) {
+            if (methodExists("writeState", typeNode, false, 1) != MemberExistsResult.NOT_EXISTS
+                || methodExists("readState", typeNode, false, 1) != MemberExistsResult.NOT_EXISTS) {
+                annotationNode.addError("Cannot use binaryState: a method named writeState() or readState() already exists.");
+                return;
+            }
+            injectStateSerialization(typeNode, stateful);
+        }
+
+        if (!published.isEmpty()) {
+            if (published.size() > 64) {
+                annotationNode.addError("@FXObservableOptions(changeStream = true) supports at most 64 fields per type.");
+                return;
+            }
+            if (!isStaticContext(typeNode) || !((JCClassDecl) typeNode.get()).typarams.isEmpty()) {
+                annotationNode.addError("@FXObservableOptions(changeStream = true) is not supported on inner or generic classes.");
+                return;
+            }
+            if (fieldExists(CHANGE_MASK_NAME, typeNode) != MemberExistsResult.NOT_EXISTS
+                || methodExists("drainChanges", typeNode, false, 0) != MemberExistsResult.NOT_EXISTS
+                || methodExists("pollChanged", typeNode, false, 0) != MemberExistsResult.NOT_EXISTS) {
+                annotationNode.addError("Cannot use changeStream: a method named drainChanges() or pollChanged() already exists.");
+                return;
+            }
+            injectChangeStream(typeNode, published);
+        }
+
+        if (!journaled.isEmpty()) {
+            AnnotationValues<FXObservableOptions> typeOptions = findOptions(typeNode);
+            int capacity = typeOptions != null ? typeOptions.getInstance().undoCapacity() : DEFAULT_UNDO_CAPACITY;
+            if (capacity < 1) {
+                annotationNode.addError("@FXObservableOptions(undoCapacity) must be greater than zero.");
+                return;
+            }
+            if (methodExists("undo", typeNode, false, 0) != MemberExistsResult.NOT_EXISTS
+                || methodExists("redo", typeNode, false, 0) != MemberExistsResult.NOT_EXISTS) {
+                annotationNode.addError("Cannot use undoJournal: a method named undo() or redo() already exists.");
+                return;
+            }
+            injectUndoJournal(typeNode, journaled, capacity);
+        }
+
+        if (!handlers.isEmpty() && handlers.get(0).profilingRequested && !handlers.get(0).profile) addProfilingWarning(annotationNode);
+
+        if (tableSize > 0 && fieldExists(PROPERTY_TABLE_NAME, typeNode) != MemberExistsResult.NOT_EXISTS) {
+            annotationNode.addError("Cannot use PROPERTY_TABLE storage: a field named " + PROPERTY_TABLE_NAME + " already exists.");
+            return;
+        }
+        if (tableSize > 0) injectPropertyTable(typeNode);
+        for (FXObservableFieldHandler handler : handlers) {
+            handler.tableSize = tableSize;
+            handler.handle();
+        }
+    }
+
+    private void injectPropertyTable(JavacNode typeNode) {
+        // private javafx.beans.property.Property[] $properties;
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        JCVariableDecl table = treeMaker.VarDef(
+                treeMaker.Modifiers(Flags.PRIVATE),
+                typeNode.toName(PROPERTY_TABLE_NAME),
+                treeMaker.TypeArray(chainDotsString(typeNode, "javafx.beans.property.Property")),
+                null
+        );
+        injectField(typeNode, recursiveSetGeneratedBy(table, typeNode.get(), typeNode.getContext()));
+    }
+
+    private void injectPulseCoalescing(JavacNode typeNode, java.util.List<FXObservableFieldHandler> coalesced) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        JCExpression thisRef = treeMaker.Ident(typeNode.toName("this"));
+        Name maskVarName = typeNode.toName("mask");
+        Name bitVarName = typeNode.toName("bit");
+        JCExpression zero = treeMaker.Literal(Long.valueOf(0L));
+
+        // private volatile long $pendingMask;
+        injectField(typeNode, recursiveSetGeneratedBy(treeMaker.VarDef(
+                treeMaker.Modifiers(Flags.PRIVATE | Flags.VOLATILE),
+                typeNode.toName(PENDING_MASK_NAME),
+                treeMaker.TypeIdent(CTC_LONG),
+                null
+        ), typeNode.get(), typeNode.getContext()));
+
+        // private static final AtomicLongFieldUpdater $pendingMaskUpdater = AtomicLongFieldUpdater.newUpdater(Owner.class, "$pendingMask");
+        JCExpression newUpdater = treeMaker.Apply(
+                List.<JCExpression>nil(),
+                chainDotsString(typeNode, "java.util.concurrent.atomic.AtomicLongFieldUpdater.newUpdater"),
+                List.<JCExpression>of(
+                        treeMaker.Select(treeMaker.Ident(typeNode.toName(typeNode.getName())), typeNode.toName("class")),
+                        treeMaker.Literal(PENDING_MASK_NAME)
+                )
+        );
+        injectField(typeNode, recursiveSetGeneratedBy(treeMaker.VarDef(
+                treeMaker.Modifiers(Flags.PRIVATE | Flags.STATIC | Flags.FINAL),
+                typeNode.toName(PENDING_MASK_UPDATER_NAME),
+                chainDotsString(typeNode, "java.util.concurrent.atomic.AtomicLongFieldUpdater"),
+                newUpdater
+        ), typeNode.get(), typeNode.getContext()));
+
+        // private static final ConcurrentLinkedQueue<Owner> $pendingInstances = new ConcurrentLinkedQueue<Owner>();
+        JCExpression ownerType = treeMaker.Ident(typeNode.toName(typeNode.getName()));
+        injectField(typeNode, recursiveSetGeneratedBy(treeMaker.VarDef(
+                treeMaker.Modifiers(Flags.PRIVATE | Flags.STATIC | Flags.FINAL),
+                typeNode.toName(PENDING_INSTANCES_NAME),
+                treeMaker.TypeApply(chainDotsString(typeNode, "java.util.concurrent.ConcurrentLinkedQueue"), List.of(ownerType)),
+                treeMaker.NewClass(null, List.<JCExpression>nil(),
+                        treeMaker.TypeApply(chainDotsString(typeNode, "java.util.concurrent.ConcurrentLinkedQueue"), List.<JCExpression>of(treeMaker.Ident(typeNode.toName(typeNode.getName())))),
+                        List.<JCExpression>nil(), null)
+        ), typeNode.get(), typeNode.getContext()));
+
+        // private static final AtomicBoolean $pendingFlushScheduled = new AtomicBoolean();
+        injectField(typeNode, recursiveSetGeneratedBy(treeMaker.VarDef(
+                treeMaker.Modifiers(Flags.PRIVATE | Flags.STATIC | Flags.FINAL),
+                typeNode.toName(PENDING_FLUSH_SCHEDULED_NAME),
+                chainDotsString(typeNode, "java.util.concurrent.atomic.AtomicBoolean"),
+                treeMaker.NewClass(null, List.<JCExpression>nil(), chainDotsString(typeNode, "java.util.concurrent.atomic.AtomicBoolean"), List.<JCExpression>nil(), null)
+        ), typeNode.get(), typeNode.getContext()));
+
+        // private static AnimationTimer $pendingFlusher;
+        injectField(typeNode, recursiveSetGeneratedBy(treeMaker.VarDef(
+                treeMaker.Modifiers(Flags.PRIVATE | Flags.STATIC),
+                typeNode.toName(PENDING_FLUSHER_NAME),
+                chainDotsString(typeNode, "javafx.animation.AnimationTimer"),
+                null
+        ), typeNode.get(), typeNode.getContext()));
+
+        // private void $schedulePending(long bit) {
+        //     for (;;) {
+        //         long mask = this.$pendingMask;
+        //         if ((mask & bit) != 0L) return;
+        //         if ($pendingMaskUpdater.compareAndSet(this, mask, mask | bit)) {
+        //             if (mask == 0L) {
+        //                 $pendingInstances.offer(this);
+        //                 if ($pendingFlushScheduled.compareAndSet(false, true)) {
+        //                     Platform.runLater(new Runnable() { public void run() { $startPendingFlusher(); } });
+        //                 }
+        //             }
+        //             return;
+        //         }
+        //     }
+        // }
+        JCMethodDecl run = treeMaker.MethodDef(
+                treeMaker.Modifiers(Flags.PUBLIC),
+                typeNode.toName("run"),
+                treeMaker.Type(Javac.createVoidType(treeMaker, Javac.CTC_VOID)),
+                List.<JCTypeParameter>nil(),
+                List.<JCVariableDecl>nil(),
+                List.<JCExpression>nil(),
+                treeMaker.Block(0, List.<JCStatement>of(treeMaker.Exec(
+                        treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(typeNode.toName(START_PENDING_FLUSHER_NAME)), List.<JCExpression>nil())))),
+                null
+        );
+        JCExpression startTask = treeMaker.NewClass(
+                null,
+                List.<JCExpression>nil(),
+                chainDotsString(typeNode, "java.lang.Runnable"),
+                List.<JCExpression>nil(),
+                treeMaker.AnonymousClassDef(treeMaker.Modifiers(0), List.<JCTree>of(run))
+        );
+        JCStatement enqueue = treeMaker.Block(0, List.<JCStatement>of(
+                treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Select(treeMaker.Ident(typeNode.toName(PENDING_INSTANCES_NAME)), typeNode.toName("offer")), List.<JCExpression>of(treeMaker.Ident(typeNode.toName("this"))))),
+                treeMaker.If(
+                        flushScheduledCompareAndSet(typeNode),
+                        treeMaker.Exec(treeMaker.Apply(
+                                List.<JCExpression>nil(),
+                                chainDotsString(typeNode, "javafx.application.Platform.runLater"),
+                                List.of(startTask)
+                        )),
+                        null
+                )
+        ));
+        JCStatement scheduleLoop = pendingMaskLoop(typeNode, CTC_NOT_EQUAL,
+                treeMaker.Binary(CTC_BITOR, treeMaker.Ident(maskVarName), treeMaker.Ident(bitVarName)),
+                treeMaker.Block(0, List.<JCStatement>of(
+                        treeMaker.If(treeMaker.Binary(CTC_EQUAL, treeMaker.Ident(maskVarName), zero), enqueue, null),
+                        treeMaker.Return(null)
+                )));
+        injectMethod(typeNode, recursiveSetGeneratedBy(
+                pendingMethod(typeNode, SCHEDULE_PENDING_NAME, List.of(treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), bitVarName, treeMaker.TypeIdent(CTC_LONG), null)), List.of(scheduleLoop)),
+                typeNode.get(), typeNode.getContext()));
+
+        // private static void $startPendingFlusher() {
+        //     if ($pendingFlusher == null) {
+        //         $pendingFlusher = new AnimationTimer() { public void handle(long now) { $flushPendingInstances(); } };
+        //     }
+        //     $pendingFlusher.start();
+        // }
+        JCMethodDecl handle = treeMaker.MethodDef(
+                treeMaker.Modifiers(Flags.PUBLIC),
+                typeNode.toName("handle"),
+                treeMaker.Type(Javac.createVoidType(treeMaker, Javac.CTC_VOID)),
+                List.<JCTypeParameter>nil(),
+                List.of(treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), typeNode.toName("now"), treeMaker.TypeIdent(CTC_LONG), null)),
+                List.<JCExpression>nil(),
+                treeMaker.Block(0, List.<JCStatement>of(treeMaker.Exec(
+                        treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(typeNode.toName(FLUSH_PENDING_INSTANCES_NAME)), List.<JCExpression>nil())))),
+                null
+        );
+        JCExpression flusher = treeMaker.NewClass(
+                null,
+                List.<JCExpression>nil(),
+                chainDotsString(typeNode, "javafx.animation.AnimationTimer"),
+                List.<JCExpression>nil(),
+                treeMaker.AnonymousClassDef(treeMaker.Modifiers(0), List.<JCTree>of(handle))
+        );
+        injectMethod(typeNode, dirtyMethod(typeNode, Flags.PRIVATE | Flags.STATIC, START_PENDING_FLUSHER_NAME, null, List.<JCVariableDecl>nil(), List.<JCStatement>of(
+                treeMaker.If(
+                        treeMaker.Binary(CTC_EQUAL, treeMaker.Ident(typeNode.toName(PENDING_FLUSHER_NAME)), treeMaker.Literal(CTC_BOT, null)),
+                        treeMaker.Exec(treeMaker.Assign(treeMaker.Ident(typeNode.toName(PENDING_FLUSHER_NAME)), flusher)),
+                        null
+                ),
+                treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Select(treeMaker.Ident(typeNode.toName(PENDING_FLUSHER_NAME)), typeNode.toName("start")), List.<JCExpression>nil()))
+        )));
+
+        // private static void $flushPendingInstances() {
+        //     $pendingFlushScheduled.set(false);
+        //     Owner owner;
+        //     while ((owner = $pendingInstances.poll()) != null) owner.$flushPending();
+        //     if ($pendingInstances.isEmpty() || !$pendingFlushScheduled.compareAndSet(false, true)) $pendingFlusher.stop();
+        // }
+        Name ownerVarName = typeNode.toName("owner");
+        injectMethod(typeNode, dirtyMethod(typeNode, Flags.PRIVATE | Flags.STATIC, FLUSH_PENDING_INSTANCES_NAME, null, List.<JCVariableDecl>nil(), List.<JCStatement>of(
+                treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Select(treeMaker.Ident(typeNode.toName(PENDING_FLUSH_SCHEDULED_NAME)), typeNode.toName("set")), List.<JCExpression>of(treeMaker.Literal(CTC_BOOLEAN, 0)))),
+                treeMaker.VarDef(treeMaker.Modifiers(0), ownerVarName, treeMaker.Ident(typeNode.toName(typeNode.getName())), null),
+                treeMaker.WhileLoop(
+                        treeMaker.Binary(CTC_NOT_EQUAL,
+                                treeMaker.Parens(treeMaker.Assign(treeMaker.Ident(ownerVarName), treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Select(treeMaker.Ident(typeNode.toName(PENDING_INSTANCES_NAME)), typeNode.toName("poll")), List.<JCExpression>nil()))),
+                                treeMaker.Literal(CTC_BOT, null)),
+                        treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Select(treeMaker.Ident(ownerVarName), typeNode.toName(FLUSH_PENDING_NAME)), List.<JCExpression>nil()))
+                ),
+                treeMaker.If(
+                        treeMaker.Binary(CTC_OR,
+                                treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Select(treeMaker.Ident(typeNode.toName(PENDING_INSTANCES_NAME)), typeNode.toName("isEmpty")), List.<JCExpression>nil()),
+                                treeMaker.Unary(CTC_NOT, flushScheduledCompareAndSet(typeNode))),
+                        treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Select(treeMaker.Ident(typeNode.toName(PENDING_FLUSHER_NAME)), typeNode.toName("stop")), List.<JCExpression>nil())),
+                        null
+                )
+        )));
+
+        // private void $cancelPending(long bit) {
+        //     for (;;) {
+        //         long mask = this.$pendingMask;
+        //         if ((mask & bit) == 0L) return;
+        //         if ($pendingMaskUpdater.compareAndSet(this, mask, mask & ~bit)) return;
+        //     }
+        // }
+        JCStatement cancelLoop = pendingMaskLoop(typeNode, CTC_EQUAL,
+                treeMaker.Binary(CTC_BITAND, treeMaker.Ident(maskVarName), treeMaker.Unary(CTC_COMPL, treeMaker.Ident(bitVarName))),
+                treeMaker.Return(null));
+        injectMethod(typeNode, recursiveSetGeneratedBy(
+                pendingMethod(typeNode, CANCEL_PENDING_NAME, List.of(treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), bitVarName, treeMaker.TypeIdent(CTC_LONG), null)), List.of(cancelLoop)),
+                typeNode.get(), typeNode.getContext()));
+
+        java.util.List<FXObservableFieldHandler> restorable = new java.util.ArrayList<>();
+        for (FXObservableFieldHandler handler : coalesced) {
+            if (handler.stagesRestores) restorable.add(handler);
+        }
+        if (!restorable.isEmpty()) injectRestoredMask(typeNode);
+
+        // private void $flushPending() {
+        //     long mask = $pendingMaskUpdater.getAndSet(this, 0L);
+        //     long restored = mask & this.$restoredMask; // values staged by readState() are applied like it does
+        //     if (restored != 0L) {
+        //         mask = mask & ~restored;
+        //         this.$restoringState = true;
+        //         try {
+        //             if ((restored & 1L) != 0L) $setValue(this.$valuePending);
+        //             ...
+        //         } finally {
+        //             this.$restoringState = false;
+        //         }
+        //     }
+        //     if ((mask & 1L) != 0L) $setValue(this.$valuePending);
+        //     ...
+        // }
+        ListBuffer<JCStatement> flush = new ListBuffer<>();
+        flush.add(treeMaker.VarDef(treeMaker.Modifiers(0), maskVarName, treeMaker.TypeIdent(CTC_LONG), treeMaker.Apply(
+                List.<JCExpression>nil(),
+                treeMaker.Select(treeMaker.Ident(typeNode.toName(PENDING_MASK_UPDATER_NAME)), typeNode.toName("getAndSet")),
+                List.<JCExpression>of(thisRef, zero)
+        )));
+        if (!restorable.isEmpty()) {
+            Name restoredVarName = typeNode.toName("restored");
+            flush.add(treeMaker.VarDef(treeMaker.Modifiers(0), restoredVarName, treeMaker.TypeIdent(CTC_LONG), treeMaker.Binary(CTC_BITAND,
+                    treeMaker.Ident(maskVarName),
+                    treeMaker.Select(treeMaker.Ident(typeNode.toName("this")), typeNode.toName(RESTORED_MASK_NAME)))));
+            ListBuffer<JCStatement> restores = new ListBuffer<>();
+            for (FXObservableFieldHandler handler : restorable) {
+                restores.add(treeMaker.If(
+                        treeMaker.Binary(CTC_NOT_EQUAL, treeMaker.Binary(CTC_BITAND, treeMaker.Ident(restoredVarName), treeMaker.Literal(Long.valueOf(handler.pendingBit))), treeMaker.Literal(Long.valueOf(0L))),
+                        treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(handler.applyMethodName),
+                                List.<JCExpression>of(treeMaker.Select(treeMaker.Ident(typeNode.toName("this")), handler.pendingFieldName)))),
+                        null
+                ));
+            }
+            flush.add(treeMaker.If(
+                    treeMaker.Binary(CTC_NOT_EQUAL, treeMaker.Ident(restoredVarName), treeMaker.Literal(Long.valueOf(0L))),
+                    treeMaker.Block(0, List.<JCStatement>of(
+                            treeMaker.Exec(treeMaker.Assign(treeMaker.Ident(maskVarName), treeMaker.Binary(CTC_BITAND,
+                                    treeMaker.Ident(maskVarName), treeMaker.Unary(CTC_COMPL, treeMaker.Ident(restoredVarName))))),
+                            assign(typeNode, RESTORING_STATE_NAME, treeMaker.Literal(CTC_BOOLEAN, 1)),
+                            treeMaker.Try(
+                                    treeMaker.Block(0, restores.toList()),
+                                    List.<JCCatch>nil(),
+                                    treeMaker.Block(0, List.of(assign(typeNode, RESTORING_STATE_NAME, treeMaker.Literal(CTC_BOOLEAN, 0))))
+                            )
+                    )),
+                    null
+            ));
+        }
+        for (FXObservableFieldHandler handler : coalesced) {
+            JCExpression pendingValue = treeMaker.Select(treeMaker.Ident(typeNode.toName("this")), handler.pendingFieldName);
+            flush.add(treeMaker.If(
+                    treeMaker.Binary(CTC_NOT_EQUAL, treeMaker.Binary(CTC_BITAND, treeMaker.Ident(maskVarName), treeMaker.Literal(Long.valueOf(handler.pendingBit))), zero),
+                    treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(handler.applyMethodName), List.of(pendingValue))),
+                    null
+            ));
+        }
+        injectMethod(typeNode, recursiveSetGeneratedBy(
+                pendingMethod(typeNode, FLUSH_PENDING_NAME, List.<JCVariableDecl>nil(), flush.toList()),
+                typeNode.get(), typeNode.getContext()));
+    }
+
+    private void injectCompaction(JavacNode typeNode, java.util.List<FXObservableFieldHandler> compactable) {
+        // public int compact() {
+        //     int $compacted = 0;
+        //     <collapse each idle property, see createCompactStatement()>
+        //     return $compacted;
+        // }
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        Name compactedVarName = typeNode.toName(COMPACTED_VAR_NAME);
+        Set<String> propertyClasses = new java.util.HashSet<>();
+        ListBuffer<JCStatement> statements = new ListBuffer<>();
+        statements.add(treeMaker.VarDef(treeMaker.Modifiers(0), compactedVarName, treeMaker.TypeIdent(CTC_INT), treeMaker.Literal(CTC_INT, 0)));
+        for (FXObservableFieldHandler handler : compactable) {
+            if (propertyClasses.add(handler.compactablePropertyClassName().toString())) handler.injectCompactablePropertyClass();
+            statements.add(handler.createCompactStatement(compactedVarName));
+        }
+        statements.add(treeMaker.Return(treeMaker.Ident(compactedVarName)));
+
+        JCMethodDecl compact = treeMaker.MethodDef(
+                treeMaker.Modifiers(Flags.PUBLIC),
+                typeNode.toName(COMPACT_METHOD_NAME),
+                treeMaker.TypeIdent(CTC_INT),
+                List.<JCTypeParameter>nil(),
+                List.<JCVariableDecl>nil(),
+                List.<JCExpression>nil(),
+                treeMaker.Block(0, statements.toList()),
+                null
+        );
+        injectMethod(typeNode, recursiveSetGeneratedBy(compact, typeNode.get(), typeNode.getContext()));
+    }
+
+    private void injectDirtyTracking(JavacNode typeNode, java.util.List<FXObservableFieldHandler> tracked) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        Name dirtyName = typeNode.toName(DIRTY_NAME);
+        Name indexName = typeNode.toName("index");
+        JCExpression dirtyAccess = treeMaker.Select(treeMaker.Ident(typeNode.toName("this")), dirtyName);
+
+        // private long[] $dirty;
+        JCVariableDecl dirty = treeMaker.VarDef(treeMaker.Modifiers(Flags.PRIVATE), dirtyName, treeMaker.TypeArray(treeMaker.TypeIdent(CTC_LONG)), null);
+        injectField(typeNode, recursiveSetGeneratedBy(dirty, typeNode.get(), typeNode.getContext()));
+
+        // private void $markDirty(int index) {
+        //     if (this.$dirty == null) this.$dirty = new long[words];
+        //     this.$dirty[index >>> 6] |= 1L << index;
+        // }
+        int words = (tracked.size() + 63) / 64;
+        JCExpression newDirty = treeMaker.NewArray(treeMaker.TypeIdent(CTC_LONG), List.<JCExpression>of(treeMaker.Literal(CTC_INT, words)), null);
+        JCExpression word = treeMaker.Indexed(
+                treeMaker.Select(treeMaker.Ident(typeNode.toName("this")), dirtyName),
+                treeMaker.Binary(CTC_UNSIGNED_SHIFT_RIGHT, treeMaker.Ident(indexName), treeMaker.Literal(CTC_INT, 6))
+        );
+        JCExpression bit = treeMaker.Binary(CTC_SHIFT_LEFT, treeMaker.Literal(CTC_LONG, 1L), treeMaker.Ident(indexName));
+        injectMethod(typeNode, dirtyMethod(typeNode, Flags.PRIVATE, MARK_DIRTY_NAME, null,
+                List.of(treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), indexName, treeMaker.TypeIdent(CTC_INT), null)),
+                List.of(
+                        treeMaker.If(
+                                treeMaker.Binary(CTC_EQUAL, dirtyAccess, treeMaker.Literal(CTC_BOT, null)),
+                                treeMaker.Exec(treeMaker.Assign(treeMaker.Select(treeMaker.Ident(typeNode.toName("this")), dirtyName), newDirty)),
+                                null
+                        ),
+                        treeMaker.Exec(treeMaker.Assignop(CTC_BITOR_ASSIGN, word, bit))
+                )));
+
+        // public boolean hasDirtyFields() { return this.$dirty != null; }
+        // $dirty is only allocated when a field is marked and released by clearDirty()
+        injectMethod(typeNode, dirtyMethod(typeNode, Flags.PUBLIC, "hasDirtyFields", treeMaker.TypeIdent(CTC_BOOLEAN), List.<JCVariableDecl>nil(),
+                List.<JCStatement>of(treeMaker.Return(treeMaker.Binary(CTC_NOT_EQUAL,
+                        treeMaker.Select(treeMaker.Ident(typeNode.toName("this")), dirtyName), treeMaker.Literal(CTC_BOT, null))))));
+
+        // public void clearDirty() { this.$dirty = null; }
+        injectMethod(typeNode, dirtyMethod(typeNode, Flags.PUBLIC, "clearDirty", null, List.<JCVariableDecl>nil(),
+                List.<JCStatement>of(treeMaker.Exec(treeMaker.Assign(
+                        treeMaker.Select(treeMaker.Ident(typeNode.toName("this")), dirtyName), treeMaker.Literal(CTC_BOT, null))))));
+
+        // public Set<String> dirtyFields() {
+        //     Set<String> $fields = new LinkedHashSet<String>();
+        //     if (this.$dirty == null) return $fields;
+        //     if ((this.$dirty[word] & bit) != 0L) $fields.add("value");
+        //     ...
+        //     return $fields;
+        // }
+        Name fieldsName = typeNode.toName("$fields");
+        ListBuffer<JCStatement> fields = new ListBuffer<>();
+        fields.add(treeMaker.VarDef(treeMaker.Modifiers(0), fieldsName, stringCollectionType(typeNode, "java.util.Set"),
+                treeMaker.NewClass(null, List.<JCExpression>nil(), stringCollectionType(typeNode, "java.util.LinkedHashSet"), List.<JCExpression>nil(), null)));
+        fields.add(treeMaker.If(
+                treeMaker.Binary(CTC_EQUAL, treeMaker.Select(treeMaker.Ident(typeNode.toName("this")), dirtyName), treeMaker.Literal(CTC_BOT, null)),
+                treeMaker.Return(treeMaker.Ident(fieldsName)),
+                null
+        ));
+        for (FXObservableFieldHandler handler : tracked) {
+            fields.add(treeMaker.If(
+                    isDirty(typeNode, handler.dirtyIndex),
+                    treeMaker.Exec(treeMaker.Apply(
+                            List.<JCExpression>nil(),
+                            treeMaker.Select(treeMaker.Ident(fieldsName), typeNode.toName("add")),
+                            List.<JCExpression>of(treeMaker.Literal(handler.fieldNode.getName())))),
+                    null
+            ));
+        }
+        fields.add(treeMaker.Return(treeMaker.Ident(fieldsName)));
+        injectMethod(typeNode, dirtyMethod(typeNode, Flags.PUBLIC, "dirtyFields", stringCollectionType(typeNode, "java.util.Set"), List.<JCVariableDecl>nil(), fields.toList()));
+
+        // public Map<String, Object> dirtyValues() {
+        //     Map<String, Object> $values = new LinkedHashMap<String, Object>();
+        //     if (this.$dirty == null) return $values;
+        //     if ((this.$dirty[word] & bit) != 0L) $values.put("value", getValue());
+        //     ...
+        //     return $values;
+        // }
+        Name valuesName = typeNode.toName("$values");
+        ListBuffer<JCStatement> values = new ListBuffer<>();
+        values.add(treeMaker.VarDef(treeMaker.Modifiers(0), valuesName, valueMapType(typeNode, "java.util.Map"),
+                treeMaker.NewClass(null, List.<JCExpression>nil(), valueMapType(typeNode, "java.util.LinkedHashMap"), List.<JCExpression>nil(), null)));
+        values.add(treeMaker.If(
+                treeMaker.Binary(CTC_EQUAL, treeMaker.Select(treeMaker.Ident(typeNode.toName("this")), dirtyName), treeMaker.Literal(CTC_BOT, null)),
+                treeMaker.Return(treeMaker.Ident(valuesName)),
+                null
+        ));
+        for (FXObservableFieldHandler handler : tracked) {
+            values.add(treeMaker.If(
+                    isDirty(typeNode, handler.dirtyIndex),
+                    treeMaker.Exec(treeMaker.Apply(
+                            List.<JCExpression>nil(),
+                            treeMaker.Select(treeMaker.Ident(valuesName), typeNode.toName("put")),
+                            List.<JCExpression>of(
+                                    treeMaker.Literal(handler.fieldNode.getName()),
+                                    treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(handler.getterName), List.<JCExpression>nil())
+                            ))),
+                    null
+            ));
+        }
+        values.add(treeMaker.Return(treeMaker.Ident(valuesName)));
+        injectMethod(typeNode, dirtyMethod(typeNode, Flags.PUBLIC, "dirtyValues", valueMapType(typeNode, "java.util.Map"), List.<JCVariableDecl>nil(), values.toList()));
+    }
+
+    private void injectStateSerialization(JavacNode typeNode, java.util.List<FXObservableFieldHandler> stateful) {
+        // private boolean $restoringState;
+        // public void writeState(DataOutput out) throws IOException { <createWriteStateStatement() per field> }
+        // public void readState(DataInput in) throws IOException {
+        //     this.$restoringState = true;
+        //     try {
+        //         <createReadStateStatement() per field>
+        //     } finally {
+        //         this.$restoringState = false;
+        //     }
+        // }
+        // while restoring, fields are neither marked dirty, journaled nor published, and onChange is not called
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        Name outName = typeNode.toName("out");
+        Name inName = typeNode.toName("in");
+        injectField(typeNode, recursiveSetGeneratedBy(treeMaker.VarDef(
+                treeMaker.Modifiers(Flags.PRIVATE),
+                typeNode.toName(RESTORING_STATE_NAME),
+                treeMaker.TypeIdent(CTC_BOOLEAN),
+                null
+        ), typeNode.get(), typeNode.getContext()));
+        ListBuffer<JCStatement> writes = new ListBuffer<>();
+        ListBuffer<JCStatement> restores = new ListBuffer<>();
+        for (FXObservableFieldHandler handler : stateful) {
+            writes.add(handler.createWriteStateStatement(outName));
+            restores.add(handler.createReadStateStatement(inName));
+        }
+        List<JCStatement> reads = List.of(
+                assign(typeNode, RESTORING_STATE_NAME, treeMaker.Literal(CTC_BOOLEAN, 1)),
+                treeMaker.Try(
+                        treeMaker.Block(0, restores.toList()),
+                        List.<JCCatch>nil(),
+                        treeMaker.Block(0, List.of(assign(typeNode, RESTORING_STATE_NAME, treeMaker.Literal(CTC_BOOLEAN, 0))))
+                )
+        );
+
+        for (boolean write : new boolean[]{true, false}) {
+            JCMethodDecl method = treeMaker.MethodDef(
+                    treeMaker.Modifiers(Flags.PUBLIC),
+                    typeNode.toName(write ? "writeState" : "readState"),
+                    treeMaker.Type(Javac.createVoidType(treeMaker, Javac.CTC_VOID)),
+                    List.<JCTypeParameter>nil(),
+                    List.of(treeMaker.VarDef(
+                            treeMaker.Modifiers(Flags.PARAMETER),
+                            write ? outName : inName,
+                            chainDotsString(typeNode, write ? "java.io.DataOutput" : "java.io.DataInput"),
+                            null
+                    )),
+                    List.of(chainDotsString(typeNode, "java.io.IOException")),
+                    treeMaker.Block(0, write ? writes.toList() : reads),
+                    null
+            );
+            injectMethod(typeNode, recursiveSetGeneratedBy(method, typeNode.get(), typeNode.getContext()));
+        }
+    }
+
+    private void injectChangeStream(JavacNode typeNode, java.util.List<FXObservableFieldHandler> published) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        JCExpression thisRef = treeMaker.Ident(typeNode.toName("this"));
+        Name maskVarName = typeNode.toName("mask");
+        Name bitVarName = typeNode.toName("bit");
+        Name ordinalName = typeNode.toName("ordinal");
+        Name valueName = typeNode.toName("value");
+        Name signalName = typeNode.toName("signal");
+        Name valuesVarName = typeNode.toName("values");
+        JCExpression zero = treeMaker.Literal(Long.valueOf(0L));
+        JCExpression changedQueueType = treeMaker.TypeApply(chainDotsString(typeNode, "java.util.concurrent.ConcurrentLinkedQueue"), List.of(ownerReference(typeNode)));
+        JCExpression changeValuesType = changeValuesType(typeNode);
+
+        // private volatile long $changeMask;
+        injectField(typeNode, recursiveSetGeneratedBy(treeMaker.VarDef(
+                treeMaker.Modifiers(Flags.PRIVATE | Flags.VOLATILE),
+                typeNode.toName(CHANGE_MASK_NAME),
+                treeMaker.TypeIdent(CTC_LONG),
+                null
+        ), typeNode.get(), typeNode.getContext()));
+
+        // private static final AtomicLongFieldUpdater $changeMaskUpdater = AtomicLongFieldUpdater.newUpdater(Owner.class, "$changeMask");
+        injectField(typeNode, recursiveSetGeneratedBy(treeMaker.VarDef(
+                treeMaker.Modifiers(Flags.PRIVATE | Flags.STATIC | Flags.FINAL),
+                typeNode.toName(CHANGE_MASK_UPDATER_NAME),
+                chainDotsString(typeNode, "java.util.concurrent.atomic.AtomicLongFieldUpdater"),
+                treeMaker.Apply(
+                        List.<JCExpression>nil(),
+                        chainDotsString(typeNode, "java.util.concurrent.atomic.AtomicLongFieldUpdater.newUpdater"),
+                        List.<JCExpression>of(treeMaker.Select(treeMaker.Ident(typeNode.toName(typeNode.getName())), typeNode.toName("class")), treeMaker.Literal(CHANGE_MASK_NAME))
+                )
+        ), typeNode.get(), typeNode.getContext()));
+
+        // private volatile AtomicReferenceArray<Object> $changeValues;
+        injectField(typeNode, recursiveSetGeneratedBy(treeMaker.VarDef(
+                treeMaker.Modifiers(Flags.PRIVATE | Flags.VOLATILE),
+                typeNode.toName(CHANGE_VALUES_NAME),
+                changeValuesType,
+                null
+        ), typeNode.get(), typeNode.getContext()));
+
+        // private static final AtomicReferenceFieldUpdater $changeValuesUpdater = AtomicReferenceFieldUpdater.newUpdater(Owner.class, AtomicReferenceArray.class, "$changeValues");
+        injectField(typeNode, recursiveSetGeneratedBy(treeMaker.VarDef(
+                treeMaker.Modifiers(Flags.PRIVATE | Flags.STATIC | Flags.FINAL),
+                typeNode.toName(CHANGE_VALUES_UPDATER_NAME),
+                chainDotsString(typeNode, "java.util.concurrent.atomic.AtomicReferenceFieldUpdater"),
+                treeMaker.Apply(
+                        List.<JCExpression>nil(),
+                        chainDotsString(typeNode, "java.util.concurrent.atomic.AtomicReferenceFieldUpdater.newUpdater"),
+                        List.<JCExpression>of(
+                                treeMaker.Select(treeMaker.Ident(typeNode.toName(typeNode.getName())), typeNode.toName("class")),
+                                treeMaker.Select(chainDotsString(typeNode, "java.util.concurrent.atomic.AtomicReferenceArray"), typeNode.toName("class")),
+                                treeMaker.Literal(CHANGE_VALUES_NAME))
+                )
+        ), typeNode.get(), typeNode.getContext()));
+
+        // private static final Object $changeNull = new Object();
+        injectField(typeNode, recursiveSetGeneratedBy(treeMaker.VarDef(
+                treeMaker.Modifiers(Flags.PRIVATE | Flags.STATIC | Flags.FINAL),
+                typeNode.toName(CHANGE_NULL_NAME),
+                chainDotsString(typeNode, "java.lang.Object"),
+                treeMaker.NewClass(null, List.<JCExpression>nil(), chainDotsString(typeNode, "java.lang.Object"), List.<JCExpression>nil(), null)
+        ), typeNode.get(), typeNode.getContext()));
+
+        // private static final ConcurrentLinkedQueue<WeakReference<Owner>> $changed = new ConcurrentLinkedQueue<WeakReference<Owner>>();
+        injectField(typeNode, recursiveSetGeneratedBy(treeMaker.VarDef(
+                treeMaker.Modifiers(Flags.PRIVATE | Flags.STATIC | Flags.FINAL),
+                typeNode.toName(CHANGED_NAME),
+                changedQueueType,
+                treeMaker.NewClass(null, List.<JCExpression>nil(),
+                        treeMaker.TypeApply(chainDotsString(typeNode, "java.util.concurrent.ConcurrentLinkedQueue"), List.<JCExpression>of(ownerReference(typeNode))),
+                        List.<JCExpression>nil(), null)
+        ), typeNode.get(), typeNode.getContext()));
+
+        // private static volatile Runnable $changeSignal;
+        injectField(typeNode, recursiveSetGeneratedBy(treeMaker.VarDef(
+                treeMaker.Modifiers(Flags.PRIVATE | Flags.STATIC | Flags.VOLATILE),
+                typeNode.toName(CHANGE_SIGNAL_NAME),
+                chainDotsString(typeNode, "java.lang.Runnable"),
+                null
+        ), typeNode.get(), typeNode.getContext()));
+
+        // private void $publishChange(int ordinal, Object value) {
+        //     AtomicReferenceArray<Object> values = this.$changeValues;
+        //     if (values == null) {
+        //         values = new AtomicReferenceArray<Object>(size);
+        //         if (!$changeValuesUpdater.compareAndSet(this, null, values)) values = this.$changeValues;
+        //     }
+        //     values.set(ordinal, value != null ? value : $changeNull);
+        //     long bit = 1L << ordinal;
+        //     for (;;) {
+        //         long mask = this.$changeMask;
+        //         if ((mask & bit) != 0L) return;
+        //         if ($changeMaskUpdater.compareAndSet(this, mask, mask | bit)) {
+        //             if (mask == 0L) {
+        //                 $changed.offer(new WeakReference<Owner>(this));
+        //                 Runnable signal = $changeSignal;
+        //                 if (signal != null) signal.run();
+        //             }
+        //             return;
+        //         }
+        //     }
+        // }
+        JCStatement enqueue = treeMaker.Block(0, List.<JCStatement>of(
+                treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Select(treeMaker.Ident(typeNode.toName(CHANGED_NAME)), typeNode.toName("offer")), List.<JCExpression>of(
+                        treeMaker.NewClass(null, List.<JCExpression>nil(), ownerReference(typeNode), List.<JCExpression>of(treeMaker.Ident(typeNode.toName("this"))), null)))),
+                treeMaker.VarDef(treeMaker.Modifiers(0), signalName, chainDotsString(typeNode, "java.lang.Runnable"), treeMaker.Ident(typeNode.toName(CHANGE_SIGNAL_NAME))),
+                treeMaker.If(
+                        treeMaker.Binary(CTC_NOT_EQUAL, treeMaker.Ident(signalName), treeMaker.Literal(CTC_BOT, null)),
+                        treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Select(treeMaker.Ident(signalName), typeNode.toName("run")), List.<JCExpression>nil())),
+                        null
+                )
+        ));
+        JCStatement publishLoop = maskLoop(typeNode, CHANGE_MASK_NAME, CHANGE_MASK_UPDATER_NAME, CTC_NOT_EQUAL,
+                treeMaker.Binary(CTC_BITOR, treeMaker.Ident(maskVarName), treeMaker.Ident(bitVarName)),
+                treeMaker.Block(0, List.<JCStatement>of(
+                        treeMaker.If(treeMaker.Binary(CTC_EQUAL, treeMaker.Ident(maskVarName), zero), enqueue, null),
+                        treeMaker.Return(null)
+                )));
+        injectMethod(typeNode, recursiveSetGeneratedBy(pendingMethod(typeNode, PUBLISH_CHANGE_NAME,
+                List.of(
+                        treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), ordinalName, treeMaker.TypeIdent(CTC_INT), null),
+                        treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), valueName, chainDotsString(typeNode, "java.lang.Object"), null)
+                ),
+                List.of(
+                        treeMaker.VarDef(treeMaker.Modifiers(0), valuesVarName, changeValuesType(typeNode), treeMaker.Select(thisRef, typeNode.toName(CHANGE_VALUES_NAME))),
+                        treeMaker.If(
+                                treeMaker.Binary(CTC_EQUAL, treeMaker.Ident(valuesVarName), treeMaker.Literal(CTC_BOT, null)),
+                                treeMaker.Block(0, List.<JCStatement>of(
+                                        treeMaker.Exec(treeMaker.Assign(treeMaker.Ident(valuesVarName), treeMaker.NewClass(null, List.<JCExpression>nil(),
+                                                changeValuesType(typeNode), List.<JCExpression>of(treeMaker.Literal(CTC_INT, published.size())), null))),
+                                        treeMaker.If(
+                                                treeMaker.Unary(CTC_NOT, treeMaker.Apply(
+                                                        List.<JCExpression>nil(),
+                                                        treeMaker.Select(treeMaker.Ident(typeNode.toName(CHANGE_VALUES_UPDATER_NAME)), typeNode.toName("compareAndSet")),
+                                                        List.<JCExpression>of(treeMaker.Ident(typeNode.toName("this")), treeMaker.Literal(CTC_BOT, null), treeMaker.Ident(valuesVarName)))),
+                                                treeMaker.Exec(treeMaker.Assign(treeMaker.Ident(valuesVarName), treeMaker.Select(treeMaker.Ident(typeNode.toName("this")), typeNode.toName(CHANGE_VALUES_NAME)))),
+                                                null
+                                        )
+                                )),
+                                null
+                        ),
+                        treeMaker.Exec(treeMaker.Apply(
+                                List.<JCExpression>nil(),
+                                treeMaker.Select(treeMaker.Ident(valuesVarName), typeNode.toName("set")),
+                                List.<JCExpression>of(treeMaker.Ident(ordinalName), treeMaker.Conditional(
+                                        treeMaker.Binary(CTC_NOT_EQUAL, treeMaker.Ident(valueName), treeMaker.Literal(CTC_BOT, null)),
+                                        treeMaker.Ident(valueName),
+                                        treeMaker.Ident(typeNode.toName(CHANGE_NULL_NAME)))))),
+                        treeMaker.VarDef(treeMaker.Modifiers(0), bitVarName, treeMaker.TypeIdent(CTC_LONG),
+                                treeMaker.Binary(CTC_SHIFT_LEFT, treeMaker.Literal(CTC_LONG, 1L), treeMaker.Ident(ordinalName))),
+                        publishLoop
+                )), typeNode.get(), typeNode.getContext()));
+
+        // public static Owner pollChanged() {
+        //     for (;;) {
+        //         WeakReference<Owner> reference = $changed.poll();
+        //         if (reference == null) return null;
+        //         Owner owner = reference.get();
+        //         if (owner != null) return owner;
+        //     }
+        // }
+        Name referenceName = typeNode.toName("reference");
+        Name ownerName = typeNode.toName("owner");
+        injectMethod(typeNode, dirtyMethod(typeNode, Flags.PUBLIC | Flags.STATIC, "pollChanged", treeMaker.Ident(typeNode.toName(typeNode.getName())), List.<JCVariableDecl>nil(),
+                List.<JCStatement>of(treeMaker.ForLoop(List.<JCStatement>nil(), null, List.<JCExpressionStatement>nil(), treeMaker.Block(0, List.<JCStatement>of(
+                        treeMaker.VarDef(treeMaker.Modifiers(0), referenceName, ownerReference(typeNode), treeMaker.Apply(
+                                List.<JCExpression>nil(), treeMaker.Select(treeMaker.Ident(typeNode.toName(CHANGED_NAME)), typeNode.toName("poll")), List.<JCExpression>nil())),
+                        treeMaker.If(treeMaker.Binary(CTC_EQUAL, treeMaker.Ident(referenceName), treeMaker.Literal(CTC_BOT, null)), treeMaker.Return(treeMaker.Literal(CTC_BOT, null)), null),
+                        treeMaker.VarDef(treeMaker.Modifiers(0), ownerName, treeMaker.Ident(typeNode.toName(typeNode.getName())), treeMaker.Apply(
+                                List.<JCExpression>nil(), treeMaker.Select(treeMaker.Ident(referenceName), typeNode.toName("get")), List.<JCExpression>nil())),
+                        treeMaker.If(treeMaker.Binary(CTC_NOT_EQUAL, treeMaker.Ident(ownerName), treeMaker.Literal(CTC_BOT, null)), treeMaker.Return(treeMaker.Ident(ownerName)), null)
+                ))))));
+
+        // public static void setChangeSignal(Runnable signal) { $changeSignal = signal; }
+        injectMethod(typeNode, dirtyMethod(typeNode, Flags.PUBLIC | Flags.STATIC, "setChangeSignal", null,
+                List.of(treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), signalName, chainDotsString(typeNode, "java.lang.Runnable"), null)),
+                List.<JCStatement>of(treeMaker.Exec(treeMaker.Assign(treeMaker.Ident(typeNode.toName(CHANGE_SIGNAL_NAME)), treeMaker.Ident(signalName))))));
+
+        // public Map<String, Object> drainChanges() {
+        //     Map<String, Object> $values = new LinkedHashMap<String, Object>();
+        //     long mask = $changeMaskUpdater.getAndSet(this, 0L);
+        //     if (mask == 0L) return $values;
+        //     AtomicReferenceArray<Object> values = this.$changeValues;
+        //     if ((mask & 1L) != 0L) {
+        //         Object value = values.getAndSet(0, null);
+        //         if (value != null) $values.put("value", value != $changeNull ? value : null);
+        //     }
+        //     ...
+        //     return $values;
+        // }
+        Name valuesName = typeNode.toName("$values");
+        ListBuffer<JCStatement> drain = new ListBuffer<>();
+        drain.add(treeMaker.VarDef(treeMaker.Modifiers(0), valuesName, valueMapType(typeNode, "java.util.Map"),
+                treeMaker.NewClass(null, List.<JCExpression>nil(), valueMapType(typeNode, "java.util.LinkedHashMap"), List.<JCExpression>nil(), null)));
+        drain.add(treeMaker.VarDef(treeMaker.Modifiers(0), maskVarName, treeMaker.TypeIdent(CTC_LONG), treeMaker.Apply(
+                List.<JCExpression>nil(),
+                treeMaker.Select(treeMaker.Ident(typeNode.toName(CHANGE_MASK_UPDATER_NAME)), typeNode.toName("getAndSet")),
+                List.<JCExpression>of(treeMaker.Ident(typeNode.toName("this")), treeMaker.Literal(Long.valueOf(0L)))
+        )));
+        drain.add(treeMaker.If(treeMaker.Binary(CTC_EQUAL, treeMaker.Ident(maskVarName), treeMaker.Literal(CTC_LONG, 0L)), treeMaker.Return(treeMaker.Ident(valuesName)), null));
+        drain.add(treeMaker.VarDef(treeMaker.Modifiers(0), valuesVarName, changeValuesType(typeNode), treeMaker.Select(treeMaker.Ident(typeNode.toName("this")), typeNode.toName(CHANGE_VALUES_NAME))));
+        for (FXObservableFieldHandler handler : published) {
+            drain.add(treeMaker.If(
+                    treeMaker.Binary(CTC_NOT_EQUAL,
+                            treeMaker.Parens(treeMaker.Binary(CTC_BITAND, treeMaker.Ident(maskVarName), treeMaker.Literal(CTC_LONG, 1L << handler.changeOrdinal))),
+                            treeMaker.Literal(CTC_LONG, 0L)),
+                    treeMaker.Block(0, List.<JCStatement>of(
+                            treeMaker.VarDef(treeMaker.Modifiers(0), valueName, chainDotsString(typeNode, "java.lang.Object"), treeMaker.Apply(
+                                    List.<JCExpression>nil(),
+                                    treeMaker.Select(treeMaker.Ident(valuesVarName), typeNode.toName("getAndSet")),
+                                    List.<JCExpression>of(treeMaker.Literal(CTC_INT, handler.changeOrdinal), treeMaker.Literal(CTC_BOT, null)))),
+                            treeMaker.If(
+                                    treeMaker.Binary(CTC_NOT_EQUAL, treeMaker.Ident(valueName), treeMaker.Literal(CTC_BOT, null)),
+                                    treeMaker.Exec(treeMaker.Apply(
+                                            List.<JCExpression>nil(),
+                                            treeMaker.Select(treeMaker.Ident(valuesName), typeNode.toName("put")),
+                                            List.<JCExpression>of(treeMaker.Literal(handler.fieldNode.getName()), treeMaker.Conditional(
+                                                    treeMaker.Binary(CTC_NOT_EQUAL, treeMaker.Ident(valueName), treeMaker.Ident(typeNode.toName(CHANGE_NULL_NAME))),
+                                                    treeMaker.Ident(valueName),
+                                                    treeMaker.Literal(CTC_BOT, null))))),
+                                    null
+                            )
+                    )),
+                    null
+            ));
+        }
+        drain.add(treeMaker.Return(treeMaker.Ident(valuesName)));
+        injectMethod(typeNode, dirtyMethod(typeNode, Flags.PUBLIC, "drainChanges", valueMapType(typeNode, "java.util.Map"), List.<JCVariableDecl>nil(), drain.toList()));
+    }
+
+    private JCExpression changeValuesType(JavacNode typeNode) {
+        // AtomicReferenceArray<Object>
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        return treeMaker.TypeApply(chainDotsString(typeNode, "java.util.concurrent.atomic.AtomicReferenceArray"), List.of(chainDotsString(typeNode, "java.lang.Object")));
+    }
+
+    private JCExpression ownerReference(JavacNode typeNode) {
+        // WeakReference<Owner>
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        return treeMaker.TypeApply(chainDotsString(typeNode, "java.lang.ref.WeakReference"), List.<JCExpression>of(treeMaker.Ident(typeNode.toName(typeNode.getName()))));
+    }
+
+    private void injectUndoJournal(JavacNode typeNode, java.util.List<FXObservableFieldHandler> journaled, int capacity) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        Name ordinalName = typeNode.toName("ordinal");
+        Name slotName = typeNode.toName("slot");
+        Name undoName = typeNode.toName("undo");
+        boolean bits = false;
+        boolean values = false;
+        for (FXObservableFieldHandler handler : journaled) {
+            if (handler.type.type.isPrimitive()) bits = true;
+            else values = true;
+        }
+
+        // private int[] $undoOrdinals;
+        // private long[] $undoOldBits, $undoNewBits;          primitive fields
+        // private Object[] $undoOldValues, $undoNewValues;    other fields
+        // private int $undoHead, $undoSize, $redoSize;
+        // private boolean $undoReplaying;
+        injectField(typeNode, undoField(typeNode, UNDO_ORDINALS_NAME, treeMaker.TypeArray(treeMaker.TypeIdent(CTC_INT))));
+        if (bits) {
+            injectField(typeNode, undoField(typeNode, UNDO_OLD_BITS_NAME, treeMaker.TypeArray(treeMaker.TypeIdent(CTC_LONG))));
+            injectField(typeNode, undoField(typeNode, UNDO_NEW_BITS_NAME, treeMaker.TypeArray(treeMaker.TypeIdent(CTC_LONG))));
+        }
+        if (values) {
+            injectField(typeNode, undoField(typeNode, UNDO_OLD_VALUES_NAME, treeMaker.TypeArray(chainDotsString(typeNode, "java.lang.Object"))));
+            injectField(typeNode, undoField(typeNode, UNDO_NEW_VALUES_NAME, treeMaker.TypeArray(chainDotsString(typeNode, "java.lang.Object"))));
+        }
+        injectField(typeNode, undoField(typeNode, UNDO_HEAD_NAME, treeMaker.TypeIdent(CTC_INT)));
+        injectField(typeNode, undoField(typeNode, UNDO_SIZE_NAME, treeMaker.TypeIdent(CTC_INT)));
+        injectField(typeNode, undoField(typeNode, REDO_SIZE_NAME, treeMaker.TypeIdent(CTC_INT)));
+        injectField(typeNode, undoField(typeNode, UNDO_REPLAYING_NAME, treeMaker.TypeIdent(CTC_BOOLEAN)));
+
+        // private int $undoSlot(int ordinal) {
+        //     if (this.$undoOrdinals == null) {
+        //         this.$undoOrdinals = new int[capacity];
+        //         <allocate value arrays>
+        //     }
+        //     int slot = this.$undoHead;
+        //     this.$undoOrdinals[slot] = ordinal;
+        //     this.$undoOldValues[slot] = null; this.$undoNewValues[slot] = null;
+        //     this.$undoHead = (slot + 1) % capacity;
+        //     if (this.$undoSize < capacity) this.$undoSize++;
+        //     this.$redoSize = 0;
+        //     return slot;
+        // }
+        ListBuffer<JCStatement> allocate = new ListBuffer<>();
+        allocate.add(assign(typeNode, UNDO_ORDINALS_NAME, newArray(typeNode, treeMaker.TypeIdent(CTC_INT), capacity)));
+        if (bits) {
+            allocate.add(assign(typeNode, UNDO_OLD_BITS_NAME, newArray(typeNode, treeMaker.TypeIdent(CTC_LONG), capacity)));
+            allocate.add(assign(typeNode, UNDO_NEW_BITS_NAME, newArray(typeNode, treeMaker.TypeIdent(CTC_LONG), capacity)));
+        }
+        if (values) {
+            allocate.add(assign(typeNode, UNDO_OLD_VALUES_NAME, newArray(typeNode, chainDotsString(typeNode, "java.lang.Object"), capacity)));
+            allocate.add(assign(typeNode, UNDO_NEW_VALUES_NAME, newArray(typeNode, chainDotsString(typeNode, "java.lang.Object"), capacity)));
+        }
+        ListBuffer<JCStatement> slot = new ListBuffer<>();
+        slot.add(treeMaker.If(
+                treeMaker.Binary(CTC_EQUAL, thisDot(typeNode, UNDO_ORDINALS_NAME), treeMaker.Literal(CTC_BOT, null)),
+                treeMaker.Block(0, allocate.toList()),
+                null
+        ));
+        slot.add(treeMaker.VarDef(treeMaker.Modifiers(0), slotName, treeMaker.TypeIdent(CTC_INT), thisDot(typeNode, UNDO_HEAD_NAME)));
+        slot.add(treeMaker.Exec(treeMaker.Assign(treeMaker.Indexed(thisDot(typeNode, UNDO_ORDINALS_NAME), treeMaker.Ident(slotName)), treeMaker.Ident(ordinalName))));
+        if (values) {
+            // entries of primitive fields must not retain references
+            slot.add(treeMaker.Exec(treeMaker.Assign(treeMaker.Indexed(thisDot(typeNode, UNDO_OLD_VALUES_NAME), treeMaker.Ident(slotName)), treeMaker.Literal(CTC_BOT, null))));
+            slot.add(treeMaker.Exec(treeMaker.Assign(treeMaker.Indexed(thisDot(typeNode, UNDO_NEW_VALUES_NAME), treeMaker.Ident(slotName)), treeMaker.Literal(CTC_BOT, null))));
+        }
+        slot.add(assign(typeNode, UNDO_HEAD_NAME, treeMaker.Binary(CTC_MOD,
+                treeMaker.Parens(treeMaker.Binary(CTC_PLUS, treeMaker.Ident(slotName), treeMaker.Literal(CTC_INT, 1))),
+                treeMaker.Literal(CTC_INT, capacity))));
+        slot.add(treeMaker.If(
+                treeMaker.Binary(CTC_LESS_THAN, thisDot(typeNode, UNDO_SIZE_NAME), treeMaker.Literal(CTC_INT, capacity)),
+                treeMaker.Exec(treeMaker.Unary(CTC_POSTINC, thisDot(typeNode, UNDO_SIZE_NAME))),
+                null
+        ));
+        slot.add(assign(typeNode, REDO_SIZE_NAME, treeMaker.Literal(CTC_INT, 0)));
+        slot.add(treeMaker.Return(treeMaker.Ident(slotName)));
+        injectMethod(typeNode, dirtyMethod(typeNode, Flags.PRIVATE, UNDO_SLOT_NAME, treeMaker.TypeIdent(CTC_INT),
+                List.of(treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), ordinalName, treeMaker.TypeIdent(CTC_INT), null)),
+                slot.toList()));
+
+        // private void $recordUndo(int ordinal, long oldValue, long newValue) {
+        //     if (oldValue == newValue || this.$undoReplaying) return;
+        //     int slot = $undoSlot(ordinal);
+        //     this.$undoOldBits[slot] = oldValue;
+        //     this.$undoNewBits[slot] = newValue;
+        // }
+        // private void $recordUndo(int ordinal, Object oldValue, Object newValue) {
+        //     if (Objects.equals(oldValue, newValue) || this.$undoReplaying) return;
+        //     <same as above, with $undoOldValues and $undoNewValues>
+        // }
+        if (bits) injectMethod(typeNode, recordUndoMethod(typeNode, true));
+        if (values) injectMethod(typeNode, recordUndoMethod(typeNode, false));
+
+        // private void $replayUndo(int slot, boolean undo) {
+        //     this.$undoReplaying = true;
+        //     try {
+        //         int ordinal = this.$undoOrdinals[slot];
+        //         if (ordinal == 0) setValue(<undo ? old : new value of slot>);
+        //         ...
+        //     } finally {
+        //         this.$undoReplaying = false;
+        //     }
+        // }
+        ListBuffer<JCStatement> replay = new ListBuffer<>();
+        replay.add(treeMaker.VarDef(treeMaker.Modifiers(0), ordinalName, treeMaker.TypeIdent(CTC_INT),
+                treeMaker.Indexed(thisDot(typeNode, UNDO_ORDINALS_NAME), treeMaker.Ident(slotName))));
+        for (FXObservableFieldHandler handler : journaled) {
+            replay.add(handler.createReplayUndoStatement(ordinalName, slotName, undoName));
+        }
+        injectMethod(typeNode, dirtyMethod(typeNode, Flags.PRIVATE, REPLAY_UNDO_NAME, null,
+                List.of(
+                        treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), slotName, treeMaker.TypeIdent(CTC_INT), null),
+                        treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), undoName, treeMaker.TypeIdent(CTC_BOOLEAN), null)
+                ),
+                List.<JCStatement>of(
+                        assign(typeNode, UNDO_REPLAYING_NAME, treeMaker.Literal(CTC_BOOLEAN, 1)),
+                        treeMaker.Try(
+                                treeMaker.Block(0, replay.toList()),
+                                List.<JCCatch>nil(),
+                                treeMaker.Block(0, List.of(assign(typeNode, UNDO_REPLAYING_NAME, treeMaker.Literal(CTC_BOOLEAN, 0))))
+                        )
+                )));
+
+        // public boolean undo() {
+        //     if (this.$undoSize == 0) return false;
+        //     int slot = (this.$undoHead + capacity - 1) % capacity;
+        //     this.$undoHead = slot;
+        //     this.$undoSize--;
+        //     this.$redoSize++;
+        //     $replayUndo(slot, true);
+        //     return true;
+        // }
+        injectMethod(typeNode, dirtyMethod(typeNode, Flags.PUBLIC, "undo", treeMaker.TypeIdent(CTC_BOOLEAN), List.<JCVariableDecl>nil(), List.of(
+                treeMaker.If(
+                        treeMaker.Binary(CTC_EQUAL, thisDot(typeNode, UNDO_SIZE_NAME), treeMaker.Literal(CTC_INT, 0)),
+                        treeMaker.Return(treeMaker.Literal(CTC_BOOLEAN, 0)),
+                        null
+                ),
+                treeMaker.VarDef(treeMaker.Modifiers(0), slotName, treeMaker.TypeIdent(CTC_INT), treeMaker.Binary(CTC_MOD,
+                        treeMaker.Parens(treeMaker.Binary(CTC_PLUS, thisDot(typeNode, UNDO_HEAD_NAME), treeMaker.Literal(CTC_INT, capacity - 1))),
+                        treeMaker.Literal(CTC_INT, capacity))),
+                assign(typeNode, UNDO_HEAD_NAME, treeMaker.Ident(slotName)),
+                treeMaker.Exec(treeMaker.Unary(CTC_POSTDEC, thisDot(typeNode, UNDO_SIZE_NAME))),
+                treeMaker.Exec(treeMaker.Unary(CTC_POSTINC, thisDot(typeNode, REDO_SIZE_NAME))),
+                treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(typeNode.toName(REPLAY_UNDO_NAME)),
+                        List.<JCExpression>of(treeMaker.Ident(slotName), treeMaker.Literal(CTC_BOOLEAN, 1)))),
+                treeMaker.Return(treeMaker.Literal(CTC_BOOLEAN, 1))
+        )));
+
+        // public boolean redo() {
+        //     if (this.$redoSize == 0) return false;
+        //     int slot = this.$undoHead;
+        //     this.$undoHead = (slot + 1) % capacity;
+        //     this.$redoSize--;
+        //     this.$undoSize++;
+        //     $replayUndo(slot, false);
+        //     return true;
+        // }
+        injectMethod(typeNode, dirtyMethod(typeNode, Flags.PUBLIC, "redo", treeMaker.TypeIdent(CTC_BOOLEAN), List.<JCVariableDecl>nil(), List.of(
+                treeMaker.If(
+                        treeMaker.Binary(CTC_EQUAL, thisDot(typeNode, REDO_SIZE_NAME), treeMaker.Literal(CTC_INT, 0)),
+                        treeMaker.Return(treeMaker.Literal(CTC_BOOLEAN, 0)),
+                        null
+                ),
+                treeMaker.VarDef(treeMaker.Modifiers(0), slotName, treeMaker.TypeIdent(CTC_INT), thisDot(typeNode, UNDO_HEAD_NAME)),
+                assign(typeNode, UNDO_HEAD_NAME, treeMaker.Binary(CTC_MOD,
+                        treeMaker.Parens(treeMaker.Binary(CTC_PLUS, treeMaker.Ident(slotName), treeMaker.Literal(CTC_INT, 1))),
+                        treeMaker.Literal(CTC_INT, capacity))),
+                treeMaker.Exec(treeMaker.Unary(CTC_POSTDEC, thisDot(typeNode, REDO_SIZE_NAME))),
+                treeMaker.Exec(treeMaker.Unary(CTC_POSTINC, thisDot(typeNode, UNDO_SIZE_NAME))),
+                treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(typeNode.toName(REPLAY_UNDO_NAME)),
+                        List.<JCExpression>of(treeMaker.Ident(slotName), treeMaker.Literal(CTC_BOOLEAN, 0)))),
+                treeMaker.Return(treeMaker.Literal(CTC_BOOLEAN, 1))
+        )));
+
+        // public boolean canUndo() { return this.$undoSize != 0; }
+        // public boolean canRedo() { return this.$redoSize != 0; }
+        injectMethod(typeNode, dirtyMethod(typeNode, Flags.PUBLIC, "canUndo", treeMaker.TypeIdent(CTC_BOOLEAN), List.<JCVariableDecl>nil(), List.<JCStatement>of(
+                treeMaker.Return(treeMaker.Binary(CTC_NOT_EQUAL, thisDot(typeNode, UNDO_SIZE_NAME), treeMaker.Literal(CTC_INT, 0))))));
+        injectMethod(typeNode, dirtyMethod(typeNode, Flags.PUBLIC, "canRedo", treeMaker.TypeIdent(CTC_BOOLEAN), List.<JCVariableDecl>nil(), List.<JCStatement>of(
+                treeMaker.Return(treeMaker.Binary(CTC_NOT_EQUAL, thisDot(typeNode, REDO_SIZE_NAME), treeMaker.Literal(CTC_INT, 0))))));
+
+        // public void clearUndo() {
+        //     this.$undoOrdinals = null;
+        //     <release value arrays>
+        //     this.$undoHead = 0; this.$undoSize = 0; this.$redoSize = 0;
+        // }
+        ListBuffer<JCStatement> clear = new ListBuffer<>();
+        clear.add(assign(typeNode, UNDO_ORDINALS_NAME, treeMaker.Literal(CTC_BOT, null)));
+        if (bits) {
+            clear.add(assign(typeNode, UNDO_OLD_BITS_NAME, treeMaker.Literal(CTC_BOT, null)));
+            clear.add(assign(typeNode, UNDO_NEW_BITS_NAME, treeMaker.Literal(CTC_BOT, null)));
+        }
+        if (values) {
+            clear.add(assign(typeNode, UNDO_OLD_VALUES_NAME, treeMaker.Literal(CTC_BOT, null)));
+            clear.add(assign(typeNode, UNDO_NEW_VALUES_NAME, treeMaker.Literal(CTC_BOT, null)));
         }
+        clear.add(assign(typeNode, UNDO_HEAD_NAME, treeMaker.Literal(CTC_INT, 0)));
+        clear.add(assign(typeNode, UNDO_SIZE_NAME, treeMaker.Literal(CTC_INT, 0)));
+        clear.add(assign(typeNode, REDO_SIZE_NAME, treeMaker.Literal(CTC_INT, 0)));
+        injectMethod(typeNode, dirtyMethod(typeNode, Flags.PUBLIC, "clearUndo", null, List.<JCVariableDecl>nil(), clear.toList()));
+    }
+
+    private JCMethodDecl recordUndoMethod(JavacNode typeNode, boolean bits) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        Name ordinalName = typeNode.toName("ordinal");
+        Name oldName = typeNode.toName("oldValue");
+        Name newName = typeNode.toName("newValue");
+        Name slotName = typeNode.toName("slot");
+        JCExpression unchanged = bits
+                ? treeMaker.Binary(CTC_EQUAL, treeMaker.Ident(oldName), treeMaker.Ident(newName))
+                : treeMaker.Apply(List.<JCExpression>nil(), chainDotsString(typeNode, "java.util.Objects.equals"),
+                List.<JCExpression>of(treeMaker.Ident(oldName), treeMaker.Ident(newName)));
+        JCExpression valueType = bits ? treeMaker.TypeIdent(CTC_LONG) : chainDotsString(typeNode, "java.lang.Object");
+        return dirtyMethod(typeNode, Flags.PRIVATE, RECORD_UNDO_NAME, null,
+                List.of(
+                        treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), ordinalName, treeMaker.TypeIdent(CTC_INT), null),
+                        treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), oldName, valueType, null),
+                        treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), newName, bits ? treeMaker.TypeIdent(CTC_LONG) : chainDotsString(typeNode, "java.lang.Object"), null)
+                ),
+                List.of(
+                        treeMaker.If(treeMaker.Binary(CTC_OR, unchanged, thisDot(typeNode, UNDO_REPLAYING_NAME)), treeMaker.Return(null), null),
+                        treeMaker.VarDef(treeMaker.Modifiers(0), slotName, treeMaker.TypeIdent(CTC_INT),
+                                treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(typeNode.toName(UNDO_SLOT_NAME)), List.<JCExpression>of(treeMaker.Ident(ordinalName)))),
+                        treeMaker.Exec(treeMaker.Assign(
+                                treeMaker.Indexed(thisDot(typeNode, bits ? UNDO_OLD_BITS_NAME : UNDO_OLD_VALUES_NAME), treeMaker.Ident(slotName)), treeMaker.Ident(oldName))),
+                        treeMaker.Exec(treeMaker.Assign(
+                                treeMaker.Indexed(thisDot(typeNode, bits ? UNDO_NEW_BITS_NAME : UNDO_NEW_VALUES_NAME), treeMaker.Ident(slotName)), treeMaker.Ident(newName)))
+                ));
+    }
+
+    private JCVariableDecl undoField(JavacNode typeNode, String name, JCExpression type) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        return recursiveSetGeneratedBy(treeMaker.VarDef(treeMaker.Modifiers(Flags.PRIVATE), typeNode.toName(name), type, null), typeNode.get(), typeNode.getContext());
+    }
+
+    private JCExpression thisDot(JavacNode typeNode, String name) {
+        return typeNode.getTreeMaker().Select(typeNode.getTreeMaker().Ident(typeNode.toName("this")), typeNode.toName(name));
+    }
+
+    private JCStatement assign(JavacNode typeNode, String name, JCExpression value) {
+        return typeNode.getTreeMaker().Exec(typeNode.getTreeMaker().Assign(thisDot(typeNode, name), value));
+    }
+
+    private JCExpression newArray(JavacNode typeNode, JCExpression elementType, int size) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        return treeMaker.NewArray(elementType, List.<JCExpression>of(treeMaker.Literal(CTC_INT, size)), null);
+    }
+
+    private JCExpression isDirty(JavacNode typeNode, int index) {
+        // (this.$dirty[word] & bit) != 0L
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        JCExpression word = treeMaker.Indexed(
+                treeMaker.Select(treeMaker.Ident(typeNode.toName("this")), typeNode.toName(DIRTY_NAME)),
+                treeMaker.Literal(CTC_INT, index >>> 6)
+        );
+        return treeMaker.Binary(
+                CTC_NOT_EQUAL,
+                treeMaker.Parens(treeMaker.Binary(CTC_BITAND, word, treeMaker.Literal(CTC_LONG, 1L << index))),
+                treeMaker.Literal(CTC_LONG, 0L)
+        );
+    }
+
+    private JCExpression stringCollectionType(JavacNode typeNode, String rawType) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        return treeMaker.TypeApply(chainDotsString(typeNode, rawType), List.of(chainDotsString(typeNode, "java.lang.String")));
+    }
+
+    private JCExpression valueMapType(JavacNode typeNode, String rawType) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        return treeMaker.TypeApply(chainDotsString(typeNode, rawType), List.of(chainDotsString(typeNode, "java.lang.String"), chainDotsString(typeNode, "java.lang.Object")));
+    }
+
+    private JCMethodDecl dirtyMethod(JavacNode typeNode, long flags, String name, JCExpression returnType, List<JCVariableDecl> parameters, List<JCStatement> statements) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        JCMethodDecl method = treeMaker.MethodDef(
+                treeMaker.Modifiers(flags),
+                typeNode.toName(name),
+                returnType != null ? returnType : treeMaker.Type(Javac.createVoidType(treeMaker, Javac.CTC_VOID)),
+                List.<JCTypeParameter>nil(),
+                parameters,
+                List.<JCExpression>nil(),
+                treeMaker.Block(0, statements),
+                null
+        );
+        return recursiveSetGeneratedBy(method, typeNode.get(), typeNode.getContext());
+    }
+
+    private JCExpression flushScheduledCompareAndSet(JavacNode typeNode) {
+        // $pendingFlushScheduled.compareAndSet(false, true)
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        return treeMaker.Apply(
+                List.<JCExpression>nil(),
+                treeMaker.Select(treeMaker.Ident(typeNode.toName(PENDING_FLUSH_SCHEDULED_NAME)), typeNode.toName("compareAndSet")),
+                List.<JCExpression>of(treeMaker.Literal(CTC_BOOLEAN, 0), treeMaker.Literal(CTC_BOOLEAN, 1))
+        );
+    }
+
+    private void injectRestoredMask(JavacNode typeNode) {
+        // coalesced values staged by readState() outside the FX thread are flagged, so the flush applies them without
+        // recording changes; setters staging a value clear the flag again
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        Name maskVarName = typeNode.toName("mask");
+        Name bitVarName = typeNode.toName("bit");
+
+        // private volatile long $restoredMask;
+        injectField(typeNode, recursiveSetGeneratedBy(treeMaker.VarDef(
+                treeMaker.Modifiers(Flags.PRIVATE | Flags.VOLATILE),
+                typeNode.toName(RESTORED_MASK_NAME),
+                treeMaker.TypeIdent(CTC_LONG),
+                null
+        ), typeNode.get(), typeNode.getContext()));
+
+        // private static final AtomicLongFieldUpdater $restoredMaskUpdater = AtomicLongFieldUpdater.newUpdater(Owner.class, "$restoredMask");
+        injectField(typeNode, recursiveSetGeneratedBy(treeMaker.VarDef(
+                treeMaker.Modifiers(Flags.PRIVATE | Flags.STATIC | Flags.FINAL),
+                typeNode.toName(RESTORED_MASK_UPDATER_NAME),
+                chainDotsString(typeNode, "java.util.concurrent.atomic.AtomicLongFieldUpdater"),
+                treeMaker.Apply(
+                        List.<JCExpression>nil(),
+                        chainDotsString(typeNode, "java.util.concurrent.atomic.AtomicLongFieldUpdater.newUpdater"),
+                        List.<JCExpression>of(
+                                treeMaker.Select(treeMaker.Ident(typeNode.toName(typeNode.getName())), typeNode.toName("class")),
+                                treeMaker.Literal(RESTORED_MASK_NAME)
+                        )
+                )
+        ), typeNode.get(), typeNode.getContext()));
+
+        // private void $markRestored(long bit) {
+        //     for (;;) {
+        //         long mask = this.$restoredMask;
+        //         if ((mask & bit) != 0L) return;
+        //         if ($restoredMaskUpdater.compareAndSet(this, mask, mask | bit)) return;
+        //     }
+        // }
+        JCStatement markLoop = maskLoop(typeNode, RESTORED_MASK_NAME, RESTORED_MASK_UPDATER_NAME, CTC_NOT_EQUAL,
+                treeMaker.Binary(CTC_BITOR, treeMaker.Ident(maskVarName), treeMaker.Ident(bitVarName)),
+                treeMaker.Return(null));
+        injectMethod(typeNode, recursiveSetGeneratedBy(
+                pendingMethod(typeNode, MARK_RESTORED_NAME, List.of(treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), bitVarName, treeMaker.TypeIdent(CTC_LONG), null)), List.of(markLoop)),
+                typeNode.get(), typeNode.getContext()));
+
+        // private void $unmarkRestored(long bit) {
+        //     for (;;) {
+        //         long mask = this.$restoredMask;
+        //         if ((mask & bit) == 0L) return;
+        //         if ($restoredMaskUpdater.compareAndSet(this, mask, mask & ~bit)) return;
+        //     }
+        // }
+        JCStatement unmarkLoop = maskLoop(typeNode, RESTORED_MASK_NAME, RESTORED_MASK_UPDATER_NAME, CTC_EQUAL,
+                treeMaker.Binary(CTC_BITAND, treeMaker.Ident(maskVarName), treeMaker.Unary(CTC_COMPL, treeMaker.Ident(bitVarName))),
+                treeMaker.Return(null));
+        injectMethod(typeNode, recursiveSetGeneratedBy(
+                pendingMethod(typeNode, UNMARK_RESTORED_NAME, List.of(treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), bitVarName, treeMaker.TypeIdent(CTC_LONG), null)), List.of(unmarkLoop)),
+                typeNode.get(), typeNode.getContext()));
+    }
+
+    private JCStatement pendingMaskLoop(JavacNode typeNode, TreeTag doneWhen, JCExpression update, JCStatement updated) {
+        return maskLoop(typeNode, PENDING_MASK_NAME, PENDING_MASK_UPDATER_NAME, doneWhen, update, updated);
+    }
+
+    private JCStatement maskLoop(JavacNode typeNode, String maskName, String updaterName, TreeTag doneWhen, JCExpression update, JCStatement updated) {
+        // for (;;) {
+        //     long mask = this.<maskName>;
+        //     if ((mask & bit) <doneWhen> 0L) return;
+        //     if (<updaterName>.compareAndSet(this, mask, <update>)) <updated>
+        // }
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        Name maskVarName = typeNode.toName("mask");
+        JCExpression mask = treeMaker.Select(treeMaker.Ident(typeNode.toName("this")), typeNode.toName(maskName));
+        JCExpression compareAndSet = treeMaker.Apply(
+                List.<JCExpression>nil(),
+                treeMaker.Select(treeMaker.Ident(typeNode.toName(updaterName)), typeNode.toName("compareAndSet")),
+                List.<JCExpression>of(treeMaker.Ident(typeNode.toName("this")), treeMaker.Ident(maskVarName), update)
+        );
+        List<JCStatement> body = List.<JCStatement>of(
+                treeMaker.VarDef(treeMaker.Modifiers(0), maskVarName, treeMaker.TypeIdent(CTC_LONG), mask),
+                treeMaker.If(
+                        treeMaker.Binary(doneWhen, treeMaker.Binary(CTC_BITAND, treeMaker.Ident(maskVarName), treeMaker.Ident(typeNode.toName("bit"))), treeMaker.Literal(Long.valueOf(0L))),
+                        treeMaker.Return(null),
+                        null
+                ),
+                treeMaker.If(compareAndSet, updated, null)
+        );
+        return treeMaker.ForLoop(List.<JCStatement>nil(), null, List.<JCExpressionStatement>nil(), treeMaker.Block(0, body));
+    }
+
+    private JCMethodDecl pendingMethod(JavacNode typeNode, String name, List<JCVariableDecl> parameters, List<JCStatement> statements) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        return treeMaker.MethodDef(
+                treeMaker.Modifiers(Flags.PRIVATE),
+                typeNode.toName(name),
+                treeMaker.Type(Javac.createVoidType(treeMaker, Javac.CTC_VOID)),
+                List.<JCTypeParameter>nil(),
+                parameters,
+                List.<JCExpression>nil(),
+                treeMaker.Block(0, statements),
+                null
+        );
     }
 
     private static class FXObservableFieldHandler {
-        private FXObservable.Strategy strategy;
+        private Storage storage;
         private JavacNode typeNode;
         private JavacNode fieldNode;
         private JCVariableDecl field;
         private JCFieldAccess fieldAccess;
+        private Name propertyFieldName;
+        private JCFieldAccess propertyFieldAccess;
+        private Name propertyClassName;
+        private int tableOrdinal;
+        private int tableSize;
+        private boolean threadSafe;
+        private Name updaterName;
+        private boolean coalesce;
+        private boolean cellValueFactory;
+        private boolean comparator;
+        private String observableArrayType;
+        private boolean readOnly;
+        private boolean compactable;
+        private boolean dirtyTracking;
+        private boolean binaryState;
+        private int dirtyIndex;
+        private boolean changeStream;
+        private int changeOrdinal;
+        private boolean undoJournal;
+        private int undoOrdinal;
+        private String onChange;
+        private boolean profilingRequested;
+        private boolean profile;
+        private Name countersName;
+        private Name propertyMethodName;
+        private long pendingBit;
+        private boolean stagesRestores;
+        private Name pendingFieldName;
+        private Name applyMethodName;
         private JCExpression type;
         private Class<?> typeClass;
         private JCExpression propertyType;
@@ -145,8 +1642,17 @@ public class HandleFXObservable extends JavacAnnotationHandler<FXObservable> {
         private JCExpression lazyInit;
 
         public FXObservableFieldHandler(FXObservable.Strategy strategy, JavacNode fieldNode, JavacNode annotationNode) {
-            this.strategy = strategy;
             typeNode = fieldNode.up();
+            FXObservableOptions options = mergeOptions(fieldNode, typeNode);
+            this.storage = resolveStorage(strategy, options);
+            this.threadSafe = options != null && options.threadSafe();
+            this.coalesce = options != null && options.coalesce();
+            this.cellValueFactory = options != null && options.cellValueFactories();
+            this.comparator = options != null && options.comparators();
+            this.readOnly = options != null && options.readOnly();
+            this.dirtyTracking = options != null && options.dirtyTracking();
+            this.binaryState = options != null && options.binaryState();
+            this.changeStream = options != null && options.changeStream();
             this.fieldNode = fieldNode;
             field = (JCVariableDecl) fieldNode.get();
             this.annotationNode = annotationNode;
@@ -157,63 +1663,1591 @@ public class HandleFXObservable extends JavacAnnotationHandler<FXObservable> {
             } catch (ClassNotFoundException e) {
                 // ignore
             }
-            propertyType = getPropertyType();
+            boolean observableArrays = options != null && options.observableArrays();
+            if (observableArrays) observableArrayType = OBSERVABLE_ARRAY_TYPE_MAP.get(rawTypeString(type.type));
+            propertyType = observableArrayType != null ? chainDotsString(fieldNode, observableArrayType) : getPropertyType();
+            boolean compactable = options != null && options.compactable();
+            this.compactable = compactable && observableArrayType == null && !isCollection();
+            boolean undoJournal = options != null && options.undoJournal();
+            this.undoJournal = undoJournal && !isCollection() && !(type instanceof JCArrayTypeTree);
+            String onChange = options != null ? options.onChange() : "";
+            this.onChange = onChange.isEmpty() ? null : onChange;
+            this.profilingRequested = Boolean.TRUE.equals(fieldNode.getAst().readConfiguration(FX_OBSERVABLE_PROFILE));
+            this.profile = profilingRequested && isStaticContext(typeNode);
+            countersName = fieldNode.toName("$" + fieldNode.getName() + "Counters");
             fieldAccess = treeMaker.Select(treeMaker.Ident(fieldNode.toName("this")), field.getName());
+            propertyFieldName = fieldNode.toName("$" + fieldNode.getName() + "Property");
+            propertyFieldAccess = treeMaker.Select(treeMaker.Ident(fieldNode.toName("this")), propertyFieldName);
+            propertyClassName = fieldNode.toName("$" + capitalize(fieldNode.getName()) + "Property");
+            updaterName = fieldNode.toName("$" + fieldNode.getName() + "Updater");
+            pendingFieldName = fieldNode.toName("$" + fieldNode.getName() + "Pending");
+            applyMethodName = fieldNode.toName("$" + JavacHandlerUtil.toSetterName(fieldNode));
             getterName = fieldNode.toName(JavacHandlerUtil.toGetterName(fieldNode));
+            propertyMethodName = fieldNode.toName(readOnly ? "$" + fieldNode.getName() + "WritableProperty" : fieldNode.getName() + "Property");
         }
 
         public void handle() {
-            if (strategy == FXObservable.Strategy.PLAIN) {
+            if (observableArrayType != null) {
+                handleObservableArray();
+                return;
+            }
+            if (threadSafe && !supportsThreadSafety()) return;
+            if (readOnly && storage == Storage.FIELD_BACKED) {
+                annotationNode.addError("@FXObservableOptions(readOnly = true) is not supported with FIELD_BACKED storage.");
+                return;
+            }
+            if (cellValueFactory && !supportsStaticMembers("cellValueFactories")) return;
+            if (onChange != null && methodExists(onChange, typeNode, false, 2) == MemberExistsResult.NOT_EXISTS) {
+                annotationNode.addError("@FXObservableOptions(onChange) refers to " + onChange + "(oldValue, newValue), which does not exist.");
+                return;
+            }
+            if (comparator && !supportsStaticMembers("comparators")) return;
+
+            if (storage == Storage.PLAIN) {
                 maybeSetupLazyInitializer();
                 changeFieldTypeToProperty();
-            } else {//if (strategy == FXObservable.Strategy.SHADOW_FIELD) {
+            } else if (storage == Storage.SHADOW_FIELD) {
                 maybeSetupLazyInitializer();
                 changeFieldTypeToObject();
+            } else if (storage == Storage.TYPED_SHADOW_FIELD) {
+                maybeSetupLazyInitializer();
+                injectPropertyField();
+            } else if (storage == Storage.FIELD_BACKED) {
+                maybeSetupLazyInitializer();
+                injectPropertyField();
+                injectPropertyClass();
+            } else {//if (storage == Storage.PROPERTY_TABLE) {
+                maybeSetupLazyInitializer();
             }
 
+            if (threadSafe) injectUpdater();
+            if (profile) injectCounters();
+            if (cellValueFactory) injectCellValueFactory();
+            if (comparator) injectComparator();
+
             injectMethod(typeNode, createPropertyMethod());
+            if (readOnly) injectMethod(typeNode, createReadOnlyPropertyMethod());
             injectMethod(typeNode, createGetter());
-            injectMethod(typeNode, createSetter());
+            if (coalesce) {
+                injectPendingField();
+                injectMethod(typeNode, createSetter(applyMethodName, Flags.PRIVATE, createDirectSetterBody()));
+                injectMethod(typeNode, createSetter(setterName(), mutatorFlags(), countingSet(createCoalescingSetterBody())));
+            } else {
+                injectMethod(typeNode, createSetter(setterName(), mutatorFlags(), countingSet(createDirectSetterBody())));
+            }
+            if (isCollection()) injectBulkMethods();
         }
 
-        private void changeFieldTypeToProperty() {
-            field.vartype = propertyType;
-            if (isCollection()) {
-                // use lazy init
+        private void handleObservableArray() {
+            if (threadSafe || coalesce || readOnly) {
+                annotationNode.addError("@FXObservableOptions(observableArrays = true) cannot be combined with threadSafe, coalesce or readOnly.");
                 return;
             }
 
-            if (field.init != null) {
-                lazyInit = field.init;
-                field.init = null;
-            }
-            //field.init = newProperty(field.init);
+            // private ObservableIntegerArray value;
+            // the array is created on first access from the initializer, if any
+            JCExpression elementType = ((JCArrayTypeTree) type).elemtype;
+            lazyInit = field.init;
+            field.init = null;
+            if (lazyInit instanceof JCNewArray && ((JCNewArray) lazyInit).elemtype == null) {
+                // int[] value = {1, 2, 3} cannot be used as an argument as is
+                ((JCNewArray) lazyInit).elemtype = elementType;
+            }
+            field.vartype = propertyType;
+            if (profile) injectCounters();
+
+            Name indexName = fieldNode.toName("index");
+            Name valueName = fieldNode.toName("value");
+            Name valuesName = fieldNode.toName("values");
+            Name destIndexName = fieldNode.toName("destIndex");
+            Name srcIndexName = fieldNode.toName("srcIndex");
+            Name lengthName = fieldNode.toName("length");
+
+            // public ObservableIntegerArray valueProperty() {
+            //     if (this.value == null) this.value = FXCollections.observableIntegerArray(init);
+            //     return this.value;
+            // }
+            String factory = "javafx.collections.FXCollections.observable" + rawTypeString(propertyType).substring("javafx.collections.Observable".length());
+            JCExpression newArray = treeMaker.Apply(
+                    List.<JCExpression>nil(),
+                    chainDotsString(fieldNode, factory),
+                    lazyInit != null ? List.of(lazyInit) : List.<JCExpression>nil()
+            );
+            JCStatement createArray = treeMaker.Exec(treeMaker.Assign(fieldAccess, newArray));
+            if (profile) createArray = treeMaker.Block(0, List.of(count("materialized"), createArray));
+            JCMethodDecl propertyMethod = arrayMethod(propertyMethodName, propertyType, List.<JCVariableDecl>nil(), List.of(
+                    treeMaker.If(isNull(fieldAccess), createArray, null),
+                    treeMaker.Return(fieldAccess)
+            ));
+            copyJavadoc(fieldNode, propertyMethod, CopyJavadoc.VERBATIM);
+            injectMethod(typeNode, propertyMethod);
+
+            // copies on every call, the indexed getter below reads a single element without copying
+            // public int[] getValue() { return valueProperty().toArray(null); }
+            JCMethodDecl getter = arrayMethod(getterName, type, List.<JCVariableDecl>nil(), List.<JCStatement>of(
+                    treeMaker.Return(callWith(array(), "toArray", treeMaker.Literal(CTC_BOT, null)))
+            ));
+            copyJavadoc(fieldNode, getter, CopyJavadoc.VERBATIM);
+            injectMethod(typeNode, getter);
+
+            // public int getValue(int index) { return valueProperty().get(index); }
+            injectMethod(typeNode, arrayMethod(getterName, elementType, List.of(parameter(indexName, treeMaker.TypeIdent(CTC_INT))), List.<JCStatement>of(
+                    treeMaker.Return(callWith(array(), "get", treeMaker.Ident(indexName)))
+            )));
+
+            // public void setValue(int[] value) {
+            //     if (value == null) valueProperty().clear();
+            //     else valueProperty().setAll(value);
+            // }
+            Name fieldName = field.getName();
+            JCMethodDecl setter = arraySetter(List.of(parameter(fieldName, type)), List.<JCStatement>of(
+                    treeMaker.If(
+                            isNull(treeMaker.Ident(fieldName)),
+                            treeMaker.Exec(call(array(), "clear")),
+                            treeMaker.Exec(callWith(array(), "setAll", treeMaker.Ident(fieldName)))
+                    )
+            ));
+            copyJavadoc(fieldNode, setter, CopyJavadoc.VERBATIM);
+            injectMethod(typeNode, setter);
+
+            // public void setValue(int index, int value) { valueProperty().set(index, value); }
+            injectMethod(typeNode, arraySetter(
+                    List.of(parameter(indexName, treeMaker.TypeIdent(CTC_INT)), parameter(valueName, elementType)),
+                    List.<JCStatement>of(treeMaker.Exec(treeMaker.Apply(
+                            List.<JCExpression>nil(),
+                            treeMaker.Select(array(), fieldNode.toName("set")),
+                            List.<JCExpression>of(treeMaker.Ident(indexName), treeMaker.Ident(valueName))
+                    )))
+            ));
+
+            // public void setValue(int destIndex, int[] values, int srcIndex, int length) {
+            //     valueProperty().set(destIndex, values, srcIndex, length);
+            // }
+            injectMethod(typeNode, arraySetter(
+                    List.of(
+                            parameter(destIndexName, treeMaker.TypeIdent(CTC_INT)),
+                            parameter(valuesName, type),
+                            parameter(srcIndexName, treeMaker.TypeIdent(CTC_INT)),
+                            parameter(lengthName, treeMaker.TypeIdent(CTC_INT))
+                    ),
+                    List.<JCStatement>of(treeMaker.Exec(treeMaker.Apply(
+                            List.<JCExpression>nil(),
+                            treeMaker.Select(array(), fieldNode.toName("set")),
+                            List.<JCExpression>of(treeMaker.Ident(destIndexName), treeMaker.Ident(valuesName), treeMaker.Ident(srcIndexName), treeMaker.Ident(lengthName))
+                    )))
+            ));
+        }
+
+        private JCMethodDecl arraySetter(List<JCVariableDecl> parameters, List<JCStatement> statements) {
+            return arrayMethod(setterName(), voidType(), parameters, recordingChanges(countingSet(statements)));
+        }
+
+        private JCMethodDecl arrayMethod(Name name, JCExpression returnType, List<JCVariableDecl> parameters, List<JCStatement> statements) {
+            return recursiveSetGeneratedBy(
+                    treeMaker.MethodDef(
+                            treeMaker.Modifiers(Flags.PUBLIC),
+                            name,
+                            returnType,
+                            List.<JCTypeParameter>nil(),
+                            parameters,
+                            List.<JCExpression>nil(),
+                            treeMaker.Block(0, statements),
+                            null
+                    ),
+                    fieldNode.get(), fieldNode.getContext());
+        }
+
+        private JCExpression array() {
+            return treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(fieldNode.toName(fieldNode.getName() + "Property")), List.<JCExpression>nil());
+        }
+
+        private JCVariableDecl parameter(Name name, JCExpression parameterType) {
+            return treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), name, parameterType, null);
+        }
+
+        private JCExpression voidType() {
+            return treeMaker.Type(Javac.createVoidType(treeMaker, Javac.CTC_VOID));
+        }
+
+        private void injectBulkMethods() {
+            if (isList()) {
+                injectBulkMethod("setAll", createListBulkBody("setAll"));
+                injectBulkMethod("addAll", createListBulkBody("addAll"));
+            } else if (isSet()) {
+                injectBulkMethod("setAll", createSetOrMapBulkBody(true, "addAll"));
+                injectBulkMethod("addAll", createSetOrMapBulkBody(false, "addAll"));
+            } else {//if (isMap()) {
+                injectBulkMethod("setAll", createSetOrMapBulkBody(true, "putAll"));
+                injectBulkMethod("putAll", createSetOrMapBulkBody(false, "putAll"));
+            }
+        }
+
+        private void injectBulkMethod(String prefix, List<JCStatement> statements) {
+            String methodName = prefix + capitalize(fieldNode.getName());
+            if (methodExists(methodName, typeNode, false, 1) != MemberExistsResult.NOT_EXISTS) return;
+
+            // Collection<? extends E> values, or Map<? extends K, ? extends V> values
+            ListBuffer<JCExpression> boundedArguments = new ListBuffer<>();
+            for (JCExpression argument : elementTypes()) {
+                boundedArguments.add(treeMaker.Wildcard(treeMaker.TypeBoundKind(BoundKind.EXTENDS), argument));
+            }
+            JCExpression parameterType = chainDotsString(fieldNode, isMap() ? "java.util.Map" : "java.util.Collection");
+            if (boundedArguments.nonEmpty()) parameterType = treeMaker.TypeApply(parameterType, boundedArguments.toList());
+
+            JCMethodDecl decl = recursiveSetGeneratedBy(
+                    treeMaker.MethodDef(
+                            treeMaker.Modifiers(mutatorFlags()),
+                            fieldNode.toName(methodName),
+                            treeMaker.Type(Javac.createVoidType(treeMaker, Javac.CTC_VOID)),
+                            List.<JCTypeParameter>nil(),
+                            List.of(treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), fieldNode.toName("values"), parameterType, null)),
+                            List.<JCExpression>nil(),
+                            treeMaker.Block(0, recordingChanges(statements)),
+                            null
+                    ),
+                    fieldNode.get(), fieldNode.getContext());
+            injectMethod(typeNode, decl);
+        }
+
+        private List<JCStatement> createListBulkBody(String operation) {
+            // if (<property exists>) {
+            //     ListProperty<E> $property = valueProperty();
+            //     if ($property.get() == null) $property.set(FXCollections.observableArrayList(values));
+            //     else $property.get().setAll(values); // or addAll(values)
+            //     return;
+            // }
+            // List<E> $current = getValue();
+            // $current.clear(); // setAll only, ObservableList fields use setAll instead
+            // $current.addAll(values);
+            JCExpression values = treeMaker.Ident(fieldNode.toName("values"));
+            Name propertyVarName = fieldNode.toName(PROPERTY_VAR_NAME);
+            JCExpression newList = treeMaker.Apply(
+                    List.<JCExpression>nil(),
+                    chainDotsString(fieldNode, "javafx.collections.FXCollections.observableArrayList"),
+                    List.of(values)
+            );
+            ListBuffer<JCStatement> materialized = new ListBuffer<>();
+            materialized.add(treeMaker.VarDef(treeMaker.Modifiers(0), propertyVarName, propertyType, callPropertyMethod()));
+            materialized.add(treeMaker.If(
+                    isNull(call(treeMaker.Ident(propertyVarName), "get")),
+                    treeMaker.Exec(callWith(treeMaker.Ident(propertyVarName), "set", newList)),
+                    treeMaker.Exec(callWith(call(treeMaker.Ident(propertyVarName), "get"), operation, values))
+            ));
+
+            ListBuffer<JCStatement> raw = new ListBuffer<>();
+            Name currentVarName = fieldNode.toName(CURRENT_VAR_NAME);
+            raw.add(treeMaker.VarDef(treeMaker.Modifiers(0), currentVarName, type, callGetter()));
+            if ("setAll".equals(operation) && isObservableList()) {
+                raw.add(treeMaker.Exec(callWith(treeMaker.Ident(currentVarName), "setAll", values)));
+            } else {
+                if ("setAll".equals(operation)) raw.add(treeMaker.Exec(call(treeMaker.Ident(currentVarName), "clear")));
+                raw.add(treeMaker.Exec(callWith(treeMaker.Ident(currentVarName), "addAll", values)));
+            }
+            return bulkBody(materialized, raw);
+        }
+
+        private List<JCStatement> createSetOrMapBulkBody(boolean replace, String operation) {
+            // JavaFX sets and maps have no batch change, so a materialized property receives a new
+            // collection and notifies its listeners once; content bound to the property follows it
+            // if (<property exists>) {
+            //     SetProperty<E> $property = valueProperty();
+            //     Set<E> $copy = new LinkedHashSet<E>();
+            //     if ($property.get() != null) $copy.addAll($property.get()); // unless replacing
+            //     $copy.addAll(values);
+            //     $property.set(FXCollections.observableSet($copy));
+            //     return;
+            // }
+            // Set<E> $current = getValue();
+            // $current.retainAll(new HashSet<E>(values)); // replacing only
+            // $current.addAll(values);
+            // Maps use LinkedHashMap, keySet().retainAll(new HashSet<K>(values.keySet())), putAll and FXCollections.observableMap
+            JCExpression values = treeMaker.Ident(fieldNode.toName("values"));
+            Name propertyVarName = fieldNode.toName(PROPERTY_VAR_NAME);
+            Name copyVarName = fieldNode.toName("$copy");
+            JCExpression copyType = chainDotsString(fieldNode, isMap() ? "java.util.Map" : "java.util.Set");
+            JCExpression copyImpl = chainDotsString(fieldNode, isMap() ? "java.util.LinkedHashMap" : "java.util.LinkedHashSet");
+            List<JCExpression> elementTypes = elementTypes();
+            if (elementTypes.nonEmpty()) {
+                copyType = treeMaker.TypeApply(copyType, elementTypes);
+                copyImpl = treeMaker.TypeApply(copyImpl, elementTypes());
+            }
+            JCExpression propertyValue = call(treeMaker.Ident(propertyVarName), "get");
+            JCExpression wrappedCopy = treeMaker.Apply(
+                    List.<JCExpression>nil(),
+                    chainDotsString(fieldNode, isMap() ? "javafx.collections.FXCollections.observableMap" : "javafx.collections.FXCollections.observableSet"),
+                    List.<JCExpression>of(treeMaker.Ident(copyVarName))
+            );
+            ListBuffer<JCStatement> materialized = new ListBuffer<>();
+            materialized.add(treeMaker.VarDef(treeMaker.Modifiers(0), propertyVarName, propertyType, callPropertyMethod()));
+            materialized.add(treeMaker.VarDef(treeMaker.Modifiers(0), copyVarName, copyType,
+                    treeMaker.NewClass(null, List.<JCExpression>nil(), copyImpl, List.<JCExpression>nil(), null)));
+            if (!replace) {
+                materialized.add(treeMaker.If(
+                        isNotNull(propertyValue),
+                        treeMaker.Exec(callWith(treeMaker.Ident(copyVarName), operation, call(treeMaker.Ident(propertyVarName), "get"))),
+                        null
+                ));
+            }
+            materialized.add(treeMaker.Exec(callWith(treeMaker.Ident(copyVarName), operation, values)));
+            materialized.add(treeMaker.Exec(callWith(treeMaker.Ident(propertyVarName), "set", wrappedCopy)));
+
+            ListBuffer<JCStatement> raw = new ListBuffer<>();
+            Name currentVarName = fieldNode.toName(CURRENT_VAR_NAME);
+            raw.add(treeMaker.VarDef(treeMaker.Modifiers(0), currentVarName, type, callGetter()));
+            if (replace) {
+                // a hash lookup per entry keeps retainAll linear for list arguments
+                JCExpression lookupImpl = chainDotsString(fieldNode, "java.util.HashSet");
+                if (elementTypes.nonEmpty()) lookupImpl = treeMaker.TypeApply(lookupImpl, List.of(elementTypes().head));
+                JCExpression retained = isMap() ? call(treeMaker.Ident(fieldNode.toName("values")), "keySet") : treeMaker.Ident(fieldNode.toName("values"));
+                JCExpression lookup = treeMaker.NewClass(null, List.<JCExpression>nil(), lookupImpl, List.of(retained), null);
+                JCExpression target = isMap() ? call(treeMaker.Ident(currentVarName), "keySet") : treeMaker.Ident(currentVarName);
+                raw.add(treeMaker.Exec(callWith(target, "retainAll", lookup)));
+            }
+            raw.add(treeMaker.Exec(callWith(treeMaker.Ident(currentVarName), operation, treeMaker.Ident(fieldNode.toName("values")))));
+            return bulkBody(materialized, raw);
+        }
+
+        private List<JCStatement> bulkBody(ListBuffer<JCStatement> materialized, ListBuffer<JCStatement> raw) {
+            // plain fields always hold a property
+            if (storage == Storage.PLAIN) return materialized.toList();
+
+            JCExpression hasProperty = storage == Storage.SHADOW_FIELD ? treeMaker.TypeTest(fieldAccess, rawType(propertyType)) : hasStoredProperty();
+            materialized.add(treeMaker.Return(null));
+            ListBuffer<JCStatement> statements = new ListBuffer<>();
+            statements.add(treeMaker.If(hasProperty, treeMaker.Block(0, materialized.toList()), null));
+            statements.addAll(raw);
+            return statements.toList();
+        }
+
+        private List<JCExpression> elementTypes() {
+            ListBuffer<JCExpression> elementTypes = new ListBuffer<>();
+            for (Type typeArgument : type.type.getTypeArguments()) {
+                elementTypes.add(genericType(rawTypeString(typeArgument), typeArgument.getTypeArguments()));
+            }
+            return elementTypes.toList();
+        }
+
+        private JCExpression callPropertyMethod() {
+            return treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(propertyMethodName), List.<JCExpression>nil());
+        }
+
+        private long mutatorFlags() {
+            return readOnly ? Flags.PRIVATE : Flags.PUBLIC;
+        }
+
+        private JCExpression callGetter() {
+            return treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(getterName), List.<JCExpression>nil());
+        }
+
+        private String stateType() {
+            return STATE_TYPE_MAP.get(rawTypeString(type.type));
+        }
+
+        private JCStatement createWriteStateStatement(Name outName) {
+            // out.writeX(getValue());                              primitives
+            // {                                                    wrappers and String
+            //     Type $current = getValue();
+            //     out.writeBoolean($current != null);
+            //     if ($current != null) out.writeX($current);
+            // }
+            // a String is written as its UTF-8 length followed by its UTF-8 bytes:
+            //     if ($current != null) {
+            //         byte[] $bytes = $current.getBytes(StandardCharsets.UTF_8);
+            //         out.writeInt($bytes.length);
+            //         out.write($bytes);
+            //     }
+            String stateType = stateType();
+            if (type.type.isPrimitive()) {
+                return treeMaker.Exec(callWith(treeMaker.Ident(outName), "write" + stateType, callGetter()));
+            }
+            Name currentVarName = fieldNode.toName(CURRENT_VAR_NAME);
+            JCStatement write;
+            if (isString()) {
+                Name bytesVarName = fieldNode.toName(BYTES_VAR_NAME);
+                write = treeMaker.Block(0, List.of(
+                        treeMaker.VarDef(treeMaker.Modifiers(0), bytesVarName, treeMaker.TypeArray(treeMaker.TypeIdent(CTC_BYTE)),
+                                callWith(treeMaker.Ident(currentVarName), "getBytes", utf8())),
+                        treeMaker.Exec(callWith(treeMaker.Ident(outName), "writeInt", treeMaker.Select(treeMaker.Ident(bytesVarName), fieldNode.toName("length")))),
+                        treeMaker.Exec(callWith(treeMaker.Ident(outName), "write", treeMaker.Ident(bytesVarName)))
+                ));
+            } else {
+                write = treeMaker.Exec(callWith(treeMaker.Ident(outName), "write" + stateType, treeMaker.Ident(currentVarName)));
+            }
+            return treeMaker.Block(0, List.of(
+                    treeMaker.VarDef(treeMaker.Modifiers(0), currentVarName, type, callGetter()),
+                    treeMaker.Exec(callWith(treeMaker.Ident(outName), "writeBoolean", isNotNull(treeMaker.Ident(currentVarName)))),
+                    treeMaker.If(isNotNull(treeMaker.Ident(currentVarName)), write, null)
+            ));
+        }
+
+        private JCStatement createReadStateStatement(Name inName) {
+            // setValue(in.readX());                                primitives
+            // setValue(in.readBoolean() ? X.valueOf(in.readX()) : null);   wrappers
+            // {                                                    String
+            //     String $current = null;
+            //     if (in.readBoolean()) {
+            //         byte[] $bytes = new byte[in.readInt()];
+            //         in.readFully($bytes);
+            //         $current = new String($bytes, StandardCharsets.UTF_8);
+            //     }
+            //     setValue($current);
+            // }
+            // coalesced fields are applied right away, dropping any value still pending:
+            // $cancelPending(bit); $setValue(...);
+            String stateType = stateType();
+            String rawType = rawTypeString(type.type);
+            if (isString()) {
+                Name currentVarName = fieldNode.toName(CURRENT_VAR_NAME);
+                Name bytesVarName = fieldNode.toName(BYTES_VAR_NAME);
+                JCStatement read = treeMaker.If(call(treeMaker.Ident(inName), "readBoolean"), treeMaker.Block(0, List.of(
+                        treeMaker.VarDef(treeMaker.Modifiers(0), bytesVarName, treeMaker.TypeArray(treeMaker.TypeIdent(CTC_BYTE)),
+                                treeMaker.NewArray(treeMaker.TypeIdent(CTC_BYTE), List.of(call(treeMaker.Ident(inName), "readInt")), null)),
+                        treeMaker.Exec(callWith(treeMaker.Ident(inName), "readFully", treeMaker.Ident(bytesVarName))),
+                        treeMaker.Exec(treeMaker.Assign(treeMaker.Ident(currentVarName), treeMaker.NewClass(null, List.<JCExpression>nil(),
+                                chainDotsString(fieldNode, "java.lang.String"), List.of(treeMaker.Ident(bytesVarName), utf8()), null)))
+                )), null);
+                ListBuffer<JCStatement> statements = new ListBuffer<>();
+                statements.add(treeMaker.VarDef(treeMaker.Modifiers(0), currentVarName, type, treeMaker.Literal(CTC_BOT, null)));
+                statements.add(read);
+                statements.addAll(restoring(treeMaker.Ident(currentVarName)));
+                return treeMaker.Block(0, statements.toList());
+            }
+            JCExpression value = call(treeMaker.Ident(inName), "read" + stateType);
+            if (!type.type.isPrimitive()) {
+                value = treeMaker.Conditional(call(treeMaker.Ident(inName), "readBoolean"), valueOf(rawType, value), treeMaker.Literal(CTC_BOT, null));
+            }
+            List<JCStatement> restore = restoring(value);
+            return restore.size() == 1 ? restore.head : treeMaker.Block(0, restore);
+        }
+
+        private List<JCStatement> restoring(JCExpression value) {
+            if (!coalesce) return List.<JCStatement>of(treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(setterName()), List.of(value))));
+            // coalesced fields are staged like their setter does outside the FX thread, the flush applies them as restored
+            // Type $restored = value;
+            // if (!Platform.isFxApplicationThread()) {
+            //     <stagingPending($restored, $markRestored)>
+            // } else {
+            //     $cancelPending(bit);
+            //     $setValue($restored);
+            // }
+            Name restoredVarName = fieldNode.toName(RESTORED_VAR_NAME);
+            return List.<JCStatement>of(
+                    treeMaker.VarDef(treeMaker.Modifiers(0), restoredVarName, type, value),
+                    treeMaker.If(
+                            treeMaker.Unary(CTC_NOT, isFxApplicationThread()),
+                            treeMaker.Block(0, stagingPending(treeMaker.Ident(restoredVarName), MARK_RESTORED_NAME)),
+                            treeMaker.Block(0, List.<JCStatement>of(
+                                    treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(fieldNode.toName(CANCEL_PENDING_NAME)), List.<JCExpression>of(treeMaker.Literal(Long.valueOf(pendingBit))))),
+                                    treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(applyMethodName), List.<JCExpression>of(treeMaker.Ident(restoredVarName))))
+                            ))
+                    )
+            );
+        }
+
+        private boolean isString() {
+            return "java.lang.String".equals(rawTypeString(type.type));
+        }
+
+        private JCExpression utf8() {
+            return chainDotsString(fieldNode, "java.nio.charset.StandardCharsets.UTF_8");
+        }
+
+        private JCStatement unlessRestoring(JCExpression owner, JCStatement statement) {
+            // if (!this.$restoringState) <statement>
+            if (!binaryState) return statement;
+            JCExpression restoring = treeMaker.Select(owner != null ? owner : treeMaker.Ident(fieldNode.toName("this")), typeNode.toName(RESTORING_STATE_NAME));
+            return treeMaker.If(treeMaker.Unary(CTC_NOT, restoring), statement, null);
+        }
+
+        private boolean supportsCompaction() {
+            if (storage != Storage.SHADOW_FIELD && storage != Storage.TYPED_SHADOW_FIELD) {
+                annotationNode.addError("@FXObservableOptions(compactable = true) is only supported with SHADOW_FIELD and TYPED_SHADOW_FIELD storage.");
+                return false;
+            }
+            if (threadSafe || readOnly) {
+                annotationNode.addError("@FXObservableOptions(compactable = true) cannot be combined with threadSafe or readOnly.");
+                return false;
+            }
+            return true;
+        }
+
+        private Name compactablePropertyClassName() {
+            return typeNode.toName("$Compactable" + rawTypeString(propertyType).substring("javafx.beans.property.".length()));
+        }
+
+        private JCStatement createCompactStatement(Name compactedVarName) {
+            // if (this.value instanceof $CompactableXProperty && (($CompactableXProperty) this.value).$isIdle()) {
+            //     Type $current = getValue();
+            //     this.value = $current;                                  // SHADOW_FIELD, boxed
+            //     this.$valueProperty = null; this.value = $current;      // TYPED_SHADOW_FIELD
+            //     $compacted++;
+            // }
+            JCExpression stored = storage == Storage.SHADOW_FIELD ? fieldAccess : propertyFieldAccess;
+            Name currentVarName = fieldNode.toName(CURRENT_VAR_NAME);
+            JCExpression currentVarAccess = treeMaker.Ident(currentVarName);
+            JCExpression isIdle = treeMaker.Binary(
+                    CTC_AND,
+                    treeMaker.TypeTest(stored, treeMaker.Ident(compactablePropertyClassName())),
+                    call(treeMaker.TypeCast(treeMaker.Ident(compactablePropertyClassName()), stored), IS_IDLE_NAME)
+            );
+            ListBuffer<JCStatement> then = new ListBuffer<>();
+            then.add(treeMaker.VarDef(treeMaker.Modifiers(0), currentVarName, type, callGetter()));
+            if (storage == Storage.SHADOW_FIELD) {
+                then.add(treeMaker.Exec(treeMaker.Assign(fieldAccess, setterConversionToField(currentVarAccess))));
+            } else {
+                then.add(treeMaker.Exec(treeMaker.Assign(propertyFieldAccess, treeMaker.Literal(CTC_BOT, null))));
+                then.add(treeMaker.Exec(treeMaker.Assign(fieldAccess, currentVarAccess)));
+            }
+            then.add(treeMaker.Exec(treeMaker.Unary(CTC_POSTINC, treeMaker.Ident(compactedVarName))));
+            return treeMaker.If(isIdle, treeMaker.Block(0, then.toList()), null);
+        }
+
+        private void injectCompactablePropertyClass() {
+            // private static class $CompactableXProperty<T> extends SimpleXProperty<T> {
+            //     private ArrayList<Object> $observers;
+            //     $CompactableXProperty(Object bean, String name, x initialValue) { super(bean, name, initialValue); }
+            //     public void addListener(InvalidationListener listener) { super.addListener(listener); $observe(listener); }
+            //     public void removeListener(InvalidationListener listener) { super.removeListener(listener); $unobserve(listener); }
+            //     public void addListener(ChangeListener<? super X> listener) { super.addListener(listener); $observe(listener); }
+            //     public void removeListener(ChangeListener<? super X> listener) { super.removeListener(listener); $unobserve(listener); }
+            //     private void $observe(Object listener) {
+            //         if ($observers == null) $observers = new ArrayList<Object>(1);
+            //         $observers.add(listener);
+            //     }
+            //     private void $unobserve(Object listener) {
+            //         if ($observers != null && $observers.remove(listener) && $observers.isEmpty()) $observers = null;
+            //     }
+            //     boolean $isIdle() {
+            //         if (isBound()) return false;
+            //         if ($observers == null) return true;
+            //         for (Iterator<Object> $i = $observers.iterator(); $i.hasNext(); ) {
+            //             Object $listener = $i.next();
+            //             if ($listener instanceof WeakListener && ((WeakListener) $listener).wasGarbageCollected()) $i.remove();
+            //         }
+            //         if (!$observers.isEmpty()) return false;
+            //         $observers = null;
+            //         return true;
+            //     }
+            // }
+            // listeners are tracked with equals() like ExpressionHelper does, removing an unknown listener has no effect
+            String simpleName = rawTypeString(propertyType).substring("javafx.beans.property.".length());
+            String kind = simpleName.substring(0, simpleName.length() - "Property".length());
+            boolean generic = "Object".equals(kind);
+            Name typeParameterName = fieldNode.toName("T");
+            Name listenerName = fieldNode.toName("listener");
+            Name observersName = fieldNode.toName(OBSERVERS_NAME);
+            Name observeName = fieldNode.toName("$observe");
+            Name unobserveName = fieldNode.toName("$unobserve");
+            Name iteratorName = fieldNode.toName("$i");
+            Name currentName = fieldNode.toName("$listener");
+            JCExpression observers = treeMaker.Ident(observersName);
+
+            ListBuffer<JCTree> members = new ListBuffer<>();
+            members.add(treeMaker.VarDef(treeMaker.Modifiers(Flags.PRIVATE), observersName, objectCollectionType("java.util.ArrayList"), null));
+
+            Name beanName = fieldNode.toName("bean");
+            Name nameName = fieldNode.toName("name");
+            Name initialValueName = fieldNode.toName("initialValue");
+            members.add(treeMaker.MethodDef(
+                    treeMaker.Modifiers(0),
+                    fieldNode.toName("<init>"),
+                    null,
+                    List.<JCTypeParameter>nil(),
+                    List.of(
+                            compactParameter(beanName, chainDotsString(fieldNode, "java.lang.Object")),
+                            compactParameter(nameName, chainDotsString(fieldNode, "java.lang.String")),
+                            compactParameter(initialValueName, compactValueType(kind, typeParameterName))
+                    ),
+                    List.<JCExpression>nil(),
+                    treeMaker.Block(0, List.<JCStatement>of(treeMaker.Exec(treeMaker.Apply(
+                            List.<JCExpression>nil(),
+                            treeMaker.Ident(fieldNode.toName("super")),
+                            List.<JCExpression>of(treeMaker.Ident(beanName), treeMaker.Ident(nameName), treeMaker.Ident(initialValueName))
+                    )))),
+                    null
+            ));
+
+            JCExpression changeListenerType = treeMaker.TypeApply(
+                    chainDotsString(fieldNode, "javafx.beans.value.ChangeListener"),
+                    List.<JCExpression>of(treeMaker.Wildcard(treeMaker.TypeBoundKind(BoundKind.SUPER), compactListenedType(kind, typeParameterName)))
+            );
+            for (JCExpression listenerType : List.of(chainDotsString(fieldNode, "javafx.beans.InvalidationListener"), changeListenerType)) {
+                members.add(compactListenerMethod("addListener", listenerType, observeName));
+                members.add(compactListenerMethod("removeListener", cloneType(treeMaker, listenerType, fieldNode.get(), fieldNode.getContext()), unobserveName));
+            }
+
+            members.add(compactMethod(Flags.PRIVATE, observeName, null, List.of(compactParameter(listenerName, chainDotsString(fieldNode, "java.lang.Object"))), List.of(
+                    treeMaker.If(isNull(observers), treeMaker.Exec(treeMaker.Assign(observers, treeMaker.NewClass(
+                            null,
+                            List.<JCExpression>nil(),
+                            objectCollectionType("java.util.ArrayList"),
+                            List.<JCExpression>of(treeMaker.Literal(CTC_INT, 1)),
+                            null
+                    ))), null),
+                    treeMaker.Exec(callWith(observers, "add", treeMaker.Ident(listenerName)))
+            )));
+
+            members.add(compactMethod(Flags.PRIVATE, unobserveName, null, List.of(compactParameter(listenerName, chainDotsString(fieldNode, "java.lang.Object"))), List.<JCStatement>of(
+                    treeMaker.If(
+                            treeMaker.Binary(CTC_AND,
+                                    treeMaker.Binary(CTC_AND, isNotNull(observers), callWith(observers, "remove", treeMaker.Ident(listenerName))),
+                                    call(observers, "isEmpty")),
+                            treeMaker.Exec(treeMaker.Assign(observers, treeMaker.Literal(CTC_BOT, null))),
+                            null
+                    )
+            )));
+
+            JCExpression weakListenerType = chainDotsString(fieldNode, "javafx.beans.WeakListener");
+            JCStatement purge = treeMaker.Block(0, List.of(
+                    treeMaker.VarDef(treeMaker.Modifiers(0), currentName, chainDotsString(fieldNode, "java.lang.Object"), call(treeMaker.Ident(iteratorName), "next")),
+                    treeMaker.If(
+                            treeMaker.Binary(CTC_AND,
+                                    treeMaker.TypeTest(treeMaker.Ident(currentName), weakListenerType),
+                                    call(treeMaker.TypeCast(chainDotsString(fieldNode, "javafx.beans.WeakListener"), treeMaker.Ident(currentName)), "wasGarbageCollected")),
+                            treeMaker.Exec(call(treeMaker.Ident(iteratorName), "remove")),
+                            null
+                    )
+            ));
+            members.add(compactMethod(0, fieldNode.toName(IS_IDLE_NAME), treeMaker.TypeIdent(CTC_BOOLEAN), List.<JCVariableDecl>nil(), List.of(
+                    treeMaker.If(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(fieldNode.toName("isBound")), List.<JCExpression>nil()),
+                            treeMaker.Return(treeMaker.Literal(CTC_BOOLEAN, 0)), null),
+                    treeMaker.If(isNull(observers), treeMaker.Return(treeMaker.Literal(CTC_BOOLEAN, 1)), null),
+                    treeMaker.ForLoop(
+                            List.<JCStatement>of(treeMaker.VarDef(treeMaker.Modifiers(0), iteratorName, objectCollectionType("java.util.Iterator"), call(observers, "iterator"))),
+                            call(treeMaker.Ident(iteratorName), "hasNext"),
+                            List.<JCExpressionStatement>nil(),
+                            purge
+                    ),
+                    treeMaker.If(treeMaker.Unary(CTC_NOT, call(observers, "isEmpty")), treeMaker.Return(treeMaker.Literal(CTC_BOOLEAN, 0)), null),
+                    treeMaker.Exec(treeMaker.Assign(observers, treeMaker.Literal(CTC_BOT, null))),
+                    treeMaker.Return(treeMaker.Literal(CTC_BOOLEAN, 1))
+            )));
+
+            JCExpression superclass = chainDotsString(fieldNode, "javafx.beans.property.Simple" + simpleName);
+            List<JCTypeParameter> typeParameters = List.nil();
+            if (generic) {
+                superclass = treeMaker.TypeApply(superclass, List.<JCExpression>of(treeMaker.Ident(typeParameterName)));
+                typeParameters = List.of(treeMaker.TypeParameter(typeParameterName, List.<JCExpression>nil()));
+            }
+            // not final, dirty tracking subclasses it
+            JCClassDecl propertyClass = treeMaker.ClassDef(
+                    treeMaker.Modifiers(Flags.PRIVATE | Flags.STATIC),
+                    compactablePropertyClassName(),
+                    typeParameters,
+                    superclass,
+                    List.<JCExpression>nil(),
+                    members.toList()
+            );
+            injectType(typeNode, recursiveSetGeneratedBy(propertyClass, typeNode.get(), typeNode.getContext()));
+        }
+
+        private JCExpression compactValueType(String kind, Name typeParameterName) {
+            if ("Boolean".equals(kind)) return treeMaker.TypeIdent(CTC_BOOLEAN);
+            if ("Integer".equals(kind)) return treeMaker.TypeIdent(CTC_INT);
+            if ("Long".equals(kind)) return treeMaker.TypeIdent(CTC_LONG);
+            if ("Float".equals(kind)) return treeMaker.TypeIdent(CTC_FLOAT);
+            if ("Double".equals(kind)) return treeMaker.TypeIdent(CTC_DOUBLE);
+            if ("String".equals(kind)) return chainDotsString(fieldNode, "java.lang.String");
+            return treeMaker.Ident(typeParameterName);
+        }
+
+        private JCExpression compactListenedType(String kind, Name typeParameterName) {
+            if ("Boolean".equals(kind)) return chainDotsString(fieldNode, "java.lang.Boolean");
+            if ("String".equals(kind)) return chainDotsString(fieldNode, "java.lang.String");
+            if ("Object".equals(kind)) return treeMaker.Ident(typeParameterName);
+            return chainDotsString(fieldNode, "java.lang.Number");
+        }
+
+        private JCExpression objectCollectionType(String rawType) {
+            return treeMaker.TypeApply(chainDotsString(fieldNode, rawType), List.of(chainDotsString(fieldNode, "java.lang.Object")));
+        }
+
+        private JCVariableDecl compactParameter(Name name, JCExpression parameterType) {
+            return treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), name, parameterType, null);
+        }
+
+        private JCMethodDecl compactListenerMethod(String name, JCExpression listenerType, Name trackingMethodName) {
+            Name listenerName = fieldNode.toName("listener");
+            return compactMethod(Flags.PUBLIC, fieldNode.toName(name), null, List.of(compactParameter(listenerName, listenerType)), List.<JCStatement>of(
+                    treeMaker.Exec(treeMaker.Apply(
+                            List.<JCExpression>nil(),
+                            treeMaker.Select(treeMaker.Ident(fieldNode.toName("super")), fieldNode.toName(name)),
+                            List.<JCExpression>of(treeMaker.Ident(listenerName)))),
+                    treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(trackingMethodName), List.<JCExpression>of(treeMaker.Ident(listenerName))))
+            ));
+        }
+
+        private JCMethodDecl compactMethod(long flags, Name name, JCExpression returnType, List<JCVariableDecl> parameters, List<JCStatement> statements) {
+            return treeMaker.MethodDef(
+                    treeMaker.Modifiers(flags),
+                    name,
+                    returnType != null ? returnType : treeMaker.Type(Javac.createVoidType(treeMaker, Javac.CTC_VOID)),
+                    List.<JCTypeParameter>nil(),
+                    parameters,
+                    List.<JCExpression>nil(),
+                    treeMaker.Block(0, statements),
+                    null
+            );
+        }
+
+        private void injectPendingField() {
+            // private volatile Type $valuePending;
+            JCVariableDecl pendingField = treeMaker.VarDef(
+                    treeMaker.Modifiers(Flags.PRIVATE | Flags.VOLATILE),
+                    pendingFieldName,
+                    type,
+                    null
+            );
+            injectField(typeNode, recursiveSetGeneratedBy(pendingField, fieldNode.get(), fieldNode.getContext()));
+        }
+
+        private boolean supportsThreadSafety() {
+            if (storage != Storage.PLAIN && storage != Storage.SHADOW_FIELD) {
+                annotationNode.addError("@FXObservableOptions(threadSafe = true) is only supported with the PLAIN and SHADOW_FIELD strategies.");
+                return false;
+            }
+            if (!isStaticContext(typeNode)) {
+                annotationNode.addError("@FXObservableOptions(threadSafe = true) is not supported on inner classes.");
+                return false;
+            }
+            return true;
+        }
+
+        private void injectUpdater() {
+            // private volatile Type value;
+            // private static final AtomicReferenceFieldUpdater $valueUpdater = AtomicReferenceFieldUpdater.newUpdater(Owner.class, Type.class, "value");
+            // the updater is raw, Owner may declare type parameters
+            field.mods.flags |= Flags.VOLATILE;
+            String fieldClass = storage == Storage.PLAIN ? rawTypeString(propertyType) : "java.lang.Object";
+            JCExpression newUpdater = treeMaker.Apply(
+                    List.<JCExpression>nil(),
+                    chainDotsString(fieldNode, "java.util.concurrent.atomic.AtomicReferenceFieldUpdater.newUpdater"),
+                    List.<JCExpression>of(
+                            treeMaker.Select(treeMaker.Ident(typeNode.toName(typeNode.getName())), typeNode.toName("class")),
+                            chainDotsString(fieldNode, fieldClass + ".class"),
+                            treeMaker.Literal(field.getName().toString())
+                    )
+            );
+            JCVariableDecl updater = treeMaker.VarDef(
+                    treeMaker.Modifiers(Flags.PRIVATE | Flags.STATIC | Flags.FINAL),
+                    updaterName,
+                    chainDotsString(fieldNode, "java.util.concurrent.atomic.AtomicReferenceFieldUpdater"),
+                    newUpdater
+            );
+            injectField(typeNode, recursiveSetGeneratedBy(updater, fieldNode.get(), fieldNode.getContext()));
+        }
+
+        private boolean supportsStaticMembers(String option) {
+            if (!isStaticContext(typeNode)) {
+                annotationNode.addError("@FXObservableOptions(" + option + " = true) is not supported on inner classes.");
+                return false;
+            }
+            if (!((JCClassDecl) typeNode.get()).typarams.isEmpty()) {
+                annotationNode.addError("@FXObservableOptions(" + option + " = true) is not supported on generic types.");
+                return false;
+            }
+            return true;
+        }
+
+        private void injectComparator() {
+            String rawType = rawTypeString(type.type);
+            String compareType = COMPARE_TYPE_MAP.get(rawType);
+            // no natural ordering for other types
+            if (compareType == null) return;
+
+            // public static final Comparator<Owner> VALUE_COMPARATOR = new Comparator<Owner>() {
+            //     public int compare(Owner a, Owner b) {
+            //         x va = <value of a>;
+            //         x vb = <value of b>;
+            //         return X.compare(va, vb);
+            //     }
+            // };
+            // where x is the primitive type stored by the property (String compares nulls first)
+            Name aName = fieldNode.toName("a");
+            Name bName = fieldNode.toName("b");
+            Name vaName = fieldNode.toName("va");
+            Name vbName = fieldNode.toName("vb");
+            ListBuffer<JCStatement> statements = new ListBuffer<>();
+            statements.add(treeMaker.VarDef(treeMaker.Modifiers(0), vaName, compareType(compareType), comparedValue(aName, compareType)));
+            statements.add(treeMaker.VarDef(treeMaker.Modifiers(0), vbName, compareType(compareType), comparedValue(bName, compareType)));
+            JCExpression va = treeMaker.Ident(vaName);
+            JCExpression vb = treeMaker.Ident(vbName);
+            if ("java.lang.String".equals(compareType)) {
+                // va == vb ? 0 : va == null ? -1 : vb == null ? 1 : va.compareTo(vb)
+                statements.add(treeMaker.Return(
+                        treeMaker.Conditional(treeMaker.Binary(CTC_EQUAL, va, vb), treeMaker.Literal(0),
+                                treeMaker.Conditional(isNull(va), treeMaker.Literal(-1),
+                                        treeMaker.Conditional(isNull(vb), treeMaker.Literal(1),
+                                                treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Select(va, fieldNode.toName("compareTo")), List.of(vb)))))
+                ));
+            } else {
+                statements.add(treeMaker.Return(treeMaker.Apply(
+                        List.<JCExpression>nil(),
+                        chainDotsString(fieldNode, COMPARE_METHOD_MAP.get(compareType)),
+                        List.of(va, vb)
+                )));
+            }
+
+            JCMethodDecl compareMethod = treeMaker.MethodDef(
+                    treeMaker.Modifiers(Flags.PUBLIC),
+                    fieldNode.toName("compare"),
+                    treeMaker.TypeIdent(CTC_INT),
+                    List.<JCTypeParameter>nil(),
+                    List.of(
+                            treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), aName, treeMaker.Ident(typeNode.toName(typeNode.getName())), null),
+                            treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), bName, treeMaker.Ident(typeNode.toName(typeNode.getName())), null)
+                    ),
+                    List.<JCExpression>nil(),
+                    treeMaker.Block(0, statements.toList()),
+                    null
+            );
+            JCExpression comparatorType = treeMaker.TypeApply(
+                    chainDotsString(fieldNode, "java.util.Comparator"),
+                    List.<JCExpression>of(treeMaker.Ident(typeNode.toName(typeNode.getName())))
+            );
+            JCExpression newComparator = treeMaker.NewClass(
+                    null,
+                    List.<JCExpression>nil(),
+                    comparatorType,
+                    List.<JCExpression>nil(),
+                    treeMaker.AnonymousClassDef(treeMaker.Modifiers(0), List.<JCTree>of(compareMethod))
+            );
+            JCVariableDecl comparatorField = treeMaker.VarDef(
+                    treeMaker.Modifiers(Flags.PUBLIC | Flags.STATIC | Flags.FINAL),
+                    fieldNode.toName(toConstantName(fieldNode.getName()) + "_COMPARATOR"),
+                    treeMaker.TypeApply(
+                            chainDotsString(fieldNode, "java.util.Comparator"),
+                            List.<JCExpression>of(treeMaker.Ident(typeNode.toName(typeNode.getName())))
+                    ),
+                    newComparator
+            );
+            injectField(typeNode, recursiveSetGeneratedBy(comparatorField, fieldNode.get(), fieldNode.getContext()));
+        }
+
+        private JCExpression compareType(String compareType) {
+            if ("boolean".equals(compareType)) return treeMaker.TypeIdent(CTC_BOOLEAN);
+            if ("int".equals(compareType)) return treeMaker.TypeIdent(CTC_INT);
+            if ("long".equals(compareType)) return treeMaker.TypeIdent(CTC_LONG);
+            if ("float".equals(compareType)) return treeMaker.TypeIdent(CTC_FLOAT);
+            if ("double".equals(compareType)) return treeMaker.TypeIdent(CTC_DOUBLE);
+            return genericType(compareType, List.<Type>nil());
+        }
+
+        /**
+         * Reads the value of {@code owner} for comparison without boxing and, where the
+         * storage allows it, without materializing the property.
+         */
+        private JCExpression comparedValue(Name owner, String compareType) {
+            if (storage == Storage.PLAIN && lazyInit == null) {
+                // owner.value == null ? <default> : owner.value.get()
+                JCExpression property = treeMaker.Select(treeMaker.Ident(owner), field.getName());
+                JCExpression defaultValue;
+                if ("boolean".equals(compareType)) defaultValue = treeMaker.Literal(Boolean.FALSE);
+                else if ("int".equals(compareType)) defaultValue = treeMaker.Literal(0);
+                else if ("long".equals(compareType)) defaultValue = treeMaker.Literal(0L);
+                else if ("float".equals(compareType)) defaultValue = treeMaker.Literal(0f);
+                else if ("double".equals(compareType)) defaultValue = treeMaker.Literal(0d);
+                else defaultValue = treeMaker.Literal(CTC_BOT, null);
+                return treeMaker.Conditional(isNull(property), defaultValue, call(treeMaker.Select(treeMaker.Ident(owner), field.getName()), "get"));
+            }
+            // owner.getValue(), unboxed for wrapper types
+            JCExpression getterCall = treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Select(treeMaker.Ident(owner), getterName), List.<JCExpression>nil());
+            String rawType = rawTypeString(type.type);
+            if ("java.lang.Boolean".equals(rawType)) return call(getterCall, "booleanValue");
+            if ("java.lang.Character".equals(rawType)) return call(getterCall, "charValue");
+            if ("java.lang.Byte".equals(rawType) || "java.lang.Short".equals(rawType) || "java.lang.Integer".equals(rawType))
+                return call(getterCall, "intValue");
+            if ("java.lang.Long".equals(rawType)) return call(getterCall, "longValue");
+            if ("java.lang.Float".equals(rawType)) return call(getterCall, "floatValue");
+            if ("java.lang.Double".equals(rawType)) return call(getterCall, "doubleValue");
+            return getterCall;
+        }
+
+        private void injectCellValueFactory() {
+            // public static final Callback<CellDataFeatures<Owner, T>, ObservableValue<T>> VALUE_CELL_VALUE_FACTORY =
+            //     new Callback<CellDataFeatures<Owner, T>, ObservableValue<T>>() {
+            //         public ObservableValue<T> call(CellDataFeatures<Owner, T> features) {
+            //             return features.getValue().valueProperty();
+            //         }
+            //     };
+            Name featuresName = fieldNode.toName("features");
+            JCExpression propertyMethodCall = treeMaker.Apply(
+                    List.<JCExpression>nil(),
+                    treeMaker.Select(call(treeMaker.Ident(featuresName), "getValue"), fieldNode.toName(fieldNode.getName() + "Property")),
+                    List.<JCExpression>nil()
+            );
+            JCMethodDecl callMethod = treeMaker.MethodDef(
+                    treeMaker.Modifiers(Flags.PUBLIC),
+                    fieldNode.toName("call"),
+                    observableValueType(),
+                    List.<JCTypeParameter>nil(),
+                    List.of(treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), featuresName, cellDataFeaturesType(), null)),
+                    List.<JCExpression>nil(),
+                    treeMaker.Block(0, List.<JCStatement>of(treeMaker.Return(propertyMethodCall))),
+                    null
+            );
+            JCExpression factory = treeMaker.NewClass(
+                    null,
+                    List.<JCExpression>nil(),
+                    cellValueFactoryType(),
+                    List.<JCExpression>nil(),
+                    treeMaker.AnonymousClassDef(treeMaker.Modifiers(0), List.<JCTree>of(callMethod))
+            );
+            JCVariableDecl factoryField = treeMaker.VarDef(
+                    treeMaker.Modifiers(Flags.PUBLIC | Flags.STATIC | Flags.FINAL),
+                    fieldNode.toName(toConstantName(fieldNode.getName()) + "_CELL_VALUE_FACTORY"),
+                    cellValueFactoryType(),
+                    factory
+            );
+            injectField(typeNode, recursiveSetGeneratedBy(factoryField, fieldNode.get(), fieldNode.getContext()));
+        }
+
+        private JCExpression cellValueFactoryType() {
+            // Callback<CellDataFeatures<Owner, T>, ObservableValue<T>>
+            return treeMaker.TypeApply(
+                    chainDotsString(fieldNode, "javafx.util.Callback"),
+                    List.of(cellDataFeaturesType(), observableValueType())
+            );
+        }
+
+        private JCExpression cellDataFeaturesType() {
+            // TableColumn.CellDataFeatures<Owner, T>
+            return treeMaker.TypeApply(
+                    chainDotsString(fieldNode, "javafx.scene.control.TableColumn.CellDataFeatures"),
+                    List.of(treeMaker.Ident(typeNode.toName(typeNode.getName())), propertyValueType())
+            );
+        }
+
+        private JCExpression observableValueType() {
+            // ObservableValue<T>
+            return treeMaker.TypeApply(
+                    chainDotsString(fieldNode, "javafx.beans.value.ObservableValue"),
+                    List.of(propertyValueType())
+            );
+        }
+
+        /**
+         * The type parameter of {@code ObservableValue} implemented by the property type.
+         */
+        private JCExpression propertyValueType() {
+            String rawPropertyType = rawTypeString(propertyType);
+            List<Type> typeArguments = type.type.getTypeArguments();
+            if ("javafx.beans.property.BooleanProperty".equals(rawPropertyType))
+                return genericType("java.lang.Boolean", List.<Type>nil());
+            if ("javafx.beans.property.StringProperty".equals(rawPropertyType))
+                return genericType("java.lang.String", List.<Type>nil());
+            if ("javafx.beans.property.ObjectProperty".equals(rawPropertyType))
+                return genericType(rawTypeString(type.type), typeArguments);
+            if ("javafx.beans.property.ListProperty".equals(rawPropertyType))
+                return genericType("javafx.collections.ObservableList", typeArguments);
+            if ("javafx.beans.property.SetProperty".equals(rawPropertyType))
+                return genericType("javafx.collections.ObservableSet", typeArguments);
+            if ("javafx.beans.property.MapProperty".equals(rawPropertyType))
+                return genericType("javafx.collections.ObservableMap", typeArguments);
+            // Integer, Long, Float and Double properties
+            return genericType("java.lang.Number", List.<Type>nil());
+        }
+
+        private JCExpression compareAndSet(JCExpression expected, JCExpression update) {
+            // $valueUpdater.compareAndSet(this, expected, update)
+            return treeMaker.Apply(
+                    List.<JCExpression>nil(),
+                    treeMaker.Select(treeMaker.Ident(updaterName), fieldNode.toName("compareAndSet")),
+                    List.<JCExpression>of(treeMaker.Ident(fieldNode.toName("this")), expected, update)
+            );
+        }
+
+        private void changeFieldTypeToProperty() {
+            field.vartype = propertyType;
+            if (isCollection()) {
+                // use lazy init
+                return;
+            }
+
+            if (field.init != null) {
+                lazyInit = field.init;
+                field.init = null;
+            }
+            //field.init = newProperty(field.init);
+        }
+
+        private JCExpression newProperty(JCExpression init) {
+            ListBuffer<JCExpression> constructorArgs = new ListBuffer<>();
+            constructorArgs.add(treeMaker.Ident(fieldNode.toName("this")));
+            constructorArgs.add(treeMaker.Literal(field.getName().toString()));
+            if (init != null) {
+                constructorArgs.add(setterConversionToProperty(init));
+            }
+
+            // with dirty tracking or a change stream:
+            // new SimpleXProperty(...) { protected void invalidated() { Owner.this.$markDirty(index); Owner.this.$publishChange(ordinal, Owner.this.getX()); } }
+            // when profiling, the class also has an initializer block: { $valueCounters.materialized(); }
+            JCClassDecl markingClass = null;
+            if (dirtyTracking || changeStream || profile) {
+                ListBuffer<JCTree> members = new ListBuffer<>();
+                if (profile) members.add(countMaterialization());
+                members.add(propertyClassMethod(Flags.PROTECTED, "invalidated", null, revalidatingChangeHooks().toArray(new JCStatement[0])));
+                markingClass = treeMaker.AnonymousClassDef(treeMaker.Modifiers(0), members.toList());
+            }
+            return treeMaker.NewClass(
+                    null,
+                    List.<JCExpression>nil(),
+                    getPropertyImpl(),
+                    constructorArgs.toList(),
+                    markingClass
+            );
+        }
+
+        private JCExpression ownerThis() {
+            return treeMaker.Select(treeMaker.Ident(typeNode.toName(typeNode.getName())), typeNode.toName("this"));
+        }
+
+        private JCStatement markDirty(JCExpression owner) {
+            // $markDirty(index);
+            JCExpression method = owner != null ? treeMaker.Select(owner, typeNode.toName(MARK_DIRTY_NAME)) : treeMaker.Ident(typeNode.toName(MARK_DIRTY_NAME));
+            return treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), method, List.<JCExpression>of(treeMaker.Literal(CTC_INT, dirtyIndex))));
+        }
+
+        private JCStatement publishChange(JCExpression owner) {
+            // $publishChange(ordinal, getX());
+            JCExpression method = owner != null ? treeMaker.Select(owner, typeNode.toName(PUBLISH_CHANGE_NAME)) : treeMaker.Ident(typeNode.toName(PUBLISH_CHANGE_NAME));
+            JCExpression getter = owner != null ? treeMaker.Select(ownerThis(), getterName) : treeMaker.Ident(getterName);
+            return treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), method, List.<JCExpression>of(
+                    treeMaker.Literal(CTC_INT, changeOrdinal),
+                    treeMaker.Apply(List.<JCExpression>nil(), getter, List.<JCExpression>nil())
+            )));
+        }
+
+        private List<JCStatement> changeHooks() {
+            ListBuffer<JCStatement> hooks = new ListBuffer<>();
+            ListBuffer<JCStatement> recorded = new ListBuffer<>();
+            if (dirtyTracking) recorded.add(markDirty(ownerThis()));
+            if (changeStream) recorded.add(publishChange(ownerThis()));
+            if (binaryState && !recorded.isEmpty()) hooks.add(unlessRestoring(ownerThis(), treeMaker.Block(0, recorded.toList())));
+            else hooks.addAll(recorded);
+            if (profile) hooks.add(count("changed"));
+            return hooks.toList();
+        }
+
+        private List<JCStatement> revalidatingChangeHooks() {
+            // invalidated() only runs while the property is valid, so read it back for the next change to run the hooks
+            // <changeHooks()>; get();
+            List<JCStatement> hooks = changeHooks();
+            if (hooks.isEmpty()) return hooks;
+            return hooks.append(treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(fieldNode.toName("get")), List.<JCExpression>nil())));
+        }
+
+        private void injectCounters() {
+            // private static final FXObservableProfiler.Counters $valueCounters = FXObservableProfiler.counters(Owner.class, "value");
+            JCVariableDecl counters = treeMaker.VarDef(
+                    treeMaker.Modifiers(Flags.PRIVATE | Flags.STATIC | Flags.FINAL),
+                    countersName,
+                    chainDotsString(fieldNode, PROFILER_NAME + ".Counters"),
+                    treeMaker.Apply(
+                            List.<JCExpression>nil(),
+                            chainDotsString(fieldNode, PROFILER_NAME + ".counters"),
+                            List.<JCExpression>of(
+                                    treeMaker.Select(treeMaker.Ident(typeNode.toName(typeNode.getName())), typeNode.toName("class")),
+                                    treeMaker.Literal(fieldNode.getName())
+                            )
+                    )
+            );
+            injectField(typeNode, recursiveSetGeneratedBy(counters, fieldNode.get(), fieldNode.getContext()));
+        }
+
+        private JCStatement count(String counter) {
+            // $valueCounters.<counter>();
+            return treeMaker.Exec(call(treeMaker.Ident(countersName), counter));
+        }
+
+        private JCBlock countMaterialization() {
+            return treeMaker.Block(0, List.of(count("materialized")));
+        }
+
+        private List<JCStatement> countingSet(List<JCStatement> statements) {
+            return profile ? statements.prepend(count("set")) : statements;
+        }
+
+        private List<JCStatement> observingChange(List<JCStatement> statements) {
+            // the body may return early, observers run in finally but only once it completed normally,
+            // and with binaryState not while readState() restores the field
+            // Type $oldValue = getValue();
+            // boolean $failed = false;
+            // try {
+            //     <statements>
+            // } catch (final Throwable $failure) {
+            //     $failed = true;
+            //     throw $failure;
+            // } finally {
+            //     if (!$failed) {
+            //         Type $newValue = getValue();
+            //         $recordUndo(ordinal, <bits of> $oldValue, <bits of> $newValue);
+            //         if (<$oldValue and $newValue differ>) onChange($oldValue, $newValue);
+            //     }
+            // }
+            if (!undoJournal && onChange == null) return statements;
+            Name oldName = fieldNode.toName("$oldValue");
+            Name newName = fieldNode.toName("$newValue");
+            Name failedName = fieldNode.toName("$failed");
+            Name failureName = fieldNode.toName("$failure");
+            ListBuffer<JCStatement> observers = new ListBuffer<>();
+            observers.add(treeMaker.VarDef(treeMaker.Modifiers(0), newName, type, callGetter()));
+            if (undoJournal) {
+                observers.add(treeMaker.Exec(treeMaker.Apply(
+                        List.<JCExpression>nil(),
+                        treeMaker.Ident(typeNode.toName(RECORD_UNDO_NAME)),
+                        List.of(treeMaker.Literal(CTC_INT, undoOrdinal), toUndoValue(treeMaker.Ident(oldName)), toUndoValue(treeMaker.Ident(newName)))
+                )));
+            }
+            if (onChange != null) {
+                JCExpression changed = type.type.isPrimitive()
+                        ? treeMaker.Binary(CTC_NOT_EQUAL, treeMaker.Ident(oldName), treeMaker.Ident(newName))
+                        : treeMaker.Unary(CTC_NOT, treeMaker.Apply(List.<JCExpression>nil(), chainDotsString(fieldNode, "java.util.Objects.equals"),
+                        List.<JCExpression>of(treeMaker.Ident(oldName), treeMaker.Ident(newName))));
+                observers.add(treeMaker.If(changed, treeMaker.Exec(treeMaker.Apply(
+                        List.<JCExpression>nil(),
+                        treeMaker.Ident(fieldNode.toName(onChange)),
+                        List.<JCExpression>of(treeMaker.Ident(oldName), treeMaker.Ident(newName))
+                )), null));
+            }
+            JCCatch rethrow = treeMaker.Catch(
+                    treeMaker.VarDef(treeMaker.Modifiers(Flags.FINAL), failureName, chainDotsString(fieldNode, "java.lang.Throwable"), null),
+                    treeMaker.Block(0, List.of(
+                            treeMaker.Exec(treeMaker.Assign(treeMaker.Ident(failedName), treeMaker.Literal(CTC_BOOLEAN, 1))),
+                            treeMaker.Throw(treeMaker.Ident(failureName))
+                    ))
+            );
+            return List.of(
+                    treeMaker.VarDef(treeMaker.Modifiers(0), oldName, type, callGetter()),
+                    treeMaker.VarDef(treeMaker.Modifiers(0), failedName, treeMaker.TypeIdent(CTC_BOOLEAN), treeMaker.Literal(CTC_BOOLEAN, 0)),
+                    treeMaker.Try(treeMaker.Block(0, statements), List.of(rethrow), treeMaker.Block(0, List.<JCStatement>of(
+                            treeMaker.If(treeMaker.Unary(CTC_NOT, treeMaker.Ident(failedName)), unlessRestoring(null, treeMaker.Block(0, observers.toList())), null)
+                    )))
+            );
+        }
+
+        private JCStatement createReplayUndoStatement(Name ordinalName, Name slotName, Name undoName) {
+            // if (ordinal == index) setValue(<value of slot, converted back from raw bits if primitive>);
+            boolean bits = type.type.isPrimitive();
+            JCExpression stored = treeMaker.Conditional(
+                    treeMaker.Ident(undoName),
+                    treeMaker.Indexed(treeMaker.Select(treeMaker.Ident(fieldNode.toName("this")), typeNode.toName(bits ? UNDO_OLD_BITS_NAME : UNDO_OLD_VALUES_NAME)), treeMaker.Ident(slotName)),
+                    treeMaker.Indexed(treeMaker.Select(treeMaker.Ident(fieldNode.toName("this")), typeNode.toName(bits ? UNDO_NEW_BITS_NAME : UNDO_NEW_VALUES_NAME)), treeMaker.Ident(slotName))
+            );
+            return treeMaker.If(
+                    treeMaker.Binary(CTC_EQUAL, treeMaker.Ident(ordinalName), treeMaker.Literal(CTC_INT, undoOrdinal)),
+                    treeMaker.Exec(treeMaker.Apply(
+                            List.<JCExpression>nil(),
+                            treeMaker.Ident(coalesce ? applyMethodName : setterName()),
+                            List.of(fromUndoValue(treeMaker.Parens(stored)))
+                    )),
+                    null
+            );
+        }
+
+        private JCExpression toUndoValue(JCExpression value) {
+            // primitives are journaled as raw bits: v ? 1L : 0L, Float.floatToRawIntBits(v), Double.doubleToRawLongBits(v), or v widened to long
+            String rawType = rawTypeString(type.type);
+            if ("boolean".equals(rawType)) {
+                return treeMaker.Conditional(value, treeMaker.Literal(CTC_LONG, 1L), treeMaker.Literal(CTC_LONG, 0L));
+            } else if ("float".equals(rawType)) {
+                return treeMaker.Apply(List.<JCExpression>nil(), chainDotsString(fieldNode, "java.lang.Float.floatToRawIntBits"), List.of(value));
+            } else if ("double".equals(rawType)) {
+                return treeMaker.Apply(List.<JCExpression>nil(), chainDotsString(fieldNode, "java.lang.Double.doubleToRawLongBits"), List.of(value));
+            }
+            return value;
+        }
+
+        private JCExpression fromUndoValue(JCExpression value) {
+            String rawType = rawTypeString(type.type);
+            if (!type.type.isPrimitive()) {
+                return treeMaker.TypeCast(type, value);
+            } else if ("boolean".equals(rawType)) {
+                return treeMaker.Binary(CTC_NOT_EQUAL, value, treeMaker.Literal(CTC_LONG, 0L));
+            } else if ("float".equals(rawType)) {
+                return treeMaker.Apply(List.<JCExpression>nil(), chainDotsString(fieldNode, "java.lang.Float.intBitsToFloat"),
+                        List.<JCExpression>of(treeMaker.TypeCast(treeMaker.TypeIdent(CTC_INT), value)));
+            } else if ("double".equals(rawType)) {
+                return treeMaker.Apply(List.<JCExpression>nil(), chainDotsString(fieldNode, "java.lang.Double.longBitsToDouble"), List.of(value));
+            } else if ("long".equals(rawType)) {
+                return value;
+            }
+            return treeMaker.TypeCast(type, value);
+        }
+
+        private List<JCStatement> recordingChanges(List<JCStatement> statements) {
+            if (dirtyTracking) statements = statements.prepend(unlessRestoring(null, markDirty(null)));
+            if (!changeStream) return statements;
+            // the body may return early, the change is published in finally but only once it completed normally;
+            // observingChange() declares $failed within the body, hence the distinct names
+            // boolean $publishFailed = false;
+            // try {
+            //     <statements>
+            // } catch (final Throwable $publishFailure) {
+            //     $publishFailed = true;
+            //     throw $publishFailure;
+            // } finally {
+            //     if (!$publishFailed) $publishChange(ordinal, getX());
+            // }
+            Name failedName = fieldNode.toName("$publishFailed");
+            Name failureName = fieldNode.toName("$publishFailure");
+            JCCatch rethrow = treeMaker.Catch(
+                    treeMaker.VarDef(treeMaker.Modifiers(Flags.FINAL), failureName, chainDotsString(fieldNode, "java.lang.Throwable"), null),
+                    treeMaker.Block(0, List.of(
+                            treeMaker.Exec(treeMaker.Assign(treeMaker.Ident(failedName), treeMaker.Literal(CTC_BOOLEAN, 1))),
+                            treeMaker.Throw(treeMaker.Ident(failureName))
+                    ))
+            );
+            return List.of(
+                    treeMaker.VarDef(treeMaker.Modifiers(0), failedName, treeMaker.TypeIdent(CTC_BOOLEAN), treeMaker.Literal(CTC_BOOLEAN, 0)),
+                    treeMaker.Try(treeMaker.Block(0, statements), List.of(rethrow), treeMaker.Block(0, List.<JCStatement>of(
+                            treeMaker.If(treeMaker.Unary(CTC_NOT, treeMaker.Ident(failedName)), unlessRestoring(null, publishChange(null)), null)
+                    )))
+            );
+        }
+
+        private void changeFieldTypeToObject() {
+            field.vartype = genericType("Object", List.<Type>nil());
+            if (field.init != null && type.type.isPrimitive()) {
+                field.init = setterConversionToField(treeMaker.TypeCast(type, field.init));
+            }
+        }
+
+        private void injectPropertyField() {
+            JCVariableDecl propertyField = treeMaker.VarDef(
+                    treeMaker.Modifiers(Flags.PRIVATE),
+                    propertyFieldName,
+                    propertyType,
+                    null
+            );
+            injectField(typeNode, recursiveSetGeneratedBy(propertyField, fieldNode.get(), fieldNode.getContext()));
+        }
+
+        private void injectPropertyClass() {
+            if (isCollection()) {
+                injectCollectionPropertyClass();
+                return;
+            }
+            // the value lives in the owner's field only, listeners and bindings are handled like XPropertyBase does
+            // private final class $ValueProperty extends XProperty implements InvalidationListener {
+            //     private ExpressionHelper<X> $helper;
+            //     private ObservableValue<? extends X> $observable;
+            //     private WeakInvalidationListener $listener;
+            //     private boolean $valid = true;
+            //     public Object getBean() { return Owner.this; }
+            //     public String getName() { return "value"; }
+            //     public x get() {
+            //         this.$valid = true;
+            //         if (this.$observable == null) return <Owner.this.value as x>;
+            //         X $value = this.$observable.getValue();
+            //         return <$value as x>;
+            //     }
+            //     public void set(x value) {
+            //         if (this.$observable != null) throw new RuntimeException("Owner.value : A bound value cannot be set.");
+            //         if (<Owner.this.value as x> != value) {
+            //             Owner.this.value = <value as Type>;
+            //             $markInvalid();
+            //         }
+            //     }
+            //     public boolean isBound() { return this.$observable != null; }
+            //     public void bind(ObservableValue<? extends X> observable) {
+            //         if (observable == null) throw new NullPointerException("Cannot bind to null");
+            //         if (!observable.equals(this.$observable)) {
+            //             unbind();
+            //             this.$observable = observable;
+            //             if (this.$listener == null) this.$listener = new WeakInvalidationListener(this);
+            //             observable.addListener(this.$listener);
+            //             $markInvalid();
+            //         }
+            //     }
+            //     public void unbind() {
+            //         if (this.$observable != null) {
+            //             Owner.this.value = <get() as Type>;
+            //             this.$observable.removeListener(this.$listener);
+            //             this.$observable = null;
+            //         }
+            //     }
+            //     public void invalidated(Observable observable) { $markInvalid(); }
+            //     private void $markInvalid() {
+            //         if (this.$valid) {
+            //             this.$valid = false;
+            //             <change hooks>; get(); // with change hooks only
+            //             ExpressionHelper.fireValueChangedEvent(this.$helper);
+            //         }
+            //     }
+            //     public void addListener(InvalidationListener listener) { this.$helper = ExpressionHelper.addListener(this.$helper, this, listener); }
+            //     public void removeListener(InvalidationListener listener) { this.$helper = ExpressionHelper.removeListener(this.$helper, listener); }
+            //     public void addListener(ChangeListener<? super X> listener) { this.$helper = ExpressionHelper.addListener(this.$helper, this, listener); }
+            //     public void removeListener(ChangeListener<? super X> listener) { this.$helper = ExpressionHelper.removeListener(this.$helper, listener); }
+            // }
+            String kind = propertyKind();
+            Name valueName = fieldNode.toName("value");
+            Name observableName = fieldNode.toName("observable");
+            Name listenerName = fieldNode.toName("listener");
+            Name localValueName = fieldNode.toName("$value");
+            Name markInvalidName = fieldNode.toName("$markInvalid");
+            String helperType = "com.sun.javafx.binding.ExpressionHelper";
+
+            ListBuffer<JCTree> members = new ListBuffer<>();
+            members.add(fieldBackedMember(FIELD_BACKED_HELPER_NAME, treeMaker.TypeApply(chainDotsString(fieldNode, helperType), List.of(propertyValueType())), null));
+            members.add(fieldBackedMember(FIELD_BACKED_OBSERVABLE_NAME, boundObservableType(), null));
+            members.add(fieldBackedMember(FIELD_BACKED_LISTENER_NAME, chainDotsString(fieldNode, "javafx.beans.WeakInvalidationListener"), null));
+            members.add(fieldBackedMember(FIELD_BACKED_VALID_NAME, treeMaker.TypeIdent(CTC_BOOLEAN), treeMaker.Literal(CTC_BOOLEAN, 1)));
+            if (profile) members.add(countMaterialization());
+            members.add(propertyClassMethod(Flags.PUBLIC, "getBean", genericType("java.lang.Object", List.<Type>nil()),
+                    treeMaker.Return(ownerThis())));
+            members.add(propertyClassMethod(Flags.PUBLIC, "getName", genericType("java.lang.String", List.<Type>nil()),
+                    treeMaker.Return(treeMaker.Literal(field.getName().toString()))));
+
+            members.add(propertyClassMethod(Flags.PUBLIC, "get", propertyGetType(), List.<JCVariableDecl>nil(), List.of(
+                    treeMaker.Exec(treeMaker.Assign(propertyClassField(FIELD_BACKED_VALID_NAME), treeMaker.Literal(CTC_BOOLEAN, 1))),
+                    treeMaker.If(isNull(propertyClassField(FIELD_BACKED_OBSERVABLE_NAME)), treeMaker.Return(setterConversionToProperty(ownerField())), null),
+                    treeMaker.VarDef(treeMaker.Modifiers(0), localValueName, propertyValueType(), call(propertyClassField(FIELD_BACKED_OBSERVABLE_NAME), "getValue")),
+                    treeMaker.Return(observedValue(kind, localValueName))
+            )));
+
+            JCExpression changed = "String".equals(kind)
+                    ? treeMaker.Unary(CTC_NOT, treeMaker.Apply(List.<JCExpression>nil(), chainDotsString(fieldNode, "java.util.Objects.equals"),
+                    List.<JCExpression>of(setterConversionToProperty(ownerField()), treeMaker.Ident(valueName))))
+                    : treeMaker.Binary(CTC_NOT_EQUAL, treeMaker.Parens(setterConversionToProperty(ownerField())), treeMaker.Ident(valueName));
+            members.add(propertyClassMethod(Flags.PUBLIC, "set", null, List.of(parameter(valueName, propertyGetType())), List.<JCStatement>of(
+                    treeMaker.If(isNotNull(propertyClassField(FIELD_BACKED_OBSERVABLE_NAME)), treeMaker.Throw(treeMaker.NewClass(
+                            null,
+                            List.<JCExpression>nil(),
+                            chainDotsString(fieldNode, "java.lang.RuntimeException"),
+                            List.<JCExpression>of(treeMaker.Literal(typeNode.getName() + "." + field.getName() + " : A bound value cannot be set.")),
+                            null
+                    )), null),
+                    treeMaker.If(changed, treeMaker.Block(0, List.<JCStatement>of(
+                            treeMaker.Exec(treeMaker.Assign(ownerField(), getterConversionFromProperty(treeMaker.Ident(valueName)))),
+                            treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(markInvalidName), List.<JCExpression>nil()))
+                    )), null)
+            )));
+
+            members.add(propertyClassMethod(Flags.PUBLIC, "isBound", treeMaker.TypeIdent(CTC_BOOLEAN),
+                    treeMaker.Return(isNotNull(propertyClassField(FIELD_BACKED_OBSERVABLE_NAME)))));
+
+            members.add(propertyClassMethod(Flags.PUBLIC, "bind", null, List.of(parameter(observableName, boundObservableType())), List.<JCStatement>of(
+                    treeMaker.If(isNull(treeMaker.Ident(observableName)), treeMaker.Throw(treeMaker.NewClass(
+                            null,
+                            List.<JCExpression>nil(),
+                            chainDotsString(fieldNode, "java.lang.NullPointerException"),
+                            List.<JCExpression>of(treeMaker.Literal("Cannot bind to null")),
+                            null
+                    )), null),
+                    treeMaker.If(treeMaker.Unary(CTC_NOT, callWith(treeMaker.Ident(observableName), "equals", propertyClassField(FIELD_BACKED_OBSERVABLE_NAME))), treeMaker.Block(0, List.<JCStatement>of(
+                            treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(fieldNode.toName("unbind")), List.<JCExpression>nil())),
+                            treeMaker.Exec(treeMaker.Assign(propertyClassField(FIELD_BACKED_OBSERVABLE_NAME), treeMaker.Ident(observableName))),
+                            treeMaker.If(isNull(propertyClassField(FIELD_BACKED_LISTENER_NAME)), treeMaker.Exec(treeMaker.Assign(
+                                    propertyClassField(FIELD_BACKED_LISTENER_NAME),
+                                    treeMaker.NewClass(
+                                            null,
+                                            List.<JCExpression>nil(),
+                                            chainDotsString(fieldNode, "javafx.beans.WeakInvalidationListener"),
+                                            List.<JCExpression>of(treeMaker.Ident(fieldNode.toName("this"))),
+                                            null
+                                    ))), null),
+                            treeMaker.Exec(callWith(treeMaker.Ident(observableName), "addListener", propertyClassField(FIELD_BACKED_LISTENER_NAME))),
+                            treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(markInvalidName), List.<JCExpression>nil()))
+                    )), null)
+            )));
+
+            JCExpression propertyDotGet = treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(fieldNode.toName("get")), List.<JCExpression>nil());
+            members.add(propertyClassMethod(Flags.PUBLIC, "unbind", null,
+                    treeMaker.If(isNotNull(propertyClassField(FIELD_BACKED_OBSERVABLE_NAME)), treeMaker.Block(0, List.<JCStatement>of(
+                            treeMaker.Exec(treeMaker.Assign(ownerField(), getterConversionFromProperty(propertyDotGet))),
+                            treeMaker.Exec(callWith(propertyClassField(FIELD_BACKED_OBSERVABLE_NAME), "removeListener", propertyClassField(FIELD_BACKED_LISTENER_NAME))),
+                            treeMaker.Exec(treeMaker.Assign(propertyClassField(FIELD_BACKED_OBSERVABLE_NAME), treeMaker.Literal(CTC_BOT, null)))
+                    )), null)));
+
+            members.add(propertyClassMethod(Flags.PUBLIC, "invalidated", null, List.of(parameter(observableName, chainDotsString(fieldNode, "javafx.beans.Observable"))), List.<JCStatement>of(
+                    treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(markInvalidName), List.<JCExpression>nil()))
+            )));
+
+            ListBuffer<JCStatement> invalidate = new ListBuffer<>();
+            invalidate.add(treeMaker.Exec(treeMaker.Assign(propertyClassField(FIELD_BACKED_VALID_NAME), treeMaker.Literal(CTC_BOOLEAN, 0))));
+            invalidate.addAll(revalidatingChangeHooks());
+            invalidate.add(treeMaker.Exec(treeMaker.Apply(
+                    List.<JCExpression>nil(),
+                    chainDotsString(fieldNode, helperType + ".fireValueChangedEvent"),
+                    List.of(propertyClassField(FIELD_BACKED_HELPER_NAME))
+            )));
+            members.add(propertyClassMethod(Flags.PRIVATE, markInvalidName.toString(), null,
+                    treeMaker.If(propertyClassField(FIELD_BACKED_VALID_NAME), treeMaker.Block(0, invalidate.toList()), null)));
+
+            JCExpression changeListenerType = treeMaker.TypeApply(
+                    chainDotsString(fieldNode, "javafx.beans.value.ChangeListener"),
+                    List.<JCExpression>of(treeMaker.Wildcard(treeMaker.TypeBoundKind(BoundKind.SUPER), propertyValueType()))
+            );
+            for (JCExpression listenerType : List.of(chainDotsString(fieldNode, "javafx.beans.InvalidationListener"), changeListenerType)) {
+                members.add(propertyClassMethod(Flags.PUBLIC, "addListener", null, List.of(parameter(listenerName, listenerType)), List.<JCStatement>of(
+                        treeMaker.Exec(treeMaker.Assign(propertyClassField(FIELD_BACKED_HELPER_NAME), treeMaker.Apply(
+                                List.<JCExpression>nil(),
+                                chainDotsString(fieldNode, helperType + ".addListener"),
+                                List.of(propertyClassField(FIELD_BACKED_HELPER_NAME), treeMaker.Ident(fieldNode.toName("this")), treeMaker.Ident(listenerName))
+                        )))
+                )));
+                members.add(propertyClassMethod(Flags.PUBLIC, "removeListener", null,
+                        List.of(parameter(listenerName, cloneType(treeMaker, listenerType, fieldNode.get(), fieldNode.getContext()))), List.<JCStatement>of(
+                        treeMaker.Exec(treeMaker.Assign(propertyClassField(FIELD_BACKED_HELPER_NAME), treeMaker.Apply(
+                                List.<JCExpression>nil(),
+                                chainDotsString(fieldNode, helperType + ".removeListener"),
+                                List.of(propertyClassField(FIELD_BACKED_HELPER_NAME), treeMaker.Ident(listenerName))
+                        )))
+                )));
+            }
+
+            JCClassDecl propertyClass = treeMaker.ClassDef(
+                    treeMaker.Modifiers(Flags.PRIVATE | Flags.FINAL),
+                    propertyClassName,
+                    List.<JCTypeParameter>nil(),
+                    cloneType(treeMaker, propertyType, fieldNode.get(), fieldNode.getContext()),
+                    List.of(chainDotsString(fieldNode, "javafx.beans.InvalidationListener")),
+                    members.toList()
+            );
+            injectType(typeNode, recursiveSetGeneratedBy(propertyClass, fieldNode.get(), fieldNode.getContext()));
+        }
+
+        private void injectCollectionPropertyClass() {
+            // collection properties hold the collection by reference and forward its changes, extend XPropertyBase
+            // private final class $ValueProperty extends XPropertyBase {
+            //     $ValueProperty(ObservableX<E> initialValue) { super(initialValue); }
+            //     public Object getBean() { return Owner.this; }
+            //     public String getName() { return "value"; }
+            //     protected void invalidated() { if (!isBound()) Owner.this.value = get(); <changeHooks()>; get(); }
+            //     public void unbind() { super.unbind(); Owner.this.value = get(); }
+            // }
+            JCExpression propertyDotGet = treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(fieldNode.toName("get")), List.<JCExpression>nil());
+            JCExpression isBound = treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(fieldNode.toName("isBound")), List.<JCExpression>nil());
+            JCStatement writeBack = treeMaker.Exec(treeMaker.Assign(ownerField(), getterConversionFromProperty(propertyDotGet)));
+            JCExpression superUnbind = treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Select(treeMaker.Ident(fieldNode.toName("super")), fieldNode.toName("unbind")), List.<JCExpression>nil());
+
+            Name initialValueName = fieldNode.toName("initialValue");
+            ListBuffer<JCTree> members = new ListBuffer<>();
+            if (profile) members.add(countMaterialization());
+            members.add(treeMaker.MethodDef(
+                    treeMaker.Modifiers(0),
+                    fieldNode.toName("<init>"),
+                    null,
+                    List.<JCTypeParameter>nil(),
+                    List.of(parameter(initialValueName, propertyValueType())),
+                    List.<JCExpression>nil(),
+                    treeMaker.Block(0, List.<JCStatement>of(treeMaker.Exec(treeMaker.Apply(
+                            List.<JCExpression>nil(),
+                            treeMaker.Ident(fieldNode.toName("super")),
+                            List.<JCExpression>of(treeMaker.Ident(initialValueName)))))),
+                    null
+            ));
+            members.add(propertyClassMethod(Flags.PUBLIC, "getBean", genericType("java.lang.Object", List.<Type>nil()),
+                    treeMaker.Return(ownerThis())));
+            members.add(propertyClassMethod(Flags.PUBLIC, "getName", genericType("java.lang.String", List.<Type>nil()),
+                    treeMaker.Return(treeMaker.Literal(field.getName().toString()))));
+            members.add(propertyClassMethod(Flags.PROTECTED, "invalidated", null,
+                    revalidatingChangeHooks().prepend(treeMaker.If(treeMaker.Unary(CTC_NOT, isBound), writeBack, null)).toArray(new JCStatement[0])));
+            members.add(propertyClassMethod(Flags.PUBLIC, "unbind", null,
+                    treeMaker.Exec(superUnbind), treeMaker.Exec(treeMaker.Assign(ownerField(), getterConversionFromProperty(
+                            treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(fieldNode.toName("get")), List.<JCExpression>nil()))))));
+
+            JCExpression superclass = chainDotsString(fieldNode, rawTypeString(propertyType) + "Base");
+            List<JCExpression> typeArguments = typeArguments(propertyType);
+            if (!typeArguments.isEmpty()) {
+                superclass = treeMaker.TypeApply(superclass, typeArguments);
+            }
+
+            JCClassDecl propertyClass = treeMaker.ClassDef(
+                    treeMaker.Modifiers(Flags.PRIVATE | Flags.FINAL),
+                    propertyClassName,
+                    List.<JCTypeParameter>nil(),
+                    superclass,
+                    List.<JCExpression>nil(),
+                    members.toList()
+            );
+            injectType(typeNode, recursiveSetGeneratedBy(propertyClass, fieldNode.get(), fieldNode.getContext()));
+        }
+
+        private String propertyKind() {
+            // Boolean, Integer, Long, Float, Double, String or Object
+            String simpleName = rawTypeString(propertyType).substring("javafx.beans.property.".length());
+            return simpleName.substring(0, simpleName.length() - "Property".length());
+        }
+
+        /**
+         * The type returned by {@code get()} and accepted by {@code set()} of the property type.
+         */
+        private JCExpression propertyGetType() {
+            String kind = propertyKind();
+            if ("Object".equals(kind)) return propertyValueType();
+            return compactValueType(kind, null);
+        }
+
+        private JCExpression boundObservableType() {
+            // ObservableValue<? extends X>
+            return treeMaker.TypeApply(
+                    chainDotsString(fieldNode, "javafx.beans.value.ObservableValue"),
+                    List.<JCExpression>of(treeMaker.Wildcard(treeMaker.TypeBoundKind(BoundKind.EXTENDS), propertyValueType()))
+            );
+        }
+
+        private JCExpression observedValue(String kind, Name valueName) {
+            // Number and Boolean values of a bound observable may be null, which reads as 0 or false:
+            // $value == null ? 0 : $value.intValue()
+            JCExpression value = treeMaker.Ident(valueName);
+            JCExpression defaultValue;
+            String method;
+            if ("Boolean".equals(kind)) {
+                defaultValue = treeMaker.Literal(Boolean.FALSE);
+                method = "booleanValue";
+            } else if ("Integer".equals(kind)) {
+                defaultValue = treeMaker.Literal(Integer.valueOf(0));
+                method = "intValue";
+            } else if ("Long".equals(kind)) {
+                defaultValue = treeMaker.Literal(Long.valueOf(0));
+                method = "longValue";
+            } else if ("Float".equals(kind)) {
+                defaultValue = treeMaker.Literal(Float.valueOf(0));
+                method = "floatValue";
+            } else if ("Double".equals(kind)) {
+                defaultValue = treeMaker.Literal(Double.valueOf(0));
+                method = "doubleValue";
+            } else {
+                return value;
+            }
+            return treeMaker.Conditional(isNull(value), defaultValue, call(treeMaker.Ident(valueName), method));
+        }
+
+        private JCExpression ownerField() {
+            // Owner.this.value
+            return treeMaker.Select(ownerThis(), field.getName());
+        }
+
+        private JCExpression propertyClassField(String name) {
+            return treeMaker.Select(treeMaker.Ident(fieldNode.toName("this")), fieldNode.toName(name));
+        }
+
+        private JCVariableDecl fieldBackedMember(String name, JCExpression memberType, JCExpression init) {
+            return treeMaker.VarDef(treeMaker.Modifiers(Flags.PRIVATE), fieldNode.toName(name), memberType, init);
         }
 
-        private JCExpression newProperty(JCExpression init) {
-            ListBuffer<JCExpression> constructorArgs = new ListBuffer<>();
-            constructorArgs.add(treeMaker.Ident(fieldNode.toName("this")));
-            constructorArgs.add(treeMaker.Literal(field.getName().toString()));
-            if (init != null) {
-                constructorArgs.add(setterConversionToProperty(init));
-            }
+        private JCMethodDecl propertyClassMethod(long flags, String name, JCExpression returnType, JCStatement... statements) {
+            return propertyClassMethod(flags, name, returnType, List.<JCVariableDecl>nil(), List.from(statements));
+        }
 
-            return treeMaker.NewClass(
-                    null,
+        private JCMethodDecl propertyClassMethod(long flags, String name, JCExpression returnType, List<JCVariableDecl> parameters, List<JCStatement> statements) {
+            if (returnType == null) {
+                returnType = treeMaker.Type(Javac.createVoidType(treeMaker, Javac.CTC_VOID));
+            }
+            return treeMaker.MethodDef(
+                    treeMaker.Modifiers(flags),
+                    fieldNode.toName(name),
+                    returnType,
+                    List.<JCTypeParameter>nil(),
+                    parameters,
                     List.<JCExpression>nil(),
-                    getPropertyImpl(),
-                    constructorArgs.toList(),
+                    treeMaker.Block(0, statements),
                     null
             );
         }
 
-        private void changeFieldTypeToObject() {
-            field.vartype = genericType("Object", List.<Type>nil());
-            if (field.init != null && type.type.isPrimitive()) {
-                field.init = setterConversionToField(treeMaker.TypeCast(type, field.init));
-            }
-        }
-
         private void maybeSetupLazyInitializer() {
             if (isCollection()) {
                 lazyInit = field.init;
@@ -348,7 +3382,13 @@ public class HandleFXObservable extends JavacAnnotationHandler<FXObservable> {
         private JCExpression getPropertyImpl() {
             String rawType = rawTypeString(propertyType);
             List<JCExpression> typeArguments = typeArguments(propertyType);
-            String implTypeString = rawType.replaceFirst("(javafx[.]beans[.]property[.])(.*)", "$1Simple$2");
+            if (compactable) {
+                JCExpression compactableType = treeMaker.Ident(compactablePropertyClassName());
+                return typeArguments.isEmpty() ? compactableType : treeMaker.TypeApply(compactableType, typeArguments);
+            }
+            String implTypeString = readOnly
+                    ? rawType.replaceFirst("(javafx[.]beans[.]property[.])(.*)Property", "$1ReadOnly$2Wrapper")
+                    : rawType.replaceFirst("(javafx[.]beans[.]property[.])(.*)", "$1Simple$2");
             JCExpression implType = JavacHandlerUtil.chainDotsString(fieldNode, implTypeString);
             if (typeArguments.isEmpty())
                 return implType;
@@ -363,6 +3403,10 @@ public class HandleFXObservable extends JavacAnnotationHandler<FXObservable> {
 
             ListBuffer<JCExpression> typeExpressions = new ListBuffer<>();
             for (Type typeArgument : typeArguments) {
+                if (typeArgument instanceof Type.ArrayType) {
+                    typeExpressions.append(treeMaker.Type(typeArgument));
+                    continue;
+                }
                 typeExpressions.append(genericType(rawTypeString(typeArgument), typeArgument.getTypeArguments()));
             }
 
@@ -391,7 +3435,7 @@ public class HandleFXObservable extends JavacAnnotationHandler<FXObservable> {
         }
 
         private JCMethodDecl createPropertyMethod() {
-            Name methodName = fieldNode.toName(fieldNode.getName() + "Property");
+            Name methodName = propertyMethodName;
 
             List<JCStatement> statements = createPropertyMethodBody();
 
@@ -402,18 +3446,50 @@ public class HandleFXObservable extends JavacAnnotationHandler<FXObservable> {
             List<JCExpression> throwsClauses = List.nil();
             JCExpression annotationMethodDefaultValue = null;
 
-            JCMethodDecl decl = recursiveSetGeneratedBy(treeMaker.MethodDef(treeMaker.Modifiers(Flags.PUBLIC), methodName, propertyType,
+            JCMethodDecl decl = recursiveSetGeneratedBy(treeMaker.MethodDef(treeMaker.Modifiers(mutatorFlags()), methodName, propertyType,
                     methodGenericParams, parameters, throwsClauses, methodBody, annotationMethodDefaultValue), fieldNode.get(), fieldNode.getContext());
 
+            if (!readOnly) copyJavadoc(fieldNode, decl, CopyJavadoc.VERBATIM);
+            return decl;
+        }
+
+        private JCMethodDecl createReadOnlyPropertyMethod() {
+            // public ReadOnlyXProperty<T> valueProperty() {
+            //     return ((ReadOnlyXWrapper<T>) $valueWritableProperty()).getReadOnlyProperty();
+            // }
+            JCExpression wrapper = treeMaker.TypeCast(getPropertyImpl(), callPropertyMethod());
+            JCMethodDecl decl = recursiveSetGeneratedBy(
+                    treeMaker.MethodDef(
+                            treeMaker.Modifiers(Flags.PUBLIC),
+                            fieldNode.toName(fieldNode.getName() + "Property"),
+                            readOnlyPropertyType(),
+                            List.<JCTypeParameter>nil(),
+                            List.<JCVariableDecl>nil(),
+                            List.<JCExpression>nil(),
+                            treeMaker.Block(0, List.<JCStatement>of(treeMaker.Return(call(wrapper, "getReadOnlyProperty")))),
+                            null
+                    ),
+                    fieldNode.get(), fieldNode.getContext());
+
             copyJavadoc(fieldNode, decl, CopyJavadoc.VERBATIM);
             return decl;
         }
 
+        private JCExpression readOnlyPropertyType() {
+            String rawType = rawTypeString(propertyType).replaceFirst("(javafx[.]beans[.]property[.])(.*)", "$1ReadOnly$2");
+            List<JCExpression> typeArguments = typeArguments(propertyType);
+            JCExpression readOnlyType = chainDotsString(fieldNode, rawType);
+            if (typeArguments.isEmpty())
+                return readOnlyType;
+            return treeMaker.TypeApply(readOnlyType, typeArguments);
+        }
+
         private List<JCStatement> createPropertyMethodBody() {
+            if (threadSafe) return createThreadSafePropertyMethodBody();
 
             ListBuffer<JCStatement> statements = new ListBuffer<>();
 
-            if (strategy == FXObservable.Strategy.PLAIN) {
+            if (storage == Storage.PLAIN) {
                 // if (this.value == null) {
                 //     // init might use diamond operator, assign it to a temporary variable first
                 //     Type value = init;
@@ -437,7 +3513,100 @@ public class HandleFXObservable extends JavacAnnotationHandler<FXObservable> {
                 );
                 // return this.value;
                 statements.add(treeMaker.Return(fieldAccess));
-            } else {//if (strategy == FXObservable.Strategy.SHADOW_FIELD) {
+            } else if (storage == Storage.PROPERTY_TABLE) {
+                // if (this.$properties == null) {
+                //     this.$properties = new Property[size];
+                // }
+                // if (this.$properties[ordinal] == null) {
+                //     // read the value first, the getter may initialize it lazily
+                //     Type value = getValue();
+                //     this.$properties[ordinal] = new SimpleXProperty(this, "value", value);
+                //     this.value = null; // reference types only, the property holds the value from now on
+                // }
+                JCExpression newTable = treeMaker.NewArray(
+                        chainDotsString(fieldNode, "javafx.beans.property.Property"),
+                        List.<JCExpression>of(treeMaker.Literal(tableSize)),
+                        null
+                );
+                statements.add(
+                        treeMaker.If(
+                                isNull(propertyTableAccess()),
+                                treeMaker.Exec(treeMaker.Assign(propertyTableAccess(), newTable)),
+                                null
+                        )
+                );
+                Name tempVarName = fieldNode.toName("value");
+                JCExpression callGetter = treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(getterName), List.<JCExpression>nil());
+                ListBuffer<JCStatement> then = new ListBuffer<>();
+                then.add(treeMaker.VarDef(treeMaker.Modifiers(0), tempVarName, type, callGetter));
+                then.add(treeMaker.Exec(treeMaker.Assign(propertyTableSlot(), newProperty(treeMaker.Ident(tempVarName)))));
+                if (!type.type.isPrimitive()) {
+                    then.add(treeMaker.Exec(treeMaker.Assign(fieldAccess, treeMaker.Literal(CTC_BOT, null))));
+                }
+                statements.add(
+                        treeMaker.If(
+                                isNull(propertyTableSlot()),
+                                treeMaker.Block(0, then.toList()),
+                                null
+                        )
+                );
+                // return (XProperty) this.$properties[ordinal];
+                statements.add(treeMaker.Return(storedProperty()));
+            } else if (storage == Storage.FIELD_BACKED && !isCollection()) {
+                // the property reads the field, there is no value to hand over
+                // if (this.$valueProperty == null) this.$valueProperty = new $ValueProperty();
+                JCExpression newPropertyClass = treeMaker.NewClass(null, List.<JCExpression>nil(), treeMaker.Ident(propertyClassName), List.<JCExpression>nil(), null);
+                statements.add(treeMaker.If(isNull(propertyFieldAccess), treeMaker.Exec(treeMaker.Assign(propertyFieldAccess, newPropertyClass)), null));
+                // return this.$valueProperty;
+                statements.add(treeMaker.Return(propertyFieldAccess));
+            } else if (storage == Storage.FIELD_BACKED) {
+                // if (this.$valueProperty == null) {
+                //     // read the value first, the getter may initialize it lazily
+                //     Type value = getValue();
+                //     this.$valueProperty = new $ValueProperty(value);
+                //     this.value = this.$valueProperty.get(); // field and property share the collection
+                // }
+                Name tempVarName = fieldNode.toName("value");
+                JCExpression callGetter = treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(getterName), List.<JCExpression>nil());
+                JCExpression newPropertyClass = treeMaker.NewClass(null, List.<JCExpression>nil(), treeMaker.Ident(propertyClassName),
+                        List.of(setterConversionToProperty(treeMaker.Ident(tempVarName))), null);
+                JCExpression propertyDotGet = treeMaker.Apply(
+                        List.<JCExpression>nil(),
+                        treeMaker.Select(propertyFieldAccess, fieldNode.toName("get")),
+                        List.<JCExpression>nil());
+                statements.add(
+                        treeMaker.If(
+                                isNull(propertyFieldAccess),
+                                treeMaker.Block(0, List.<JCStatement>of(
+                                        treeMaker.VarDef(treeMaker.Modifiers(0), tempVarName, type, callGetter),
+                                        treeMaker.Exec(treeMaker.Assign(propertyFieldAccess, newPropertyClass)),
+                                        treeMaker.Exec(treeMaker.Assign(treeMaker.Select(treeMaker.Ident(fieldNode.toName("this")), field.getName()), getterConversionFromProperty(propertyDotGet))))),
+                                null
+                        )
+                );
+                // return this.$valueProperty;
+                statements.add(treeMaker.Return(propertyFieldAccess));
+            } else if (storage == Storage.TYPED_SHADOW_FIELD) {
+                // if (this.$valueProperty == null) {
+                //     this.$valueProperty = new SimpleXProperty(this, "value", getValue());
+                //     this.value = null; // reference types only, the property holds the value from now on
+                // }
+                JCExpression callGetter = treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(getterName), List.<JCExpression>nil());
+                ListBuffer<JCStatement> then = new ListBuffer<>();
+                then.add(treeMaker.Exec(treeMaker.Assign(propertyFieldAccess, newProperty(callGetter))));
+                if (!type.type.isPrimitive()) {
+                    then.add(treeMaker.Exec(treeMaker.Assign(fieldAccess, treeMaker.Literal(CTC_BOT, null))));
+                }
+                statements.add(
+                        treeMaker.If(
+                                isNull(propertyFieldAccess),
+                                treeMaker.Block(0, then.toList()),
+                                null
+                        )
+                );
+                // return this.$valueProperty;
+                statements.add(treeMaker.Return(propertyFieldAccess));
+            } else {//if (storage == Storage.SHADOW_FIELD) {
                 JCExpression callGetter = treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(getterName), List.<JCExpression>nil());
                 statements.add(
                         // if (!(field instanceof Property))
@@ -458,6 +3627,84 @@ public class HandleFXObservable extends JavacAnnotationHandler<FXObservable> {
             return statements.toList();
         }
 
+        private List<JCStatement> createThreadSafePropertyMethodBody() {
+            ListBuffer<JCStatement> statements = new ListBuffer<>();
+            Name propertyVarName = fieldNode.toName(PROPERTY_VAR_NAME);
+            JCExpression propertyVarAccess = treeMaker.Ident(propertyVarName);
+
+            if (storage == Storage.PLAIN) {
+                // XProperty $property = this.value;
+                // if ($property == null) {
+                //     // init might use diamond operator, assign it to a temporary variable first
+                //     Type value = init;
+                //     $property = new SimpleXProperty<T>(this, "value", value);
+                //     if (!$valueUpdater.compareAndSet(this, null, $property)) $property = this.value;
+                // }
+                // return $property;
+                Name tempVarName = fieldNode.toName("value");
+                ListBuffer<JCStatement> then = new ListBuffer<>();
+                if (lazyInit != null) {
+                    then.add(treeMaker.VarDef(treeMaker.Modifiers(0), tempVarName, type, lazyInit));
+                    then.add(treeMaker.Exec(treeMaker.Assign(propertyVarAccess, newProperty(treeMaker.Ident(tempVarName)))));
+                } else {
+                    then.add(treeMaker.Exec(treeMaker.Assign(propertyVarAccess, newProperty(null))));
+                }
+                then.add(
+                        treeMaker.If(
+                                treeMaker.Unary(CTC_NOT, compareAndSet(treeMaker.Literal(CTC_BOT, null), propertyVarAccess)),
+                                treeMaker.Exec(treeMaker.Assign(propertyVarAccess, fieldAccess)),
+                                null
+                        )
+                );
+                statements.add(treeMaker.VarDef(treeMaker.Modifiers(0), propertyVarName, propertyType, fieldAccess));
+                statements.add(treeMaker.If(isNull(propertyVarAccess), treeMaker.Block(0, then.toList()), null));
+                statements.add(treeMaker.Return(propertyVarAccess));
+            } else {//if (storage == Storage.SHADOW_FIELD) {
+                // the property starts with the value it replaces, a setter racing with it makes the CAS fail
+                // for (;;) {
+                //     Object $current = this.value;
+                //     if ($current instanceof XProperty) return (XProperty) $current;
+                //     if ($current == null) { getValue(); continue; }    // lazily initialized fields only, the getter installs the initial value
+                //     XProperty $property = new SimpleXProperty(this, "value", (Type) $current);
+                //     if ($valueUpdater.compareAndSet(this, $current, $property)) return $property;
+                // }
+                Name currentVarName = fieldNode.toName(CURRENT_VAR_NAME);
+                JCExpression currentVarAccess = treeMaker.Ident(currentVarName);
+                JCExpression callGetter = treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(getterName), List.<JCExpression>nil());
+                ListBuffer<JCStatement> loop = new ListBuffer<>();
+                loop.add(treeMaker.VarDef(treeMaker.Modifiers(0), currentVarName, genericType("Object", List.<Type>nil()), fieldAccess));
+                loop.add(
+                        treeMaker.If(
+                                treeMaker.TypeTest(currentVarAccess, rawType(propertyType)),
+                                treeMaker.Return(treeMaker.TypeCast(propertyType, currentVarAccess)),
+                                null
+                        )
+                );
+                if (lazyInit != null) {
+                    loop.add(treeMaker.If(
+                            isNull(treeMaker.Ident(currentVarName)),
+                            treeMaker.Block(0, List.<JCStatement>of(treeMaker.Exec(callGetter), treeMaker.Continue(null))),
+                            null
+                    ));
+                }
+                loop.add(treeMaker.VarDef(treeMaker.Modifiers(0), propertyVarName, propertyType, newProperty(getterConversionFromField(treeMaker.Ident(currentVarName)))));
+                loop.add(
+                        treeMaker.If(
+                                compareAndSet(currentVarAccess, propertyVarAccess),
+                                treeMaker.Return(propertyVarAccess),
+                                null
+                        )
+                );
+                statements.add(forever(loop.toList()));
+            }
+
+            return statements.toList();
+        }
+
+        private JCStatement forever(List<JCStatement> body) {
+            return treeMaker.ForLoop(List.<JCStatement>nil(), null, List.<JCExpressionStatement>nil(), treeMaker.Block(0, body));
+        }
+
         private JCMethodDecl createGetter() {
             List<JCStatement> statements = createGetterBody();
 
@@ -484,10 +3731,9 @@ public class HandleFXObservable extends JavacAnnotationHandler<FXObservable> {
 
         private List<JCStatement> createGetterBody() {
             ListBuffer<JCStatement> statements = new ListBuffer<>();
-            if (strategy == FXObservable.Strategy.PLAIN) {
+            if (storage == Storage.PLAIN) {
                 // return valueProperty().get();
                 Name getMethodName = fieldNode.toName("get");
-                Name propertyMethodName = fieldNode.toName(fieldNode.getName() + "Property");
                 JCExpression propertyMethodCall = treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(propertyMethodName), List.<JCExpression>nil());
                 JCExpression propertyDotGet = treeMaker.Apply(
                         List.<JCExpression>nil(),
@@ -495,7 +3741,47 @@ public class HandleFXObservable extends JavacAnnotationHandler<FXObservable> {
                         List.<JCExpression>nil()
                 );
                 statements.add(treeMaker.Return(getterConversionFromProperty(propertyDotGet)));
-            } else {//if (strategy == FXObservable.Strategy.SHADOW_FIELD) {
+            } else if (storage == Storage.TYPED_SHADOW_FIELD || storage == Storage.FIELD_BACKED || storage == Storage.PROPERTY_TABLE) {
+                if (lazyInit != null) {
+                    // if (this.$valueProperty == null && this.value == null) {
+                    //     // init might use diamond operator, assign it to a temporary variable first
+                    //     Type value = init;
+                    //     this.value = value;
+                    // }
+                    Name tempVarName = fieldNode.toName("value");
+                    ListBuffer<JCStatement> then = new ListBuffer<>();
+                    then.add(treeMaker.VarDef(treeMaker.Modifiers(0), tempVarName, type, lazyInit));
+                    then.add(treeMaker.Exec(treeMaker.Assign(fieldAccess, treeMaker.Ident(tempVarName))));
+                    statements.add(
+                            treeMaker.If(
+                                    treeMaker.Binary(CTC_AND, hasNoStoredProperty(), isNull(fieldAccess)),
+                                    treeMaker.Block(0, then.toList()),
+                                    null
+                            )
+                    );
+                }
+                // return this.$valueProperty != null ? this.$valueProperty.get() : this.value;
+                // field backed properties keep the field current unless bound:
+                // return this.$valueProperty != null && this.$valueProperty.isBound() ? this.$valueProperty.get() : this.value;
+                JCExpression propertyDotGet = treeMaker.Apply(
+                        List.<JCExpression>nil(),
+                        treeMaker.Select(storedProperty(), fieldNode.toName("get")),
+                        List.<JCExpression>nil()
+                );
+                JCExpression usePropertyValue = hasStoredProperty();
+                if (storage == Storage.FIELD_BACKED) {
+                    usePropertyValue = treeMaker.Binary(CTC_AND, usePropertyValue, call(storedProperty(), "isBound"));
+                }
+                statements.add(
+                        treeMaker.Return(
+                                treeMaker.Conditional(
+                                        usePropertyValue,
+                                        getterConversionFromProperty(propertyDotGet),
+                                        getterConversionFromTypedField()
+                                )
+                        )
+                );
+            } else {//if (storage == Storage.SHADOW_FIELD) {
                 Name getMethodName = fieldNode.toName("get");
                 JCExpression propertyDotGet = treeMaker.Apply(
                         List.<JCExpression>nil(),
@@ -503,19 +3789,21 @@ public class HandleFXObservable extends JavacAnnotationHandler<FXObservable> {
                         List.<JCExpression>nil()
                 );
                 JCExpression convertedPropertyValue = getterConversionFromProperty(propertyDotGet);
-                JCExpression convertedFieldValue = getterConversionFromField();
+                JCExpression convertedFieldValue = getterConversionFromField(fieldAccess);
                 if (lazyInit != null) {
+                    // the observing setter reads the current value through this getter, assign the field directly
                     // if (this.value == null) {
                     //     // init might use diamond operator, assign it to a temporary variable first
                     //     Type value = init;
-                    //     setValue(value);
+                    //     this.value = value;   or   $valueUpdater.compareAndSet(this, null, value);
                     // }
                     Name tempVarName = fieldNode.toName("value");
-                    JCExpression tempVarAccess = treeMaker.Ident(tempVarName);
-                    JCExpression setter = treeMaker.Ident(fieldNode.toName(JavacHandlerUtil.toSetterName(fieldNode)));
+                    JCExpression initialized = setterConversionToField(treeMaker.Ident(tempVarName));
                     ListBuffer<JCStatement> then = new ListBuffer<>();
                     then.add(treeMaker.VarDef(treeMaker.Modifiers(0), tempVarName, type, lazyInit));
-                    then.add(treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), setter, List.<JCExpression>of(tempVarAccess))));
+                    then.add(treeMaker.Exec(threadSafe
+                            ? compareAndSet(treeMaker.Literal(CTC_BOT, null), initialized)
+                            : treeMaker.Assign(fieldAccess, initialized)));
                     statements.add(
                             treeMaker.If(
                                     isNull(fieldAccess),
@@ -524,6 +3812,29 @@ public class HandleFXObservable extends JavacAnnotationHandler<FXObservable> {
                             )
                     );
                 }
+                if (threadSafe) {
+                    // read the field once, the setter may replace it concurrently
+                    // Object $current = this.value;
+                    // return $current instanceof XProperty ? ((XProperty) $current).get() : (X) $current;
+                    Name currentVarName = fieldNode.toName(CURRENT_VAR_NAME);
+                    JCExpression currentVarAccess = treeMaker.Ident(currentVarName);
+                    statements.add(treeMaker.VarDef(treeMaker.Modifiers(0), currentVarName, genericType("Object", List.<Type>nil()), fieldAccess));
+                    propertyDotGet = treeMaker.Apply(
+                            List.<JCExpression>nil(),
+                            treeMaker.Select(treeMaker.TypeCast(propertyType, currentVarAccess), getMethodName),
+                            List.<JCExpression>nil()
+                    );
+                    statements.add(
+                            treeMaker.Return(
+                                    treeMaker.Conditional(
+                                            treeMaker.TypeTest(currentVarAccess, rawType(propertyType)),
+                                            getterConversionFromProperty(propertyDotGet),
+                                            getterConversionFromField(currentVarAccess)
+                                    )
+                            )
+                    );
+                    return statements.toList();
+                }
                 // return value instanceof XProperty ? ((XProperty)name).get() : (X) name;
                 statements.add(
                         treeMaker.Return(
@@ -538,11 +3849,11 @@ public class HandleFXObservable extends JavacAnnotationHandler<FXObservable> {
             return statements.toList();
         }
 
-        private JCMethodDecl createSetter() {
-            Name methodName = fieldNode.toName(JavacHandlerUtil.toSetterName(fieldNode));
-
-            List<JCStatement> statements = createSetterBody();
+        private Name setterName() {
+            return fieldNode.toName(JavacHandlerUtil.toSetterName(fieldNode));
+        }
 
+        private JCMethodDecl createSetter(Name methodName, long flags, List<JCStatement> statements) {
             JCExpression methodType = treeMaker.Type(Javac.createVoidType(treeMaker, Javac.CTC_VOID));
             JCBlock methodBody = treeMaker.Block(0, statements);
 
@@ -561,7 +3872,7 @@ public class HandleFXObservable extends JavacAnnotationHandler<FXObservable> {
 
             JCMethodDecl decl = recursiveSetGeneratedBy(
                     treeMaker.MethodDef(
-                            treeMaker.Modifiers(Flags.PUBLIC),
+                            treeMaker.Modifiers(flags),
                             methodName,
                             methodType,
                             methodGenericParams,
@@ -572,18 +3883,75 @@ public class HandleFXObservable extends JavacAnnotationHandler<FXObservable> {
                     ),
                     fieldNode.get(), fieldNode.getContext());
 
-            copyJavadoc(fieldNode, decl, CopyJavadoc.VERBATIM);
+            if ((flags & Flags.PUBLIC) != 0) copyJavadoc(fieldNode, decl, CopyJavadoc.VERBATIM);
             return decl;
         }
 
+        private List<JCStatement> createCoalescingSetterBody() {
+            // if (!Platform.isFxApplicationThread()) {
+            //     <stagingPending(value, $unmarkRestored)>
+            //     return;
+            // }
+            // $cancelPending(bit);
+            // $setValue(value);
+            ListBuffer<JCStatement> statements = new ListBuffer<>();
+            statements.add(treeMaker.If(
+                    treeMaker.Unary(CTC_NOT, isFxApplicationThread()),
+                    treeMaker.Block(0, stagingPending(treeMaker.Ident(field.getName()), UNMARK_RESTORED_NAME).append(treeMaker.Return(null))),
+                    null
+            ));
+            statements.add(treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(fieldNode.toName(CANCEL_PENDING_NAME)), List.<JCExpression>of(treeMaker.Literal(Long.valueOf(pendingBit))))));
+            statements.add(treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(applyMethodName), List.<JCExpression>of(treeMaker.Ident(field.getName())))));
+            return statements.toList();
+        }
+
+        private List<JCStatement> stagingPending(JCExpression value, String restoredMethodName) {
+            // this.$valuePending = value;
+            // <restoredMethodName>(bit); // fields restored by readState() only
+            // $schedulePending(bit);
+            ListBuffer<JCStatement> statements = new ListBuffer<>();
+            statements.add(treeMaker.Exec(treeMaker.Assign(treeMaker.Select(treeMaker.Ident(fieldNode.toName("this")), pendingFieldName), value)));
+            if (stagesRestores) {
+                statements.add(treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(typeNode.toName(restoredMethodName)),
+                        List.<JCExpression>of(treeMaker.Literal(Long.valueOf(pendingBit))))));
+            }
+            statements.add(treeMaker.Exec(treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(fieldNode.toName(SCHEDULE_PENDING_NAME)),
+                    List.<JCExpression>of(treeMaker.Literal(Long.valueOf(pendingBit))))));
+            return statements.toList();
+        }
+
+        private JCExpression isFxApplicationThread() {
+            return treeMaker.Apply(
+                    List.<JCExpression>nil(),
+                    chainDotsString(fieldNode, "javafx.application.Platform.isFxApplicationThread"),
+                    List.<JCExpression>nil()
+            );
+        }
+
+        private List<JCStatement> createDirectSetterBody() {
+            return returningIfUnchanged(recordingChanges(observingChange(createSetterBody())));
+        }
+
+        private List<JCStatement> returningIfUnchanged(List<JCStatement> statements) {
+            // SHADOW_FIELD setters of primitive, wrapper and String fields skip unchanged values,
+            // before a property is materialized or any change is recorded:
+            // if (getValue() == value) return;                        primitives
+            // if (java.util.Objects.equals(getValue(), value)) return;   wrappers and String
+            if (storage != Storage.SHADOW_FIELD || stateType() == null) return statements;
+            JCExpression value = treeMaker.Ident(field.getName());
+            JCExpression unchanged = type.type.isPrimitive()
+                    ? treeMaker.Binary(CTC_EQUAL, callGetter(), value)
+                    : treeMaker.Apply(List.<JCExpression>nil(), chainDotsString(fieldNode, "java.util.Objects.equals"), List.of(callGetter(), value));
+            return statements.prepend(treeMaker.If(unchanged, treeMaker.Return(null), null));
+        }
+
         private List<JCStatement> createSetterBody() {
             ListBuffer<JCStatement> statements = new ListBuffer<>();
-            if (strategy == FXObservable.Strategy.PLAIN) {
+            if (storage == Storage.PLAIN) {
                 // valueProperty().set(value);
                 Name setMethodName = fieldNode.toName("set");
                 JCExpression value = treeMaker.Ident(field.getName());
                 JCExpression convertedValue = setterConversionToProperty(value);
-                Name propertyMethodName = fieldNode.toName(fieldNode.getName() + "Property");
                 JCExpression propertyMethodCall = treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Ident(propertyMethodName), List.<JCExpression>nil());
                 JCExpression propertyDotSet = treeMaker.Apply(
                         List.<JCExpression>nil(),
@@ -591,7 +3959,33 @@ public class HandleFXObservable extends JavacAnnotationHandler<FXObservable> {
                         List.of(convertedValue)
                 );
                 statements.add(treeMaker.Exec(propertyDotSet));
-            } else {//if (strategy == FXObservable.Strategy.SHADOW_FIELD) {
+            } else if (storage == Storage.TYPED_SHADOW_FIELD || storage == Storage.FIELD_BACKED || storage == Storage.PROPERTY_TABLE) {
+                JCExpression value = treeMaker.Ident(field.getName());
+                JCExpression propertyDotSet = treeMaker.Apply(
+                        List.<JCExpression>nil(),
+                        treeMaker.Select(storedProperty(), fieldNode.toName("set")),
+                        List.of(setterConversionToProperty(value)));
+                JCExpression defaultValue = getDefaultValue();
+                if (defaultValue != null) {
+                    // if (value == null) value = defaultValue
+                    statements.add(
+                            treeMaker.If(
+                                    isNull(value),
+                                    treeMaker.Exec(treeMaker.Assign(value, defaultValue)),
+                                    null
+                            )
+                    );
+                }
+                statements.add(
+                        treeMaker.If(
+                                // if (this.$valueProperty != null)
+                                hasStoredProperty(),
+                                // this.$valueProperty.set(value);
+                                treeMaker.Exec(propertyDotSet),
+                                // else this.value = value;
+                                treeMaker.Exec(treeMaker.Assign(fieldAccess, value))
+                        ));
+            } else {//if (storage == Storage.SHADOW_FIELD) {
                 Name setMethodName = fieldNode.toName("set");
                 JCExpression value = treeMaker.Ident(field.getName());
                 JCExpression convertedValue = setterConversionToProperty(value);
@@ -611,6 +4005,40 @@ public class HandleFXObservable extends JavacAnnotationHandler<FXObservable> {
                             )
                     );
                 }
+                if (threadSafe) {
+                    // for (;;) {
+                    //     Object $current = this.value;
+                    //     if ($current instanceof XProperty) {
+                    //         ((XProperty) $current).set(value);
+                    //         return;
+                    //     }
+                    //     if ($valueUpdater.compareAndSet(this, $current, value)) return;
+                    // }
+                    Name currentVarName = fieldNode.toName(CURRENT_VAR_NAME);
+                    JCExpression currentVarAccess = treeMaker.Ident(currentVarName);
+                    JCExpression currentDotSet = treeMaker.Apply(
+                            List.<JCExpression>nil(),
+                            treeMaker.Select(treeMaker.TypeCast(propertyType, currentVarAccess), setMethodName),
+                            List.of(convertedValue));
+                    ListBuffer<JCStatement> loop = new ListBuffer<>();
+                    loop.add(treeMaker.VarDef(treeMaker.Modifiers(0), currentVarName, genericType("Object", List.<Type>nil()), fieldAccess));
+                    loop.add(
+                            treeMaker.If(
+                                    treeMaker.TypeTest(currentVarAccess, rawType(propertyType)),
+                                    treeMaker.Block(0, List.<JCStatement>of(treeMaker.Exec(currentDotSet), treeMaker.Return(null))),
+                                    null
+                            )
+                    );
+                    loop.add(
+                            treeMaker.If(
+                                    compareAndSet(currentVarAccess, setterConversionToField(value)),
+                                    treeMaker.Return(null),
+                                    null
+                            )
+                    );
+                    statements.add(forever(loop.toList()));
+                    return statements.toList();
+                }
                 statements.add(
                         treeMaker.If(
                                 // if (this.value instanceof XProperty)
@@ -762,124 +4190,156 @@ public class HandleFXObservable extends JavacAnnotationHandler<FXObservable> {
         /**
          * Create the conversion from Object to getter type. This is used for the getter when no property is used.
          */
-        private JCExpression getterConversionFromField() {
+        private JCExpression getterConversionFromField(JCExpression value) {
             String rawType = rawTypeString(type.type);
             if ("java.lang.Boolean".equals(rawType)) {
                 // value == null ? Boolean.FALSE : (Boolean)value
                 return treeMaker.Conditional(
-                        isNull(fieldAccess),
+                        isNull(value),
                         valueOf(rawType, treeMaker.Literal(Boolean.FALSE)),
-                        fieldAs("Boolean")
+                        valueAs(value, "Boolean")
                 );
             } else if ("boolean".equals(rawType)) {
                 // value == null ? false : ((Boolean)value).booleanValue()
                 return treeMaker.Conditional(
-                        isNull(fieldAccess),
+                        isNull(value),
                         treeMaker.Literal(Boolean.FALSE),
-                        call(fieldAs("Boolean"), "booleanValue")
+                        call(valueAs(value, "Boolean"), "booleanValue")
                 );
             } else if ("java.lang.Character".equals(rawType)) {
                 // value == null ? Character.valueOf(0) : (Character)value
                 return treeMaker.Conditional(
-                        isNull(fieldAccess),
+                        isNull(value),
                         valueOf(rawType, cast(CTC_CHAR, treeMaker.Literal(Integer.valueOf(0)))),
-                        fieldAs("Character")
+                        valueAs(value, "Character")
                 );
             } else if ("char".equals(rawType)) {
                 // value == null ? (char)0 : ((Character)value).charValue()
                 return treeMaker.Conditional(
-                        isNull(fieldAccess),
+                        isNull(value),
                         cast(CTC_CHAR, treeMaker.Literal(Integer.valueOf(0))),
-                        call(fieldAs("Character"), "charValue")
+                        call(valueAs(value, "Character"), "charValue")
                 );
             } else if ("java.lang.Byte".equals(rawType)) {
                 // value == null ? Byte.valueOf(0) : (Byte)value
                 return treeMaker.Conditional(
-                        isNull(fieldAccess),
+                        isNull(value),
                         valueOf(rawType, cast(CTC_BYTE, treeMaker.Literal(Integer.valueOf(0)))),
-                        fieldAs("Byte")
+                        valueAs(value, "Byte")
                 );
             } else if ("byte".equals(rawType)) {
                 // value == null ? (byte)0 : ((Byte)value).byteValue()
                 return treeMaker.Conditional(
-                        isNull(fieldAccess),
+                        isNull(value),
                         cast(CTC_BYTE, treeMaker.Literal(Integer.valueOf(0))),
-                        call(fieldAs("Byte"), "byteValue")
+                        call(valueAs(value, "Byte"), "byteValue")
                 );
             } else if ("java.lang.Short".equals(rawType)) {
                 // value == null ? Short.valueOf(0) : (Short)value
                 return treeMaker.Conditional(
-                        isNull(fieldAccess),
+                        isNull(value),
                         valueOf(rawType, cast(CTC_SHORT, treeMaker.Literal(Integer.valueOf(0)))),
-                        fieldAs("Short")
+                        valueAs(value, "Short")
                 );
             } else if ("short".equals(rawType)) {
                 // value == null ? (short)0 : ((Short)value).shortValue()
                 return treeMaker.Conditional(
-                        isNull(fieldAccess),
+                        isNull(value),
                         cast(CTC_SHORT, treeMaker.Literal(Integer.valueOf(0))),
-                        call(fieldAs("Short"), "shortValue")
+                        call(valueAs(value, "Short"), "shortValue")
                 );
             } else if ("java.lang.Integer".equals(rawType)) {
                 // value == null ? Integer.valueOf(0) : (Integer)value
                 return treeMaker.Conditional(
-                        isNull(fieldAccess),
+                        isNull(value),
                         valueOf(rawType, treeMaker.Literal(Integer.valueOf(0))),
-                        fieldAs("Integer")
+                        valueAs(value, "Integer")
                 );
             } else if ("int".equals(rawType)) {
                 // value == null ? (int)0 : ((Integer)value).intValue()
                 return treeMaker.Conditional(
-                        isNull(fieldAccess),
+                        isNull(value),
                         treeMaker.Literal(Integer.valueOf(0)),
-                        call(fieldAs("Integer"), "intValue")
+                        call(valueAs(value, "Integer"), "intValue")
                 );
             } else if ("java.lang.Long".equals(rawType)) {
                 // value == null ? Long.valueOf(0) : (Long)value
                 return treeMaker.Conditional(
-                        isNull(fieldAccess),
+                        isNull(value),
                         valueOf(rawType, treeMaker.Literal(Long.valueOf(0))),
-                        fieldAs("Long")
+                        valueAs(value, "Long")
                 );
             } else if ("long".equals(rawType)) {
                 // value == null ? (long)0 : ((Long)value).longValue()
                 return treeMaker.Conditional(
-                        isNull(fieldAccess),
+                        isNull(value),
                         treeMaker.Literal(Long.valueOf(0)),
-                        call(fieldAs("Long"), "longValue")
+                        call(valueAs(value, "Long"), "longValue")
                 );
             } else if ("java.lang.Float".equals(rawType)) {
                 // value == null ? Float.valueOf(0) : (Float)value
                 return treeMaker.Conditional(
-                        isNull(fieldAccess),
+                        isNull(value),
                         valueOf(rawType, treeMaker.Literal(Float.valueOf(0))),
-                        fieldAs("Float")
+                        valueAs(value, "Float")
                 );
             } else if ("float".equals(rawType)) {
                 // value == null ? (float)0 : ((Float)value).floatValue()
                 return treeMaker.Conditional(
-                        isNull(fieldAccess),
+                        isNull(value),
                         treeMaker.Literal(Float.valueOf(0)),
-                        call(fieldAs("Float"), "floatValue")
+                        call(valueAs(value, "Float"), "floatValue")
                 );
             } else if ("java.lang.Double".equals(rawType)) {
                 // value == null ? Double.valueOf(0) : (Double)value
                 return treeMaker.Conditional(
-                        isNull(fieldAccess),
+                        isNull(value),
                         valueOf(rawType, treeMaker.Literal(Double.valueOf(0))),
-                        fieldAs("Double")
+                        valueAs(value, "Double")
                 );
             } else if ("double".equals(rawType)) {
                 // value == null ? (double)0 : ((Double)value).doubleValue()
                 return treeMaker.Conditional(
-                        isNull(fieldAccess),
+                        isNull(value),
                         treeMaker.Literal(Double.valueOf(0)),
-                        call(fieldAs("Double"), "doubleValue")
+                        call(valueAs(value, "Double"), "doubleValue")
                 );
             } else {
                 // (Type)value
-                return treeMaker.TypeCast(type, fieldAccess);
+                return treeMaker.TypeCast(type, value);
+            }
+        }
+
+        /**
+         * Create the conversion from typed field to getter type. This is used for the getter when no property is used.
+         */
+        private JCExpression getterConversionFromTypedField() {
+            String rawType = rawTypeString(type.type);
+            JCExpression defaultValue = null;
+            if ("java.lang.Boolean".equals(rawType)) {
+                defaultValue = valueOf(rawType, treeMaker.Literal(Boolean.FALSE));
+            } else if ("java.lang.Character".equals(rawType)) {
+                defaultValue = valueOf(rawType, cast(CTC_CHAR, treeMaker.Literal(Integer.valueOf(0))));
+            } else if ("java.lang.Byte".equals(rawType)) {
+                defaultValue = valueOf(rawType, cast(CTC_BYTE, treeMaker.Literal(Integer.valueOf(0))));
+            } else if ("java.lang.Short".equals(rawType)) {
+                defaultValue = valueOf(rawType, cast(CTC_SHORT, treeMaker.Literal(Integer.valueOf(0))));
+            } else if ("java.lang.Integer".equals(rawType)) {
+                defaultValue = valueOf(rawType, treeMaker.Literal(Integer.valueOf(0)));
+            } else if ("java.lang.Long".equals(rawType)) {
+                defaultValue = valueOf(rawType, treeMaker.Literal(Long.valueOf(0)));
+            } else if ("java.lang.Float".equals(rawType)) {
+                defaultValue = valueOf(rawType, treeMaker.Literal(Float.valueOf(0)));
+            } else if ("java.lang.Double".equals(rawType)) {
+                defaultValue = valueOf(rawType, treeMaker.Literal(Double.valueOf(0)));
+            }
+
+            if (defaultValue != null) {
+                // value == null ? X.valueOf(0) : value
+                return treeMaker.Conditional(isNull(fieldAccess), defaultValue, fieldAccess);
             }
+            // value
+            return fieldAccess;
         }
 
         /**
@@ -913,10 +4373,6 @@ public class HandleFXObservable extends JavacAnnotationHandler<FXObservable> {
             );
         }
 
-        private JCExpression fieldAs(String type) {
-            return valueAs(fieldAccess, type);
-        }
-
         private JCExpression valueAs(JCExpression value, String type) {
             return treeMaker.TypeCast(genericType(type, List.<Type>nil()), value);
         }
@@ -929,10 +4385,54 @@ public class HandleFXObservable extends JavacAnnotationHandler<FXObservable> {
             return treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Select(value, fieldNode.toName(method)), List.<JCExpression>nil());
         }
 
+        private JCExpression callWith(JCExpression value, String method, JCExpression argument) {
+            return treeMaker.Apply(List.<JCExpression>nil(), treeMaker.Select(value, fieldNode.toName(method)), List.of(argument));
+        }
+
+        /**
+         * The materialized property, either held in its own field or in a slot of the property table.
+         */
+        private JCExpression storedProperty() {
+            if (storage == Storage.PROPERTY_TABLE) {
+                // (XProperty) this.$properties[ordinal]
+                return treeMaker.TypeCast(propertyType, propertyTableSlot());
+            }
+            // this.$valueProperty
+            return treeMaker.Select(treeMaker.Ident(fieldNode.toName("this")), propertyFieldName);
+        }
+
+        private JCExpression hasStoredProperty() {
+            if (storage == Storage.PROPERTY_TABLE) {
+                // this.$properties != null && this.$properties[ordinal] != null
+                return treeMaker.Binary(CTC_AND, isNotNull(propertyTableAccess()), isNotNull(propertyTableSlot()));
+            }
+            return isNotNull(storedProperty());
+        }
+
+        private JCExpression hasNoStoredProperty() {
+            if (storage == Storage.PROPERTY_TABLE) {
+                // this.$properties == null || this.$properties[ordinal] == null
+                return treeMaker.Binary(CTC_OR, isNull(propertyTableAccess()), isNull(propertyTableSlot()));
+            }
+            return isNull(storedProperty());
+        }
+
+        private JCExpression propertyTableAccess() {
+            return treeMaker.Select(treeMaker.Ident(fieldNode.toName("this")), fieldNode.toName(PROPERTY_TABLE_NAME));
+        }
+
+        private JCExpression propertyTableSlot() {
+            return treeMaker.Indexed(propertyTableAccess(), treeMaker.Literal(tableOrdinal));
+        }
+
         private JCExpression isNull(JCExpression value) {
             return treeMaker.Binary(CTC_EQUAL, value, treeMaker.Literal(CTC_BOT, null));
         }
 
+        private JCExpression isNotNull(JCExpression value) {
+            return treeMaker.Binary(CTC_NOT_EQUAL, value, treeMaker.Literal(CTC_BOT, null));
+        }
+
     }
 
 }
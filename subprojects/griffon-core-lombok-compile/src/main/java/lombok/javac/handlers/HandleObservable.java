@@ -15,19 +15,1245 @@
  */
 package lombok.javac.handlers;
 
+import com.sun.tools.javac.api.JavacTrees;
+import com.sun.tools.javac.code.Flags;
+import com.sun.tools.javac.code.Symbol.ClassSymbol;
+import com.sun.tools.javac.code.Type;
 import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.JCTree.*;
+import com.sun.tools.javac.util.List;
+import com.sun.tools.javac.util.ListBuffer;
+import com.sun.tools.javac.util.Name;
 import griffon.transform.Observable;
+import griffon.transform.lombok.ObservableOptions;
+import lombok.core.AST.Kind;
 import lombok.core.AnnotationValues;
+import lombok.javac.Javac;
 import lombok.javac.JavacAnnotationHandler;
 import lombok.javac.JavacNode;
+import lombok.javac.JavacTreeMaker;
+import lombok.javac.JavacTreeMaker.TreeTag;
 import org.kordamp.jipsy.ServiceProviderFor;
 
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.VariableElement;
+
+import static lombok.javac.Javac.*;
+import static lombok.javac.JavacTreeMaker.TreeTag.treeTag;
+import static lombok.javac.handlers.JavacHandlerUtil.*;
+
 @ServiceProviderFor(JavacAnnotationHandler.class)
 public class HandleObservable extends JavacAnnotationHandler<Observable> {
+    private static final TreeTag CTC_AND = treeTag("AND");
+    private static final TreeTag CTC_OR = treeTag("OR");
+
+    private static final String OBSERVABLE_TYPE = "griffon.core.Observable";
+    private static final String SUPPORT_TYPE = "java.beans.PropertyChangeSupport";
+    private static final String LISTENER_TYPE = "java.beans.PropertyChangeListener";
+    private static final String LISTENER_PROXY_TYPE = "java.beans.PropertyChangeListenerProxy";
+    private static final String EVENT_TYPE = "java.beans.PropertyChangeEvent";
+    private static final String SUPPORT_NAME = "$propertyChangeSupport";
+    private static final String CREATE_SUPPORT_NAME = "$createPropertyChangeSupport";
+    private static final String LISTENERS_NAME = "$propertyChangeListeners";
+    private static final String ORDINAL_NAME = "$propertyOrdinal";
+    private static final String PROPERTY_NAMES_NAME = "$propertyNames";
+    private static final String PROPERTY_COUNT_NAME = "$propertyCount";
+    private static final String ADD_LISTENER_NAME = "$addPropertyChangeListener";
+    private static final String REMOVE_LISTENER_NAME = "$removePropertyChangeListener";
+    private static final String NOTIFY_NAME = "$notifyPropertyChangeListeners";
+    private static final String FIRE_ORDINAL_NAME = "$firePropertyChange";
+    private static final String FIRE_METHOD_NAME = "firePropertyChange";
+    private static final String UPDATE_DEPTH_NAME = "$updateDepth";
+    private static final String PENDING_NAME = "$pendingChanges";
+    private static final String PENDING_OLD_VALUES_NAME = "$pendingOldValues";
+    private static final String PENDING_NEW_VALUES_NAME = "$pendingNewValues";
+    private static final String DEFER_NAME = "$deferPropertyChange";
+    private static final String WEAK_LISTENER_NAME = "$WeakPropertyChangeListener";
+    private static final String MATCHES_NAME = "$matchesPropertyChangeListener";
+    private static final String OLD_VALUE_NAME = "$oldValue";
+    // listeners of all properties live in slot 0, property ordinals start at 1
+    private static final int ALL_SLOT = 0;
 
     @Override
     public void handle(AnnotationValues<Observable> annotation, JCTree.JCAnnotation source, JavacNode annotationNode) {
         JavacHandlerUtil.deleteAnnotationIfNeccessary(annotationNode, Observable.class);
-        JavacNode typeNode = annotationNode.up();
+        JavacNode node = annotationNode.up();
+        switch (node.getKind()) {
+            case TYPE:
+                JCClassDecl typeDecl = (JCClassDecl) node.get();
+                if ((typeDecl.mods.flags & (Flags.INTERFACE | Flags.ANNOTATION)) != 0) {
+                    addUsageError(annotationNode);
+                    return;
+                }
+                java.util.List<JavacNode> fields = new java.util.ArrayList<>();
+                for (JavacNode field : node.down()) {
+                    if (fieldQualifiesForGeneration(field) && !hasAnnotation(Observable.class, field)) fields.add(field);
+                }
+                createForType(node, fields, annotationNode);
+                break;
+            case FIELD:
+                if (!fieldQualifiesForGeneration(node)) {
+                    addUsageError(annotationNode);
+                    return;
+                }
+                createForType(node.up(), java.util.Collections.singletonList(node), annotationNode);
+                break;
+            default:
+                addUsageError(annotationNode);
+        }
+    }
+
+    private void addUsageError(JavacNode annotationNode) {
+        annotationNode.addError("@Observable is only supported on a class, an enum, or a non-final, private field.");
+    }
+
+    private static boolean fieldQualifiesForGeneration(JavacNode field) {
+        return field.getKind() == Kind.FIELD && qualifiesForGeneration((JCVariableDecl) field.get());
+    }
+
+    private static boolean qualifiesForGeneration(JCVariableDecl fieldDecl) {
+        //Skip fields that start with $
+        if (fieldDecl.name.toString().startsWith("$")) return false;
+        //Skip static fields.
+        if ((fieldDecl.mods.flags & Flags.STATIC) != 0) return false;
+        //Skip final fields.
+        if ((fieldDecl.mods.flags & Flags.FINAL) != 0) return false;
+        //Skip non-private fields.
+        if ((fieldDecl.mods.flags & Flags.PRIVATE) == 0) return false;
+        return true;
+    }
+
+    private static ObservableOptions findOptions(JavacNode node) {
+        for (JavacNode child : node.down()) {
+            if (child.getKind() == Kind.ANNOTATION && annotationTypeMatches(ObservableOptions.class, child)) {
+                return createAnnotation(ObservableOptions.class, child).getInstance();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Names of the fields that may be observable, in declaration order. The position of a
+     * name, after the properties of observable superclasses, is the ordinal of its property;
+     * ordinals do not depend on which fields carry the annotation, so all annotations of a
+     * type agree on them.
+     */
+    private static java.util.List<String> propertyNames(JavacNode typeNode) {
+        java.util.List<String> names = new java.util.ArrayList<>();
+        for (JavacNode field : typeNode.down()) {
+            if (fieldQualifiesForGeneration(field)) names.add(field.getName());
+        }
+        return names;
+    }
+
+    private void createForType(JavacNode typeNode, java.util.List<JavacNode> fields, JavacNode annotationNode) {
+        java.util.List<String> propertyNames = propertyNames(typeNode);
+        int inherited = inheritedPropertyCount(typeNode);
+        int first = Math.max(inherited, 0) + 1;
+        java.util.List<ObservableFieldHandler> handlers = new java.util.ArrayList<>();
+        for (JavacNode field : fields) {
+            ObservableFieldHandler handler = new ObservableFieldHandler(field, annotationNode, first + propertyNames.indexOf(field.getName()));
+            if (!handler.validate()) return;
+            handlers.add(handler);
+        }
+
+        // a type annotated on several fields receives the listener support only once
+        if (fieldExists(PROPERTY_COUNT_NAME, typeNode) == MemberExistsResult.NOT_EXISTS) {
+            if (inherited < 0) injectObservableSupport(typeNode, propertyNames);
+            else injectInheritedSupport(typeNode, propertyNames, inherited);
+        }
+        for (ObservableFieldHandler handler : handlers) {
+            handler.handle();
+        }
+    }
+
+    /**
+     * Number of properties declared by the observable superclasses of a type, or -1 when no
+     * superclass is observable. Superclasses compiled along with the type are recognized by
+     * their annotations, compiled ones by the {@code $propertyCount} constant they carry.
+     */
+    private static int inheritedPropertyCount(JavacNode typeNode) {
+        ClassSymbol symbol = ((JCClassDecl) typeNode.get()).sym;
+        if (symbol == null) return -1;
+        JavacTrees trees = JavacTrees.instance(typeNode.getContext());
+        int count = 0;
+        boolean observable = false;
+        for (Type type = symbol.getSuperclass(); type != null && type.tsym instanceof ClassSymbol; type = ((ClassSymbol) type.tsym).getSuperclass()) {
+            ClassSymbol superclass = (ClassSymbol) type.tsym;
+            JCTree tree = trees.getTree(superclass);
+            if (tree instanceof JCClassDecl) {
+                JCClassDecl superDecl = (JCClassDecl) tree;
+                if (!declaresObservable(superDecl)) continue;
+                for (JCTree member : superDecl.defs) {
+                    if (member instanceof JCVariableDecl && qualifiesForGeneration((JCVariableDecl) member)) count++;
+                }
+                observable = true;
+            } else {
+                for (Element member : superclass.getEnclosedElements()) {
+                    if (member.getKind() == ElementKind.FIELD && PROPERTY_COUNT_NAME.equals(member.getSimpleName().toString())) {
+                        Object constant = ((VariableElement) member).getConstantValue();
+                        if (constant instanceof Integer) return count + (Integer) constant;
+                    }
+                }
+            }
+        }
+        return observable ? count : -1;
+    }
+
+    /**
+     * A superclass in source form is observable when it or one of its fields is annotated,
+     * or when it already went through this handler, which removes the annotations.
+     */
+    private static boolean declaresObservable(JCClassDecl typeDecl) {
+        if (hasObservableAnnotation(typeDecl.mods)) return true;
+        for (JCTree member : typeDecl.defs) {
+            if (!(member instanceof JCVariableDecl)) continue;
+            JCVariableDecl field = (JCVariableDecl) member;
+            if (PROPERTY_COUNT_NAME.equals(field.name.toString()) || hasObservableAnnotation(field.mods)) return true;
+        }
+        return false;
+    }
+
+    private static boolean hasObservableAnnotation(JCModifiers modifiers) {
+        for (JCAnnotation annotation : modifiers.annotations) {
+            String name = annotation.annotationType.type != null
+                    ? annotation.annotationType.type.tsym.getQualifiedName().toString()
+                    : annotation.annotationType.toString();
+            if (Observable.class.getName().equals(name) || Observable.class.getSimpleName().equals(name)) return true;
+        }
+        return false;
+    }
+
+    private void injectObservableSupport(JavacNode typeNode, java.util.List<String> propertyNames) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        JCClassDecl typeDecl = (JCClassDecl) typeNode.get();
+        boolean implementsObservable = false;
+        for (JCExpression type : typeDecl.implementing) {
+            String name = type.toString();
+            if (OBSERVABLE_TYPE.equals(name) || "Observable".equals(name)) implementsObservable = true;
+        }
+        if (!implementsObservable) typeDecl.implementing = typeDecl.implementing.append(chainDotsString(typeNode, OBSERVABLE_TYPE));
+
+        // listeners of property ordinal i live in slot i, listeners of all properties in slot 0;
+        // observable subclasses append their ordinals and share this table through the protected members
+
+        // protected transient volatile PropertyChangeListener[][] $propertyChangeListeners;
+        // copy-on-write: allocated by the first registration and replaced, never mutated, afterwards
+        injectField(typeNode, recursiveSetGeneratedBy(treeMaker.VarDef(
+                treeMaker.Modifiers(Flags.PROTECTED | Flags.TRANSIENT | Flags.VOLATILE),
+                typeNode.toName(LISTENERS_NAME),
+                listenerTable(typeNode),
+                null
+        ), typeNode.get(), typeNode.getContext()));
+
+        // private transient volatile PropertyChangeSupport $propertyChangeSupport;
+        // only holds listeners of property names that have no ordinal
+        injectField(typeNode, recursiveSetGeneratedBy(treeMaker.VarDef(
+                treeMaker.Modifiers(Flags.PRIVATE | Flags.TRANSIENT | Flags.VOLATILE),
+                typeNode.toName(SUPPORT_NAME),
+                chainDotsString(typeNode, SUPPORT_TYPE),
+                null
+        ), typeNode.get(), typeNode.getContext()));
+
+        injectPropertyCount(typeNode, propertyNames.size());
+        injectPropertyOrdinal(typeNode, propertyNames, 1, false);
+        injectPropertyNames(typeNode, propertyNames, 1, false);
+        injectCreateSupport(typeNode);
+        injectAddListener(typeNode);
+        injectRemoveListener(typeNode);
+        injectNotify(typeNode);
+        injectFireOrdinal(typeNode);
+        injectBatchUpdates(typeNode);
+        injectWeakListener(typeNode);
+        injectMatches(typeNode);
+
+        // public void addPropertyChangeListener(PropertyChangeListener listener)
+        // public void removePropertyChangeListener(PropertyChangeListener listener)
+        // proxies are unwrapped so that their listeners land in the slot of their property
+        for (String name : new String[]{"addPropertyChangeListener", "removePropertyChangeListener"}) {
+            List<JCVariableDecl> parameters = List.of(parameter(typeNode, "listener", LISTENER_TYPE));
+            if (methodExists(name, typeNode, false, 1) != MemberExistsResult.NOT_EXISTS) continue;
+            Name proxyName = typeNode.toName("$proxy");
+            String slotMethod = name.startsWith("add") ? ADD_LISTENER_NAME : REMOVE_LISTENER_NAME;
+            injectMethod(typeNode, method(typeNode, Flags.PUBLIC, name, null, parameters, List.<JCStatement>of(
+                    treeMaker.If(
+                            treeMaker.TypeTest(ident(typeNode, "listener"), chainDotsString(typeNode, LISTENER_PROXY_TYPE)),
+                            treeMaker.Block(0, List.of(
+                                    treeMaker.VarDef(treeMaker.Modifiers(0), proxyName, chainDotsString(typeNode, LISTENER_PROXY_TYPE),
+                                            treeMaker.TypeCast(chainDotsString(typeNode, LISTENER_PROXY_TYPE), ident(typeNode, "listener"))),
+                                    treeMaker.Exec(call(typeNode, null, name,
+                                            call(typeNode, treeMaker.Ident(proxyName), "getPropertyName"),
+                                            call(typeNode, treeMaker.Ident(proxyName), "getListener")))
+                            )),
+                            treeMaker.Exec(call(typeNode, null, slotMethod, treeMaker.Literal(ALL_SLOT), ident(typeNode, "listener")))
+                    )
+            )));
+        }
+
+        // public void addPropertyChangeListener(String propertyName, PropertyChangeListener listener) {
+        //     int $ordinal = $propertyOrdinal(propertyName);
+        //     if ($ordinal >= 0) $addPropertyChangeListener($ordinal, listener);
+        //     else if (propertyName != null && listener != null) $createPropertyChangeSupport().addPropertyChangeListener(propertyName, listener);
+        // }
+        if (methodExists("addPropertyChangeListener", typeNode, false, 2) == MemberExistsResult.NOT_EXISTS) {
+            injectMethod(typeNode, method(typeNode, Flags.PUBLIC, "addPropertyChangeListener", null, namedListenerParameters(typeNode), List.of(
+                    ordinalOf(typeNode, ident(typeNode, "propertyName")),
+                    treeMaker.If(
+                            treeMaker.Binary(CTC_GREATER_OR_EQUAL, ident(typeNode, "$ordinal"), treeMaker.Literal(0)),
+                            treeMaker.Exec(call(typeNode, null, ADD_LISTENER_NAME, ident(typeNode, "$ordinal"), ident(typeNode, "listener"))),
+                            treeMaker.If(
+                                    treeMaker.Binary(CTC_AND, notNull(typeNode, ident(typeNode, "propertyName")), notNull(typeNode, ident(typeNode, "listener"))),
+                                    treeMaker.Exec(call(typeNode, call(typeNode, null, CREATE_SUPPORT_NAME), "addPropertyChangeListener",
+                                            ident(typeNode, "propertyName"), ident(typeNode, "listener"))),
+                                    null
+                            )
+                    )
+            )));
+        }
+
+        // public void removePropertyChangeListener(String propertyName, PropertyChangeListener listener) {
+        //     int $ordinal = $propertyOrdinal(propertyName);
+        //     if ($ordinal >= 0) $removePropertyChangeListener($ordinal, listener);
+        //     else if (this.$propertyChangeSupport != null) {
+        //         for (PropertyChangeListener $candidate : this.$propertyChangeSupport.getPropertyChangeListeners(propertyName)) {
+        //             if ($matchesPropertyChangeListener($candidate, listener)) {
+        //                 this.$propertyChangeSupport.removePropertyChangeListener(propertyName, $candidate);
+        //                 break;
+        //             }
+        //         }
+        //     }
+        // }
+        if (methodExists("removePropertyChangeListener", typeNode, false, 2) == MemberExistsResult.NOT_EXISTS) {
+            injectMethod(typeNode, method(typeNode, Flags.PUBLIC, "removePropertyChangeListener", null, namedListenerParameters(typeNode), List.of(
+                    ordinalOf(typeNode, ident(typeNode, "propertyName")),
+                    supportLocal(typeNode),
+                    treeMaker.If(
+                            treeMaker.Binary(CTC_GREATER_OR_EQUAL, ident(typeNode, "$ordinal"), treeMaker.Literal(0)),
+                            treeMaker.Exec(call(typeNode, null, REMOVE_LISTENER_NAME, ident(typeNode, "$ordinal"), ident(typeNode, "listener"))),
+                            treeMaker.If(
+                                    notNull(typeNode, ident(typeNode, "$support")),
+                                    treeMaker.ForeachLoop(
+                                            treeMaker.VarDef(treeMaker.Modifiers(0), typeNode.toName("$candidate"), chainDotsString(typeNode, LISTENER_TYPE), null),
+                                            call(typeNode, ident(typeNode, "$support"), "getPropertyChangeListeners", ident(typeNode, "propertyName")),
+                                            treeMaker.If(call(typeNode, null, MATCHES_NAME, ident(typeNode, "$candidate"), ident(typeNode, "listener")),
+                                                    treeMaker.Block(0, List.of(
+                                                            treeMaker.Exec(call(typeNode, ident(typeNode, "$support"), "removePropertyChangeListener",
+                                                                    ident(typeNode, "propertyName"), ident(typeNode, "$candidate"))),
+                                                            treeMaker.Break(null)
+                                                    )),
+                                                    null)
+                                    ),
+                                    null
+                            )
+                    )
+            )));
+        }
+
+        // public PropertyChangeListener[] getPropertyChangeListeners() {
+        //     List<PropertyChangeListener> $result = new ArrayList<PropertyChangeListener>();
+        //     PropertyChangeListener[][] $listeners = this.$propertyChangeListeners;
+        //     if ($listeners != null) {
+        //         if ($listeners[0] != null) $result.addAll(Arrays.asList($listeners[0]));
+        //         String[] $names = $propertyNames();
+        //         for (int $i = 1; $i < $names.length; $i++)
+        //             if ($listeners[$i] != null) for (PropertyChangeListener $listener : $listeners[$i]) $result.add(new PropertyChangeListenerProxy($names[$i], $listener));
+        //     }
+        //     PropertyChangeSupport $support = this.$propertyChangeSupport;
+        //     if ($support != null) $result.addAll(Arrays.asList($support.getPropertyChangeListeners()));
+        //     return $result.toArray(new PropertyChangeListener[0]);
+        // }
+        if (methodExists("getPropertyChangeListeners", typeNode, false, 0) == MemberExistsResult.NOT_EXISTS) {
+            Name resultName = typeNode.toName("$result");
+            JCExpression slot = treeMaker.Indexed(ident(typeNode, "$listeners"), ident(typeNode, "$i"));
+            JCStatement addProxies = treeMaker.If(notNull(typeNode, slot),
+                    treeMaker.ForeachLoop(
+                            treeMaker.VarDef(treeMaker.Modifiers(0), typeNode.toName("$listener"), chainDotsString(typeNode, LISTENER_TYPE), null),
+                            treeMaker.Indexed(ident(typeNode, "$listeners"), ident(typeNode, "$i")),
+                            treeMaker.Exec(call(typeNode, treeMaker.Ident(resultName), "add", treeMaker.NewClass(
+                                    null,
+                                    List.<JCExpression>nil(),
+                                    chainDotsString(typeNode, LISTENER_PROXY_TYPE),
+                                    List.<JCExpression>of(treeMaker.Indexed(ident(typeNode, "$names"), ident(typeNode, "$i")), ident(typeNode, "$listener")),
+                                    null
+                            )))
+                    ),
+                    null);
+            JCExpression allListeners = treeMaker.Indexed(ident(typeNode, "$listeners"), treeMaker.Literal(ALL_SLOT));
+            injectMethod(typeNode, method(typeNode, Flags.PUBLIC, "getPropertyChangeListeners", treeMaker.TypeArray(chainDotsString(typeNode, LISTENER_TYPE)),
+                    List.<JCVariableDecl>nil(),
+                    List.of(
+                            treeMaker.VarDef(treeMaker.Modifiers(0), resultName,
+                                    treeMaker.TypeApply(chainDotsString(typeNode, "java.util.List"), List.of(chainDotsString(typeNode, LISTENER_TYPE))),
+                                    treeMaker.NewClass(null, List.<JCExpression>nil(),
+                                            treeMaker.TypeApply(chainDotsString(typeNode, "java.util.ArrayList"), List.of(chainDotsString(typeNode, LISTENER_TYPE))),
+                                            List.<JCExpression>nil(), null)),
+                            listenersLocal(typeNode),
+                            treeMaker.If(notNull(typeNode, ident(typeNode, "$listeners")), treeMaker.Block(0, List.of(
+                                    treeMaker.If(notNull(typeNode, allListeners),
+                                            treeMaker.Exec(call(typeNode, treeMaker.Ident(resultName), "addAll",
+                                                    call(typeNode, chainDotsString(typeNode, "java.util.Arrays"), "asList",
+                                                            treeMaker.Indexed(ident(typeNode, "$listeners"), treeMaker.Literal(ALL_SLOT))))),
+                                            null),
+                                    treeMaker.VarDef(treeMaker.Modifiers(0), typeNode.toName("$names"), treeMaker.TypeArray(chainDotsString(typeNode, "java.lang.String")),
+                                            call(typeNode, null, PROPERTY_NAMES_NAME)),
+                                    treeMaker.ForLoop(
+                                            List.<JCStatement>of(treeMaker.VarDef(treeMaker.Modifiers(0), typeNode.toName("$i"), treeMaker.TypeIdent(CTC_INT), treeMaker.Literal(1))),
+                                            treeMaker.Binary(CTC_LESS_THAN, ident(typeNode, "$i"), treeMaker.Select(ident(typeNode, "$names"), typeNode.toName("length"))),
+                                            List.of(treeMaker.Exec(treeMaker.Unary(CTC_POSTINC, ident(typeNode, "$i")))),
+                                            addProxies
+                                    )
+                            )), null),
+                            supportLocal(typeNode),
+                            treeMaker.If(notNull(typeNode, ident(typeNode, "$support")),
+                                    treeMaker.Exec(call(typeNode, treeMaker.Ident(resultName), "addAll",
+                                            call(typeNode, chainDotsString(typeNode, "java.util.Arrays"), "asList",
+                                                    call(typeNode, ident(typeNode, "$support"), "getPropertyChangeListeners")))),
+                                    null),
+                            treeMaker.Return(call(typeNode, treeMaker.Ident(resultName), "toArray", noListeners(typeNode)))
+                    )));
+        }
+
+        // public PropertyChangeListener[] getPropertyChangeListeners(String propertyName) {
+        //     int $ordinal = $propertyOrdinal(propertyName);
+        //     if ($ordinal < 0) {
+        //         PropertyChangeSupport $support = this.$propertyChangeSupport;
+        //         return $support != null ? $support.getPropertyChangeListeners(propertyName) : new PropertyChangeListener[0];
+        //     }
+        //     PropertyChangeListener[][] $listeners = this.$propertyChangeListeners;
+        //     return $listeners != null && $listeners[$ordinal] != null ? $listeners[$ordinal].clone() : new PropertyChangeListener[0];
+        // }
+        if (methodExists("getPropertyChangeListeners", typeNode, false, 1) == MemberExistsResult.NOT_EXISTS) {
+            JCExpression slot = treeMaker.Indexed(ident(typeNode, "$listeners"), ident(typeNode, "$ordinal"));
+            injectMethod(typeNode, method(typeNode, Flags.PUBLIC, "getPropertyChangeListeners", treeMaker.TypeArray(chainDotsString(typeNode, LISTENER_TYPE)),
+                    List.of(parameter(typeNode, "propertyName", "java.lang.String")),
+                    List.of(
+                            ordinalOf(typeNode, ident(typeNode, "propertyName")),
+                            treeMaker.If(treeMaker.Binary(CTC_LESS_THAN, ident(typeNode, "$ordinal"), treeMaker.Literal(0)), treeMaker.Block(0, List.of(
+                                    supportLocal(typeNode),
+                                    treeMaker.Return(treeMaker.Conditional(
+                                            notNull(typeNode, ident(typeNode, "$support")),
+                                            call(typeNode, ident(typeNode, "$support"), "getPropertyChangeListeners", ident(typeNode, "propertyName")),
+                                            noListeners(typeNode)
+                                    ))
+                            )), null),
+                            listenersLocal(typeNode),
+                            treeMaker.Return(treeMaker.Conditional(
+                                    treeMaker.Binary(CTC_AND, notNull(typeNode, ident(typeNode, "$listeners")), notNull(typeNode, slot)),
+                                    call(typeNode, treeMaker.Indexed(ident(typeNode, "$listeners"), ident(typeNode, "$ordinal")), "clone"),
+                                    noListeners(typeNode)
+                            ))
+                    )));
+        }
+
+        // protected void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
+        //     int $ordinal = $propertyOrdinal(propertyName);
+        //     if ($ordinal < 0) firePropertyChange(new PropertyChangeEvent(this, propertyName, oldValue, newValue));
+        //     else if (this.$updateDepth > 0) $deferPropertyChange($ordinal, oldValue, newValue);
+        //     else $firePropertyChange($ordinal, propertyName, oldValue, newValue);
+        // }
+        if (methodExists(FIRE_METHOD_NAME, typeNode, false, 3) == MemberExistsResult.NOT_EXISTS) {
+            injectMethod(typeNode, method(typeNode, Flags.PROTECTED, FIRE_METHOD_NAME, null,
+                    List.of(
+                            parameter(typeNode, "propertyName", "java.lang.String"),
+                            parameter(typeNode, "oldValue", "java.lang.Object"),
+                            parameter(typeNode, "newValue", "java.lang.Object")
+                    ),
+                    List.of(
+                            ordinalOf(typeNode, ident(typeNode, "propertyName")),
+                            treeMaker.If(
+                                    treeMaker.Binary(CTC_LESS_THAN, ident(typeNode, "$ordinal"), treeMaker.Literal(0)),
+                                    treeMaker.Exec(call(typeNode, null, FIRE_METHOD_NAME, newEvent(typeNode,
+                                            ident(typeNode, "propertyName"), ident(typeNode, "oldValue"), ident(typeNode, "newValue")))),
+                                    fireOrDefer(typeNode, "$ordinal", -1, ident(typeNode, "propertyName"), "oldValue", "newValue")
+                            )
+                    )));
+        }
+
+        // protected void firePropertyChange(PropertyChangeEvent event) {
+        //     Object $old = event.getOldValue();
+        //     Object $new = event.getNewValue();
+        //     if ($old != null && $new != null && $old.equals($new)) return;
+        //     PropertyChangeListener[][] $listeners = this.$propertyChangeListeners;
+        //     if ($listeners != null) $notifyPropertyChangeListeners($listeners[0], event);
+        //     int $ordinal = $propertyOrdinal(event.getPropertyName());
+        //     if ($ordinal >= 0) {
+        //         if ($listeners != null) $notifyPropertyChangeListeners($listeners[$ordinal], event);
+        //     } else {
+        //         PropertyChangeSupport $support = this.$propertyChangeSupport;
+        //         if ($support != null) $support.firePropertyChange(event);
+        //     }
+        // }
+        if (methodExists(FIRE_METHOD_NAME, typeNode, false, 1) == MemberExistsResult.NOT_EXISTS) {
+            injectMethod(typeNode, method(typeNode, Flags.PROTECTED, FIRE_METHOD_NAME, null,
+                    List.of(parameter(typeNode, "event", EVENT_TYPE)),
+                    List.of(
+                            treeMaker.VarDef(treeMaker.Modifiers(0), typeNode.toName("$old"), chainDotsString(typeNode, "java.lang.Object"),
+                                    call(typeNode, ident(typeNode, "event"), "getOldValue")),
+                            treeMaker.VarDef(treeMaker.Modifiers(0), typeNode.toName("$new"), chainDotsString(typeNode, "java.lang.Object"),
+                                    call(typeNode, ident(typeNode, "event"), "getNewValue")),
+                            treeMaker.If(unchanged(typeNode, "$old", "$new"), treeMaker.Return(null), null),
+                            listenersLocal(typeNode),
+                            treeMaker.If(notNull(typeNode, ident(typeNode, "$listeners")),
+                                    treeMaker.Exec(call(typeNode, null, NOTIFY_NAME,
+                                            treeMaker.Indexed(ident(typeNode, "$listeners"), treeMaker.Literal(ALL_SLOT)), ident(typeNode, "event"))),
+                                    null),
+                            ordinalOf(typeNode, call(typeNode, ident(typeNode, "event"), "getPropertyName")),
+                            treeMaker.If(
+                                    treeMaker.Binary(CTC_GREATER_OR_EQUAL, ident(typeNode, "$ordinal"), treeMaker.Literal(0)),
+                                    treeMaker.Block(0, List.<JCStatement>of(treeMaker.If(notNull(typeNode, ident(typeNode, "$listeners")),
+                                            treeMaker.Exec(call(typeNode, null, NOTIFY_NAME,
+                                                    treeMaker.Indexed(ident(typeNode, "$listeners"), ident(typeNode, "$ordinal")), ident(typeNode, "event"))),
+                                            null))),
+                                    treeMaker.Block(0, List.of(
+                                            supportLocal(typeNode),
+                                            treeMaker.If(notNull(typeNode, ident(typeNode, "$support")),
+                                                    treeMaker.Exec(call(typeNode, ident(typeNode, "$support"), FIRE_METHOD_NAME, ident(typeNode, "event"))),
+                                                    null)
+                                    ))
+                            )
+                    )));
+        }
+    }
+
+    /**
+     * Generates {@code beginUpdate()}, {@code endUpdate()} and {@code batch(Runnable)}. While
+     * updates are open, changes are recorded per ordinal, keeping the first old and the last
+     * new value, and delivered once by the outermost {@code endUpdate()}. Nothing is generated
+     * when the type already declares one of these methods.
+     */
+    private void injectBatchUpdates(JavacNode typeNode) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+
+        // protected transient int $updateDepth;
+        // private transient boolean[] $pendingChanges;
+        // private transient Object[] $pendingOldValues;
+        // private transient Object[] $pendingNewValues;
+        injectField(typeNode, recursiveSetGeneratedBy(treeMaker.VarDef(
+                treeMaker.Modifiers(Flags.PROTECTED | Flags.TRANSIENT), typeNode.toName(UPDATE_DEPTH_NAME), treeMaker.TypeIdent(CTC_INT), null
+        ), typeNode.get(), typeNode.getContext()));
+        injectField(typeNode, recursiveSetGeneratedBy(treeMaker.VarDef(
+                treeMaker.Modifiers(Flags.PRIVATE | Flags.TRANSIENT), typeNode.toName(PENDING_NAME), treeMaker.TypeArray(treeMaker.TypeIdent(CTC_BOOLEAN)), null
+        ), typeNode.get(), typeNode.getContext()));
+        for (String name : new String[]{PENDING_OLD_VALUES_NAME, PENDING_NEW_VALUES_NAME}) {
+            injectField(typeNode, recursiveSetGeneratedBy(treeMaker.VarDef(
+                    treeMaker.Modifiers(Flags.PRIVATE | Flags.TRANSIENT), typeNode.toName(name), treeMaker.TypeArray(chainDotsString(typeNode, "java.lang.Object")), null
+            ), typeNode.get(), typeNode.getContext()));
+        }
+
+        // protected void $deferPropertyChange(int ordinal, Object oldValue, Object newValue) {
+        //     if (this.$pendingChanges == null) {
+        //         int $size = $propertyNames().length;
+        //         this.$pendingChanges = new boolean[$size];
+        //         this.$pendingOldValues = new Object[$size];
+        //         this.$pendingNewValues = new Object[$size];
+        //     }
+        //     if (!this.$pendingChanges[ordinal]) {
+        //         this.$pendingChanges[ordinal] = true;
+        //         this.$pendingOldValues[ordinal] = oldValue;
+        //     }
+        //     this.$pendingNewValues[ordinal] = newValue;
+        // }
+        injectMethod(typeNode, method(typeNode, Flags.PROTECTED, DEFER_NAME, null,
+                List.of(
+                        treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), typeNode.toName("ordinal"), treeMaker.TypeIdent(CTC_INT), null),
+                        parameter(typeNode, "oldValue", "java.lang.Object"),
+                        parameter(typeNode, "newValue", "java.lang.Object")
+                ),
+                List.of(
+                        treeMaker.If(treeMaker.Binary(CTC_EQUAL, thisDot(typeNode, PENDING_NAME), treeMaker.Literal(CTC_BOT, null)), treeMaker.Block(0, List.of(
+                                treeMaker.VarDef(treeMaker.Modifiers(0), typeNode.toName("$size"), treeMaker.TypeIdent(CTC_INT),
+                                        treeMaker.Select(call(typeNode, null, PROPERTY_NAMES_NAME), typeNode.toName("length"))),
+                                treeMaker.Exec(treeMaker.Assign(thisDot(typeNode, PENDING_NAME),
+                                        treeMaker.NewArray(treeMaker.TypeIdent(CTC_BOOLEAN), List.of(ident(typeNode, "$size")), null))),
+                                treeMaker.Exec(treeMaker.Assign(thisDot(typeNode, PENDING_OLD_VALUES_NAME),
+                                        treeMaker.NewArray(chainDotsString(typeNode, "java.lang.Object"), List.of(ident(typeNode, "$size")), null))),
+                                treeMaker.Exec(treeMaker.Assign(thisDot(typeNode, PENDING_NEW_VALUES_NAME),
+                                        treeMaker.NewArray(chainDotsString(typeNode, "java.lang.Object"), List.of(ident(typeNode, "$size")), null)))
+                        )), null),
+                        treeMaker.If(treeMaker.Unary(CTC_NOT, pending(typeNode, PENDING_NAME, "ordinal")), treeMaker.Block(0, List.<JCStatement>of(
+                                treeMaker.Exec(treeMaker.Assign(pending(typeNode, PENDING_NAME, "ordinal"), treeMaker.Literal(CTC_BOOLEAN, 1))),
+                                treeMaker.Exec(treeMaker.Assign(pending(typeNode, PENDING_OLD_VALUES_NAME, "ordinal"), ident(typeNode, "oldValue")))
+                        )), null),
+                        treeMaker.Exec(treeMaker.Assign(pending(typeNode, PENDING_NEW_VALUES_NAME, "ordinal"), ident(typeNode, "newValue")))
+                )));
+
+        if (methodExists("beginUpdate", typeNode, false, 0) != MemberExistsResult.NOT_EXISTS
+                || methodExists("endUpdate", typeNode, false, 0) != MemberExistsResult.NOT_EXISTS
+                || methodExists("batch", typeNode, false, 1) != MemberExistsResult.NOT_EXISTS) {
+            // $updateDepth stays at zero, every change fires immediately
+            return;
+        }
+
+        // public void beginUpdate() { this.$updateDepth++; }
+        injectMethod(typeNode, method(typeNode, Flags.PUBLIC, "beginUpdate", null, List.<JCVariableDecl>nil(),
+                List.<JCStatement>of(treeMaker.Exec(treeMaker.Unary(CTC_POSTINC, thisDot(typeNode, UPDATE_DEPTH_NAME))))));
+
+        // public void endUpdate() {
+        //     if (this.$updateDepth == 0) throw new IllegalStateException("endUpdate() called without beginUpdate()");
+        //     if (--this.$updateDepth > 0 || this.$pendingChanges == null) return;
+        //     String[] $names = $propertyNames();
+        //     for (int $i = 1; $i < this.$pendingChanges.length; $i++) {
+        //         if (!this.$pendingChanges[$i]) continue;
+        //         Object $old = this.$pendingOldValues[$i];
+        //         Object $new = this.$pendingNewValues[$i];
+        //         this.$pendingChanges[$i] = false;
+        //         this.$pendingOldValues[$i] = null;
+        //         this.$pendingNewValues[$i] = null;
+        //         $firePropertyChange($i, $names[$i], $old, $new);
+        //     }
+        // }
+        injectMethod(typeNode, method(typeNode, Flags.PUBLIC, "endUpdate", null, List.<JCVariableDecl>nil(), List.of(
+                treeMaker.If(treeMaker.Binary(CTC_EQUAL, thisDot(typeNode, UPDATE_DEPTH_NAME), treeMaker.Literal(0)),
+                        treeMaker.Throw(treeMaker.NewClass(null, List.<JCExpression>nil(), chainDotsString(typeNode, "java.lang.IllegalStateException"),
+                                List.<JCExpression>of(treeMaker.Literal("endUpdate() called without beginUpdate()")), null)),
+                        null),
+                treeMaker.If(treeMaker.Binary(CTC_OR,
+                        treeMaker.Binary(CTC_GREATER_THAN, treeMaker.Unary(CTC_PREDEC, thisDot(typeNode, UPDATE_DEPTH_NAME)), treeMaker.Literal(0)),
+                        treeMaker.Binary(CTC_EQUAL, thisDot(typeNode, PENDING_NAME), treeMaker.Literal(CTC_BOT, null))),
+                        treeMaker.Return(null), null),
+                treeMaker.VarDef(treeMaker.Modifiers(0), typeNode.toName("$names"), treeMaker.TypeArray(chainDotsString(typeNode, "java.lang.String")),
+                        call(typeNode, null, PROPERTY_NAMES_NAME)),
+                treeMaker.ForLoop(
+                        List.<JCStatement>of(treeMaker.VarDef(treeMaker.Modifiers(0), typeNode.toName("$i"), treeMaker.TypeIdent(CTC_INT), treeMaker.Literal(1))),
+                        treeMaker.Binary(CTC_LESS_THAN, ident(typeNode, "$i"), treeMaker.Select(thisDot(typeNode, PENDING_NAME), typeNode.toName("length"))),
+                        List.of(treeMaker.Exec(treeMaker.Unary(CTC_POSTINC, ident(typeNode, "$i")))),
+                        treeMaker.Block(0, List.of(
+                                treeMaker.If(treeMaker.Unary(CTC_NOT, pending(typeNode, PENDING_NAME, "$i")), treeMaker.Continue(null), null),
+                                treeMaker.VarDef(treeMaker.Modifiers(0), typeNode.toName("$old"), chainDotsString(typeNode, "java.lang.Object"),
+                                        pending(typeNode, PENDING_OLD_VALUES_NAME, "$i")),
+                                treeMaker.VarDef(treeMaker.Modifiers(0), typeNode.toName("$new"), chainDotsString(typeNode, "java.lang.Object"),
+                                        pending(typeNode, PENDING_NEW_VALUES_NAME, "$i")),
+                                treeMaker.Exec(treeMaker.Assign(pending(typeNode, PENDING_NAME, "$i"), treeMaker.Literal(CTC_BOOLEAN, 0))),
+                                treeMaker.Exec(treeMaker.Assign(pending(typeNode, PENDING_OLD_VALUES_NAME, "$i"), treeMaker.Literal(CTC_BOT, null))),
+                                treeMaker.Exec(treeMaker.Assign(pending(typeNode, PENDING_NEW_VALUES_NAME, "$i"), treeMaker.Literal(CTC_BOT, null))),
+                                treeMaker.Exec(call(typeNode, null, FIRE_ORDINAL_NAME, ident(typeNode, "$i"),
+                                        treeMaker.Indexed(ident(typeNode, "$names"), ident(typeNode, "$i")), ident(typeNode, "$old"), ident(typeNode, "$new")))
+                        ))
+                )
+        )));
+
+        // public void batch(Runnable updates) {
+        //     beginUpdate();
+        //     try { updates.run(); } finally { endUpdate(); }
+        // }
+        injectMethod(typeNode, method(typeNode, Flags.PUBLIC, "batch", null, List.of(parameter(typeNode, "updates", "java.lang.Runnable")), List.of(
+                treeMaker.Exec(call(typeNode, null, "beginUpdate")),
+                treeMaker.Try(
+                        treeMaker.Block(0, List.<JCStatement>of(treeMaker.Exec(call(typeNode, ident(typeNode, "updates"), "run")))),
+                        List.<JCCatch>nil(),
+                        treeMaker.Block(0, List.<JCStatement>of(treeMaker.Exec(call(typeNode, null, "endUpdate"))))
+                )
+        )));
+    }
+
+    /**
+     * Generates a weakly referencing listener wrapper and
+     * {@code addWeakPropertyChangeListener([String propertyName, ]PropertyChangeListener listener)}.
+     * A wrapper whose listener has been collected removes itself the next time it is notified,
+     * so cleared registrations are purged by the firing path.
+     */
+    private void injectWeakListener(JavacNode typeNode) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+
+        // private final class $WeakPropertyChangeListener extends WeakReference<PropertyChangeListener> implements PropertyChangeListener {
+        //     private final String propertyName;
+        //
+        //     $WeakPropertyChangeListener(String propertyName, PropertyChangeListener listener) {
+        //         super(listener);
+        //         this.propertyName = propertyName;
+        //     }
+        //
+        //     public void propertyChange(PropertyChangeEvent event) {
+        //         PropertyChangeListener $listener = get();
+        //         if ($listener != null) $listener.propertyChange(event);
+        //         else if (this.propertyName != null) removePropertyChangeListener(this.propertyName, this);
+        //         else removePropertyChangeListener(this);
+        //     }
+        // }
+        JCVariableDecl propertyNameField = treeMaker.VarDef(
+                treeMaker.Modifiers(Flags.PRIVATE | Flags.FINAL), typeNode.toName("propertyName"), chainDotsString(typeNode, "java.lang.String"), null);
+        JCMethodDecl constructor = treeMaker.MethodDef(
+                treeMaker.Modifiers(0),
+                typeNode.toName("<init>"),
+                null,
+                List.<JCTypeParameter>nil(),
+                namedListenerParameters(typeNode),
+                List.<JCExpression>nil(),
+                treeMaker.Block(0, List.<JCStatement>of(
+                        treeMaker.Exec(call(typeNode, null, "super", ident(typeNode, "listener"))),
+                        treeMaker.Exec(treeMaker.Assign(thisDot(typeNode, "propertyName"), ident(typeNode, "propertyName")))
+                )),
+                null
+        );
+        JCMethodDecl propertyChange = treeMaker.MethodDef(
+                treeMaker.Modifiers(Flags.PUBLIC),
+                typeNode.toName("propertyChange"),
+                treeMaker.Type(Javac.createVoidType(treeMaker, Javac.CTC_VOID)),
+                List.<JCTypeParameter>nil(),
+                List.of(parameter(typeNode, "event", EVENT_TYPE)),
+                List.<JCExpression>nil(),
+                treeMaker.Block(0, List.of(
+                        treeMaker.VarDef(treeMaker.Modifiers(0), typeNode.toName("$listener"), chainDotsString(typeNode, LISTENER_TYPE), call(typeNode, null, "get")),
+                        treeMaker.If(notNull(typeNode, ident(typeNode, "$listener")),
+                                treeMaker.Exec(call(typeNode, ident(typeNode, "$listener"), "propertyChange", ident(typeNode, "event"))),
+                                treeMaker.If(notNull(typeNode, thisDot(typeNode, "propertyName")),
+                                        treeMaker.Exec(call(typeNode, null, "removePropertyChangeListener", thisDot(typeNode, "propertyName"), ident(typeNode, "this"))),
+                                        treeMaker.Exec(call(typeNode, null, "removePropertyChangeListener", ident(typeNode, "this")))))
+                )),
+                null
+        );
+        JCClassDecl weakListener = treeMaker.ClassDef(
+                treeMaker.Modifiers(Flags.PRIVATE | Flags.FINAL),
+                typeNode.toName(WEAK_LISTENER_NAME),
+                List.<JCTypeParameter>nil(),
+                treeMaker.TypeApply(chainDotsString(typeNode, "java.lang.ref.WeakReference"), List.of(chainDotsString(typeNode, LISTENER_TYPE))),
+                List.of(chainDotsString(typeNode, LISTENER_TYPE)),
+                List.<JCTree>of(propertyNameField, constructor, propertyChange)
+        );
+        injectType(typeNode, recursiveSetGeneratedBy(weakListener, typeNode.get(), typeNode.getContext()));
+
+        // public void addWeakPropertyChangeListener([String propertyName, ]PropertyChangeListener listener) {
+        //     if (listener != null) addPropertyChangeListener([propertyName, ]new $WeakPropertyChangeListener(<propertyName or null>, listener));
+        // }
+        for (boolean named : new boolean[]{false, true}) {
+            List<JCVariableDecl> parameters = named ? namedListenerParameters(typeNode) : List.of(parameter(typeNode, "listener", LISTENER_TYPE));
+            if (methodExists("addWeakPropertyChangeListener", typeNode, false, parameters.size()) != MemberExistsResult.NOT_EXISTS) continue;
+            JCExpression wrapper = treeMaker.NewClass(null, List.<JCExpression>nil(), ident(typeNode, WEAK_LISTENER_NAME),
+                    List.of(named ? ident(typeNode, "propertyName") : treeMaker.Literal(CTC_BOT, null), ident(typeNode, "listener")), null);
+            JCExpression register = named
+                    ? call(typeNode, null, "addPropertyChangeListener", ident(typeNode, "propertyName"), wrapper)
+                    : call(typeNode, null, "addPropertyChangeListener", wrapper);
+            injectMethod(typeNode, method(typeNode, Flags.PUBLIC, "addWeakPropertyChangeListener", null, parameters, List.<JCStatement>of(
+                    treeMaker.If(notNull(typeNode, ident(typeNode, "listener")), treeMaker.Exec(register), null)
+            )));
+        }
+    }
+
+    /**
+     * Weak registrations are removed by passing either the wrapper or the wrapped listener.
+     *
+     * private boolean $matchesPropertyChangeListener(PropertyChangeListener candidate, PropertyChangeListener listener) {
+     *     return candidate.equals(listener)
+     *         || candidate instanceof $WeakPropertyChangeListener && listener != null && listener.equals((($WeakPropertyChangeListener) candidate).get());
+     * }
+     */
+    private void injectMatches(JavacNode typeNode) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        injectMethod(typeNode, method(typeNode, Flags.PRIVATE, MATCHES_NAME, treeMaker.TypeIdent(CTC_BOOLEAN),
+                List.of(parameter(typeNode, "candidate", LISTENER_TYPE), parameter(typeNode, "listener", LISTENER_TYPE)),
+                List.<JCStatement>of(treeMaker.Return(treeMaker.Binary(CTC_OR,
+                        call(typeNode, ident(typeNode, "candidate"), "equals", ident(typeNode, "listener")),
+                        treeMaker.Binary(CTC_AND,
+                                treeMaker.Binary(CTC_AND,
+                                        treeMaker.TypeTest(ident(typeNode, "candidate"), ident(typeNode, WEAK_LISTENER_NAME)),
+                                        notNull(typeNode, ident(typeNode, "listener"))),
+                                call(typeNode, ident(typeNode, "listener"), "equals",
+                                        call(typeNode, treeMaker.Parens(treeMaker.TypeCast(ident(typeNode, WEAK_LISTENER_NAME), ident(typeNode, "candidate"))), "get")))
+                )))));
+    }
+
+    private static JCExpression pending(JavacNode typeNode, String arrayName, String index) {
+        return typeNode.getTreeMaker().Indexed(thisDot(typeNode, arrayName), ident(typeNode, index));
+    }
+
+    /**
+     * {@code if (this.$updateDepth > 0) $deferPropertyChange(ordinal, old, new); else $firePropertyChange(ordinal, name, old, new);}
+     * where {@code ordinal} is the local variable {@code ordinalName} or, when that is null, the constant {@code ordinal}.
+     */
+    private static JCStatement fireOrDefer(JavacNode node, String ordinalName, int ordinal, JCExpression propertyName, String oldValue, String newValue) {
+        JavacTreeMaker treeMaker = node.getTreeMaker();
+        return treeMaker.If(
+                treeMaker.Binary(CTC_GREATER_THAN, thisDot(node, UPDATE_DEPTH_NAME), treeMaker.Literal(0)),
+                treeMaker.Exec(call(node, null, DEFER_NAME, ordinal(node, ordinalName, ordinal), ident(node, oldValue), ident(node, newValue))),
+                treeMaker.Exec(call(node, null, FIRE_ORDINAL_NAME, ordinal(node, ordinalName, ordinal), propertyName, ident(node, oldValue), ident(node, newValue)))
+        );
+    }
+
+    private static JCExpression ordinal(JavacNode node, String ordinalName, int ordinal) {
+        return ordinalName != null ? ident(node, ordinalName) : node.getTreeMaker().Literal(ordinal);
+    }
+
+    /**
+     * Generates the members through which an observable subclass extends the listener support
+     * of its observable superclass: its ordinals follow the inherited ones, everything else is
+     * inherited.
+     */
+    private void injectInheritedSupport(JavacNode typeNode, java.util.List<String> propertyNames, int inherited) {
+        injectPropertyCount(typeNode, inherited + propertyNames.size());
+        injectPropertyOrdinal(typeNode, propertyNames, inherited + 1, true);
+        injectPropertyNames(typeNode, propertyNames, inherited + 1, true);
+    }
+
+    /**
+     * protected static final int $propertyCount = <number of properties, inherited ones included>;
+     */
+    private void injectPropertyCount(JavacNode typeNode, int count) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        injectField(typeNode, recursiveSetGeneratedBy(treeMaker.VarDef(
+                treeMaker.Modifiers(Flags.PROTECTED | Flags.STATIC | Flags.FINAL),
+                typeNode.toName(PROPERTY_COUNT_NAME),
+                treeMaker.TypeIdent(CTC_INT),
+                treeMaker.Literal(count)
+        ), typeNode.get(), typeNode.getContext()));
+    }
+
+    /**
+     * protected int $propertyOrdinal(String propertyName) {
+     *     if (propertyName != null) switch (propertyName) { case "a": return <first>; ... }
+     *     return -1;                                       // or super.$propertyOrdinal(propertyName)
+     * }
+     */
+    private void injectPropertyOrdinal(JavacNode typeNode, java.util.List<String> propertyNames, int first, boolean inherited) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        ListBuffer<JCCase> cases = new ListBuffer<>();
+        for (int index = 0; index < propertyNames.size(); index++) {
+            cases.add(treeMaker.Case(treeMaker.Literal(propertyNames.get(index)), List.<JCStatement>of(treeMaker.Return(treeMaker.Literal(first + index)))));
+        }
+        ListBuffer<JCStatement> statements = new ListBuffer<>();
+        if (!cases.isEmpty()) {
+            statements.add(treeMaker.If(
+                    notNull(typeNode, ident(typeNode, "propertyName")),
+                    treeMaker.Switch(ident(typeNode, "propertyName"), cases.toList()),
+                    null
+            ));
+        }
+        statements.add(treeMaker.Return(inherited
+                ? call(typeNode, ident(typeNode, "super"), ORDINAL_NAME, ident(typeNode, "propertyName"))
+                : treeMaker.Literal(-1)));
+        injectMethod(typeNode, method(typeNode, Flags.PROTECTED, ORDINAL_NAME, treeMaker.TypeIdent(CTC_INT),
+                List.of(parameter(typeNode, "propertyName", "java.lang.String")),
+                statements.toList()));
+    }
+
+    /**
+     * Property names indexed by ordinal; slot 0 has no name. Sizes the listener table and the
+     * pending changes of a batch, so that they cover the ordinals of subclasses.
+     *
+     * protected String[] $propertyNames() {
+     *     String[] $names = new String[<first> + <size>];   // or Arrays.copyOf(super.$propertyNames(), <first> + <size>)
+     *     $names[<first>] = "a"; ...
+     *     return $names;
+     * }
+     */
+    private void injectPropertyNames(JavacNode typeNode, java.util.List<String> propertyNames, int first, boolean inherited) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        JCExpression length = treeMaker.Literal(first + propertyNames.size());
+        ListBuffer<JCStatement> statements = new ListBuffer<>();
+        statements.add(treeMaker.VarDef(treeMaker.Modifiers(0), typeNode.toName("$names"), treeMaker.TypeArray(chainDotsString(typeNode, "java.lang.String")), inherited
+                ? call(typeNode, chainDotsString(typeNode, "java.util.Arrays"), "copyOf", call(typeNode, ident(typeNode, "super"), PROPERTY_NAMES_NAME), length)
+                : treeMaker.NewArray(chainDotsString(typeNode, "java.lang.String"), List.of(length), null)));
+        for (int index = 0; index < propertyNames.size(); index++) {
+            statements.add(treeMaker.Exec(treeMaker.Assign(
+                    treeMaker.Indexed(ident(typeNode, "$names"), treeMaker.Literal(first + index)),
+                    treeMaker.Literal(propertyNames.get(index)))));
+        }
+        statements.add(treeMaker.Return(ident(typeNode, "$names")));
+        injectMethod(typeNode, method(typeNode, Flags.PROTECTED, PROPERTY_NAMES_NAME, treeMaker.TypeArray(chainDotsString(typeNode, "java.lang.String")),
+                List.<JCVariableDecl>nil(),
+                statements.toList()));
+    }
+
+    /**
+     * private synchronized PropertyChangeSupport $createPropertyChangeSupport() {
+     *     if (this.$propertyChangeSupport == null) this.$propertyChangeSupport = new PropertyChangeSupport(this);
+     *     return this.$propertyChangeSupport;
+     * }
+     */
+    private void injectCreateSupport(JavacNode typeNode) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        injectMethod(typeNode, method(typeNode, Flags.PRIVATE | Flags.SYNCHRONIZED, CREATE_SUPPORT_NAME, chainDotsString(typeNode, SUPPORT_TYPE),
+                List.<JCVariableDecl>nil(),
+                List.of(
+                        treeMaker.If(
+                                treeMaker.Binary(CTC_EQUAL, thisDot(typeNode, SUPPORT_NAME), treeMaker.Literal(CTC_BOT, null)),
+                                treeMaker.Exec(treeMaker.Assign(thisDot(typeNode, SUPPORT_NAME), treeMaker.NewClass(
+                                        null,
+                                        List.<JCExpression>nil(),
+                                        chainDotsString(typeNode, SUPPORT_TYPE),
+                                        List.<JCExpression>of(ident(typeNode, "this")),
+                                        null
+                                ))),
+                                null
+                        ),
+                        treeMaker.Return(thisDot(typeNode, SUPPORT_NAME))
+                )));
+    }
+
+    /**
+     * private synchronized void $addPropertyChangeListener(int ordinal, PropertyChangeListener listener) {
+     *     if (listener == null) return;
+     *     PropertyChangeListener[][] $listeners = this.$propertyChangeListeners;
+     *     $listeners = $listeners == null ? new PropertyChangeListener[$propertyNames().length][] : $listeners.clone();
+     *     PropertyChangeListener[] $slot = $listeners[ordinal];
+     *     $slot = $slot == null ? new PropertyChangeListener[1] : Arrays.copyOf($slot, $slot.length + 1);
+     *     $slot[$slot.length - 1] = listener;
+     *     $listeners[ordinal] = $slot;
+     *     this.$propertyChangeListeners = $listeners;
+     * }
+     */
+    private void injectAddListener(JavacNode typeNode) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        JCExpression slotLength = treeMaker.Select(ident(typeNode, "$slot"), typeNode.toName("length"));
+        injectMethod(typeNode, method(typeNode, Flags.PRIVATE | Flags.SYNCHRONIZED, ADD_LISTENER_NAME, null, slotListenerParameters(typeNode), List.of(
+                treeMaker.If(treeMaker.Binary(CTC_EQUAL, ident(typeNode, "listener"), treeMaker.Literal(CTC_BOT, null)), treeMaker.Return(null), null),
+                listenersLocal(typeNode),
+                treeMaker.Exec(treeMaker.Assign(ident(typeNode, "$listeners"), treeMaker.Conditional(
+                        treeMaker.Binary(CTC_EQUAL, ident(typeNode, "$listeners"), treeMaker.Literal(CTC_BOT, null)),
+                        treeMaker.NewArray(treeMaker.TypeArray(chainDotsString(typeNode, LISTENER_TYPE)),
+                                List.<JCExpression>of(treeMaker.Select(call(typeNode, null, PROPERTY_NAMES_NAME), typeNode.toName("length"))), null),
+                        call(typeNode, ident(typeNode, "$listeners"), "clone")
+                ))),
+                treeMaker.VarDef(treeMaker.Modifiers(0), typeNode.toName("$slot"), treeMaker.TypeArray(chainDotsString(typeNode, LISTENER_TYPE)),
+                        treeMaker.Indexed(ident(typeNode, "$listeners"), ident(typeNode, "ordinal"))),
+                treeMaker.Exec(treeMaker.Assign(ident(typeNode, "$slot"), treeMaker.Conditional(
+                        treeMaker.Binary(CTC_EQUAL, ident(typeNode, "$slot"), treeMaker.Literal(CTC_BOT, null)),
+                        treeMaker.NewArray(chainDotsString(typeNode, LISTENER_TYPE), List.<JCExpression>of(treeMaker.Literal(1)), null),
+                        call(typeNode, chainDotsString(typeNode, "java.util.Arrays"), "copyOf",
+                                ident(typeNode, "$slot"), treeMaker.Binary(CTC_PLUS, slotLength, treeMaker.Literal(1)))
+                ))),
+                treeMaker.Exec(treeMaker.Assign(
+                        treeMaker.Indexed(ident(typeNode, "$slot"), treeMaker.Binary(CTC_MINUS,
+                                treeMaker.Select(ident(typeNode, "$slot"), typeNode.toName("length")), treeMaker.Literal(1))),
+                        ident(typeNode, "listener"))),
+                treeMaker.Exec(treeMaker.Assign(treeMaker.Indexed(ident(typeNode, "$listeners"), ident(typeNode, "ordinal")), ident(typeNode, "$slot"))),
+                treeMaker.Exec(treeMaker.Assign(thisDot(typeNode, LISTENERS_NAME), ident(typeNode, "$listeners")))
+        )));
+    }
+
+    /**
+     * private synchronized void $removePropertyChangeListener(int ordinal, PropertyChangeListener listener) {
+     *     PropertyChangeListener[][] $listeners = this.$propertyChangeListeners;
+     *     if ($listeners == null || $listeners[ordinal] == null) return;
+     *     int $index = -1;
+     *     for (int $i = 0; $i < $listeners[ordinal].length && $index < 0; $i++) {
+     *         if ($matchesPropertyChangeListener($listeners[ordinal][$i], listener)) $index = $i;
+     *     }
+     *     if ($index < 0) return;
+     *     List<PropertyChangeListener> $remaining = new ArrayList<PropertyChangeListener>(Arrays.asList($listeners[ordinal]));
+     *     $remaining.remove($index);
+     *     $listeners = $listeners.clone();
+     *     $listeners[ordinal] = $remaining.isEmpty() ? null : $remaining.toArray(new PropertyChangeListener[0]);
+     *     this.$propertyChangeListeners = $listeners;
+     * }
+     */
+    private void injectRemoveListener(JavacNode typeNode) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        Name remainingName = typeNode.toName("$remaining");
+        injectMethod(typeNode, method(typeNode, Flags.PRIVATE | Flags.SYNCHRONIZED, REMOVE_LISTENER_NAME, null, slotListenerParameters(typeNode), List.of(
+                listenersLocal(typeNode),
+                treeMaker.If(treeMaker.Binary(CTC_OR,
+                        treeMaker.Binary(CTC_EQUAL, ident(typeNode, "$listeners"), treeMaker.Literal(CTC_BOT, null)),
+                        treeMaker.Binary(CTC_EQUAL, treeMaker.Indexed(ident(typeNode, "$listeners"), ident(typeNode, "ordinal")), treeMaker.Literal(CTC_BOT, null))),
+                        treeMaker.Return(null), null),
+                treeMaker.VarDef(treeMaker.Modifiers(0), typeNode.toName("$index"), treeMaker.TypeIdent(CTC_INT), treeMaker.Literal(-1)),
+                treeMaker.ForLoop(
+                        List.<JCStatement>of(treeMaker.VarDef(treeMaker.Modifiers(0), typeNode.toName("$i"), treeMaker.TypeIdent(CTC_INT), treeMaker.Literal(0))),
+                        treeMaker.Binary(CTC_AND,
+                                treeMaker.Binary(CTC_LESS_THAN, ident(typeNode, "$i"),
+                                        treeMaker.Select(treeMaker.Indexed(ident(typeNode, "$listeners"), ident(typeNode, "ordinal")), typeNode.toName("length"))),
+                                treeMaker.Binary(CTC_LESS_THAN, ident(typeNode, "$index"), treeMaker.Literal(0))),
+                        List.of(treeMaker.Exec(treeMaker.Unary(CTC_POSTINC, ident(typeNode, "$i")))),
+                        treeMaker.If(call(typeNode, null, MATCHES_NAME,
+                                treeMaker.Indexed(treeMaker.Indexed(ident(typeNode, "$listeners"), ident(typeNode, "ordinal")), ident(typeNode, "$i")),
+                                ident(typeNode, "listener")),
+                                treeMaker.Exec(treeMaker.Assign(ident(typeNode, "$index"), ident(typeNode, "$i"))),
+                                null)
+                ),
+                treeMaker.If(treeMaker.Binary(CTC_LESS_THAN, ident(typeNode, "$index"), treeMaker.Literal(0)), treeMaker.Return(null), null),
+                treeMaker.VarDef(treeMaker.Modifiers(0), remainingName,
+                        treeMaker.TypeApply(chainDotsString(typeNode, "java.util.List"), List.of(chainDotsString(typeNode, LISTENER_TYPE))),
+                        treeMaker.NewClass(null, List.<JCExpression>nil(),
+                                treeMaker.TypeApply(chainDotsString(typeNode, "java.util.ArrayList"), List.of(chainDotsString(typeNode, LISTENER_TYPE))),
+                                List.<JCExpression>of(call(typeNode, chainDotsString(typeNode, "java.util.Arrays"), "asList",
+                                        treeMaker.Indexed(ident(typeNode, "$listeners"), ident(typeNode, "ordinal")))),
+                                null)),
+                treeMaker.Exec(call(typeNode, treeMaker.Ident(remainingName), "remove", ident(typeNode, "$index"))),
+                treeMaker.Exec(treeMaker.Assign(ident(typeNode, "$listeners"), call(typeNode, ident(typeNode, "$listeners"), "clone"))),
+                treeMaker.Exec(treeMaker.Assign(
+                        treeMaker.Indexed(ident(typeNode, "$listeners"), ident(typeNode, "ordinal")),
+                        treeMaker.Conditional(
+                                call(typeNode, treeMaker.Ident(remainingName), "isEmpty"),
+                                treeMaker.Literal(CTC_BOT, null),
+                                call(typeNode, treeMaker.Ident(remainingName), "toArray", noListeners(typeNode))
+                        ))),
+                treeMaker.Exec(treeMaker.Assign(thisDot(typeNode, LISTENERS_NAME), ident(typeNode, "$listeners")))
+        )));
+    }
+
+    /**
+     * private void $notifyPropertyChangeListeners(PropertyChangeListener[] listeners, PropertyChangeEvent event) {
+     *     if (listeners != null) for (PropertyChangeListener $listener : listeners) $listener.propertyChange(event);
+     * }
+     */
+    private void injectNotify(JavacNode typeNode) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        injectMethod(typeNode, method(typeNode, Flags.PRIVATE, NOTIFY_NAME, null,
+                List.of(
+                        treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), typeNode.toName("listeners"), treeMaker.TypeArray(chainDotsString(typeNode, LISTENER_TYPE)), null),
+                        parameter(typeNode, "event", EVENT_TYPE)
+                ),
+                List.<JCStatement>of(treeMaker.If(notNull(typeNode, ident(typeNode, "listeners")),
+                        treeMaker.ForeachLoop(
+                                treeMaker.VarDef(treeMaker.Modifiers(0), typeNode.toName("$listener"), chainDotsString(typeNode, LISTENER_TYPE), null),
+                                ident(typeNode, "listeners"),
+                                treeMaker.Exec(call(typeNode, ident(typeNode, "$listener"), "propertyChange", ident(typeNode, "event")))
+                        ),
+                        null))));
+    }
+
+    /**
+     * protected void $firePropertyChange(int ordinal, String propertyName, Object oldValue, Object newValue) {
+     *     PropertyChangeListener[][] $listeners = this.$propertyChangeListeners;
+     *     if (!($listeners != null && ($listeners[0] != null || $listeners[ordinal] != null))) return;
+     *     if (oldValue != null && newValue != null && oldValue.equals(newValue)) return;
+     *     PropertyChangeEvent $event = new PropertyChangeEvent(this, propertyName, oldValue, newValue);
+     *     $notifyPropertyChangeListeners($listeners[0], $event);
+     *     $notifyPropertyChangeListeners($listeners[ordinal], $event);
+     * }
+     */
+    private void injectFireOrdinal(JavacNode typeNode) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        injectMethod(typeNode, method(typeNode, Flags.PROTECTED, FIRE_ORDINAL_NAME, null,
+                List.of(
+                        treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), typeNode.toName("ordinal"), treeMaker.TypeIdent(CTC_INT), null),
+                        parameter(typeNode, "propertyName", "java.lang.String"),
+                        parameter(typeNode, "oldValue", "java.lang.Object"),
+                        parameter(typeNode, "newValue", "java.lang.Object")
+                ),
+                List.of(
+                        listenersLocal(typeNode),
+                        treeMaker.If(treeMaker.Unary(CTC_NOT, treeMaker.Parens(observed(typeNode, ident(typeNode, "ordinal")))), treeMaker.Return(null), null),
+                        treeMaker.If(unchanged(typeNode, "oldValue", "newValue"), treeMaker.Return(null), null),
+                        treeMaker.VarDef(treeMaker.Modifiers(0), typeNode.toName("$event"), chainDotsString(typeNode, EVENT_TYPE),
+                                newEvent(typeNode, ident(typeNode, "propertyName"), ident(typeNode, "oldValue"), ident(typeNode, "newValue"))),
+                        treeMaker.Exec(call(typeNode, null, NOTIFY_NAME,
+                                treeMaker.Indexed(ident(typeNode, "$listeners"), treeMaker.Literal(ALL_SLOT)), ident(typeNode, "$event"))),
+                        treeMaker.Exec(call(typeNode, null, NOTIFY_NAME,
+                                treeMaker.Indexed(ident(typeNode, "$listeners"), ident(typeNode, "ordinal")), ident(typeNode, "$event")))
+                )));
+    }
+
+    /**
+     * {@code $listeners != null && ($listeners[0] != null || $listeners[ordinal] != null)}
+     */
+    private static JCExpression observed(JavacNode typeNode, JCExpression ordinal) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        return treeMaker.Binary(CTC_AND,
+                notNull(typeNode, ident(typeNode, "$listeners")),
+                treeMaker.Parens(treeMaker.Binary(CTC_OR,
+                        notNull(typeNode, treeMaker.Indexed(ident(typeNode, "$listeners"), treeMaker.Literal(ALL_SLOT))),
+                        notNull(typeNode, treeMaker.Indexed(ident(typeNode, "$listeners"), ordinal)))));
+    }
+
+    /**
+     * Same rule as {@code PropertyChangeSupport}: equal, non-null values are not reported.
+     */
+    private static JCExpression unchanged(JavacNode typeNode, String oldValue, String newValue) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        return treeMaker.Binary(CTC_AND,
+                treeMaker.Binary(CTC_AND, notNull(typeNode, ident(typeNode, oldValue)), notNull(typeNode, ident(typeNode, newValue))),
+                call(typeNode, ident(typeNode, oldValue), "equals", ident(typeNode, newValue)));
+    }
+
+    private static JCExpression newEvent(JavacNode typeNode, JCExpression propertyName, JCExpression oldValue, JCExpression newValue) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        return treeMaker.NewClass(null, List.<JCExpression>nil(), chainDotsString(typeNode, EVENT_TYPE),
+                List.of(ident(typeNode, "this"), propertyName, oldValue, newValue), null);
+    }
+
+    private static JCStatement ordinalOf(JavacNode typeNode, JCExpression propertyName) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        return treeMaker.VarDef(treeMaker.Modifiers(0), typeNode.toName("$ordinal"), treeMaker.TypeIdent(CTC_INT),
+                call(typeNode, null, ORDINAL_NAME, propertyName));
+    }
+
+    private static JCStatement listenersLocal(JavacNode typeNode) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        return treeMaker.VarDef(treeMaker.Modifiers(0), typeNode.toName("$listeners"), listenerTable(typeNode), thisDot(typeNode, LISTENERS_NAME));
+    }
+
+    private static JCStatement supportLocal(JavacNode typeNode) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        return treeMaker.VarDef(treeMaker.Modifiers(0), typeNode.toName("$support"), chainDotsString(typeNode, SUPPORT_TYPE), thisDot(typeNode, SUPPORT_NAME));
+    }
+
+    private static JCExpression listenerTable(JavacNode typeNode) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        return treeMaker.TypeArray(treeMaker.TypeArray(chainDotsString(typeNode, LISTENER_TYPE)));
+    }
+
+    private static JCExpression noListeners(JavacNode typeNode) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        return treeMaker.NewArray(chainDotsString(typeNode, LISTENER_TYPE), List.<JCExpression>of(treeMaker.Literal(0)), null);
+    }
+
+    private static List<JCVariableDecl> namedListenerParameters(JavacNode typeNode) {
+        return List.of(parameter(typeNode, "propertyName", "java.lang.String"), parameter(typeNode, "listener", LISTENER_TYPE));
+    }
+
+    private static List<JCVariableDecl> slotListenerParameters(JavacNode typeNode) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        return List.of(
+                treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), typeNode.toName("ordinal"), treeMaker.TypeIdent(CTC_INT), null),
+                parameter(typeNode, "listener", LISTENER_TYPE));
+    }
+
+    private static JCExpression notNull(JavacNode typeNode, JCExpression expression) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        return treeMaker.Binary(CTC_NOT_EQUAL, expression, treeMaker.Literal(CTC_BOT, null));
+    }
+
+    private static JCExpression ident(JavacNode typeNode, String name) {
+        return typeNode.getTreeMaker().Ident(typeNode.toName(name));
+    }
+
+    private static JCExpression thisDot(JavacNode typeNode, String name) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        return treeMaker.Select(ident(typeNode, "this"), typeNode.toName(name));
+    }
+
+    private static JCExpression call(JavacNode typeNode, JCExpression receiver, String name, JCExpression... arguments) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        return treeMaker.Apply(
+                List.<JCExpression>nil(),
+                receiver != null ? treeMaker.Select(receiver, typeNode.toName(name)) : ident(typeNode, name),
+                List.from(arguments)
+        );
+    }
+
+    private static JCVariableDecl parameter(JavacNode typeNode, String name, String type) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        return treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), typeNode.toName(name), chainDotsString(typeNode, type), null);
+    }
+
+    private static JCMethodDecl method(JavacNode typeNode, long flags, String name, JCExpression returnType, List<JCVariableDecl> parameters, List<JCStatement> statements) {
+        JavacTreeMaker treeMaker = typeNode.getTreeMaker();
+        JCMethodDecl method = treeMaker.MethodDef(
+                treeMaker.Modifiers(flags),
+                typeNode.toName(name),
+                returnType != null ? returnType : treeMaker.Type(Javac.createVoidType(treeMaker, Javac.CTC_VOID)),
+                List.<JCTypeParameter>nil(),
+                parameters,
+                List.<JCExpression>nil(),
+                treeMaker.Block(0, statements),
+                null
+        );
+        return recursiveSetGeneratedBy(method, typeNode.get(), typeNode.getContext());
+    }
+
+    private static class ObservableFieldHandler {
+        private final JavacNode typeNode;
+        private final JavacNode fieldNode;
+        private final JCVariableDecl field;
+        private final JavacNode annotationNode;
+        private final JavacTreeMaker treeMaker;
+        private final String onChange;
+        private final int ordinal;
+
+        private ObservableFieldHandler(JavacNode fieldNode, JavacNode annotationNode, int ordinal) {
+            this.typeNode = fieldNode.up();
+            this.fieldNode = fieldNode;
+            this.field = (JCVariableDecl) fieldNode.get();
+            this.annotationNode = annotationNode;
+            this.treeMaker = fieldNode.getTreeMaker();
+            this.ordinal = ordinal;
+            ObservableOptions fieldOptions = findOptions(fieldNode);
+            ObservableOptions typeOptions = findOptions(typeNode);
+            String onChange = fieldOptions != null ? fieldOptions.onChange() : "";
+            if (onChange.isEmpty() && typeOptions != null) onChange = typeOptions.onChange();
+            this.onChange = onChange.isEmpty() ? null : onChange;
+        }
+
+        private boolean validate() {
+            if (onChange != null && methodExists(onChange, typeNode, false, 2) == MemberExistsResult.NOT_EXISTS) {
+                annotationNode.addError("@ObservableOptions(onChange) refers to " + onChange + "(oldValue, newValue), which does not exist.");
+                return false;
+            }
+            return true;
+        }
+
+        private void handle() {
+            String getterName = toGetterName(fieldNode);
+            if (methodExists(getterName, typeNode, false, 0) == MemberExistsResult.NOT_EXISTS) {
+                // public Type getValue() { return this.value; }
+                injectMethod(typeNode, method(typeNode, Flags.PUBLIC, getterName, field.vartype, List.<JCVariableDecl>nil(),
+                        List.<JCStatement>of(treeMaker.Return(fieldAccess()))));
+            }
+
+            String setterName = toSetterName(fieldNode);
+            if (methodExists(setterName, typeNode, false, 1) == MemberExistsResult.NOT_EXISTS) {
+                injectMethod(typeNode, method(typeNode, Flags.PUBLIC, setterName, null,
+                        List.of(treeMaker.VarDef(treeMaker.Modifiers(Flags.PARAMETER), field.name, field.vartype, null)),
+                        createSetterBody()));
+            }
+        }
+
+        private List<JCStatement> createSetterBody() {
+            // Type $oldValue = this.value;
+            // if ($oldValue == value) return;                  // primitives only, floating point by bits
+            // this.value = value;
+            // PropertyChangeListener[][] $listeners = this.$propertyChangeListeners;
+            // if ($listeners != null && ($listeners[0] != null || $listeners[<ordinal>] != null)) {
+            //     if (this.$updateDepth > 0) $deferPropertyChange(<ordinal>, $oldValue, value);
+            //     else $firePropertyChange(<ordinal>, "value", $oldValue, value);
+            // }
+            // if (<$oldValue and value differ>) onChange($oldValue, value);
+            Name oldValueName = fieldNode.toName(OLD_VALUE_NAME);
+            JCExpression value = treeMaker.Ident(field.name);
+            ListBuffer<JCStatement> statements = new ListBuffer<>();
+            statements.add(treeMaker.VarDef(treeMaker.Modifiers(0), oldValueName, field.vartype, fieldAccess()));
+            if (isPrimitive()) {
+                // primitives are compared before anything gets boxed
+                statements.add(treeMaker.If(
+                        treeMaker.Binary(CTC_EQUAL, comparable(treeMaker.Ident(oldValueName)), comparable(treeMaker.Ident(field.name))),
+                        treeMaker.Return(null),
+                        null
+                ));
+            }
+            statements.add(treeMaker.Exec(treeMaker.Assign(fieldAccess(), value)));
+            // the listener slots of this field are found by index, without looking up its name
+            statements.add(listenersLocal(fieldNode));
+            statements.add(treeMaker.If(
+                    observed(fieldNode, treeMaker.Literal(ordinal)),
+                    treeMaker.Block(0, List.of(fireOrDefer(fieldNode, null, ordinal, treeMaker.Literal(field.name.toString()), OLD_VALUE_NAME, field.name.toString()))),
+                    null
+            ));
+            if (onChange != null) {
+                // the early return above already filtered unchanged primitives
+                JCExpression changed = isPrimitive()
+                        ? null
+                        : treeMaker.Unary(CTC_NOT, treeMaker.Apply(
+                        List.<JCExpression>nil(),
+                        chainDotsString(fieldNode, "java.util.Objects.equals"),
+                        List.<JCExpression>of(treeMaker.Ident(oldValueName), treeMaker.Ident(field.name))));
+                JCStatement callback = treeMaker.Exec(treeMaker.Apply(
+                        List.<JCExpression>nil(),
+                        treeMaker.Ident(fieldNode.toName(onChange)),
+                        List.<JCExpression>of(treeMaker.Ident(oldValueName), treeMaker.Ident(field.name))
+                ));
+                statements.add(changed != null ? treeMaker.If(changed, callback, null) : callback);
+            }
+            return statements.toList();
+        }
+
+        /**
+         * Floating point values are compared by their bits, as {@code Float.equals()} and
+         * {@code Double.equals()} do, so NaN equals NaN and 0.0 differs from -0.0.
+         */
+        private JCExpression comparable(JCExpression value) {
+            String type = field.vartype.toString();
+            if ("float".equals(type)) return call(fieldNode, chainDotsString(fieldNode, "java.lang.Float"), "floatToIntBits", value);
+            if ("double".equals(type)) return call(fieldNode, chainDotsString(fieldNode, "java.lang.Double"), "doubleToLongBits", value);
+            return value;
+        }
+
+        private boolean isPrimitive() {
+            return field.vartype instanceof JCPrimitiveTypeTree;
+        }
+
+        private JCExpression fieldAccess() {
+            return treeMaker.Select(treeMaker.Ident(fieldNode.toName("this")), field.name);
+        }
     }
 }
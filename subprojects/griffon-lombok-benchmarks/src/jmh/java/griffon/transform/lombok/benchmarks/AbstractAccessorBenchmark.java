@@ -0,0 +1,483 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.benchmarks;
+
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.FloatProperty;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.ListProperty;
+import javafx.beans.property.LongProperty;
+import javafx.beans.property.MapProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SetProperty;
+import javafx.beans.property.StringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableMap;
+import javafx.collections.ObservableSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class AbstractAccessorBenchmark {
+    private static final Object OBJECT_A = new Object();
+    private static final Object OBJECT_B = new Object();
+    private static final Character CHARACTER_A = Character.valueOf((char) 1000);
+    private static final Character CHARACTER_B = Character.valueOf((char) 2000);
+    private static final Byte BYTE_A = Byte.valueOf((byte) 1);
+    private static final Byte BYTE_B = Byte.valueOf((byte) 2);
+    private static final Short SHORT_A = Short.valueOf((short) 1000);
+    private static final Short SHORT_B = Short.valueOf((short) 2000);
+    private static final Integer INTEGER_A = Integer.valueOf(1000);
+    private static final Integer INTEGER_B = Integer.valueOf(2000);
+    private static final Long LONG_A = Long.valueOf(1000L);
+    private static final Long LONG_B = Long.valueOf(2000L);
+    private static final Float FLOAT_A = Float.valueOf(1000f);
+    private static final Float FLOAT_B = Float.valueOf(2000f);
+    private static final Double DOUBLE_A = Double.valueOf(1000d);
+    private static final Double DOUBLE_B = Double.valueOf(2000d);
+
+    @Param({"PLAIN", "SHADOW_FIELD", "TYPED_SHADOW_FIELD", "FIELD_BACKED", "PROPERTY_TABLE"})
+    public String strategy;
+
+    private boolean flip;
+
+    private Map<String, Integer> mapA;
+    private Map<String, Integer> mapB;
+    private Set<Integer> setA;
+    private Set<Integer> setB;
+    private List<Integer> listA;
+    private List<Integer> listB;
+    private ObservableMap<String, Integer> observableMapA;
+    private ObservableMap<String, Integer> observableMapB;
+    private ObservableSet<Integer> observableSetA;
+    private ObservableSet<Integer> observableSetB;
+    private ObservableList<Integer> observableListA;
+    private ObservableList<Integer> observableListB;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        mapA = new HashMap<>();
+        mapA.put("a", 1);
+        mapB = new HashMap<>();
+        mapB.put("b", 2);
+        setA = new HashSet<>(Arrays.asList(1));
+        setB = new HashSet<>(Arrays.asList(2));
+        listA = new ArrayList<>(Arrays.asList(1));
+        listB = new ArrayList<>(Arrays.asList(2));
+        observableMapA = FXCollections.observableMap(new HashMap<>(mapA));
+        observableMapB = FXCollections.observableMap(new HashMap<>(mapB));
+        observableSetA = FXCollections.observableSet(1);
+        observableSetB = FXCollections.observableSet(2);
+        observableListA = FXCollections.observableArrayList(1);
+        observableListB = FXCollections.observableArrayList(2);
+    }
+
+    /**
+     * Returns the model the current invocation works on, in the state measured by the
+     * concrete benchmark.
+     */
+    protected abstract FXObservableModel model();
+
+    private boolean flip() {
+        return flip = !flip;
+    }
+
+    @Benchmark
+    public String getTheString() {
+        return model().getTheString();
+    }
+
+    @Benchmark
+    public void setTheString() {
+        model().setTheString(flip() ? "a" : "b");
+    }
+
+    @Benchmark
+    public StringProperty theStringProperty() {
+        return model().theStringProperty();
+    }
+
+    @Benchmark
+    public boolean isThePrimitiveBoolean() {
+        return model().isThePrimitiveBoolean();
+    }
+
+    @Benchmark
+    public void setThePrimitiveBoolean() {
+        model().setThePrimitiveBoolean(flip() ? true : false);
+    }
+
+    @Benchmark
+    public BooleanProperty thePrimitiveBooleanProperty() {
+        return model().thePrimitiveBooleanProperty();
+    }
+
+    @Benchmark
+    public char getThePrimitiveChar() {
+        return model().getThePrimitiveChar();
+    }
+
+    @Benchmark
+    public void setThePrimitiveChar() {
+        model().setThePrimitiveChar(flip() ? 'a' : 'b');
+    }
+
+    @Benchmark
+    public IntegerProperty thePrimitiveCharProperty() {
+        return model().thePrimitiveCharProperty();
+    }
+
+    @Benchmark
+    public byte getThePrimitiveByte() {
+        return model().getThePrimitiveByte();
+    }
+
+    @Benchmark
+    public void setThePrimitiveByte() {
+        model().setThePrimitiveByte(flip() ? (byte) 1 : (byte) 2);
+    }
+
+    @Benchmark
+    public IntegerProperty thePrimitiveByteProperty() {
+        return model().thePrimitiveByteProperty();
+    }
+
+    @Benchmark
+    public short getThePrimitiveShort() {
+        return model().getThePrimitiveShort();
+    }
+
+    @Benchmark
+    public void setThePrimitiveShort() {
+        model().setThePrimitiveShort(flip() ? (short) 1 : (short) 2);
+    }
+
+    @Benchmark
+    public IntegerProperty thePrimitiveShortProperty() {
+        return model().thePrimitiveShortProperty();
+    }
+
+    @Benchmark
+    public int getThePrimitiveInt() {
+        return model().getThePrimitiveInt();
+    }
+
+    @Benchmark
+    public void setThePrimitiveInt() {
+        model().setThePrimitiveInt(flip() ? 1 : 2);
+    }
+
+    @Benchmark
+    public IntegerProperty thePrimitiveIntProperty() {
+        return model().thePrimitiveIntProperty();
+    }
+
+    @Benchmark
+    public long getThePrimitiveLong() {
+        return model().getThePrimitiveLong();
+    }
+
+    @Benchmark
+    public void setThePrimitiveLong() {
+        model().setThePrimitiveLong(flip() ? 1L : 2L);
+    }
+
+    @Benchmark
+    public LongProperty thePrimitiveLongProperty() {
+        return model().thePrimitiveLongProperty();
+    }
+
+    @Benchmark
+    public float getThePrimitiveFloat() {
+        return model().getThePrimitiveFloat();
+    }
+
+    @Benchmark
+    public void setThePrimitiveFloat() {
+        model().setThePrimitiveFloat(flip() ? 1f : 2f);
+    }
+
+    @Benchmark
+    public FloatProperty thePrimitiveFloatProperty() {
+        return model().thePrimitiveFloatProperty();
+    }
+
+    @Benchmark
+    public double getThePrimitiveDouble() {
+        return model().getThePrimitiveDouble();
+    }
+
+    @Benchmark
+    public void setThePrimitiveDouble() {
+        model().setThePrimitiveDouble(flip() ? 1d : 2d);
+    }
+
+    @Benchmark
+    public DoubleProperty thePrimitiveDoubleProperty() {
+        return model().thePrimitiveDoubleProperty();
+    }
+
+    @Benchmark
+    public Object getTheObject() {
+        return model().getTheObject();
+    }
+
+    @Benchmark
+    public void setTheObject() {
+        model().setTheObject(flip() ? OBJECT_A : OBJECT_B);
+    }
+
+    @Benchmark
+    public ObjectProperty<Object> theObjectProperty() {
+        return model().theObjectProperty();
+    }
+
+    @Benchmark
+    public Boolean getTheBoolean() {
+        return model().getTheBoolean();
+    }
+
+    @Benchmark
+    public void setTheBoolean() {
+        model().setTheBoolean(flip() ? Boolean.TRUE : Boolean.FALSE);
+    }
+
+    @Benchmark
+    public BooleanProperty theBooleanProperty() {
+        return model().theBooleanProperty();
+    }
+
+    @Benchmark
+    public Character getTheCharacter() {
+        return model().getTheCharacter();
+    }
+
+    @Benchmark
+    public void setTheCharacter() {
+        model().setTheCharacter(flip() ? CHARACTER_A : CHARACTER_B);
+    }
+
+    @Benchmark
+    public IntegerProperty theCharacterProperty() {
+        return model().theCharacterProperty();
+    }
+
+    @Benchmark
+    public Byte getTheByte() {
+        return model().getTheByte();
+    }
+
+    @Benchmark
+    public void setTheByte() {
+        model().setTheByte(flip() ? BYTE_A : BYTE_B);
+    }
+
+    @Benchmark
+    public IntegerProperty theByteProperty() {
+        return model().theByteProperty();
+    }
+
+    @Benchmark
+    public Short getTheShort() {
+        return model().getTheShort();
+    }
+
+    @Benchmark
+    public void setTheShort() {
+        model().setTheShort(flip() ? SHORT_A : SHORT_B);
+    }
+
+    @Benchmark
+    public IntegerProperty theShortProperty() {
+        return model().theShortProperty();
+    }
+
+    @Benchmark
+    public Integer getTheInteger() {
+        return model().getTheInteger();
+    }
+
+    @Benchmark
+    public void setTheInteger() {
+        model().setTheInteger(flip() ? INTEGER_A : INTEGER_B);
+    }
+
+    @Benchmark
+    public IntegerProperty theIntegerProperty() {
+        return model().theIntegerProperty();
+    }
+
+    @Benchmark
+    public Long getTheLong() {
+        return model().getTheLong();
+    }
+
+    @Benchmark
+    public void setTheLong() {
+        model().setTheLong(flip() ? LONG_A : LONG_B);
+    }
+
+    @Benchmark
+    public LongProperty theLongProperty() {
+        return model().theLongProperty();
+    }
+
+    @Benchmark
+    public Float getTheFloat() {
+        return model().getTheFloat();
+    }
+
+    @Benchmark
+    public void setTheFloat() {
+        model().setTheFloat(flip() ? FLOAT_A : FLOAT_B);
+    }
+
+    @Benchmark
+    public FloatProperty theFloatProperty() {
+        return model().theFloatProperty();
+    }
+
+    @Benchmark
+    public Double getTheDouble() {
+        return model().getTheDouble();
+    }
+
+    @Benchmark
+    public void setTheDouble() {
+        model().setTheDouble(flip() ? DOUBLE_A : DOUBLE_B);
+    }
+
+    @Benchmark
+    public DoubleProperty theDoubleProperty() {
+        return model().theDoubleProperty();
+    }
+
+    @Benchmark
+    public Map<String, Integer> getTheMap() {
+        return model().getTheMap();
+    }
+
+    @Benchmark
+    public void setTheMap() {
+        model().setTheMap(flip() ? mapA : mapB);
+    }
+
+    @Benchmark
+    public MapProperty<String, Integer> theMapProperty() {
+        return model().theMapProperty();
+    }
+
+    @Benchmark
+    public Set<Integer> getTheSet() {
+        return model().getTheSet();
+    }
+
+    @Benchmark
+    public void setTheSet() {
+        model().setTheSet(flip() ? setA : setB);
+    }
+
+    @Benchmark
+    public SetProperty<Integer> theSetProperty() {
+        return model().theSetProperty();
+    }
+
+    @Benchmark
+    public List<Integer> getTheList() {
+        return model().getTheList();
+    }
+
+    @Benchmark
+    public void setTheList() {
+        model().setTheList(flip() ? listA : listB);
+    }
+
+    @Benchmark
+    public ListProperty<Integer> theListProperty() {
+        return model().theListProperty();
+    }
+
+    @Benchmark
+    public ObservableMap<String, Integer> getTheObservableMap() {
+        return model().getTheObservableMap();
+    }
+
+    @Benchmark
+    public void setTheObservableMap() {
+        model().setTheObservableMap(flip() ? observableMapA : observableMapB);
+    }
+
+    @Benchmark
+    public MapProperty<String, Integer> theObservableMapProperty() {
+        return model().theObservableMapProperty();
+    }
+
+    @Benchmark
+    public ObservableSet<Integer> getTheObservableSet() {
+        return model().getTheObservableSet();
+    }
+
+    @Benchmark
+    public void setTheObservableSet() {
+        model().setTheObservableSet(flip() ? observableSetA : observableSetB);
+    }
+
+    @Benchmark
+    public SetProperty<Integer> theObservableSetProperty() {
+        return model().theObservableSetProperty();
+    }
+
+    @Benchmark
+    public ObservableList<Integer> getTheObservableList() {
+        return model().getTheObservableList();
+    }
+
+    @Benchmark
+    public void setTheObservableList() {
+        model().setTheObservableList(flip() ? observableListA : observableListB);
+    }
+
+    @Benchmark
+    public ListProperty<Integer> theObservableListProperty() {
+        return model().theObservableListProperty();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.benchmarks;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures accessors on models whose properties have never been requested.
+ * <p>
+ * Every invocation works on a fresh model taken from a pool that is filled before each
+ * iteration, so property methods measure materialization rather than returning a property
+ * created by an earlier call. Getters and setters measure the unmaterialized path of the
+ * lazy strategies; with {@code PLAIN} they include the materialization triggered by the
+ * first accessor call. Each iteration times one batch of {@link #POOL_SIZE} invocations,
+ * divide the score by the pool size to get the time per invocation.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20, batchSize = ColdAccessorBenchmark.POOL_SIZE)
+@Measurement(iterations = 20, batchSize = ColdAccessorBenchmark.POOL_SIZE)
+public class ColdAccessorBenchmark extends AbstractAccessorBenchmark {
+    static final int POOL_SIZE = 10000;
+
+    private final FXObservableModel[] pool = new FXObservableModel[POOL_SIZE];
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void createModels() {
+        ModelStrategy modelStrategy = ModelStrategy.valueOf(strategy);
+        for (int i = 0; i < POOL_SIZE; i++) {
+            pool[i] = modelStrategy.create();
+        }
+        next = 0;
+    }
+
+    @Override
+    protected FXObservableModel model() {
+        return pool[next++];
+    }
+}
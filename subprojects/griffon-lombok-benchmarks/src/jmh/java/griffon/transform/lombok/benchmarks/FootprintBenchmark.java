@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of creating a model, both bare and with every property
+ * materialized. Run with {@code -prof gc} to read the bytes allocated per model.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FootprintBenchmark {
+    @Param({"PLAIN", "SHADOW_FIELD", "TYPED_SHADOW_FIELD", "FIELD_BACKED", "PROPERTY_TABLE"})
+    public String strategy;
+
+    private ModelStrategy modelStrategy;
+
+    @Setup
+    public void setup() {
+        modelStrategy = ModelStrategy.valueOf(strategy);
+    }
+
+    @Benchmark
+    public FXObservableModel instantiate() {
+        return modelStrategy.create();
+    }
+
+    @Benchmark
+    public FXObservableModel instantiateAndMaterialize() {
+        FXObservableModel model = modelStrategy.create();
+        model.theStringProperty();
+        model.thePrimitiveBooleanProperty();
+        model.thePrimitiveCharProperty();
+        model.thePrimitiveByteProperty();
+        model.thePrimitiveShortProperty();
+        model.thePrimitiveIntProperty();
+        model.thePrimitiveLongProperty();
+        model.thePrimitiveFloatProperty();
+        model.thePrimitiveDoubleProperty();
+        model.theObjectProperty();
+        model.theBooleanProperty();
+        model.theCharacterProperty();
+        model.theByteProperty();
+        model.theShortProperty();
+        model.theIntegerProperty();
+        model.theLongProperty();
+        model.theFloatProperty();
+        model.theDoubleProperty();
+        model.theMapProperty();
+        model.theSetProperty();
+        model.theListProperty();
+        model.theObservableMapProperty();
+        model.theObservableSetProperty();
+        model.theObservableListProperty();
+        return model;
+    }
+}
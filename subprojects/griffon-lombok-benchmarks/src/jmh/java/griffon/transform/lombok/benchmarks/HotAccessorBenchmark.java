@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.benchmarks;
+
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Measures accessors on models where every property has been materialized and
+ * is observed by a {@code ChangeListener}, as happens when a view binds to it.
+ */
+public class HotAccessorBenchmark extends AbstractAccessorBenchmark {
+    private static final ChangeListener<Object> LISTENER = new ChangeListener<Object>() {
+        @Override
+        public void changed(ObservableValue<?> observable, Object oldValue, Object newValue) {
+            // bound, nothing to do
+        }
+    };
+
+    private FXObservableModel model;
+
+    @Setup(Level.Iteration)
+    public void materializeProperties() {
+        model = ModelStrategy.valueOf(strategy).create();
+        model.theStringProperty().addListener(LISTENER);
+        model.thePrimitiveBooleanProperty().addListener(LISTENER);
+        model.thePrimitiveCharProperty().addListener(LISTENER);
+        model.thePrimitiveByteProperty().addListener(LISTENER);
+        model.thePrimitiveShortProperty().addListener(LISTENER);
+        model.thePrimitiveIntProperty().addListener(LISTENER);
+        model.thePrimitiveLongProperty().addListener(LISTENER);
+        model.thePrimitiveFloatProperty().addListener(LISTENER);
+        model.thePrimitiveDoubleProperty().addListener(LISTENER);
+        model.theObjectProperty().addListener(LISTENER);
+        model.theBooleanProperty().addListener(LISTENER);
+        model.theCharacterProperty().addListener(LISTENER);
+        model.theByteProperty().addListener(LISTENER);
+        model.theShortProperty().addListener(LISTENER);
+        model.theIntegerProperty().addListener(LISTENER);
+        model.theLongProperty().addListener(LISTENER);
+        model.theFloatProperty().addListener(LISTENER);
+        model.theDoubleProperty().addListener(LISTENER);
+        model.theMapProperty().addListener(LISTENER);
+        model.theSetProperty().addListener(LISTENER);
+        model.theListProperty().addListener(LISTENER);
+        model.theObservableMapProperty().addListener(LISTENER);
+        model.theObservableSetProperty().addListener(LISTENER);
+        model.theObservableListProperty().addListener(LISTENER);
+    }
+
+    @Override
+    protected FXObservableModel model() {
+        return model;
+    }
+}
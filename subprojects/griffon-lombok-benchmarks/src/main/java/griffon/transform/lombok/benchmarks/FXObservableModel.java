@@ -0,0 +1,180 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.benchmarks;
+
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.FloatProperty;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.ListProperty;
+import javafx.beans.property.LongProperty;
+import javafx.beans.property.MapProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SetProperty;
+import javafx.beans.property.StringProperty;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableMap;
+import javafx.collections.ObservableSet;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface FXObservableModel {
+    String getTheString();
+
+    void setTheString(String theString);
+
+    StringProperty theStringProperty();
+
+    boolean isThePrimitiveBoolean();
+
+    void setThePrimitiveBoolean(boolean thePrimitiveBoolean);
+
+    BooleanProperty thePrimitiveBooleanProperty();
+
+    char getThePrimitiveChar();
+
+    void setThePrimitiveChar(char thePrimitiveChar);
+
+    IntegerProperty thePrimitiveCharProperty();
+
+    byte getThePrimitiveByte();
+
+    void setThePrimitiveByte(byte thePrimitiveByte);
+
+    IntegerProperty thePrimitiveByteProperty();
+
+    short getThePrimitiveShort();
+
+    void setThePrimitiveShort(short thePrimitiveShort);
+
+    IntegerProperty thePrimitiveShortProperty();
+
+    int getThePrimitiveInt();
+
+    void setThePrimitiveInt(int thePrimitiveInt);
+
+    IntegerProperty thePrimitiveIntProperty();
+
+    long getThePrimitiveLong();
+
+    void setThePrimitiveLong(long thePrimitiveLong);
+
+    LongProperty thePrimitiveLongProperty();
+
+    float getThePrimitiveFloat();
+
+    void setThePrimitiveFloat(float thePrimitiveFloat);
+
+    FloatProperty thePrimitiveFloatProperty();
+
+    double getThePrimitiveDouble();
+
+    void setThePrimitiveDouble(double thePrimitiveDouble);
+
+    DoubleProperty thePrimitiveDoubleProperty();
+
+    Object getTheObject();
+
+    void setTheObject(Object theObject);
+
+    ObjectProperty<Object> theObjectProperty();
+
+    Boolean getTheBoolean();
+
+    void setTheBoolean(Boolean theBoolean);
+
+    BooleanProperty theBooleanProperty();
+
+    Character getTheCharacter();
+
+    void setTheCharacter(Character theCharacter);
+
+    IntegerProperty theCharacterProperty();
+
+    Byte getTheByte();
+
+    void setTheByte(Byte theByte);
+
+    IntegerProperty theByteProperty();
+
+    Short getTheShort();
+
+    void setTheShort(Short theShort);
+
+    IntegerProperty theShortProperty();
+
+    Integer getTheInteger();
+
+    void setTheInteger(Integer theInteger);
+
+    IntegerProperty theIntegerProperty();
+
+    Long getTheLong();
+
+    void setTheLong(Long theLong);
+
+    LongProperty theLongProperty();
+
+    Float getTheFloat();
+
+    void setTheFloat(Float theFloat);
+
+    FloatProperty theFloatProperty();
+
+    Double getTheDouble();
+
+    void setTheDouble(Double theDouble);
+
+    DoubleProperty theDoubleProperty();
+
+    Map<String, Integer> getTheMap();
+
+    void setTheMap(Map<String, Integer> theMap);
+
+    MapProperty<String, Integer> theMapProperty();
+
+    Set<Integer> getTheSet();
+
+    void setTheSet(Set<Integer> theSet);
+
+    SetProperty<Integer> theSetProperty();
+
+    List<Integer> getTheList();
+
+    void setTheList(List<Integer> theList);
+
+    ListProperty<Integer> theListProperty();
+
+    ObservableMap<String, Integer> getTheObservableMap();
+
+    void setTheObservableMap(ObservableMap<String, Integer> theObservableMap);
+
+    MapProperty<String, Integer> theObservableMapProperty();
+
+    ObservableSet<Integer> getTheObservableSet();
+
+    void setTheObservableSet(ObservableSet<Integer> theObservableSet);
+
+    SetProperty<Integer> theObservableSetProperty();
+
+    ObservableList<Integer> getTheObservableList();
+
+    void setTheObservableList(ObservableList<Integer> theObservableList);
+
+    ListProperty<Integer> theObservableListProperty();
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.benchmarks;
+
+public enum ModelStrategy {
+    PLAIN {
+        @Override
+        public FXObservableModel create() {
+            return new PlainModel();
+        }
+    },
+    SHADOW_FIELD {
+        @Override
+        public FXObservableModel create() {
+            return new ShadowFieldModel();
+        }
+    },
+    TYPED_SHADOW_FIELD {
+        @Override
+        public FXObservableModel create() {
+            return new TypedShadowFieldModel();
+        }
+    },
+    FIELD_BACKED {
+        @Override
+        public FXObservableModel create() {
+            return new FieldBackedModel();
+        }
+    },
+    PROPERTY_TABLE {
+        @Override
+        public FXObservableModel create() {
+            return new PropertyTableModel();
+        }
+    };
+
+    public abstract FXObservableModel create();
+}
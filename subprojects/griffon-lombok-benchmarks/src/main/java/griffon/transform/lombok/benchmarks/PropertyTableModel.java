@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.benchmarks;
+
+import griffon.transform.FXObservable;
+import griffon.transform.lombok.FXObservableOptions;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableMap;
+import javafx.collections.ObservableSet;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@FXObservable
+@FXObservableOptions(storage = FXObservableOptions.Storage.PROPERTY_TABLE)
+public class PropertyTableModel implements FXObservableModel {
+    private String theString;
+    private boolean thePrimitiveBoolean;
+    private char thePrimitiveChar;
+    private byte thePrimitiveByte;
+    private short thePrimitiveShort;
+    private int thePrimitiveInt;
+    private long thePrimitiveLong;
+    private float thePrimitiveFloat;
+    private double thePrimitiveDouble;
+    private Object theObject;
+    private Boolean theBoolean;
+    private Character theCharacter;
+    private Byte theByte;
+    private Short theShort;
+    private Integer theInteger;
+    private Long theLong;
+    private Float theFloat;
+    private Double theDouble;
+    private Map<String, Integer> theMap;
+    private Set<Integer> theSet;
+    private List<Integer> theList;
+    private ObservableMap<String, Integer> theObservableMap;
+    private ObservableSet<Integer> theObservableSet;
+    private ObservableList<Integer> theObservableList;
+}
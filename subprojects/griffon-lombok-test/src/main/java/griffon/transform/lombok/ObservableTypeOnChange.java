@@ -0,0 +1,37 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok;
+
+import griffon.transform.Observable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Observable
+@ObservableOptions(onChange = "changed")
+public class ObservableTypeOnChange {
+    private String theString;
+    private int theNativeInt;
+    private final List<String> changes = new ArrayList<>();
+
+    private void changed(Object oldValue, Object newValue) {
+        changes.add(oldValue + "->" + newValue);
+    }
+
+    public List<String> getChanges() {
+        return changes;
+    }
+}
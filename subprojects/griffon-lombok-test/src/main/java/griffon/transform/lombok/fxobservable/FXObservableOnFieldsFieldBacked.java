@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable;
+
+import griffon.transform.FXObservable;
+import griffon.transform.lombok.FXObservableOptions;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableMap;
+import javafx.collections.ObservableSet;
+
+import java.util.*;
+
+public class FXObservableOnFieldsFieldBacked {
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private String theString;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private boolean thePrimitiveBoolean;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private char thePrimitiveChar;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private byte thePrimitiveByte;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private short thePrimitiveShort;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private int thePrimitiveInt;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private long thePrimitiveLong;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private float thePrimitiveFloat;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private double thePrimitiveDouble;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private Object theObject;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private Boolean theBoolean;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private Character theCharacter;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private Byte theByte;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private Short theShort;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private Integer theInteger;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private Long theLong;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private Float theFloat;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private Double theDouble;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private Map<String, Integer> theMap;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private Set<Integer> theSet;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private List<Integer> theList;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private ObservableMap<String, Integer> theObservableMap;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private ObservableSet<Integer> theObservableSet;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private ObservableList<Integer> theObservableList;
+
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private String theStringWithDefault = "42";
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private boolean thePrimitiveBooleanWithDefault = true;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private char thePrimitiveCharWithDefault = 42;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private byte thePrimitiveByteWithDefault = 42;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private short thePrimitiveShortWithDefault = 42;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private int thePrimitiveIntWithDefault = 42;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private long thePrimitiveLongWithDefault = 42L;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private float thePrimitiveFloatWithDefault = 42f;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private double thePrimitiveDoubleWithDefault = 42d;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private Object theObjectWithDefault = Integer.valueOf(42);
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private Boolean theBooleanWithDefault = Boolean.TRUE;
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private Character theCharacterWithDefault = Character.valueOf((char) 42);
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private Byte theByteWithDefault = Byte.valueOf((byte) 42);
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private Short theShortWithDefault = Short.valueOf((short) 42);
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private Integer theIntegerWithDefault = Integer.valueOf(42);
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private Long theLongWithDefault = Long.valueOf(42);
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private Float theFloatWithDefault = Float.valueOf(42);
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private Double theDoubleWithDefault = Double.valueOf(42);
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private Map<String, Integer> theMapWithDefault = new HashMap<>();
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private Set<Integer> theSetWithDefault = new HashSet<>(Arrays.asList(42));
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private List<Integer> theListWithDefault = new ArrayList<>(Arrays.asList(42));
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private ObservableMap<String, Integer> theObservableMapWithDefault = FXCollections.observableHashMap();
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private ObservableSet<Integer> theObservableSetWithDefault = FXCollections.observableSet(42);
+    @FXObservable
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private ObservableList<Integer> theObservableListWithDefault = FXCollections.observableArrayList(42);
+}
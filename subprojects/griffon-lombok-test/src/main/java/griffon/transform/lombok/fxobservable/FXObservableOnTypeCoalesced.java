@@ -0,0 +1,32 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable;
+
+import griffon.transform.FXObservable;
+import griffon.transform.lombok.FXObservableOptions;
+
+import java.util.List;
+
+@FXObservable
+@FXObservableOptions(coalesce = true, dirtyTracking = true)
+public class FXObservableOnTypeCoalesced {
+    private String theString;
+    private int thePrimitiveInt;
+    private double thePrimitiveDouble;
+    private List<Integer> theList;
+    @FXObservableOptions(coalesce = false)
+    private long theImmediateLong;
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable;
+
+import griffon.transform.FXObservable;
+import griffon.transform.lombok.FXObservableOptions;
+
+import java.util.List;
+
+@FXObservable(FXObservable.Strategy.SHADOW_FIELD)
+@FXObservableOptions(compactable = true)
+public class FXObservableOnTypeCompactable {
+    private String theString;
+    private int thePrimitiveInt;
+    private char thePrimitiveChar;
+    private boolean thePrimitiveBoolean;
+    private Double theDouble;
+    private Object theObject;
+    private List<String> theList;
+    @FXObservableOptions(storage = FXObservableOptions.Storage.TYPED_SHADOW_FIELD)
+    private long theTypedLong;
+    @FXObservableOptions(storage = FXObservableOptions.Storage.TYPED_SHADOW_FIELD)
+    private String theTypedString;
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable;
+
+import griffon.transform.FXObservable;
+import griffon.transform.lombok.FXComputed;
+import griffon.transform.lombok.FXObservableOptions;
+
+@FXObservable
+@FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+public class FXObservableOnTypeComputed {
+    private double price;
+    private int quantity;
+    private String name;
+    private boolean discounted;
+    int computations;
+
+    @FXComputed
+    private double computeTotal() {
+        computations++;
+        return getPrice() * getQuantity();
+    }
+
+    @FXComputed
+    private double computeDiscountedTotal() {
+        return isDiscounted() ? getTotal() * 0.5 : getTotal();
+    }
+
+    @FXComputed
+    private boolean computeExpensive() {
+        return totalProperty().get() > 100;
+    }
+
+    @FXComputed
+    String label() {
+        return name + " x" + this.quantity;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable;
+
+import griffon.transform.FXObservable;
+import griffon.transform.lombok.FXObservableOptions;
+
+import java.util.List;
+
+@FXObservable(FXObservable.Strategy.SHADOW_FIELD)
+@FXObservableOptions(binaryState = true)
+public class FXObservableOnTypeShadowFieldBinaryState {
+    private boolean thePrimitiveBoolean;
+    private byte thePrimitiveByte;
+    private short thePrimitiveShort;
+    private char thePrimitiveChar;
+    private int thePrimitiveInt;
+    private long thePrimitiveLong;
+    private float thePrimitiveFloat;
+    private double thePrimitiveDouble;
+    private Boolean theBoolean;
+    private Character theCharacter;
+    private Integer theInteger;
+    private Double theDouble;
+    private String theString;
+    private List<String> theList;
+    @FXObservableOptions(binaryState = false)
+    private String theTransientString;
+}
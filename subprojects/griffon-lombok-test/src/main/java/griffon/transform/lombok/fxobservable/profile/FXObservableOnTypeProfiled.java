@@ -0,0 +1,33 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable.profile;
+
+import griffon.transform.FXObservable;
+import griffon.transform.lombok.FXObservableOptions;
+
+@FXObservable(FXObservable.Strategy.SHADOW_FIELD)
+public class FXObservableOnTypeProfiled {
+    private String theString;
+    private int thePrimitiveInt;
+    @FXObservableOptions(storage = FXObservableOptions.Storage.TYPED_SHADOW_FIELD)
+    private double theTypedDouble;
+    @FXObservableOptions(storage = FXObservableOptions.Storage.FIELD_BACKED)
+    private long theBackedLong;
+    @FXObservableOptions(storage = FXObservableOptions.Storage.PROPERTY_TABLE)
+    private boolean theTableBoolean;
+    @FXObservableOptions(observableArrays = true)
+    private int[] theIntArray;
+}
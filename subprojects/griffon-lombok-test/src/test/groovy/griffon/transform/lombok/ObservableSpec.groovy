@@ -15,18 +15,21 @@
  */
 package griffon.transform.lombok
 
-import spock.lang.Ignore
 import spock.lang.Specification
 import spock.lang.Unroll
 
 import java.beans.PropertyChangeListener
+import java.beans.PropertyChangeListenerProxy
+import java.lang.ref.WeakReference
 import java.lang.reflect.Method
 
-@Ignore("not implemented yet")
 class ObservableSpec extends Specification {
 
     @Unroll
     def "object with @Observable annotation on #target has all methods of class Observable"() {
+        given:
+        PropertyChangeListener listener = Mock()
+
         when:
         def bean = type.newInstance()
 
@@ -42,8 +45,7 @@ class ObservableSpec extends Specification {
         }
 
         when:
-        PropertyChangeListener listener = Mock()
-        bean.addProperyChangeListener("theString", listener)
+        bean.addPropertyChangeListener("theString", listener)
 
         and:
         bean.theString = "test"
@@ -52,7 +54,7 @@ class ObservableSpec extends Specification {
         1 * listener.propertyChange(_)
 
         when:
-        bean.theNativeString = 1
+        bean.theNativeInt = 1
 
         then:
         0 * listener.propertyChange(_)
@@ -62,4 +64,375 @@ class ObservableSpec extends Specification {
         ObservableFields | "member"
         ObservableType   | "class"
     }
+
+    @Unroll
+    def "listener table of #type.simpleName is allocated by the first listener"() {
+        given:
+        def bean = type.newInstance()
+
+        when:
+        bean.theString = "test"
+        bean.removePropertyChangeListener({} as PropertyChangeListener)
+
+        then:
+        bean.@$propertyChangeListeners == null
+        bean.propertyChangeListeners.length == 0
+        bean.theString == "test"
+
+        when:
+        bean.addPropertyChangeListener({} as PropertyChangeListener)
+
+        then:
+        bean.@$propertyChangeListeners != null
+        bean.@$propertyChangeSupport == null
+        bean.propertyChangeListeners.length == 1
+
+        where:
+        type << [ObservableFields, ObservableType]
+    }
+
+    def "onChange callback receives old and new values of changed fields"() {
+        given:
+        def bean = new ObservableTypeOnChange()
+
+        when:
+        bean.theString = "a"
+        bean.theString = "a"
+        bean.theNativeInt = 2
+        bean.theNativeInt = 2
+
+        then:
+        bean.changes == ["null->a", "0->2"]
+    }
+
+    @Unroll
+    def "setting the current value of #propertyName does not fire an event"() {
+        given:
+        PropertyChangeListener listener = Mock()
+        def bean = new ObservableType()
+        bean."$propertyName" = value
+        bean.addPropertyChangeListener(listener)
+
+        when:
+        bean."$propertyName" = value
+
+        then:
+        0 * listener.propertyChange(_)
+
+        when:
+        bean."$propertyName" = otherValue
+
+        then:
+        1 * listener.propertyChange({ it.oldValue == value && it.newValue == otherValue })
+
+        where:
+        propertyName      | value | otherValue
+        "theNativeInt"    | 1     | 2
+        "theNativeLong"   | 1L    | 2L
+        "theNativeFloat"  | 1f    | 2f
+        "theNativeDouble" | 1d    | 2d
+    }
+
+    @Unroll
+    def "floating point #propertyName compares like equals() when set from #value to #otherValue"() {
+        given:
+        PropertyChangeListener listener = Mock()
+        def bean = new ObservableType()
+        bean."$propertyName" = value
+        bean.addPropertyChangeListener(listener)
+
+        when:
+        bean."$propertyName" = otherValue
+
+        then:
+        events * listener.propertyChange(_)
+
+        where:
+        propertyName      | value      | otherValue             | events
+        "theNativeFloat"  | Float.NaN  | Float.NaN              | 0
+        "theNativeFloat"  | 0f         | Math.copySign(0f, -1f) | 1
+        "theNativeDouble" | Double.NaN | Double.NaN             | 0
+        "theNativeDouble" | 0d         | Math.copySign(0d, -1d) | 1
+    }
+
+    def "setters do not fire events for properties nobody listens to"() {
+        given:
+        PropertyChangeListener listener = Mock()
+        def bean = new ObservableType()
+        bean.addPropertyChangeListener("theString", listener)
+
+        when:
+        bean.theNativeInt = 1
+        bean.theString = "test"
+
+        then:
+        1 * listener.propertyChange({ it.propertyName == "theString" })
+        bean.theNativeInt == 1
+    }
+
+    @Unroll
+    def "named listeners of #type.simpleName only receive events of their own property"() {
+        given:
+        PropertyChangeListener stringListener = Mock()
+        PropertyChangeListener intListener = Mock()
+        PropertyChangeListener allListener = Mock()
+        def bean = type.newInstance()
+        bean.addPropertyChangeListener("theString", stringListener)
+        bean.addPropertyChangeListener("theNativeInt", intListener)
+        bean.addPropertyChangeListener(allListener)
+
+        when:
+        bean.theString = "test"
+
+        then:
+        1 * allListener.propertyChange({ it.propertyName == "theString" })
+
+        then:
+        1 * stringListener.propertyChange({ it.propertyName == "theString" && it.newValue == "test" })
+        0 * intListener.propertyChange(_)
+
+        when:
+        bean.removePropertyChangeListener("theString", stringListener)
+        bean.theString = "other"
+
+        then:
+        0 * stringListener.propertyChange(_)
+        1 * allListener.propertyChange(_)
+
+        where:
+        type << [ObservableFields, ObservableType]
+    }
+
+    def "listener lookups report named listeners as proxies"() {
+        given:
+        PropertyChangeListener stringListener = Mock()
+        PropertyChangeListener allListener = Mock()
+        PropertyChangeListener otherListener = Mock()
+        def bean = new ObservableType()
+        bean.addPropertyChangeListener(allListener)
+        bean.addPropertyChangeListener(new PropertyChangeListenerProxy("theString", stringListener))
+        bean.addPropertyChangeListener("somethingElse", otherListener)
+
+        expect:
+        bean.getPropertyChangeListeners("theString") == [stringListener] as PropertyChangeListener[]
+        bean.getPropertyChangeListeners("theNativeInt").length == 0
+        bean.getPropertyChangeListeners("somethingElse") == [otherListener] as PropertyChangeListener[]
+        bean.propertyChangeListeners.length == 3
+        bean.propertyChangeListeners[0] == allListener
+        bean.propertyChangeListeners[1].propertyName == "theString"
+        bean.propertyChangeListeners[1].listener == stringListener
+        bean.@$propertyChangeSupport != null
+
+        when:
+        bean.removePropertyChangeListener(bean.propertyChangeListeners[1])
+
+        then:
+        bean.getPropertyChangeListeners("theString").length == 0
+    }
+
+    @Unroll
+    def "changes of #type.simpleName inside a batch are delivered once per property"() {
+        given:
+        PropertyChangeListener listener = Mock()
+        def bean = type.newInstance()
+        bean.theString = "initial"
+        bean.addPropertyChangeListener(listener)
+
+        when:
+        bean.beginUpdate()
+        bean.theString = "first"
+        bean.theNativeInt = 1
+        bean.theString = "last"
+        bean.theNativeInt = 2
+
+        then:
+        0 * listener.propertyChange(_)
+
+        when:
+        bean.endUpdate()
+
+        then:
+        1 * listener.propertyChange({ it.propertyName == "theString" && it.oldValue == "initial" && it.newValue == "last" })
+        1 * listener.propertyChange({ it.propertyName == "theNativeInt" && it.oldValue == 0 && it.newValue == 2 })
+        0 * listener.propertyChange(_)
+
+        where:
+        type << [ObservableFields, ObservableType]
+    }
+
+    def "nested batches deliver when the outermost one ends"() {
+        given:
+        PropertyChangeListener listener = Mock()
+        def bean = new ObservableType()
+        bean.addPropertyChangeListener("theString", listener)
+
+        when:
+        bean.batch {
+            bean.batch { bean.theString = "inner" }
+            bean.theString = "outer"
+        }
+
+        then:
+        1 * listener.propertyChange({ it.oldValue == null && it.newValue == "outer" })
+    }
+
+    def "changes reverted inside a batch are not delivered"() {
+        given:
+        PropertyChangeListener listener = Mock()
+        def bean = new ObservableType()
+        bean.theString = "initial"
+        bean.addPropertyChangeListener(listener)
+
+        when:
+        bean.batch {
+            bean.theString = "changed"
+            bean.theString = "initial"
+        }
+
+        then:
+        0 * listener.propertyChange(_)
+    }
+
+    def "endUpdate without beginUpdate fails"() {
+        when:
+        new ObservableType().endUpdate()
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    @Unroll
+    def "weak listeners registered for #propertyName are purged once collected"() {
+        given:
+        def bean = new ObservableType()
+        List events = []
+        PropertyChangeListener listener = { events << it.newValue } as PropertyChangeListener
+        WeakReference probe = new WeakReference(listener)
+        register(bean, propertyName, listener)
+
+        when:
+        bean.theString = "first"
+
+        then:
+        events == ["first"]
+        bean.propertyChangeListeners.length == 1
+
+        when:
+        listener = null
+        collect(probe)
+        bean.theString = "second"
+
+        then:
+        events == ["first"]
+        bean.propertyChangeListeners.length == 0
+
+        where:
+        propertyName << [null, "theString"]
+    }
+
+    def "weak listeners can be removed with the listener they wrap"() {
+        given:
+        PropertyChangeListener listener = Mock()
+        def bean = new ObservableType()
+        bean.addWeakPropertyChangeListener(listener)
+        bean.addWeakPropertyChangeListener("theString", listener)
+        bean.addWeakPropertyChangeListener("somethingElse", listener)
+
+        when:
+        bean.removePropertyChangeListener(listener)
+        bean.removePropertyChangeListener("theString", listener)
+        bean.removePropertyChangeListener("somethingElse", listener)
+
+        then:
+        bean.propertyChangeListeners.length == 0
+    }
+
+    def "an observable subclass shares the listeners of its observable superclass"() {
+        given:
+        PropertyChangeListener allListener = Mock()
+        PropertyChangeListener subListener = Mock()
+        def bean = new ObservableSubtype()
+        bean.addPropertyChangeListener(allListener)
+        bean.addPropertyChangeListener("theSubString", subListener)
+
+        when:
+        bean.theString = "inherited"
+        bean.theSubString = "declared"
+        bean.theSubInt = 1
+
+        then:
+        1 * allListener.propertyChange({ it.propertyName == "theString" && it.newValue == "inherited" })
+        1 * allListener.propertyChange({ it.propertyName == "theSubString" && it.newValue == "declared" })
+        1 * allListener.propertyChange({ it.propertyName == "theSubInt" && it.newValue == 1 })
+        1 * subListener.propertyChange({ it.propertyName == "theSubString" })
+        0 * _
+
+        and:
+        bean.propertyChangeListeners.length == 2
+        bean.propertyChangeListeners[1].propertyName == "theSubString"
+        bean.getPropertyChangeListeners("theSubString") == [subListener] as PropertyChangeListener[]
+        bean.getPropertyChangeListeners("theString").length == 0
+    }
+
+    def "a batch on an observable subclass covers inherited and declared properties"() {
+        given:
+        PropertyChangeListener listener = Mock()
+        def bean = new ObservableSubtype()
+        bean.addWeakPropertyChangeListener(listener)
+
+        when:
+        bean.beginUpdate()
+        bean.theString = "first"
+        bean.theSubInt = 1
+        bean.theString = "last"
+        bean.theSubInt = 2
+
+        then:
+        0 * listener.propertyChange(_)
+
+        when:
+        bean.endUpdate()
+
+        then:
+        1 * listener.propertyChange({ it.propertyName == "theString" && it.oldValue == null && it.newValue == "last" })
+        1 * listener.propertyChange({ it.propertyName == "theSubInt" && it.oldValue == 0 && it.newValue == 2 })
+        0 * listener.propertyChange(_)
+    }
+
+    def "properties of an observable subclass can be fired by name and removed"() {
+        given:
+        PropertyChangeListener listener = Mock()
+        def bean = new ObservableSubtype()
+        bean.addPropertyChangeListener("theSubInt", listener)
+
+        when:
+        bean.firePropertyChange("theSubInt", 1, 2)
+
+        then:
+        1 * listener.propertyChange({ it.propertyName == "theSubInt" })
+
+        when:
+        bean.removePropertyChangeListener("theSubInt", listener)
+        bean.theSubInt = 3
+
+        then:
+        0 * listener.propertyChange(_)
+        bean.propertyChangeListeners.length == 0
+    }
+
+    private static void register(bean, String propertyName, PropertyChangeListener listener) {
+        if (propertyName) {
+            bean.addWeakPropertyChangeListener(propertyName, listener)
+        } else {
+            bean.addWeakPropertyChangeListener(listener)
+        }
+    }
+
+    private static void collect(WeakReference probe) {
+        for (int i = 0; i < 50 && probe.get() != null; i++) {
+            System.gc()
+            Thread.sleep(10)
+        }
+        assert probe.get() == null
+    }
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable
+
+import spock.lang.Specification
+
+abstract class AbstractFXObservableBinaryStateSpec<T> extends Specification {
+
+    protected static final Map<String, Object> STATE_VALUES = [
+            thePrimitiveBoolean: true,
+            thePrimitiveByte   : (byte) 12,
+            thePrimitiveShort  : (short) 1234,
+            thePrimitiveChar   : 'x' as char,
+            thePrimitiveInt    : 123456,
+            thePrimitiveLong   : 1234567890123L,
+            thePrimitiveFloat  : 1.5f,
+            thePrimitiveDouble : 2.25d,
+            theBoolean         : Boolean.TRUE,
+            theCharacter       : 'y' as Character,
+            theInteger         : 42,
+            theDouble          : 3.5d,
+            theString          : 'state'
+    ]
+
+    protected T bean
+
+    protected abstract T newBean()
+
+    def setup() {
+        bean = newBean()
+    }
+
+    def "state survives a round trip"() {
+        given:
+        STATE_VALUES.each { name, value -> bean."$name" = value }
+        T restored = newBean()
+
+        when:
+        restored.readState(input(output(bean)))
+
+        then:
+        STATE_VALUES.each { name, value -> assert restored."$name" == value }
+    }
+
+    def "values are written in declaration order without overhead"() {
+        given:
+        STATE_VALUES.each { name, value -> bean."$name" = value }
+        DataInputStream data = input(output(bean))
+
+        expect:
+        data.readBoolean()
+        data.readByte() == 12
+        data.readShort() == 1234
+        data.readChar() == 'x' as char
+        data.readInt() == 123456
+        data.readLong() == 1234567890123L
+        data.readFloat() == 1.5f
+        data.readDouble() == 2.25d
+        data.readBoolean() && data.readBoolean()
+        data.readBoolean() && data.readChar() == 'y' as char
+        data.readBoolean() && data.readInt() == 42
+        data.readBoolean() && data.readDouble() == 3.5d
+        data.readBoolean() && data.readInt() == 5
+        new String(bytes(data, 5), 'UTF-8') == 'state'
+        data.read() == -1
+    }
+
+    def "strings longer than 65535 encoded bytes survive a round trip"() {
+        given:
+        String text = '\u00e9' * 40000
+        bean.theString = text
+        T restored = newBean()
+
+        when:
+        restored.readState(input(output(bean)))
+
+        then:
+        restored.theString == text
+    }
+
+    def "skipped fields are neither written nor restored"() {
+        given:
+        bean.theList = ['a']
+        bean.theTransientString = 'transient'
+        T restored = newBean()
+
+        when:
+        restored.readState(input(output(bean)))
+
+        then:
+        restored.theList.isEmpty()
+        restored.theTransientString == null
+    }
+
+    protected static byte[] output(Object bean) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream()
+        bean.writeState(new DataOutputStream(bytes))
+        bytes.toByteArray()
+    }
+
+    protected static DataInputStream input(byte[] bytes) {
+        new DataInputStream(new ByteArrayInputStream(bytes))
+    }
+
+    private static byte[] bytes(DataInputStream data, int length) {
+        byte[] bytes = new byte[length]
+        data.readFully(bytes)
+        bytes
+    }
+}
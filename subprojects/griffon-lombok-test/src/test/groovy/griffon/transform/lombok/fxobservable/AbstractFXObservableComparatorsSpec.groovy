@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable
+
+import javafx.beans.property.Property
+import spock.lang.Unroll
+
+import java.lang.reflect.Field
+import java.lang.reflect.Modifier
+
+abstract class AbstractFXObservableComparatorsSpec<T> extends AbstractFXObservableSpec<T> {
+
+    protected static final List<String> COMPARABLE_PROPERTIES = [
+            'theString',
+            'thePrimitiveBoolean',
+            'thePrimitiveChar',
+            'thePrimitiveByte',
+            'thePrimitiveShort',
+            'thePrimitiveInt',
+            'thePrimitiveLong',
+            'thePrimitiveFloat',
+            'thePrimitiveDouble',
+            'theBoolean',
+            'theCharacter',
+            'theByte',
+            'theShort',
+            'theInteger',
+            'theLong',
+            'theFloat',
+            'theDouble'
+    ]
+
+    protected abstract T newBean()
+
+    @Unroll
+    def "Object has public static comparator for #propertyName"() {
+        given:
+        Field comparator = bean.class.getDeclaredField(constantName(propertyName))
+
+        expect:
+        comparator.modifiers & Modifier.PUBLIC
+        comparator.modifiers & Modifier.STATIC
+        comparator.type == Comparator
+
+        where:
+        propertyName << COMPARABLE_PROPERTIES
+    }
+
+    @Unroll
+    def "no comparator is generated for #propertyName"() {
+        when:
+        bean.class.getDeclaredField(constantName(propertyName))
+
+        then:
+        thrown(NoSuchFieldException)
+
+        where:
+        propertyName << ['theObject', 'theList', 'theMap', 'theSet']
+    }
+
+    @Unroll
+    def "comparator for #propertyName orders by value"() {
+        given:
+        Comparator comparator = bean.class."${constantName(propertyName)}"
+        T other = newBean()
+        T same = newBean()
+        other."$propertyName" = simpleValue
+        same."$propertyName" = simpleValue
+
+        expect:
+        comparator.compare(bean, other) < 0
+        comparator.compare(other, bean) > 0
+        comparator.compare(other, same) == 0
+
+        where:
+        propertyName << testData.findAll { it.name in COMPARABLE_PROPERTIES }*.name
+        simpleValue << testData.findAll { it.name in COMPARABLE_PROPERTIES }*.simpleValue
+    }
+
+    @Unroll
+    def "comparator for #propertyName does not materialize the property"() {
+        given:
+        Comparator comparator = bean.class."${constantName(propertyName)}"
+        Field field = field(propertyName)
+        field.accessible = true
+
+        when:
+        comparator.compare(bean, newBean())
+
+        then:
+        !(field.get(bean) instanceof Property)
+
+        where:
+        propertyName << COMPARABLE_PROPERTIES
+    }
+
+    protected static String constantName(String propertyName) {
+        propertyName.replaceAll(/([a-z])([A-Z])/, '$1_$2').toUpperCase() + '_COMPARATOR'
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable
+
+import javafx.beans.property.Property
+import javafx.beans.property.SimpleObjectProperty
+import spock.lang.Unroll
+
+import java.lang.reflect.Field
+import java.lang.reflect.Modifier
+
+abstract class AbstractFXObservableFieldBackedSpec<T> extends AbstractFXObservableSpec<T> {
+
+    @Unroll
+    def "Object has private member '#simpleTypeName #propertyName'"() {
+        given:
+        Field field = field(propertyName)
+
+        expect:
+        field.modifiers & Modifier.PRIVATE
+        field.type == simpleType
+
+        where:
+        propertyName << testData*.name
+        simpleType << testData*.simpleType
+        simpleTypeName = simpleType.simpleName
+    }
+
+    @Unroll
+    def "property for #propertyName is an instance of a generated inner class"() {
+        given:
+        Property property = bean."${propertyName}Property"()
+
+        expect:
+        property.getClass().enclosingClass == bean.class
+        property.getClass().simpleName == "\$${propertyName.capitalize()}Property"
+        property.getClass().superclass.simpleName == (Collection.isAssignableFrom(simpleType) || Map.isAssignableFrom(simpleType) ? "${propertyType.simpleName}Base" : propertyType.simpleName)
+        property.getBean().is(bean)
+        property.getName() == propertyName
+
+        where:
+        propertyName << testData*.name
+        propertyType << testData*.propertyType
+        simpleType << testData*.simpleType
+    }
+
+    @Unroll
+    def "property for #propertyName reads and writes the field without keeping a copy of the value"() {
+        given:
+        Field field = field(propertyName)
+        field.accessible = true
+        Property property = bean."${propertyName}Property"()
+        List<String> propertyFields = property.getClass().declaredFields.findAll { !it.synthetic }*.name
+
+        when:
+        field.set(bean, simpleValue.asType(field.type))
+
+        then:
+        property.value == propertyValue
+
+        when:
+        field.set(bean, defaultValue?.asType(field.type))
+        property.value = propertyValue
+
+        then:
+        field.get(bean) == simpleValue
+        propertyFields.sort() == ['$helper', '$listener', '$observable', '$valid']
+
+        where:
+        data << testData.findAll { !Collection.isAssignableFrom(it.simpleType) && !Map.isAssignableFrom(it.simpleType) }
+        propertyName = data.name
+        simpleValue = data.simpleValue
+        defaultValue = data.defaultValue
+        propertyValue = data.propertyValue
+    }
+
+    @Unroll
+    def "using only setter and getter does not create a property instance for #propertyName"() {
+        given:
+        Field field = propertyField(propertyName)
+        field.accessible = true
+
+        when:
+        bean."$propertyName" = simpleValue
+
+        then:
+        bean."$propertyName" == simpleValue
+        field.get(bean) == null
+
+        when:
+        bean."${propertyName}Property"()
+
+        then:
+        field.get(bean) != null
+
+        where:
+        propertyName << testData*.name
+        simpleValue << testData*.simpleValue
+    }
+
+    @Unroll
+    def "setting the property writes through to the field for #propertyName"() {
+        given:
+        Field field = field(propertyName)
+        field.accessible = true
+
+        when:
+        bean."${propertyName}Property"().value = propertyValue
+
+        then:
+        field.get(bean) == simpleValue
+        bean."$propertyName" == simpleValue
+
+        where:
+        propertyName << testData*.name
+        simpleValue << testData*.simpleValue
+        propertyValue << testData*.propertyValue
+    }
+
+    def "getter follows a bound property and the field is updated on unbind"() {
+        given:
+        SimpleObjectProperty<Object> source = new SimpleObjectProperty<>('a')
+        Field field = field('theObject')
+        field.accessible = true
+
+        when:
+        bean.theObjectProperty().bind(source)
+        source.set('b')
+
+        then:
+        bean.theObject == 'b'
+
+        when:
+        bean.theObjectProperty().unbind()
+        source.set('c')
+
+        then:
+        field.get(bean) == 'b'
+        bean.theObject == 'b'
+    }
+
+    protected Field propertyField(String propertyName) {
+        bean.class.getDeclaredField("\$${propertyName}Property")
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable
+
+import com.sun.javafx.application.PlatformImpl
+import com.sun.javafx.tk.Toolkit
+import com.sun.scenario.DelayedRunnable
+import com.sun.scenario.animation.AbstractMasterTimer
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.lang.reflect.Field
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicBoolean
+
+abstract class AbstractFXObservablePulseSpec extends Specification {
+    @Shared Thread fxThread
+    @Shared Queue<Runnable> deferred = new ConcurrentLinkedQueue<Runnable>()
+    @Shared PulseTimer timer
+    @Shared Map<Field, Object> replaced = [:]
+
+    def setupSpec() {
+        // stand in for the FX toolkit: this thread is the FX thread, runLater() tasks
+        // are queued until runDeferred() and pulses are fired by pulse()
+        fxThread = Thread.currentThread()
+        Map<Object, Object> contextMap = [:]
+        Toolkit toolkit = [
+            init          : { true },
+            isFxUserThread: { Thread.currentThread().is(fxThread) },
+            defer         : { Runnable runnable -> deferred.offer(runnable) },
+            getMasterTimer: { timer },
+            getContextMap : { contextMap }
+        ] as Toolkit
+        replace(Toolkit, 'TOOLKIT', toolkit)
+        replace(PlatformImpl, 'initialized', new AtomicBoolean(true))
+        replace(PlatformImpl, 'startupLatch', new CountDownLatch(0))
+        timer = new PulseTimer()
+    }
+
+    def cleanupSpec() {
+        replaced.each { Field field, Object value -> field.set(null, value) }
+    }
+
+    def cleanup() {
+        deferred.clear()
+    }
+
+    protected static void offFxThread(Closure work) {
+        Throwable failure = null
+        Thread thread = new Thread({
+            try {
+                work()
+            } catch (Throwable t) {
+                failure = t
+            }
+        })
+        thread.start()
+        thread.join()
+        if (failure) throw failure
+    }
+
+    protected void runDeferred() {
+        for (Runnable runnable = deferred.poll(); runnable != null; runnable = deferred.poll()) {
+            runnable.run()
+        }
+    }
+
+    private void replace(Class<?> owner, String name, Object value) {
+        Field field = owner.getDeclaredField(name)
+        field.accessible = true
+        replaced[field] = field.get(null)
+        field.set(null, value)
+    }
+
+    static class PulseTimer extends AbstractMasterTimer {
+        PulseTimer() {
+            super(false)
+        }
+
+        void pulse() {
+            timePulseImpl(System.nanoTime())
+        }
+
+        @Override
+        protected void postUpdateAnimationRunnable(DelayedRunnable animationRunnable) {
+        }
+
+        @Override
+        protected int getPulseDuration(int precision) {
+            precision.intdiv(60)
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable
+
+import javafx.beans.InvalidationListener
+import javafx.beans.Observable
+import javafx.beans.property.*
+import javafx.beans.value.ObservableValue
+import javafx.beans.value.WritableValue
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.lang.reflect.Method
+import java.lang.reflect.Modifier
+
+abstract class AbstractFXObservableReadOnlySpec<T> extends Specification {
+
+    protected static final List<Map<String, Object>> READ_ONLY_DATA = [
+            [name: 'theString', simpleType: String, propertyType: ReadOnlyStringProperty, value: 'hello'],
+            [name: 'thePrimitiveInt', simpleType: int, propertyType: ReadOnlyIntegerProperty, value: 42],
+            [name: 'thePrimitiveBoolean', simpleType: boolean, propertyType: ReadOnlyBooleanProperty, value: true],
+            [name: 'theDouble', simpleType: Double, propertyType: ReadOnlyDoubleProperty, value: 3.5d],
+            [name: 'theObject', simpleType: Object, propertyType: ReadOnlyObjectProperty, value: 'object'],
+            [name: 'theList', simpleType: List, propertyType: ReadOnlyListProperty, value: ['a', 'b']],
+            [name: 'theMap', simpleType: Map, propertyType: ReadOnlyMapProperty, value: [a: 1]],
+            [name: 'theTypedLong', simpleType: long, propertyType: ReadOnlyLongProperty, value: 7L]
+    ]
+
+    protected T bean
+
+    protected abstract T newBean()
+
+    def setup() {
+        bean = newBean()
+    }
+
+    @Unroll
+    def "property method of #propertyName exposes a read-only property"() {
+        given:
+        Method method = bean.getClass().getDeclaredMethod("${propertyName}Property")
+        ObservableValue property = method.invoke(bean)
+
+        expect:
+        Modifier.isPublic(method.modifiers)
+        propertyType.isAssignableFrom(method.returnType)
+        !(property instanceof WritableValue)
+        property.getBean().is(bean)
+        property.getName() == propertyName
+
+        where:
+        propertyName << READ_ONLY_DATA*.name
+        propertyType << READ_ONLY_DATA*.propertyType
+    }
+
+    @Unroll
+    def "mutators of #propertyName are private"() {
+        expect:
+        Modifier.isPrivate(bean.getClass().getDeclaredMethod("set${propertyName.capitalize()}", simpleType).modifiers)
+        Modifier.isPrivate(bean.getClass().getDeclaredMethod("\$${propertyName}WritableProperty").modifiers)
+
+        where:
+        propertyName << READ_ONLY_DATA*.name
+        simpleType << READ_ONLY_DATA*.simpleType
+    }
+
+    @Unroll
+    def "bulk mutators of #propertyName are private"() {
+        expect:
+        Modifier.isPrivate(bean.getClass().getDeclaredMethod("setAll${propertyName.capitalize()}", parameterType).modifiers)
+
+        where:
+        propertyName | parameterType
+        'theList'    | Collection
+        'theMap'     | Map
+    }
+
+    @Unroll
+    def "private setter of #propertyName updates the read-only property"() {
+        given:
+        Method setter = bean.getClass().getDeclaredMethod("set${propertyName.capitalize()}", simpleType)
+        setter.accessible = true
+        ObservableValue property = bean."${propertyName}Property"()
+        int invalidations = 0
+        property.addListener({ Observable o -> invalidations++ } as InvalidationListener)
+
+        when:
+        setter.invoke(bean, value)
+
+        then:
+        invalidations == 1
+        property.getValue() == value
+        bean."$propertyName" == value
+
+        where:
+        propertyName << READ_ONLY_DATA*.name
+        simpleType << READ_ONLY_DATA*.simpleType
+        value << READ_ONLY_DATA*.value
+    }
+}
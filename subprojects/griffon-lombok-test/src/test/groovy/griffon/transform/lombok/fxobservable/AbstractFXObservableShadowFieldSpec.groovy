@@ -76,4 +76,40 @@ abstract class AbstractFXObservableShadowFieldSpec<T> extends AbstractFXObservab
         simpleValue << testData*.simpleValue
     }
 
+    @Unroll
+    def "setting an equal value of #propertyName keeps the stored value"() {
+        given:
+        Field field = field(propertyName)
+        field.accessible = true
+        bean."$propertyName" = 'value'
+        Object stored = field.get(bean)
+
+        when:
+        bean."$propertyName" = new String('value')
+
+        then:
+        field.get(bean).is(stored)
+
+        where:
+        propertyName << ['theString', 'theStringWithDefault']
+    }
+
+    @Unroll
+    def "bulk mutators do not create a property instance for #propertyName"() {
+        given:
+        Field field = field(propertyName)
+        field.accessible = true
+
+        when:
+        bean."setAll${propertyName.capitalize()}"(bulkValue(simpleType, [a: 1], [1]))
+        bean."${Map.isAssignableFrom(simpleType) ? 'putAll' : 'addAll'}${propertyName.capitalize()}"(bulkValue(simpleType, [b: 2], [2]))
+
+        then:
+        !(field.get(bean) instanceof Property)
+        bean."$propertyName" == bulkValue(simpleType, [a: 1, b: 2], [1, 2])
+
+        where:
+        propertyName << collectionData*.name
+        simpleType << collectionData*.simpleType
+    }
 }
@@ -15,6 +15,9 @@
  */
 package griffon.transform.lombok.fxobservable
 
+import javafx.beans.InvalidationListener
+import javafx.beans.Observable
+import javafx.beans.binding.Bindings
 import javafx.beans.property.*
 import javafx.collections.FXCollections
 import javafx.collections.ObservableList
@@ -200,6 +203,121 @@ abstract class AbstractFXObservableSpec<T> extends Specification {
         simpleValue << testData*.simpleValue
     }
 
+    @Unroll
+    def "bulk mutators replace and extend the content of #propertyName"() {
+        when:
+        bean."setAll${propertyName.capitalize()}"(first)
+
+        then:
+        bean."$propertyName" == first
+
+        when:
+        bean."${extendPrefix}${propertyName.capitalize()}"(second)
+
+        then:
+        bean."$propertyName" == both
+
+        where:
+        propertyName << collectionData*.name
+        simpleType << collectionData*.simpleType
+        extendPrefix = Map.isAssignableFrom(simpleType) ? 'putAll' : 'addAll'
+        first = bulkValue(simpleType, [a: 1, b: 2], [1, 2])
+        second = bulkValue(simpleType, [c: 3], [2, 3])
+        both = bulkValue(simpleType, [a: 1, b: 2, c: 3], List.isAssignableFrom(simpleType) ? [1, 2, 2, 3] : [1, 2, 3])
+    }
+
+    @Unroll
+    def "bulk mutators notify listeners of the property for #propertyName once"() {
+        given:
+        Property property = bean."${propertyName}Property"()
+        bean."setAll${propertyName.capitalize()}"(bulkValue(simpleType, [a: 1, b: 2], [1, 2]))
+        int notifications = 0
+        property.addListener({ Observable o -> notifications++; property.getValue() } as InvalidationListener)
+
+        when: 'replacing drops one entry, keeps one and adds one'
+        bean."setAll${propertyName.capitalize()}"(bulkValue(simpleType, [b: 2, c: 3], [2, 3]))
+
+        then:
+        notifications == 1
+
+        when:
+        bean."${extendPrefix}${propertyName.capitalize()}"(bulkValue(simpleType, [d: 4, e: 5], [4, 5]))
+
+        then:
+        notifications == 2
+
+        where:
+        propertyName << collectionData*.name
+        simpleType << collectionData*.simpleType
+        extendPrefix = Map.isAssignableFrom(simpleType) ? 'putAll' : 'addAll'
+    }
+
+    @Unroll
+    def "bulk mutators update the list of #propertyName in place"() {
+        given:
+        bean."setAll${propertyName.capitalize()}"([1])
+        Object collection = bean."${propertyName}Property"().get()
+        Object mirror = bindContent(collection)
+
+        when:
+        bean."setAll${propertyName.capitalize()}"([2, 3])
+        bean."addAll${propertyName.capitalize()}"([4])
+
+        then:
+        bean."${propertyName}Property"().get().is(collection)
+        mirror == [2, 3, 4]
+
+        where:
+        propertyName << collectionData.findAll { List.isAssignableFrom(it.simpleType) }*.name
+    }
+
+    @Unroll
+    def "bulk mutators give the property for #propertyName a new collection that content bound to the property follows"() {
+        given:
+        bean."setAll${propertyName.capitalize()}"(bulkValue(simpleType, [a: 1], [1]))
+        Object collection = bean."${propertyName}Property"().get()
+        Object mirror = bindContent(bean."${propertyName}Property"())
+
+        when:
+        bean."setAll${propertyName.capitalize()}"(bulkValue(simpleType, [b: 2, c: 3], [2, 3]))
+        bean."${extendPrefix}${propertyName.capitalize()}"(bulkValue(simpleType, [d: 4], [4]))
+
+        then:
+        !bean."${propertyName}Property"().get().is(collection)
+        mirror == bulkValue(simpleType, [b: 2, c: 3, d: 4], [2, 3, 4])
+
+        where:
+        propertyName << collectionData.findAll { !List.isAssignableFrom(it.simpleType) }*.name
+        simpleType << collectionData.findAll { !List.isAssignableFrom(it.simpleType) }*.simpleType
+        extendPrefix = Map.isAssignableFrom(simpleType) ? 'putAll' : 'addAll'
+    }
+
+    private static Object bindContent(Object collection) {
+        if (collection instanceof ObservableMap) {
+            Map<Object, Object> mirror = [:]
+            Bindings.bindContent(mirror, collection)
+            return mirror
+        }
+        if (collection instanceof ObservableSet) {
+            Set<Object> mirror = [] as Set
+            Bindings.bindContent(mirror, collection)
+            return mirror
+        }
+        List<Object> mirror = []
+        Bindings.bindContent(mirror, (ObservableList) collection)
+        mirror
+    }
+
+    protected static List<Map<String, Object>> getCollectionData() {
+        testData.findAll { Collection.isAssignableFrom(it.simpleType) || Map.isAssignableFrom(it.simpleType) }
+    }
+
+    protected static Object bulkValue(Class<?> simpleType, Map<String, Integer> map, List<Integer> elements) {
+        if (Map.isAssignableFrom(simpleType)) return map
+        if (Set.isAssignableFrom(simpleType)) return elements as Set
+        elements
+    }
+
     protected Method getter(String propertyName, Class<?> simpleType) {
         String getterName = "${simpleType == boolean.class ? 'is' : 'get'}${propertyName.capitalize()}"
         bean.class.getMethod(getterName)
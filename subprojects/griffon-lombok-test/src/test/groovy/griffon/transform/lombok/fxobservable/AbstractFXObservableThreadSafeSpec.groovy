@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable
+
+import javafx.beans.property.Property
+import spock.lang.Unroll
+
+import java.lang.reflect.Field
+import java.lang.reflect.Modifier
+import java.util.concurrent.Callable
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater
+
+abstract class AbstractFXObservableThreadSafeSpec<T> extends AbstractFXObservableSpec<T> {
+
+    @Unroll
+    def "member for #propertyName is volatile and has a static updater"() {
+        given:
+        Field field = field(propertyName)
+        Field updater = bean.class.getDeclaredField("\$${propertyName}Updater")
+
+        expect:
+        field.modifiers & Modifier.VOLATILE
+        updater.type == AtomicReferenceFieldUpdater
+        updater.modifiers & Modifier.STATIC
+
+        where:
+        propertyName << testData*.name
+    }
+
+    @Unroll
+    def "concurrent calls to the property-method for #propertyName publish a single property"() {
+        given:
+        int threads = 8
+        ExecutorService executor = Executors.newFixedThreadPool(threads)
+        CyclicBarrier barrier = new CyclicBarrier(threads)
+        List<Callable<Property>> tasks = (1..threads).collect {
+            { -> barrier.await(); bean."${propertyName}Property"() } as Callable<Property>
+        }
+
+        when:
+        List<Property> properties = executor.invokeAll(tasks)*.get()
+
+        then:
+        properties.every { it.is(properties[0]) }
+        bean."${propertyName}Property"().is(properties[0])
+
+        cleanup:
+        executor.shutdown()
+
+        where:
+        propertyName << testData*.name
+    }
+
+    @Unroll
+    def "a setter racing with the property-method for #propertyName is not lost"() {
+        given:
+        ExecutorService executor = Executors.newFixedThreadPool(2)
+
+        when:
+        // both tasks spin until the other one has started, a barrier wakes them too far apart to overlap
+        List<T> lost = (1..200).findAll {
+            T model = bean.class.newInstance()
+            AtomicInteger started = new AtomicInteger()
+            Future<Property> materialized = executor.submit({ ->
+                started.incrementAndGet()
+                while (started.get() < 2) Thread.yield()
+                model."${propertyName}Property"()
+            } as Callable<Property>)
+            Future<Object> written = executor.submit({ ->
+                started.incrementAndGet()
+                while (started.get() < 2) Thread.yield()
+                model."$propertyName" = simpleValue
+            } as Callable<Object>)
+            written.get()
+            Property property = materialized.get()
+            !property.is(model."${propertyName}Property"()) || property.getValue() != propertyValue || model."$propertyName" != simpleValue
+        }
+
+        then:
+        lost.empty
+
+        cleanup:
+        executor.shutdown()
+
+        where:
+        propertyName << testData*.name
+        simpleValue << testData*.simpleValue
+        propertyValue << testData*.propertyValue
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable
+
+import spock.lang.Unroll
+
+import java.lang.reflect.Field
+import java.lang.reflect.Modifier
+
+abstract class AbstractFXObservableTypedShadowFieldSpec<T> extends AbstractFXObservableSpec<T> {
+
+    @Unroll
+    def "Object has private member '#simpleTypeName #propertyName'"() {
+        given:
+        Field field = field(propertyName)
+
+        expect:
+        field.modifiers & Modifier.PRIVATE
+        field.type == simpleType
+
+        where:
+        propertyName << testData*.name
+        simpleType << testData*.simpleType
+        simpleTypeName = simpleType.simpleName
+    }
+
+    @Unroll
+    def "Object has private property member of type '#propertyTypeName' for #propertyName"() {
+        given:
+        Field field = propertyField(propertyName)
+
+        expect:
+        field.modifiers & Modifier.PRIVATE
+        field.type == propertyType
+
+        where:
+        propertyName << testData*.name
+        propertyType << testData*.propertyType
+        propertyTypeName = propertyType.simpleName
+    }
+
+    @Unroll
+    def "member for #propertyName is lazily instantiated"() {
+        given:
+        Field field = field(propertyName)
+        field.accessible = true
+
+        expect:
+        field.get(bean) == null
+
+        where:
+        propertyName << [
+                'theMapWithDefault',
+                'theSetWithDefault',
+                'theListWithDefault',
+                'theObservableMapWithDefault',
+                'theObservableSetWithDefault',
+                'theObservableListWithDefault'
+        ]
+    }
+
+    @Unroll
+    def "using only setter and getter does not create a property instance for #propertyName"() {
+        given:
+        Field field = propertyField(propertyName)
+        field.accessible = true
+
+        when:
+        bean."$propertyName" = simpleValue
+
+        then:
+        bean."$propertyName" == simpleValue
+        field.get(bean) == null
+
+        when:
+        bean."${propertyName}Property"()
+
+        then:
+        field.get(bean) != null
+
+        where:
+        propertyName << testData*.name
+        simpleValue << testData*.simpleValue
+    }
+
+    @Unroll
+    def "bulk mutators do not create a property instance for #propertyName"() {
+        given:
+        Field field = propertyField(propertyName)
+        field.accessible = true
+
+        when:
+        bean."setAll${propertyName.capitalize()}"(bulkValue(simpleType, [a: 1], [1]))
+        bean."${Map.isAssignableFrom(simpleType) ? 'putAll' : 'addAll'}${propertyName.capitalize()}"(bulkValue(simpleType, [b: 2], [2]))
+
+        then:
+        field.get(bean) == null
+        bean."$propertyName" == bulkValue(simpleType, [a: 1, b: 2], [1, 2])
+
+        where:
+        propertyName << collectionData*.name
+        simpleType << collectionData*.simpleType
+    }
+
+    protected Field propertyField(String propertyName) {
+        bean.class.getDeclaredField("\$${propertyName}Property")
+    }
+}
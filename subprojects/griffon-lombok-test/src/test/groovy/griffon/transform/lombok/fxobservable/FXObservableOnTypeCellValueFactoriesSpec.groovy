@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable
+
+import javafx.scene.control.TableColumn
+import javafx.util.Callback
+import spock.lang.Unroll
+
+import java.lang.reflect.Field
+import java.lang.reflect.Modifier
+
+class FXObservableOnTypeCellValueFactoriesSpec extends AbstractFXObservablePlainSpec<FXObservableOnTypeCellValueFactories> {
+
+    def setup() {
+        bean = new FXObservableOnTypeCellValueFactories()
+    }
+
+    @Unroll
+    def "Object has public static cell value factory #constantName"() {
+        given:
+        Field factory = FXObservableOnTypeCellValueFactories.getDeclaredField(constantName)
+
+        expect:
+        factory.modifiers & Modifier.PUBLIC
+        factory.modifiers & Modifier.STATIC
+        factory.modifiers & Modifier.FINAL
+        factory.type == Callback
+
+        where:
+        propertyName << testData*.name
+        constantName = propertyName.replaceAll(/([a-z])([A-Z])/, '$1_$2').toUpperCase() + '_CELL_VALUE_FACTORY'
+    }
+
+    @Unroll
+    def "cell value factory #constantName returns the property of the row"() {
+        given:
+        Callback factory = FXObservableOnTypeCellValueFactories."$constantName"
+        TableColumn.CellDataFeatures features = new TableColumn.CellDataFeatures(null, null, bean)
+
+        expect:
+        factory.call(features).is(bean."${propertyName}Property"())
+
+        where:
+        propertyName << testData*.name
+        constantName = propertyName.replaceAll(/([a-z])([A-Z])/, '$1_$2').toUpperCase() + '_CELL_VALUE_FACTORY'
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable
+
+import javafx.beans.property.SimpleStringProperty
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.lang.ref.WeakReference
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+class FXObservableOnTypeChangeStreamSpec extends Specification {
+
+    private static final List<Map<String, Object>> PUBLISHED_DATA = [
+            [name: 'theString', value: 'value'],
+            [name: 'thePrimitiveInt', value: 42],
+            [name: 'theTypedDouble', value: 2.5d],
+            [name: 'theBackedLong', value: 7L],
+            [name: 'theTableBoolean', value: true],
+            [name: 'theTrackedString', value: 'tracked']
+    ]
+
+    FXObservableOnTypeChangeStream bean = new FXObservableOnTypeChangeStream()
+
+    def setup() {
+        while (FXObservableOnTypeChangeStream.pollChanged() != null) {}
+    }
+
+    def cleanup() {
+        FXObservableOnTypeChangeStream.setChangeSignal(null)
+    }
+
+    def "new instances have no pending changes"() {
+        expect:
+        FXObservableOnTypeChangeStream.pollChanged() == null
+        bean.drainChanges().isEmpty()
+    }
+
+    @Unroll
+    def "setter of #propertyName publishes the new value without creating the property"() {
+        when:
+        bean."$propertyName" = value
+
+        then:
+        FXObservableOnTypeChangeStream.pollChanged().is(bean)
+        FXObservableOnTypeChangeStream.pollChanged() == null
+        bean.drainChanges() == [(propertyName): value]
+        bean.drainChanges().isEmpty()
+
+        where:
+        propertyName << PUBLISHED_DATA*.name
+        value << PUBLISHED_DATA*.value
+    }
+
+    def "setters do not materialize shadow properties"() {
+        when:
+        bean.theString = 'value'
+
+        then:
+        bean.@theString == 'value'
+    }
+
+    @Unroll
+    def "property changes of #propertyName are published"() {
+        given:
+        def property = bean."${propertyName}Property"()
+
+        when:
+        property.setValue(value)
+
+        then:
+        FXObservableOnTypeChangeStream.pollChanged().is(bean)
+        bean.drainChanges() == [(propertyName): value]
+
+        where:
+        propertyName << PUBLISHED_DATA*.name
+        value << PUBLISHED_DATA*.value
+    }
+
+    def "changes coming from a binding are published"() {
+        given:
+        SimpleStringProperty source = new SimpleStringProperty('first')
+        bean.theStringProperty().bind(source)
+        assert bean.theString == 'first'
+        bean.drainChanges()
+
+        when:
+        source.set('second')
+
+        then:
+        bean.drainChanges() == [theString: 'second']
+    }
+
+    def "setters that throw publish nothing"() {
+        given:
+        bean.theStringProperty().bind(new SimpleStringProperty('bound'))
+        bean.drainChanges()
+        while (FXObservableOnTypeChangeStream.pollChanged() != null) {}
+
+        when:
+        bean.theString = 'value'
+
+        then:
+        thrown(RuntimeException)
+        FXObservableOnTypeChangeStream.pollChanged() == null
+        bean.drainChanges().isEmpty()
+    }
+
+    def "collection and array changes are published"() {
+        when:
+        bean.addAllTheList(['a'])
+        bean.setTheIntArray([1, 2, 3] as int[])
+        bean.setTheIntArray(1, 5)
+        Map<String, Object> changes = bean.drainChanges()
+
+        then:
+        changes.keySet() as List == ['theList', 'theIntArray']
+        changes.theList == ['a']
+        changes.theIntArray == [1, 5, 3] as int[]
+    }
+
+    def "repeated changes coalesce to the latest value and queue the instance once"() {
+        when:
+        bean.theString = 'first'
+        bean.thePrimitiveInt = 1
+        bean.theString = 'second'
+
+        then:
+        FXObservableOnTypeChangeStream.pollChanged().is(bean)
+        FXObservableOnTypeChangeStream.pollChanged() == null
+        bean.drainChanges() == [theString: 'second', thePrimitiveInt: 1]
+    }
+
+    def "instances are queued again after their changes are drained"() {
+        given:
+        FXObservableOnTypeChangeStream other = new FXObservableOnTypeChangeStream()
+
+        when:
+        bean.theString = 'first'
+        other.theString = 'other'
+        bean.drainChanges()
+        bean.theString = 'second'
+
+        then:
+        FXObservableOnTypeChangeStream.pollChanged().is(bean)
+        FXObservableOnTypeChangeStream.pollChanged().is(other)
+        FXObservableOnTypeChangeStream.pollChanged().is(bean)
+        bean.drainChanges() == [theString: 'second']
+    }
+
+    def "the signal runs once per queued instance"() {
+        given:
+        AtomicInteger signals = new AtomicInteger()
+        FXObservableOnTypeChangeStream.setChangeSignal({ signals.incrementAndGet() } as Runnable)
+
+        when:
+        bean.theString = 'first'
+        bean.theString = 'second'
+        bean.thePrimitiveInt = 1
+
+        then:
+        signals.get() == 1
+
+        when:
+        bean.drainChanges()
+        bean.theString = 'third'
+
+        then:
+        signals.get() == 2
+    }
+
+    def "change slots are allocated by the first change"() {
+        expect:
+        bean.@$changeValues == null
+
+        when:
+        bean.theString = 'value'
+
+        then:
+        bean.@$changeValues.length() == 8
+    }
+
+    def "draining releases the published values"() {
+        given:
+        bean.theString = 'value'
+        bean.addAllTheList(['a'])
+
+        when:
+        bean.drainChanges()
+
+        then:
+        (0..<bean.@$changeValues.length()).every { int i -> bean.@$changeValues.get(i) == null }
+    }
+
+    def "null values are published"() {
+        given:
+        bean.theString = 'value'
+        bean.drainChanges()
+
+        when:
+        bean.theString = null
+
+        then:
+        bean.drainChanges() == [theString: null]
+    }
+
+    def "queued instances nobody polls can still be collected"() {
+        given:
+        WeakReference<FXObservableOnTypeChangeStream> reference = publishAndForget()
+
+        when:
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc()
+            Thread.sleep(10)
+        }
+
+        then:
+        reference.get() == null
+        FXObservableOnTypeChangeStream.pollChanged() == null
+    }
+
+    def "unpublished fields are never reported"() {
+        when:
+        bean.theUnpublishedString = 'value'
+
+        then:
+        FXObservableOnTypeChangeStream.pollChanged() == null
+        bean.drainChanges().isEmpty()
+    }
+
+    def "published fields can still be dirty tracked"() {
+        when:
+        bean.theTrackedString = 'value'
+
+        then:
+        bean.dirtyFields() == ['theTrackedString'] as Set
+        bean.drainChanges() == [theTrackedString: 'value']
+    }
+
+    def "concurrent publishers never lose the latest value"() {
+        given:
+        int threads = 4
+        CountDownLatch start = new CountDownLatch(1)
+        def executor = Executors.newFixedThreadPool(threads)
+        List<Callable<Object>> tasks = (0..<threads).collect { int id ->
+            ({ ->
+                start.await()
+                1000.times { bean.setThePrimitiveInt(id) }
+                null
+            } as Callable<Object>)
+        }
+
+        when:
+        def futures = (0..<threads).collect { int i -> executor.submit(tasks[i]) }
+        start.countDown()
+        futures*.get()
+        executor.shutdown()
+
+        then:
+        bean.drainChanges() == [thePrimitiveInt: bean.thePrimitiveInt]
+    }
+
+    private static WeakReference<FXObservableOnTypeChangeStream> publishAndForget() {
+        FXObservableOnTypeChangeStream changed = new FXObservableOnTypeChangeStream()
+        changed.theString = 'value'
+        new WeakReference<FXObservableOnTypeChangeStream>(changed)
+    }
+}
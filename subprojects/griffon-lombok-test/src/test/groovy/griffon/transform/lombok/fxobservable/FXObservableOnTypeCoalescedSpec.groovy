@@ -0,0 +1,214 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable
+
+import javafx.beans.value.ChangeListener
+import javafx.beans.value.ObservableValue
+import spock.lang.Unroll
+
+import java.lang.reflect.Field
+import java.lang.reflect.Modifier
+
+class FXObservableOnTypeCoalescedSpec extends AbstractFXObservablePulseSpec {
+
+    FXObservableOnTypeCoalesced bean = new FXObservableOnTypeCoalesced()
+
+    @Unroll
+    def "#propertyName has a volatile pending value of type #simpleType.simpleName"() {
+        given:
+        Field pending = FXObservableOnTypeCoalesced.getDeclaredField("\$${propertyName}Pending")
+
+        expect:
+        pending.modifiers & Modifier.PRIVATE
+        pending.modifiers & Modifier.VOLATILE
+        pending.type == simpleType
+
+        where:
+        propertyName         | simpleType
+        'theString'          | String
+        'thePrimitiveInt'    | int
+        'thePrimitiveDouble' | double
+        'theList'            | List
+    }
+
+    def "fields opting out are not coalesced"() {
+        when:
+        FXObservableOnTypeCoalesced.getDeclaredField('$theImmediateLongPending')
+
+        then:
+        thrown(NoSuchFieldException)
+    }
+
+    def "pending mask is volatile"() {
+        expect:
+        FXObservableOnTypeCoalesced.getDeclaredField('$pendingMask').modifiers & Modifier.VOLATILE
+    }
+
+    def "flushing applies the latest pending values and notifies listeners once per field"() {
+        given:
+        Map<String, Integer> changes = [:].withDefault { 0 }
+        ['theString', 'thePrimitiveInt', 'thePrimitiveDouble'].each { String name ->
+            bean."${name}Property"().addListener({ ObservableValue o, Object ov, Object nv -> changes[name]++ } as ChangeListener)
+        }
+
+        when:
+        record('theString', 'a', 1L)
+        record('theString', 'b', 1L)
+        record('thePrimitiveInt', 41, 2L)
+        record('thePrimitiveInt', 42, 2L)
+        record('thePrimitiveDouble', 42d, 4L)
+        bean.$flushPending()
+
+        then:
+        bean.theString == 'b'
+        bean.thePrimitiveInt == 42
+        bean.thePrimitiveDouble == 42d
+        changes == [theString: 1, thePrimitiveInt: 1, thePrimitiveDouble: 1]
+        bean.@$pendingMask == 0L
+    }
+
+    def "flushing skips fields without a pending bit"() {
+        given:
+        bean.@$thePrimitiveIntPending = 42
+
+        when:
+        bean.$flushPending()
+
+        then:
+        bean.thePrimitiveInt == 0
+    }
+
+    def "setting on the FX thread applies the value right away"() {
+        when:
+        bean.theString = 'a'
+        bean.thePrimitiveInt = 42
+
+        then:
+        bean.theString == 'a'
+        bean.thePrimitiveInt == 42
+        deferred.empty
+        bean.@$pendingMask == 0L
+    }
+
+    def "setting off the FX thread applies the latest values on the next pulse"() {
+        given:
+        Map<String, Integer> changes = [:].withDefault { 0 }
+        ['theString', 'thePrimitiveInt'].each { String name ->
+            bean."${name}Property"().addListener({ ObservableValue o, Object ov, Object nv -> changes[name]++ } as ChangeListener)
+        }
+
+        when:
+        offFxThread {
+            bean.theString = 'a'
+            bean.theString = 'b'
+            bean.thePrimitiveInt = 41
+            bean.thePrimitiveInt = 42
+        }
+
+        then:
+        deferred.size() == 1
+        bean.theString == null
+        bean.thePrimitiveInt == 0
+
+        when:
+        runDeferred()
+
+        then:
+        bean.theString == null
+
+        when:
+        timer.pulse()
+
+        then:
+        bean.theString == 'b'
+        bean.thePrimitiveInt == 42
+        changes == [theString: 1, thePrimitiveInt: 1]
+        bean.@$pendingMask == 0L
+    }
+
+    def "pending changes of several instances share a single pulse flush"() {
+        given:
+        List<FXObservableOnTypeCoalesced> beans = (1..3).collect { new FXObservableOnTypeCoalesced() }
+
+        when:
+        offFxThread {
+            beans.eachWithIndex { FXObservableOnTypeCoalesced b, int i -> b.thePrimitiveInt = i + 1 }
+        }
+
+        then:
+        deferred.size() == 1
+
+        when:
+        runDeferred()
+        timer.pulse()
+
+        then:
+        beans*.thePrimitiveInt == [1, 2, 3]
+
+        when: 'the flusher stopped once drained, so the next change schedules it again'
+        offFxThread { beans[0].thePrimitiveInt = 4 }
+        runDeferred()
+        timer.pulse()
+
+        then:
+        beans[0].thePrimitiveInt == 4
+    }
+
+    def "setting on the FX thread cancels a value still pending for that field"() {
+        given:
+        List<String> values = []
+        bean.theStringProperty().addListener({ ObservableValue o, String ov, String nv -> values << nv } as ChangeListener)
+
+        when:
+        offFxThread {
+            bean.theString = 'late'
+            bean.thePrimitiveInt = 42
+        }
+        bean.theString = 'now'
+        runDeferred()
+        timer.pulse()
+
+        then:
+        values == ['now']
+        bean.theString == 'now'
+        bean.thePrimitiveInt == 42
+    }
+
+    def "setting off the FX thread marks fields dirty once the value is applied"() {
+        when:
+        offFxThread {
+            bean.theString = 'a'
+            bean.thePrimitiveInt = 42
+        }
+
+        then:
+        !bean.hasDirtyFields()
+
+        when:
+        runDeferred()
+        timer.pulse()
+
+        then:
+        bean.dirtyFields() == ['theString', 'thePrimitiveInt'] as Set
+    }
+
+    private void record(String propertyName, Object value, long bit) {
+        Field pending = FXObservableOnTypeCoalesced.getDeclaredField("\$${propertyName}Pending")
+        pending.accessible = true
+        pending.set(bean, value)
+        bean.@$pendingMask = bean.@$pendingMask | bit
+    }
+}
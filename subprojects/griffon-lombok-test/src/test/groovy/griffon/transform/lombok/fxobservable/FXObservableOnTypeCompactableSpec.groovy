@@ -0,0 +1,154 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable
+
+import javafx.beans.InvalidationListener
+import javafx.beans.Observable
+import javafx.beans.property.Property
+import javafx.beans.property.SimpleStringProperty
+import javafx.beans.value.ChangeListener
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.lang.reflect.Field
+
+class FXObservableOnTypeCompactableSpec extends Specification {
+
+    private static final List<Map<String, Object>> COMPACTABLE_DATA = [
+            [name: 'theString', value: 'value'],
+            [name: 'thePrimitiveInt', value: 42],
+            [name: 'thePrimitiveChar', value: 'c' as char],
+            [name: 'thePrimitiveBoolean', value: true],
+            [name: 'theDouble', value: 2.5d],
+            [name: 'theObject', value: 'object'],
+            [name: 'theTypedLong', value: 7L],
+            [name: 'theTypedString', value: 'typed']
+    ]
+
+    FXObservableOnTypeCompactable bean = new FXObservableOnTypeCompactable()
+
+    @Unroll
+    def "compact collapses idle property #propertyName back to its value"() {
+        given:
+        bean."$propertyName" = value
+        Property property = bean."${propertyName}Property"()
+
+        expect:
+        holdsProperty(propertyName)
+        bean.compact() == 1
+        !holdsProperty(propertyName)
+        bean."$propertyName" == value
+        bean.compact() == 0
+
+        when:
+        Property recreated = bean."${propertyName}Property"()
+
+        then:
+        !recreated.is(property)
+        recreated.getValue() == property.getValue()
+
+        where:
+        propertyName << COMPACTABLE_DATA*.name
+        value << COMPACTABLE_DATA*.value
+    }
+
+    def "compact keeps properties with invalidation listeners"() {
+        given:
+        InvalidationListener listener = { Observable o -> } as InvalidationListener
+        bean.theStringProperty().addListener(listener)
+
+        expect:
+        bean.compact() == 0
+
+        when:
+        bean.theStringProperty().removeListener(listener)
+
+        then:
+        bean.compact() == 1
+    }
+
+    def "compact keeps properties with change listeners"() {
+        given:
+        ChangeListener listener = { o, a, b -> } as ChangeListener
+        bean.theTypedLongProperty().addListener(listener)
+
+        expect:
+        bean.compact() == 0
+
+        when:
+        bean.theTypedLongProperty().removeListener(listener)
+
+        then:
+        bean.compact() == 1
+    }
+
+    def "removing a listener that was never added does not make a property idle"() {
+        given:
+        bean.thePrimitiveIntProperty().addListener({ Observable o -> } as InvalidationListener)
+        bean.thePrimitiveIntProperty().removeListener({ Observable o -> } as InvalidationListener)
+
+        expect:
+        bean.compact() == 0
+    }
+
+    def "compact keeps bound properties"() {
+        given:
+        SimpleStringProperty source = new SimpleStringProperty('source')
+        bean.theStringProperty().bind(source)
+
+        expect:
+        bean.compact() == 0
+
+        when:
+        bean.theStringProperty().unbind()
+
+        then:
+        bean.compact() == 1
+        bean.theString == 'source'
+    }
+
+    def "compact keeps properties others are bound to until they unbind"() {
+        given:
+        SimpleStringProperty target = new SimpleStringProperty()
+        target.bind(bean.theTypedStringProperty())
+
+        expect:
+        bean.compact() == 0
+
+        when:
+        target.unbind()
+
+        then:
+        bean.compact() == 1
+    }
+
+    def "collection properties are never collapsed"() {
+        given:
+        bean.theListProperty()
+
+        expect:
+        bean.compact() == 0
+        bean.@theList instanceof Property
+    }
+
+    private boolean holdsProperty(String propertyName) {
+        Field field = propertyName.startsWith('theTyped') ?
+            FXObservableOnTypeCompactable.getDeclaredField("\$${propertyName}Property") :
+            FXObservableOnTypeCompactable.getDeclaredField(propertyName)
+        field.accessible = true
+        field.get(bean) instanceof Property
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable
+
+import javafx.beans.InvalidationListener
+import javafx.beans.Observable
+import javafx.beans.binding.BooleanBinding
+import javafx.beans.binding.DoubleBinding
+import javafx.beans.binding.StringBinding
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class FXObservableOnTypeComputedSpec extends Specification {
+
+    FXObservableOnTypeComputed bean = new FXObservableOnTypeComputed()
+
+    @Unroll
+    def "computed #propertyName has a binding property and a getter"() {
+        expect:
+        FXObservableOnTypeComputed.getMethod("${propertyName}Property").returnType == bindingType
+        FXObservableOnTypeComputed.getMethod(getterName).returnType == valueType
+
+        where:
+        propertyName    | getterName            | bindingType    | valueType
+        'total'         | 'getTotal'            | DoubleBinding  | double
+        'discountedTotal' | 'getDiscountedTotal' | DoubleBinding | double
+        'expensive'     | 'isExpensive'         | BooleanBinding | boolean
+        'label'         | 'getLabel'            | StringBinding  | String
+    }
+
+    def "bindings are created lazily and cached"() {
+        expect:
+        bean.@$totalBinding == null
+        bean.totalProperty().is(bean.totalProperty())
+    }
+
+    def "values are recomputed only when read after an invalidation"() {
+        given:
+        bean.price = 2d
+        bean.quantity = 3
+
+        expect:
+        bean.computations == 0
+        bean.total == 6d
+        bean.total == 6d
+        bean.computations == 1
+
+        when:
+        bean.price = 4d
+        bean.quantity = 5
+
+        then:
+        bean.computations == 1
+        bean.total == 20d
+        bean.computations == 2
+    }
+
+    def "dependencies notify listeners of the binding"() {
+        given:
+        int invalidations = 0
+        bean.totalProperty().addListener({ Observable o -> invalidations++; bean.total } as InvalidationListener)
+
+        when:
+        bean.quantity = 2
+        bean.price = 3d
+        bean.name = 'unrelated'
+
+        then:
+        invalidations == 2
+    }
+
+    def "computed values may depend on other computed values"() {
+        given:
+        bean.price = 50d
+        bean.quantity = 3
+
+        expect:
+        bean.discountedTotal == 150d
+        bean.expensive
+
+        when:
+        bean.discounted = true
+
+        then:
+        bean.discountedTotal == 75d
+
+        when:
+        bean.quantity = 1
+
+        then:
+        bean.discountedTotal == 25d
+        !bean.expensive
+    }
+
+    def "field reads are resolved as dependencies"() {
+        given:
+        bean.name = 'apple'
+        bean.quantity = 2
+
+        expect:
+        bean.label == 'apple x2'
+
+        when:
+        bean.quantity = 4
+
+        then:
+        bean.label == 'apple x4'
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable
+
+import javafx.beans.property.SimpleStringProperty
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class FXObservableOnTypeDirtyTrackingSpec extends Specification {
+
+    private static final List<Map<String, Object>> TRACKED_DATA = [
+            [name: 'theString', value: 'value', other: 'other'],
+            [name: 'thePrimitiveInt', value: 42, other: 43],
+            [name: 'theTypedDouble', value: 2.5d, other: 3.5d],
+            [name: 'theBackedLong', value: 7L, other: 8L],
+            [name: 'theTableBoolean', value: true, other: false],
+            [name: 'theCompactableString', value: 'compactable', other: 'other']
+    ]
+
+    FXObservableOnTypeDirtyTracking bean = new FXObservableOnTypeDirtyTracking()
+
+    def "new instances are clean and do not allocate the bitset"() {
+        expect:
+        bean.@$dirty == null
+        !bean.hasDirtyFields()
+        bean.dirtyFields().isEmpty()
+        bean.dirtyValues().isEmpty()
+    }
+
+    @Unroll
+    def "setter of #propertyName marks the field as dirty"() {
+        when:
+        bean."$propertyName" = value
+
+        then:
+        bean.hasDirtyFields()
+        bean.dirtyFields() == [propertyName] as Set
+        bean.dirtyValues() == [(propertyName): value]
+
+        where:
+        propertyName << TRACKED_DATA*.name
+        value << TRACKED_DATA*.value
+    }
+
+    @Unroll
+    def "property changes of #propertyName mark the field as dirty"() {
+        given:
+        def property = bean."${propertyName}Property"()
+
+        when:
+        property.setValue(value)
+
+        then:
+        bean.dirtyFields() == [propertyName] as Set
+        bean.dirtyValues() == [(propertyName): value]
+
+        where:
+        propertyName << TRACKED_DATA*.name
+        value << TRACKED_DATA*.value
+    }
+
+    @Unroll
+    def "property changes of #propertyName keep marking the field as dirty without reads in between"() {
+        given:
+        def property = bean."${propertyName}Property"()
+
+        when:
+        property.setValue(value)
+        bean.clearDirty()
+        property.setValue(other)
+
+        then:
+        bean.dirtyFields() == [propertyName] as Set
+
+        where:
+        propertyName << TRACKED_DATA*.name
+        value << TRACKED_DATA*.value
+        other << TRACKED_DATA*.other
+    }
+
+    def "materializing the property of a field backed collection does not mark the field as dirty"() {
+        when:
+        def property = bean.theBackedListProperty()
+
+        then:
+        !bean.hasDirtyFields()
+        property.get().is(bean.theBackedList)
+
+        when:
+        property.add('a')
+
+        then:
+        bean.dirtyFields() == ['theBackedList'] as Set
+    }
+
+    def "changes coming from a binding mark the field as dirty"() {
+        given:
+        SimpleStringProperty source = new SimpleStringProperty('first')
+        bean.theStringProperty().bind(source)
+        assert bean.theString == 'first'
+        bean.clearDirty()
+
+        when:
+        source.set('second')
+
+        then:
+        bean.dirtyValues() == [theString: 'second']
+    }
+
+    def "collection changes mark the field as dirty"() {
+        when:
+        bean.addAllTheList(['a'])
+
+        then:
+        bean.dirtyFields() == ['theList'] as Set
+
+        when:
+        bean.clearDirty()
+        bean.theListProperty().add('b')
+
+        then:
+        bean.dirtyFields() == ['theList'] as Set
+    }
+
+    def "array setters mark the field as dirty"() {
+        when:
+        bean.setTheIntArray([1, 2, 3] as int[])
+        bean.clearDirty()
+        bean.setTheIntArray(1, 5)
+
+        then:
+        bean.dirtyFields() == ['theIntArray'] as Set
+        bean.dirtyValues().theIntArray == [1, 5, 3] as int[]
+    }
+
+    @Unroll
+    def "setting the current value of #propertyName does not mark the field as dirty"() {
+        given:
+        bean."$propertyName" = value
+        bean.clearDirty()
+
+        when:
+        bean."$propertyName" = value
+
+        then:
+        !bean.hasDirtyFields()
+
+        where:
+        propertyName << ['theString', 'thePrimitiveInt', 'theCompactableString']
+        value << ['value', 42, 'compactable']
+    }
+
+    def "untracked fields are never reported"() {
+        when:
+        bean.theUntrackedString = 'value'
+
+        then:
+        !bean.hasDirtyFields()
+    }
+
+    def "fields with options of their own keep the dirtyTracking set on the type"() {
+        when:
+        bean.theTypedDouble = 1d
+        bean.theBackedLong = 1L
+        bean.theTableBoolean = true
+        bean.theCompactableString = 'value'
+        bean.theUntrackedString = 'value'
+
+        then:
+        bean.dirtyFields() == ['theTypedDouble', 'theBackedLong', 'theTableBoolean', 'theCompactableString'] as Set
+    }
+
+    def "dirty fields are reported in declaration order and cleared together"() {
+        when:
+        bean.theTableBoolean = true
+        bean.theString = 'value'
+        bean.theBackedLong = 1L
+
+        then:
+        bean.dirtyFields() as List == ['theString', 'theBackedLong', 'theTableBoolean']
+
+        when:
+        bean.clearDirty()
+
+        then:
+        !bean.hasDirtyFields()
+        bean.dirtyValues().isEmpty()
+    }
+
+    def "tracked properties can still be compacted"() {
+        given:
+        bean.theCompactableStringProperty()
+
+        expect:
+        bean.compact() == 1
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable
+
+import javafx.beans.binding.Bindings
+import javafx.beans.binding.FloatBinding
+import javafx.beans.property.ObjectProperty
+import javafx.collections.ArrayChangeListener
+import javafx.collections.ObservableArray
+import javafx.collections.ObservableFloatArray
+import javafx.collections.ObservableIntegerArray
+import spock.lang.Specification
+
+import java.lang.reflect.Field
+
+class FXObservableOnTypeObservableArraysSpec extends Specification {
+
+    FXObservableOnTypeObservableArrays bean = new FXObservableOnTypeObservableArrays()
+
+    def "array fields are backed by observable arrays"() {
+        expect:
+        FXObservableOnTypeObservableArrays.getDeclaredField('theIntArray').type == ObservableIntegerArray
+        FXObservableOnTypeObservableArrays.getDeclaredField('theFloatArray').type == ObservableFloatArray
+        FXObservableOnTypeObservableArrays.getMethod('theIntArrayProperty').returnType == ObservableIntegerArray
+        FXObservableOnTypeObservableArrays.getMethod('theFloatArrayProperty').returnType == ObservableFloatArray
+        FXObservableOnTypeObservableArrays.getMethod('getTheIntArray').returnType == int[]
+        FXObservableOnTypeObservableArrays.getMethod('getTheFloatArray').returnType == float[]
+    }
+
+    def "observable arrays are initialized lazily"() {
+        given:
+        Field field = FXObservableOnTypeObservableArrays.getDeclaredField('theFloatArray')
+        field.accessible = true
+
+        expect:
+        field.get(bean) == null
+        bean.getTheFloatArray() == [1f, 2f, 3f] as float[]
+        field.get(bean) != null
+        bean.theIntArrayProperty().size() == 0
+    }
+
+    def "getter returns a copy of the array"() {
+        given:
+        float[] values = bean.getTheFloatArray()
+
+        when:
+        values[0] = 42f
+
+        then:
+        bean.getTheFloatArray(0) == 1f
+    }
+
+    def "setter replaces the content of the observable array"() {
+        given:
+        ObservableIntegerArray array = bean.theIntArrayProperty()
+
+        when:
+        bean.setTheIntArray([1, 2, 3] as int[])
+
+        then:
+        bean.theIntArrayProperty().is(array)
+        array.toArray(null) == [1, 2, 3] as int[]
+
+        when:
+        bean.setTheIntArray(null)
+
+        then:
+        array.size() == 0
+    }
+
+    def "element and range setters update the array in place"() {
+        given:
+        bean.setTheIntArray([0, 0, 0, 0, 0] as int[])
+        List<List<Integer>> changes = []
+        bean.theIntArrayProperty().addListener({ ObservableArray array, boolean sizeChanged, int from, int to ->
+            changes << [from, to]
+        } as ArrayChangeListener)
+
+        when:
+        bean.setTheIntArray(1, 7)
+        bean.setTheIntArray(2, [9, 8, 7, 6] as int[], 1, 3)
+
+        then:
+        bean.getTheIntArray() == [0, 7, 8, 7, 6] as int[]
+        bean.getTheIntArray(4) == 6
+        changes == [[1, 2], [2, 5]]
+    }
+
+    def "elements can be bound to"() {
+        given:
+        FloatBinding second = Bindings.floatValueAt(bean.theFloatArrayProperty(), 1)
+
+        when:
+        bean.setTheFloatArray(1, 5f)
+
+        then:
+        second.get() == 5f
+    }
+
+    def "fields with observableArrays disabled keep object properties"() {
+        expect:
+        ObjectProperty.isAssignableFrom(FXObservableOnTypeObservableArrays.getMethod('theObjectIntArrayProperty').returnType)
+        FXObservableOnTypeObservableArrays.getMethod('getTheObjectIntArray').returnType == int[]
+    }
+}
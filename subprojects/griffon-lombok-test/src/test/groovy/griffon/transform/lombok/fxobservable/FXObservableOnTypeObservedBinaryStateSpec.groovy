@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable
+
+import javafx.beans.value.ChangeListener
+import javafx.beans.value.ObservableValue
+
+class FXObservableOnTypeObservedBinaryStateSpec extends AbstractFXObservablePulseSpec {
+
+    FXObservableOnTypeObservedBinaryState bean = new FXObservableOnTypeObservedBinaryState()
+    FXObservableOnTypeObservedBinaryState restored = new FXObservableOnTypeObservedBinaryState()
+
+    def setup() {
+        bean.theString = 'state'
+        bean.thePrimitiveInt = 42
+        bean.theTypedDouble = 2.5d
+        bean.$setTheCoalescedString('coalesced')
+        while (FXObservableOnTypeObservedBinaryState.pollChanged() != null) {}
+    }
+
+    def "restoring state on the FX thread applies every value, coalesced ones right away"() {
+        when:
+        restored.readState(input(output(bean)))
+
+        then:
+        restored.theString == 'state'
+        restored.thePrimitiveInt == 42
+        restored.theTypedDouble == 2.5d
+        restored.theCoalescedString == 'coalesced'
+        restored.@$pendingMask == 0L
+    }
+
+    def "restoring state outside the FX thread applies coalesced values on the next pulse without recording them"() {
+        when:
+        offFxThread { restored.readState(input(output(bean))) }
+
+        then:
+        restored.theString == 'state'
+        restored.theCoalescedString == null
+
+        when:
+        runDeferred()
+        timer.pulse()
+
+        then:
+        restored.theCoalescedString == 'coalesced'
+        !restored.hasDirtyFields()
+        !restored.canUndo()
+        FXObservableOnTypeObservedBinaryState.pollChanged() == null
+        restored.drainChanges().isEmpty()
+        restored.changes.isEmpty()
+    }
+
+    def "setters outside the FX thread after a restore record the value they stage"() {
+        when:
+        offFxThread {
+            restored.readState(input(output(bean)))
+            restored.theCoalescedString = 'set'
+        }
+        runDeferred()
+        timer.pulse()
+
+        then:
+        restored.theCoalescedString == 'set'
+        restored.dirtyFields() == ['theCoalescedString'] as Set
+        restored.drainChanges() == [theCoalescedString: 'set']
+    }
+
+    def "restoring state neither marks fields dirty, journals, publishes nor calls onChange"() {
+        when:
+        restored.readState(input(output(bean)))
+
+        then:
+        !restored.hasDirtyFields()
+        !restored.canUndo()
+        FXObservableOnTypeObservedBinaryState.pollChanged() == null
+        restored.drainChanges().isEmpty()
+        restored.changes.isEmpty()
+    }
+
+    def "restoring state notifies listeners of materialized properties only"() {
+        given:
+        List<Object> values = []
+        restored.theStringProperty().addListener({ ObservableValue o, Object ov, Object nv -> values << nv } as ChangeListener)
+        restored.theTypedDoubleProperty().addListener({ ObservableValue o, Object ov, Object nv -> values << nv } as ChangeListener)
+
+        when:
+        restored.readState(input(output(bean)))
+
+        then:
+        values == ['state', 2.5d]
+        !restored.hasDirtyFields()
+        restored.drainChanges().isEmpty()
+    }
+
+    def "setters record changes again once state is restored"() {
+        given:
+        restored.readState(input(output(bean)))
+
+        when:
+        restored.theString = 'changed'
+
+        then:
+        restored.dirtyFields() == ['theString'] as Set
+        restored.canUndo()
+        restored.drainChanges() == [theString: 'changed']
+        restored.changes == ['state', 'changed']
+    }
+
+    def "a failed restore does not leave setters silenced"() {
+        given:
+        byte[] state = output(bean)
+
+        when:
+        restored.readState(input(Arrays.copyOf(state, state.length - 1)))
+
+        then:
+        thrown(EOFException)
+
+        when:
+        restored.thePrimitiveInt = 7
+
+        then:
+        restored.dirtyFields().contains('thePrimitiveInt')
+    }
+
+    private static byte[] output(Object bean) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream()
+        bean.writeState(new DataOutputStream(bytes))
+        bytes.toByteArray()
+    }
+
+    private static DataInputStream input(byte[] bytes) {
+        new DataInputStream(new ByteArrayInputStream(bytes))
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable
+
+import javafx.beans.property.SimpleStringProperty
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class FXObservableOnTypeOnChangeSpec extends Specification {
+
+    private static final List<Map<String, Object>> OBSERVED_DATA = [
+            [name: 'theString', first: 'first', second: 'second'],
+            [name: 'theInteger', first: 1, second: 2],
+            [name: 'theBackedLong', first: 3L, second: 4L],
+            [name: 'theTableString', first: 'first', second: 'second']
+    ]
+
+    FXObservableOnTypeOnChange bean = new FXObservableOnTypeOnChange()
+
+    @Unroll
+    def "setter of #propertyName calls the callback with the old and new values"() {
+        when:
+        bean."$propertyName" = first
+        bean."$propertyName" = second
+
+        then:
+        bean.changes.drop(2) == [first, second]
+
+        where:
+        propertyName << OBSERVED_DATA*.name
+        first << OBSERVED_DATA*.first
+        second << OBSERVED_DATA*.second
+    }
+
+    def "callbacks run without materializing properties"() {
+        when:
+        bean.theString = 'value'
+        bean.thePrice = 2.5d
+
+        then:
+        bean.changes == [null, 'value']
+        bean.@theString == 'value'
+        bean.@$thePriceProperty == null
+    }
+
+    def "overloaded callbacks are resolved per field type"() {
+        when:
+        bean.thePrice = 2.5d
+        bean.theQuantity = 4
+
+        then:
+        bean.total == 10d
+
+        when:
+        bean.thePrice = 3d
+
+        then:
+        bean.total == 12d
+    }
+
+    def "setting the current value again does not call the callback"() {
+        when:
+        bean.theString = 'value'
+        bean.theString = 'value'
+        bean.theQuantity = 0
+
+        then:
+        bean.changes == [null, 'value']
+        bean.total == 0d
+    }
+
+    def "undo and redo call the callback"() {
+        given:
+        bean.theJournaledString = 'value'
+
+        when:
+        bean.undo()
+        bean.redo()
+
+        then:
+        bean.changes == [null, 'value', 'value', null, null, 'value']
+    }
+
+    def "changes made through the property do not call the callback"() {
+        when:
+        bean.theStringProperty().set('value')
+
+        then:
+        bean.changes.isEmpty()
+    }
+
+    def "initialized collections are created lazily without calling the callback"() {
+        when:
+        List<String> items = bean.theItems
+
+        then:
+        items.isEmpty()
+        bean.theItems.is(items)
+        bean.changes.isEmpty()
+
+        when:
+        bean.theItems = ['value']
+
+        then:
+        bean.changes == [items, ['value']]
+    }
+
+    def "a failing setter neither calls the callback nor records an undo entry"() {
+        given:
+        bean.theJournaledStringProperty().bind(new SimpleStringProperty('bound'))
+
+        when:
+        bean.theJournaledString = 'value'
+
+        then:
+        thrown(RuntimeException)
+        bean.changes.isEmpty()
+        !bean.canUndo()
+    }
+}
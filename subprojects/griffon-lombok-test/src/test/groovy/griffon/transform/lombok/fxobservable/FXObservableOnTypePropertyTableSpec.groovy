@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable
+
+import javafx.beans.property.Property
+import spock.lang.Unroll
+
+import java.lang.reflect.Field
+import java.lang.reflect.Modifier
+
+class FXObservableOnTypePropertyTableSpec extends AbstractFXObservableSpec<FXObservableOnTypePropertyTable> {
+
+    def setup() {
+        bean = new FXObservableOnTypePropertyTable()
+    }
+
+    @Unroll
+    def "Object has private member '#simpleTypeName #propertyName'"() {
+        given:
+        Field field = field(propertyName)
+
+        expect:
+        field.modifiers & Modifier.PRIVATE
+        field.type == simpleType
+
+        where:
+        propertyName << testData*.name
+        simpleType << testData*.simpleType
+        simpleTypeName = simpleType.simpleName
+    }
+
+    def "Object has a single private property table"() {
+        given:
+        Field table = propertyTable()
+
+        expect:
+        table.modifiers & Modifier.PRIVATE
+        table.type == Property[]
+        bean.class.declaredFields.findAll { Property.isAssignableFrom(it.type) }.empty
+    }
+
+    @Unroll
+    def "using only setter and getter does not allocate the property table for #propertyName"() {
+        given:
+        Field table = propertyTable()
+
+        when:
+        bean."$propertyName" = simpleValue
+
+        then:
+        bean."$propertyName" == simpleValue
+        table.get(bean) == null
+
+        where:
+        propertyName << testData*.name
+        simpleValue << testData*.simpleValue
+    }
+
+    @Unroll
+    def "property for #propertyName is stored in its own slot of the table"() {
+        given:
+        Field table = propertyTable()
+
+        when:
+        Property property = bean."${propertyName}Property"()
+        Property[] properties = table.get(bean)
+
+        then:
+        properties.length == testData.size()
+        properties.findAll { it != null } == [property]
+        bean."${propertyName}Property"().is(property)
+
+        where:
+        propertyName << testData*.name
+    }
+
+    private Field propertyTable() {
+        Field table = bean.class.getDeclaredField('$properties')
+        table.accessible = true
+        table
+    }
+}
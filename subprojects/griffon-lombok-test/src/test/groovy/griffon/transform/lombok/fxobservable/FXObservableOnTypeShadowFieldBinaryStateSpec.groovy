@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable
+
+import javafx.beans.property.Property
+
+import java.lang.reflect.Field
+
+class FXObservableOnTypeShadowFieldBinaryStateSpec extends AbstractFXObservableBinaryStateSpec<FXObservableOnTypeShadowFieldBinaryState> {
+    @Override
+    protected FXObservableOnTypeShadowFieldBinaryState newBean() {
+        new FXObservableOnTypeShadowFieldBinaryState()
+    }
+
+    def "unset wrappers and strings survive a round trip"() {
+        given:
+        FXObservableOnTypeShadowFieldBinaryState restored = newBean()
+        restored.theString = 'stale'
+        restored.theInteger = 1
+
+        when:
+        restored.readState(input(output(bean)))
+
+        then:
+        restored.theString == null
+        restored.theInteger == bean.theInteger
+        restored.theBoolean == bean.theBoolean
+    }
+
+    def "writing and reading state does not materialize properties"() {
+        given:
+        STATE_VALUES.each { name, value -> bean."$name" = value }
+        FXObservableOnTypeShadowFieldBinaryState restored = newBean()
+
+        when:
+        restored.readState(input(output(bean)))
+
+        then:
+        [bean, restored].every { instance ->
+            STATE_VALUES.keySet().every { name ->
+                Field field = FXObservableOnTypeShadowFieldBinaryState.getDeclaredField(name)
+                field.accessible = true
+                !(field.get(instance) instanceof Property)
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable
+
+import javafx.beans.InvalidationListener
+import javafx.beans.property.ListProperty
+import javafx.collections.FXCollections
+import javafx.collections.ListChangeListener
+import javafx.collections.ObservableList
+
+class FXObservableOnTypeShadowFieldThreadSafeSpec extends AbstractFXObservableThreadSafeSpec<FXObservableOnTypeShadowFieldThreadSafe> {
+
+    def setup() {
+        bean = new FXObservableOnTypeShadowFieldThreadSafe()
+    }
+
+    def "a setter running while the property-method materializes the property is not lost"() {
+        given:
+        // the property registers a listener on its initial list, which runs the setter on another thread
+        ObservableList<Integer> replacement = FXCollections.observableArrayList(2)
+        RacingObservableList<Integer> initial = new RacingObservableList<>(
+            delegate: FXCollections.observableArrayList(1),
+            race: { Thread.start { bean.theObservableList = replacement }.join() })
+        bean.theObservableList = initial
+
+        when:
+        ListProperty<Integer> property = bean.theObservableListProperty()
+
+        then:
+        initial.raced
+        property.get().is(replacement)
+        bean.theObservableList.is(replacement)
+        bean.theObservableListProperty().is(property)
+    }
+
+}
+
+class RacingObservableList<E> implements ObservableList<E> {
+    @Delegate
+    ObservableList<E> delegate
+    Closure race
+    boolean raced
+
+    void addListener(ListChangeListener<? super E> listener) {
+        delegate.addListener(listener)
+        if (!raced) {
+            raced = true
+            race.call()
+        }
+    }
+
+    void addListener(InvalidationListener listener) {
+        delegate.addListener(listener)
+    }
+}
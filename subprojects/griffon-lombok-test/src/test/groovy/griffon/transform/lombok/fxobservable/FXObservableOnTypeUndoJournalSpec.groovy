@@ -0,0 +1,177 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class FXObservableOnTypeUndoJournalSpec extends Specification {
+
+    private static final List<Map<String, Object>> JOURNALED_DATA = [
+            [name: 'theString', first: 'first', second: 'second'],
+            [name: 'thePrimitiveBoolean', first: true, second: false],
+            [name: 'thePrimitiveChar', first: 'a' as char, second: 'b' as char],
+            [name: 'thePrimitiveInt', first: -1, second: 42],
+            [name: 'thePrimitiveLong', first: Long.MIN_VALUE, second: Long.MAX_VALUE],
+            [name: 'thePrimitiveFloat', first: 1.5f, second: Float.NaN],
+            [name: 'thePrimitiveDouble', first: -2.5d, second: Double.MAX_VALUE],
+            [name: 'theInteger', first: 1, second: 2],
+            [name: 'theTypedDouble', first: 1.25d, second: 2.5d],
+            [name: 'theBackedLong', first: 3L, second: 4L],
+            [name: 'theTableString', first: 'first', second: 'second']
+    ]
+
+    FXObservableOnTypeUndoJournal bean = new FXObservableOnTypeUndoJournal()
+
+    def "new instances have nothing to undo and do not allocate the journal"() {
+        expect:
+        bean.@$undoOrdinals == null
+        !bean.canUndo()
+        !bean.canRedo()
+        !bean.undo()
+        !bean.redo()
+    }
+
+    @Unroll
+    def "changes of #propertyName can be undone and redone"() {
+        given:
+        bean."$propertyName" = first
+        bean."$propertyName" = second
+
+        when:
+        boolean undone = bean.undo()
+
+        then:
+        undone
+        bean."$propertyName" == first
+        bean.canRedo()
+
+        when:
+        boolean redone = bean.redo()
+
+        then:
+        redone
+        bean."$propertyName" == second || (second instanceof Float && bean."$propertyName".isNaN())
+        !bean.canRedo()
+
+        where:
+        propertyName << JOURNALED_DATA*.name
+        first << JOURNALED_DATA*.first
+        second << JOURNALED_DATA*.second
+    }
+
+    def "undo replays changes of different fields in reverse order"() {
+        given:
+        bean.theString = 'value'
+        bean.thePrimitiveInt = 1
+        bean.thePrimitiveInt = 2
+
+        when:
+        3.times { bean.undo() }
+
+        then:
+        bean.theString == null
+        bean.thePrimitiveInt == 0
+        !bean.canUndo()
+    }
+
+    def "setting the current value again is not journaled"() {
+        given:
+        bean.theString = 'value'
+        bean.theString = 'value'
+
+        expect:
+        bean.undo()
+        !bean.undo()
+    }
+
+    def "the journal keeps only the most recent entries"() {
+        given:
+        (1..6).each { bean.thePrimitiveInt = it }
+
+        when:
+        int undone = 0
+        while (bean.undo()) undone++
+
+        then:
+        undone == 4
+        bean.thePrimitiveInt == 2
+        bean.@$undoOrdinals.length == 4
+    }
+
+    def "a new change discards the redo history"() {
+        given:
+        bean.theString = 'first'
+        bean.theString = 'second'
+        bean.undo()
+
+        when:
+        bean.theString = 'third'
+
+        then:
+        !bean.canRedo()
+        bean.undo()
+        bean.theString == 'first'
+    }
+
+    def "replaying does not record new entries"() {
+        given:
+        bean.theString = 'first'
+        bean.undo()
+        bean.redo()
+
+        expect:
+        bean.undo()
+        !bean.canUndo()
+        bean.canRedo()
+    }
+
+    def "collections and excluded fields are not journaled"() {
+        when:
+        bean.theList = ['a']
+        bean.theUnjournaledString = 'value'
+
+        then:
+        !bean.canUndo()
+    }
+
+    def "clearUndo releases the journal"() {
+        given:
+        bean.theString = 'value'
+
+        when:
+        bean.clearUndo()
+
+        then:
+        bean.@$undoOrdinals == null
+        !bean.canUndo()
+        !bean.canRedo()
+        bean.theString == 'value'
+    }
+
+    def "undo notifies property listeners"() {
+        given:
+        List<String> values = []
+        bean.theStringProperty().addListener({ observable, oldValue, newValue -> values << newValue } as javafx.beans.value.ChangeListener)
+        bean.theString = 'value'
+
+        when:
+        bean.undo()
+
+        then:
+        values == ['value', null]
+    }
+}
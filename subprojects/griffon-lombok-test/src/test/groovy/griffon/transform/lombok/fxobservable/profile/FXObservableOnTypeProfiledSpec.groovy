@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package griffon.transform.lombok.fxobservable.profile
+
+import griffon.transform.lombok.FXObservableProfiler
+import griffon.transform.lombok.fxobservable.FXObservableOnTypeDirtyTracking
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import javax.management.ObjectName
+import java.lang.management.ManagementFactory
+
+class FXObservableOnTypeProfiledSpec extends Specification {
+
+    private static final List<Map<String, Object>> PROFILED_DATA = [
+            [name: 'theString', first: 'first', second: 'second'],
+            [name: 'thePrimitiveInt', first: 1, second: 2],
+            [name: 'theTypedDouble', first: 1d, second: 2d],
+            [name: 'theBackedLong', first: 1L, second: 2L],
+            [name: 'theTableBoolean', first: true, second: false]
+    ]
+
+    FXObservableOnTypeProfiled bean = new FXObservableOnTypeProfiled()
+
+    def setup() {
+        FXObservableProfiler.instance.reset()
+    }
+
+    private static FXObservableProfiler.Counters counters(String field) {
+        FXObservableProfiler.counters(FXObservableOnTypeProfiled, field)
+    }
+
+    @Unroll
+    def "setter calls of #propertyName are counted without materializing the property"() {
+        when:
+        bean."$propertyName" = first
+        bean."$propertyName" = second
+
+        then:
+        counters(propertyName).setCalls == 2
+        counters(propertyName).materializations == 0
+        counters(propertyName).changes == 0
+
+        where:
+        propertyName << PROFILED_DATA*.name
+        first << PROFILED_DATA*.first
+        second << PROFILED_DATA*.second
+    }
+
+    @Unroll
+    def "materializations and listener-triggering changes of #propertyName are counted"() {
+        given:
+        def property = bean."${propertyName}Property"()
+        property.addListener({ observable, oldValue, newValue -> } as javafx.beans.value.ChangeListener)
+
+        when:
+        bean."$propertyName" = first
+        bean."$propertyName" = second
+        bean."$propertyName" = second
+
+        then:
+        counters(propertyName).setCalls == 3
+        counters(propertyName).materializations == 1
+        counters(propertyName).changes == 2
+
+        where:
+        propertyName << PROFILED_DATA*.name
+        first << PROFILED_DATA*.first
+        second << PROFILED_DATA*.second
+    }
+
+    def "observable arrays count setter calls and creation"() {
+        when:
+        bean.setTheIntArray([1, 2] as int[])
+        bean.setTheIntArray(0, 3)
+
+        then:
+        counters('theIntArray').setCalls == 2
+        counters('theIntArray').materializations == 1
+    }
+
+    def "setter calls from concurrent threads are all counted"() {
+        given:
+        List<FXObservableOnTypeProfiled> beans = (1..8).collect { new FXObservableOnTypeProfiled() }
+
+        when:
+        List<Thread> threads = beans.collect { FXObservableOnTypeProfiled target ->
+            Thread.start {
+                for (int i = 0; i < 10000; i++) {
+                    target.thePrimitiveInt = i
+                }
+            }
+        }
+        threads*.join()
+
+        then:
+        counters('thePrimitiveInt').setCalls == 80000
+    }
+
+    def "counters are exposed through JMX"() {
+        given:
+        bean.theString = 'value'
+        def server = ManagementFactory.platformMBeanServer
+        def name = new ObjectName(FXObservableProfiler.OBJECT_NAME)
+
+        expect:
+        server.isRegistered(name)
+        server.getAttribute(name, 'SetCalls').get(['griffon.transform.lombok.fxobservable.profile.FXObservableOnTypeProfiled.theString'] as Object[]).value == 1L
+    }
+
+    def "classes compiled without the flag are not profiled"() {
+        expect:
+        !FXObservableOnTypeDirtyTracking.declaredFields*.name.any { it.endsWith('Counters') }
+        FXObservableProfiler.instance.setCalls.keySet().every { it.startsWith(FXObservableOnTypeProfiled.name) }
+    }
+}